@@ -1,9 +1,12 @@
 package com.github.lapesd.hdtss;
 
+import com.github.lapesd.hdtss.data.load.HDTLoaderUtil;
 import com.github.lapesd.hdtss.model.FlowType;
+import io.micronaut.context.ApplicationContext;
 import io.micronaut.http.server.HttpServerConfiguration;
 import io.micronaut.runtime.Micronaut;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.rdfhdt.hdt.hdt.HDT;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
@@ -43,6 +46,25 @@ public class PicocliApplication implements Callable<Void> {
             " property hdt.load.mmap is not set elsewhere, defaults to true.")
     Boolean mmapHDT = null;
 
+    @Option(names = {"--hdt-range-index"}, negatable = true, description = "Whether to " +
+            "keep the numeric and date/time literals sorted by value, in a .ranges.v2 sidecar, " +
+            "so that FILTERs comparing them with constants only visit matching triples. " +
+            "Requires --hdt-indexed. If omitted and the property hdt.load.range-index is not " +
+            "set elsewhere, defaults to false.")
+    Boolean rangeIndex = null;
+
+    @Option(names = {"--hdt-text-index"}, negatable = true, description = "Whether to " +
+            "map a .text.v2 sidecar with the literals containing each trigram, so that " +
+            "CONTAINS and REGEX FILTERs only visit triples with candidate literals. " +
+            "Requires --hdt-indexed. If omitted and the property hdt.load.text-index is not " +
+            "set elsewhere, defaults to false.")
+    Boolean textIndex = null;
+
+    @Option(names = {"--index-only"}, description = "Create the sidecar files of HDT_FILE " +
+            "enabled by --hdt-indexed, --hdt-range-index and --hdt-text-index, if missing or " +
+            "stale, and exit without starting the SPARQL endpoint.")
+    boolean indexOnly = false;
+
     @Option(names = {"--hdt-log-load"}, negatable = true, description = "Log the progress of " +
             "loading HDT files. If omitted and the property hdt.load.progress.impl is not set" +
             " elsewhere, defaults to true.")
@@ -114,12 +136,16 @@ public class PicocliApplication implements Callable<Void> {
     ReactiveOperators reactiveOperators = null;
 
     enum Join {
-        BIND
+        BIND,
+        HASH
     }
 
     @Option(names = "--join", description = "Implementation strategy for joins and OPTIONALs. " +
             "BIND consists in serially binding the right-hand operand with the solutions " +
-            "obtained from the left operand. If omitted and sparql.join.strategy is not set " +
+            "obtained from the left operand. HASH lets the optimizer choose, for each join, " +
+            "between BIND and evaluating all operands independently, joining their solutions " +
+            "in a hash table (or merging scans already sorted on the join variable). " +
+            "If omitted and sparql.join.strategy is not set " +
             "elsewhere, defaults to BIND")
     Join join = null;
 
@@ -168,6 +194,10 @@ public class PicocliApplication implements Callable<Void> {
             args.add("-hdt.load.native="+nativeHDT);
         if (mmapHDT != null)
             args.add("-hdt.load.mmap="+mmapHDT);
+        if (rangeIndex != null)
+            args.add("-hdt.load.range-index="+rangeIndex);
+        if (textIndex != null)
+            args.add("-hdt.load.text-index="+textIndex);
         if (logHDTLoad != null)
             args.add("-hdt.load.progress.impl="+(logHDTLoad ? "log" : "none"));
         if (logHDTLoadInterval != null)
@@ -183,7 +213,7 @@ public class PicocliApplication implements Callable<Void> {
                 args.add("-sparql."+name+".flow="+reactiveOperators.flowType());
         }
         if (join != null)
-            args.add("sparql.join.strategy="+join);
+            args.add("-sparql.join.strategy="+join);
         if (joinReorder != null)
             args.add("-sparql.join.reorder="+joinReorder);
         if (distinct != null)
@@ -194,10 +224,23 @@ public class PicocliApplication implements Callable<Void> {
         args.add("-hdt.location="+hdtFile.getAbsolutePath());
 
         String[] argsArray = args.toArray(String[]::new);
-        Micronaut.run(PicocliApplication.class, argsArray);
+        if (indexOnly)
+            index(argsArray);
+        else
+            Micronaut.run(PicocliApplication.class, argsArray);
         return null;
     }
 
+    private static void index(String @NonNull[] args) throws IOException {
+        try (var ctx = ApplicationContext.builder().args(args).start()) {
+            HDTLoaderUtil loader = ctx.getBean(HDTLoaderUtil.class);
+            try (HDT hdt = loader.load()) {
+                loader.loadRangeIndex(hdt);
+                loader.loadTextIndex(hdt);
+            }
+        }
+    }
+
     private void checkHdtFile() throws IOException {
         if (!hdtFile.exists())
             throw new IOException("HDT File "+hdtFile+" does not exist");
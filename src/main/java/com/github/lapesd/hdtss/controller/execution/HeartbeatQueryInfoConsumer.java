@@ -1,6 +1,7 @@
 package com.github.lapesd.hdtss.controller.execution;
 
 
+import com.github.lapesd.hdtss.utils.CacheStats;
 import com.github.lapesd.hdtss.utils.LogUtils;
 import io.micronaut.context.annotation.Property;
 import io.micronaut.scheduling.annotation.Scheduled;
@@ -8,6 +9,8 @@ import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.event.Level;
 
+import java.util.List;
+
 import static java.lang.String.format;
 
 @Slf4j
@@ -15,15 +18,21 @@ public class HeartbeatQueryInfoConsumer implements QueryInfoConsumer {
     private final @NonNull Level level;
     private final @NonNull String tableFormat;
     private final @NonNull String periodString;
+    private final @NonNull List<@NonNull CacheStats> caches;
+    private final long[] lastCacheHits, lastCacheMisses;
 
     public HeartbeatQueryInfoConsumer(@Property(name = "sparql.heartbeat.level", defaultValue = "INFO")
                                       @NonNull Level level,
                                       @Property(name = "sparql.endpoint.flow", defaultValue = "CHUNKED")
                                       @NonNull String flowType,
                                       @Property(name = "sparql.heartbeat.period", defaultValue = "1m")
-                                      @NonNull String periodString) {
+                                      @NonNull String periodString,
+                                      @NonNull List<@NonNull CacheStats> caches) {
         this.level = level;
         this.periodString = periodString;
+        this.caches = caches;
+        this.lastCacheHits = new long[caches.size()];
+        this.lastCacheMisses = new long[caches.size()];
         String fmt = """
                 Metrics updated for %d new queries
                                                |         Avg. ms (serialization timed)
@@ -36,6 +45,12 @@ public class HeartbeatQueryInfoConsumer implements QueryInfoConsumer {
     }
 
     private static final double NS_IN_MS = 1000000.0;
+    private static final long MiB = 1024*1024;
+    private static final @NonNull String CACHES_HEADER = """
+            
+                                 |  #Hits  | #Misses | Hit %  |   MiB
+            ---------------------|---------|---------|--------|---------""";
+    private static final @NonNull String CACHES_ROW = "\n %-19s | %7d | %7d | %6.2f | %7.1f";
 
     private long nQueries = 0, lastNQueries = -1, nErrors, nCancels;
     private double avgQueryLen = 0;
@@ -57,8 +72,26 @@ public class HeartbeatQueryInfoConsumer implements QueryInfoConsumer {
             lastNQueries = nQueries;
             LogUtils.log(log, level, format(tableFormat, newQueries, nQueries, nErrors, nCancels,
                     avgRows, avgParse / NS_IN_MS, avgOptimize / NS_IN_MS,
-                    avgDispatch / NS_IN_MS, avgTotal / NS_IN_MS));
+                    avgDispatch / NS_IN_MS, avgTotal / NS_IN_MS) + cachesTable());
+        }
+    }
+
+    private @NonNull String cachesTable() {
+        StringBuilder b = new StringBuilder();
+        for (int i = 0; i < caches.size(); i++) {
+            CacheStats c = caches.get(i);
+            long hits = c.hits(), misses = c.misses();
+            long newHits = hits - lastCacheHits[i], newMisses = misses - lastCacheMisses[i];
+            lastCacheHits[i] = hits;
+            lastCacheMisses[i] = misses;
+            if (newHits + newMisses == 0)
+                continue;
+            if (b.isEmpty())
+                b.append(CACHES_HEADER);
+            b.append(format(CACHES_ROW, c.cacheName(), newHits, newMisses,
+                            100.0*newHits/(newHits+newMisses), c.bytes()/(double)MiB));
         }
+        return b.toString();
     }
 
     @Override public void accept(@NonNull QueryInfo info) {
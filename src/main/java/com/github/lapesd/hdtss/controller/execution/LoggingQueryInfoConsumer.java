@@ -25,11 +25,13 @@ public class LoggingQueryInfoConsumer implements QueryInfoConsumer {
                       info.rows(), info.parseMs(), info.dispatchMs(), info.optimizeMs(),
                       info.indentedSparql(4));
         } else {
-            String fmt = "Query {}: {} {} rows in {}ms, parse={}ms, dispatch={}ms, optimize={}ms, sparql=\n{}";
+            String fmt = "Query {}: {} {} rows in {}ms, parse={}ms, dispatch={}ms, optimize={}ms, " +
+                         "memo hits={}/{}, sparql=\n{}";
             LogUtils.log(log, logQueries ? Level.INFO : Level.DEBUG, fmt,
                          info.id(), info.cancelled() ? "cancelled after" : "completed with",
                          info.rows(), info.totalMs(), info.parseMs(), info.dispatchMs(),
-                         info.optimizeMs(), info.indentedSparql(4));
+                         info.optimizeMs(), info.memoHits(), info.memoHits()+info.memoMisses(),
+                         info.indentedSparql(4));
         }
     }
 }
@@ -0,0 +1,399 @@
+package com.github.lapesd.hdtss.controller.execution;
+
+import com.github.lapesd.hdtss.model.Term;
+import com.github.lapesd.hdtss.model.nodes.*;
+import com.github.lapesd.hdtss.utils.Binding;
+import com.github.lapesd.hdtss.utils.CacheStats;
+import com.github.lapesd.hdtss.vocab.RDF;
+import com.github.lapesd.hdtss.vocab.XSD;
+import io.micronaut.context.annotation.Property;
+import jakarta.inject.Singleton;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A process-wide cache of optimized plans, keyed by query shape.
+ *
+ * The shape of a query is its {@link ResponseCache#normalize(CharSequence) normalized}
+ * text with every IRI, prefixed name, literal and the {@code a} keyword replaced by a
+ * numbered slot (equal terms share a slot). When a plan is stored, each slot whose term
+ * only occurs in triple patterns of the optimized plan becomes a parameter: it is replaced
+ * by a variable that is bound to the term at the same slot of later queries with the same
+ * shape. Other slots (e.g., terms in {@code FILTER}s, {@code VALUES} or {@code LIMIT}) must
+ * hold the same terms for the plan to be reused.
+ *
+ * A reused plan skips parsing and optimization. Since join order and join strategies were
+ * chosen for the terms of the first query, the reused plan is correct but may differ from
+ * the plan that the optimizer would produce for the new terms.
+ */
+@Singleton
+public class PlanCache implements CacheStats {
+    /** Prefix of the variables that replace parameter slots in stored plans */
+    private static final @NonNull String SLOT_VAR = "hdtssSlot";
+    /** Estimated bytes used by an entry, excluding the shape */
+    private static final int ENTRY_OVERHEAD = 512;
+    private static final @NonNull Pattern PREFIXED_NAME
+            = Pattern.compile("([A-Za-z][\\w.\\-]*)?:([\\w\\-%:](?:[\\w.\\-%:]*[\\w\\-%:])?)?");
+    private static final @NonNull Pattern LANG = Pattern.compile("@[A-Za-z]+(?:-[A-Za-z0-9]+)*");
+    private static final @NonNull Pattern NUMBER = Pattern.compile(
+            "[+-]?(?:(\\d+\\.?\\d*[eE][+-]?\\d+|\\.\\d+[eE][+-]?\\d+)|(\\d*\\.\\d+)|(\\d+))");
+    private static final @NonNull Pattern WORD = Pattern.compile("\\w+");
+    private static final @NonNull Pattern SLICE
+            = Pattern.compile("(?i)(?:^|\\W)(?:LIMIT|OFFSET) ?$");
+    /** Terms that may be implied by syntax other than their slot (e.g., collections) */
+    private static final @NonNull Set<Term> NEVER_PARAMETER
+            = Set.of(RDF.firstTerm, RDF.restTerm, RDF.nilTerm);
+
+    private final int maxEntries;
+    private final @NonNull LinkedHashMap<String, Entry> map
+            = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytes;
+    private final LongAdder hits = new LongAdder(), misses = new LongAdder();
+
+    /**
+     * The shape of a query.
+     *
+     * @param key the normalized query text with slot markers
+     * @param terms the term at each slot
+     */
+    public record Shape(@NonNull String key, @NonNull List<@NonNull Term> terms) { }
+
+    /**
+     * A stored plan.
+     *
+     * @param template the optimized plan with parameter slots replaced by variables
+     * @param parameters whether each slot is a parameter
+     * @param terms the terms of the query whose plan was stored
+     */
+    private record Entry(@NonNull Op template, boolean @NonNull[] parameters,
+                         @NonNull List<@NonNull Term> terms) { }
+
+    public PlanCache(@Property(name = "sparql.plan-cache.enabled", defaultValue = "true")
+                     boolean enabled,
+                     @Property(name = "sparql.plan-cache.max-entries", defaultValue = "1024")
+                     int maxEntries) {
+        this.maxEntries = enabled ? Math.max(0, maxEntries) : 0;
+    }
+
+    /** Whether this cache is enabled. If false, {@link #shape(CharSequence)} is null */
+    public boolean isEnabled() {
+        return maxEntries > 0;
+    }
+
+    private static @NonNull String slotVar(int slot) {
+        return SLOT_VAR + slot;
+    }
+
+    /**
+     * Compute the shape of a query.
+     *
+     * @return the {@link Shape} or null if this cache is disabled or the query cannot be
+     *         cached (e.g., it has a {@code BASE} or an undeclared prefix).
+     */
+    public @Nullable Shape shape(@NonNull CharSequence sparql) {
+        if (!isEnabled())
+            return null;
+        String normalized = ResponseCache.normalize(sparql);
+        if (normalized.contains(SLOT_VAR))
+            return null;
+        Map<String, String> prefixes = new HashMap<>();
+        Matcher m = ResponseCache.PREFIX.matcher(normalized);
+        int start = 0;
+        while (m.region(start, normalized.length()).lookingAt()) {
+            prefixes.put(m.group(1), m.group(2));
+            start = m.end();
+        }
+        if (normalized.regionMatches(true, start, "BASE", 0, 4))
+            return null;
+        return new Lexer(normalized, start, prefixes).run();
+    }
+
+    /** Splits the query body into slots and verbatim text. */
+    private static final class Lexer {
+        private final @NonNull String text;
+        private final @NonNull Map<String, String> prefixes;
+        private final @NonNull StringBuilder key;
+        private final @NonNull List<@NonNull Term> terms = new ArrayList<>();
+        private int pos;
+
+        Lexer(@NonNull String text, int bodyStart, @NonNull Map<String, String> prefixes) {
+            this.text = text;
+            this.prefixes = prefixes;
+            this.key = new StringBuilder(text.length()).append(text, 0, bodyStart);
+            this.pos = bodyStart;
+        }
+
+        @Nullable Shape run() {
+            for (int len = text.length(); pos < len; ) {
+                char c = text.charAt(pos);
+                if (c == '?' || c == '$') {
+                    int end = pos+1;
+                    while (end < len && Character.isLetterOrDigit(text.charAt(end))
+                                     || end < len && text.charAt(end) == '_') ++end;
+                    verbatim(end);
+                } else if (c == '<') {
+                    int end = ResponseCache.iriEnd(text, pos);
+                    String iri = end > pos ? text.substring(pos+1, end) : "";
+                    if (iri.indexOf(':') > 0 && !isCall(end+1))
+                        slot(Term.fromURI(iri), end+1);
+                    else
+                        verbatim(end+1);
+                } else if (c == '"' || c == '\'') {
+                    literal(c);
+                } else if (isNumberStart(pos)
+                        || ((c == '+' || c == '-') && isNumberStart(pos+1))) {
+                    number(); // the sign belongs to the literal, as in SPARQL tokens
+                } else if (c == '_' && pos+1 < len && text.charAt(pos+1) == ':') {
+                    Matcher m = WORD.matcher(text).region(pos+2, len);
+                    verbatim(m.lookingAt() ? m.end() : pos+2); // blank node label
+                } else if (Character.isLetter(c) || c == ':') {
+                    if (!prefixedName()) {
+                        Matcher m = WORD.matcher(text).region(pos, len);
+                        int end = m.lookingAt() ? m.end() : pos+1;
+                        switch (text.substring(pos, end)) {
+                            case "a"     -> slot(RDF.typeTerm, end);
+                            case "true"  -> slot(XSD.xtrue, end);
+                            case "false" -> slot(XSD.xfalse, end);
+                            default      -> verbatim(end);
+                        }
+                    }
+                } else {
+                    verbatim(pos+1);
+                }
+            }
+            return new Shape(key.toString(), terms);
+        }
+
+        private boolean isNumberStart(int i) {
+            int len = text.length();
+            if (i >= len)
+                return false;
+            char c = text.charAt(i);
+            return Character.isDigit(c)
+                    || (c == '.' && i+1 < len && Character.isDigit(text.charAt(i+1)));
+        }
+
+        private void verbatim(int end) {
+            key.append(text, pos, end);
+            pos = end;
+        }
+
+        private void slot(@NonNull Term term, int end) {
+            int slot = terms.indexOf(term);
+            if (slot < 0) {
+                slot = terms.size();
+                terms.add(term);
+            }
+            key.append('\0').append(slot).append('\0');
+            pos = end;
+        }
+
+        /** Whether an opening parenthesis follows, i.e., this is a function name */
+        private boolean isCall(int from) {
+            while (from < text.length() && text.charAt(from) == ' ') ++from;
+            return from < text.length() && text.charAt(from) == '(';
+        }
+
+        private @Nullable String resolve(@NonNull Matcher prefixedName) {
+            String prefix = prefixedName.group(1), local = prefixedName.group(2);
+            String ns = prefixes.get(prefix == null ? "" : prefix);
+            if (ns == null || ns.indexOf(':') < 0)
+                return null;
+            boolean escaped = prefixedName.end() < text.length()
+                           && text.charAt(prefixedName.end()) == '\\';
+            return escaped ? null : ns + (local == null ? "" : local);
+        }
+
+        private boolean prefixedName() {
+            Matcher m = PREFIXED_NAME.matcher(text).region(pos, text.length());
+            if (!m.lookingAt())
+                return false;
+            String iri = resolve(m);
+            if (iri != null && !isCall(m.end()))
+                slot(Term.fromURI(iri), m.end());
+            else
+                verbatim(m.end());
+            return true;
+        }
+
+        private void literal(char quote) {
+            int len = text.length(), close = ResponseCache.literalEnd(text, pos), end = close+1;
+            String lexical = text.substring(pos+1, close);
+            boolean simple = quote == '"' && close > pos && lexical.indexOf('\\') < 0
+                          && lexical.indexOf('"') < 0;
+            String suffix = "";
+            if (end < len && text.charAt(end) == '@') {
+                Matcher m = LANG.matcher(text).region(end, len);
+                if (m.lookingAt()) {
+                    suffix = m.group();
+                    end = m.end();
+                }
+            } else if (text.startsWith("^^", end)) {
+                String datatype = null;
+                if (end+2 < len && text.charAt(end+2) == '<') {
+                    int iriEnd = ResponseCache.iriEnd(text, end+2);
+                    if (iriEnd > end+2) {
+                        datatype = text.substring(end+3, iriEnd);
+                        end = iriEnd+1;
+                    }
+                } else {
+                    Matcher m = PREFIXED_NAME.matcher(text).region(end+2, len);
+                    if (m.lookingAt()) {
+                        datatype = resolve(m);
+                        end = m.end();
+                    }
+                }
+                if (datatype == null)
+                    simple = false;
+                suffix = "^^<"+datatype+">";
+            }
+            if (simple)
+                slot(new Term("\""+lexical+"\""+suffix), end);
+            else
+                verbatim(end);
+        }
+
+        private void number() {
+            Matcher m = NUMBER.matcher(text).region(pos, text.length());
+            if (!m.lookingAt()) {
+                verbatim(pos+1);
+                return;
+            } else if (SLICE.matcher(key).find()) {
+                verbatim(m.end()); // LIMIT and OFFSET are not terms of the algebra
+                return;
+            }
+            String datatype = m.group(1) != null ? XSD.xdouble
+                            : m.group(2) != null ? XSD.decimal : XSD.integer;
+            slot(new Term("\""+m.group()+"\"^^<"+datatype+">"), m.end());
+        }
+    }
+
+    /**
+     * Get a plan for a query with the given shape, or null if there is no stored plan
+     * that can be reused for the terms in {@code shape}.
+     */
+    public @Nullable Op get(@NonNull Shape shape) {
+        Entry entry;
+        synchronized (this) {
+            entry = map.get(shape.key());
+        }
+        if (entry == null || !reusable(entry, shape.terms())) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        boolean[] parameters = entry.parameters;
+        List<String> names = new ArrayList<>();
+        List<Term> values = new ArrayList<>();
+        for (int i = 0; i < parameters.length; i++) {
+            if (parameters[i]) {
+                names.add(slotVar(i));
+                values.add(shape.terms().get(i));
+            }
+        }
+        if (names.isEmpty())
+            return entry.template;
+        return entry.template.bind(new Binding(names, values.toArray(Term[]::new)));
+    }
+
+    private static boolean reusable(@NonNull Entry entry, @NonNull List<@NonNull Term> terms) {
+        for (int i = 0; i < entry.parameters.length; i++) {
+            if (!entry.parameters[i] && !entry.terms.get(i).equals(terms.get(i)))
+                return false;
+        }
+        return true;
+    }
+
+    /** Store the optimized plan of a query with the given shape. */
+    public void put(@NonNull Shape shape, @NonNull Op optimized) {
+        List<Term> tpTerms = new ArrayList<>(), otherTerms = new ArrayList<>();
+        List<String> exprs = new ArrayList<>();
+        collect(optimized, tpTerms, otherTerms, exprs);
+        List<Term> terms = shape.terms();
+        boolean[] parameters = new boolean[terms.size()];
+        for (int i = 0; i < parameters.length; i++) {
+            Term term = terms.get(i);
+            if (NEVER_PARAMETER.contains(term) || !tpTerms.contains(term)
+                    || otherTerms.contains(term))
+                continue;
+            String content = term.content().toString();
+            parameters[i] = exprs.stream().noneMatch(e -> e.contains(content));
+        }
+        Op template = parametrize(optimized, terms, parameters);
+        long cost = ENTRY_OVERHEAD + 2L*shape.key().length();
+        synchronized (this) {
+            Entry old = map.put(shape.key(), new Entry(template, parameters, terms));
+            if (old == null)
+                bytes += cost;
+            for (var it = map.keySet().iterator(); map.size() > maxEntries; ) {
+                bytes -= ENTRY_OVERHEAD + 2L*it.next().length();
+                it.remove();
+            }
+        }
+    }
+
+    private static void collect(@NonNull Op op, @NonNull List<Term> tpTerms,
+                                @NonNull List<Term> otherTerms, @NonNull List<String> exprs) {
+        if (op instanceof TriplePattern tp) {
+            tpTerms.addAll(List.of(tp.subject(), tp.predicate(), tp.object()));
+        } else if (op instanceof Filter filter) {
+            exprs.addAll(filter.filters());
+        } else if (op instanceof Assign assign) {
+            exprs.addAll(assign.var2expr().values());
+        } else if (op instanceof Order order) {
+            for (Order.Condition condition : order.conditions())
+                exprs.add(condition.expr());
+        } else if (op instanceof Group group) {
+            for (Group.Aggregate aggregate : group.aggregates().values()) {
+                if (aggregate.expr() != null)
+                    exprs.add(aggregate.expr());
+            }
+        } else if (op instanceof Values values) {
+            for (Term[] row : values.values().list())
+                Collections.addAll(otherTerms, row);
+        }
+        for (Op child : op.children())
+            collect(child, tpTerms, otherTerms, exprs);
+    }
+
+    private static @NonNull Op parametrize(@NonNull Op op, @NonNull List<@NonNull Term> terms,
+                                           boolean @NonNull[] parameters) {
+        if (op instanceof TriplePattern tp) {
+            Term s = parametrize(tp.subject(), terms, parameters);
+            Term p = parametrize(tp.predicate(), terms, parameters);
+            Term o = parametrize(tp.object(), terms, parameters);
+            if (s == tp.subject() && p == tp.predicate() && o == tp.object())
+                return tp;
+            return new TriplePattern(s, p, o);
+        }
+        List<@NonNull Op> children = op.children(), replacements = new ArrayList<>();
+        boolean change = false;
+        for (Op child : children) {
+            Op replacement = parametrize(child, terms, parameters);
+            change |= replacement != child;
+            replacements.add(replacement);
+        }
+        return change ? op.withChildren(replacements) : op;
+    }
+
+    private static @NonNull Term parametrize(@NonNull Term term, @NonNull List<@NonNull Term> terms,
+                                             boolean @NonNull[] parameters) {
+        int slot = terms.indexOf(term);
+        return slot >= 0 && parameters[slot] ? Term.fromVar(slotVar(slot)) : term;
+    }
+
+    @Override public @NonNull String cacheName() { return "SPARQL plan"; }
+    @Override public long hits()   { return hits.sum(); }
+    @Override public long misses() { return misses.sum(); }
+    @Override public synchronized long bytes() { return bytes; }
+
+    @Override public String toString() {
+        return String.format("PlanCache{maxEntries=%d, bytes=%d, hits=%d, misses=%d}",
+                             maxEntries, bytes(), hits(), misses());
+    }
+}
@@ -1,5 +1,7 @@
 package com.github.lapesd.hdtss.controller.execution;
 
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
+import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
 import lombok.Value;
@@ -25,6 +27,8 @@ public class QueryInfo {
     long optimizeNs;
     long dispatchNs;
     long totalNs;
+    long memoHits;
+    long memoMisses;
 
     @Accessors(fluent = true, chain = true)
     public static class Builder {
@@ -37,6 +41,8 @@ public class QueryInfo {
         long optimizeNs;
         long dispatchNs;
         long totalNs = -1;
+        /** Hits and misses of {@link LookupMemo}s created while dispatching the query */
+        @Getter final @NonNull LookupMemo.Stats memoStats = new LookupMemo.Stats();
 
         public Builder(@NonNull String sparql) {
             this.start = nanoTime();
@@ -63,7 +69,8 @@ public class QueryInfo {
             if (totalNs == -1)
                 totalNs = nanoTime()-start;
             return new QueryInfo(nextId.getAndIncrement(), sparql, rows, error, cancelled,
-                                 parseNs, optimizeNs, dispatchNs, totalNs);
+                                 parseNs, optimizeNs, dispatchNs, totalNs,
+                                 memoStats.hits(), memoStats.misses());
         }
     }
 
@@ -76,6 +83,12 @@ public class QueryInfo {
     public double dispatchMs() { return  dispatchNs/1000000.0; }
     public double    totalMs() { return     totalNs/1000000.0; }
 
+    /** Fraction of lookups in bind joins, {@code EXISTS} and {@code MINUS} that were memoized */
+    public double memoHitRate() {
+        long total = memoHits + memoMisses;
+        return total == 0 ? 0 : memoHits / (double) total;
+    }
+
     public @NonNull String indentedSparql(int spaces) {
         return sparql.replace("\n", "\n"+" ".repeat(Math.max(0, spaces)));
     }
@@ -0,0 +1,332 @@
+package com.github.lapesd.hdtss.controller.execution;
+
+import com.github.lapesd.hdtss.sparql.results.chunked.ChunkedPublisher;
+import com.github.lapesd.hdtss.utils.CacheStats;
+import io.micronaut.context.annotation.Property;
+import io.micronaut.http.MediaType;
+import jakarta.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.lang.System.nanoTime;
+
+/**
+ * A process-wide cache of fully encoded query responses.
+ *
+ * Responses are keyed by a normalized form of the SPARQL query (see
+ * {@link #normalize(CharSequence)}) and the {@link MediaType} used to encode the results.
+ * A hit skips parsing, optimization, execution and encoding: the stored {@code byte[]}
+ * chunks are replayed by a {@link ChunkedPublisher}.
+ *
+ * This cache is disabled by default and is enabled by
+ * {@code sparql.response-cache.enabled=true}. Only responses that complete without error
+ * or cancellation and that have at most {@code sparql.response-cache.max-entry-bytes} are
+ * stored. Least recently used responses are evicted once
+ * {@code sparql.response-cache.bytes} is reached. Queries that call functions whose
+ * results change on every evaluation ({@code RAND}, {@code NOW}, {@code UUID},
+ * {@code STRUUID} and {@code BNODE}) are never cached.
+ */
+@Slf4j
+@Singleton
+public class ResponseCache implements CacheStats {
+    /** Estimated bytes used by an Entry, its Key and the map node, excluding the chunks */
+    private static final int ENTRY_OVERHEAD = 128;
+    /** Estimated bytes used by a byte[] header and its reference in the chunks list */
+    private static final int CHUNK_OVERHEAD = 24;
+    static final Pattern PREFIX = Pattern.compile(
+            "^\\s*PREFIX\\s*([^:\\s]*):\\s*<([^>]*)>\\s*", Pattern.CASE_INSENSITIVE);
+    /** Calls of built-in functions that yield a different result on every evaluation */
+    private static final Pattern VOLATILE_CALL = Pattern.compile(
+            "(?<![\\w:?$])(?:RAND|NOW|UUID|STRUUID|BNODE)\\s*\\(", Pattern.CASE_INSENSITIVE);
+
+    private final long budget;
+    private final long maxEntryBytes;
+    private final @NonNull LinkedHashMap<Key, Entry> map = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytes;
+    private final LongAdder hits = new LongAdder(), misses = new LongAdder();
+
+    /** A normalized query and the media type of the response. */
+    public record Key(@NonNull String sparql, @NonNull MediaType mediaType) { }
+
+    private record Entry(@NonNull List<byte @NonNull[]> chunks, long rows, long cost) { }
+
+    public ResponseCache(@Property(name = "sparql.response-cache.enabled", defaultValue = "false")
+                         boolean enabled,
+                         @Property(name = "sparql.response-cache.bytes",
+                                   defaultValue = "16777216") long budget,
+                         @Property(name = "sparql.response-cache.max-entry-bytes",
+                                   defaultValue = "1048576") long maxEntryBytes) {
+        this.budget = enabled ? Math.max(0, budget) : 0;
+        this.maxEntryBytes = Math.min(this.budget - ENTRY_OVERHEAD, maxEntryBytes);
+        if (enabled && this.maxEntryBytes <= 0)
+            log.info("sparql.response-cache.bytes={} is too small, disabling cache", budget);
+    }
+
+    /** Whether this cache is enabled. If false, {@link #key(CharSequence, MediaType)} is null */
+    public boolean isEnabled() {
+        return maxEntryBytes > 0;
+    }
+
+    /**
+     * Normalize a SPARQL query so that equivalent spellings share a cache entry.
+     *
+     * Comments are removed and whitespace runs outside IRIs and string literals are
+     * collapsed into a single space. A {@code #} escaped in a prefixed name
+     * (e.g., {@code ex:a\#b}) does not start a comment. {@code PREFIX} declarations at
+     * the start of the query are sorted by prefix name (a later re-declaration of a prefix
+     * wins, as in SPARQL).
+     * Declarations from the first {@code BASE} onwards keep their order, since a
+     * {@code BASE} changes the meaning of relative IRIs in subsequent declarations.
+     */
+    public static @NonNull String normalize(@NonNull CharSequence sparql) {
+        String collapsed = collapseWhitespace(sparql);
+        TreeMap<String, String> prefixes = new TreeMap<>();
+        Matcher m = PREFIX.matcher(collapsed);
+        int end = 0;
+        while (m.region(end, collapsed.length()).lookingAt()) {
+            prefixes.put(m.group(1), m.group(2));
+            end = m.end();
+        }
+        if (prefixes.isEmpty())
+            return collapsed;
+        StringBuilder b = new StringBuilder(collapsed.length());
+        for (var e : prefixes.entrySet())
+            b.append("PREFIX ").append(e.getKey()).append(": <").append(e.getValue()).append("> ");
+        return b.append(collapsed, end, collapsed.length()).toString();
+    }
+
+    private static @NonNull String collapseWhitespace(@NonNull CharSequence sparql) {
+        StringBuilder b = new StringBuilder(sparql.length());
+        boolean space = false;
+        for (int i = 0, len = sparql.length(); i < len; i++) {
+            char c = sparql.charAt(i);
+            if (c == '#') {
+                while (i+1 < len && sparql.charAt(i+1) != '\n') ++i;
+                space = true;
+            } else if (Character.isWhitespace(c)) {
+                space = true;
+            } else {
+                if (space && !b.isEmpty())
+                    b.append(' ');
+                space = false;
+                int close = switch (c) {
+                    case '<'       -> iriEnd(sparql, i);
+                    case '"', '\'' -> literalEnd(sparql, i);
+                    case '\\'      -> Math.min(i+1, len-1); // PN_LOCAL_ESC, e.g. ex:a\#b
+                    default        -> i;
+                };
+                b.append(sparql, i, close+1);
+                i = close;
+            }
+        }
+        return b.toString();
+    }
+
+    /** If {@code <} at {@code start} opens an IRI, return the index of {@code >}. */
+    static int iriEnd(@NonNull CharSequence s, int start) {
+        for (int i = start+1, len = s.length(); i < len; i++) {
+            char c = s.charAt(i);
+            if (c == '>')
+                return i;
+            if (Character.isWhitespace(c) || c == '"' || c == '{' || c == '}')
+                break; // this is a less-than operator
+        }
+        return start;
+    }
+
+    /** Index of the last quote that closes the (possibly long) literal opening at start. */
+    static int literalEnd(@NonNull CharSequence s, int start) {
+        char q = s.charAt(start);
+        int len = s.length();
+        boolean isLong = start+2 < len && s.charAt(start+1) == q && s.charAt(start+2) == q;
+        for (int i = start + (isLong ? 3 : 1); i < len; i++) {
+            char c = s.charAt(i);
+            if (c == '\\') {
+                ++i;
+            } else if (c == q) {
+                if (!isLong)
+                    return i;
+                if (i+2 < len && s.charAt(i+1) == q && s.charAt(i+2) == q)
+                    return i+2;
+            }
+        }
+        return len-1;
+    }
+
+    /**
+     * Whether {@code sparql} calls a built-in function whose result changes on every
+     * evaluation, such as {@code RAND()}. IRIs and literals are not inspected.
+     */
+    static boolean isVolatile(@NonNull CharSequence sparql) {
+        StringBuilder code = new StringBuilder(sparql.length());
+        for (int i = 0, len = sparql.length(); i < len; i++) {
+            char c = sparql.charAt(i);
+            int close = switch (c) {
+                case '<'       -> iriEnd(sparql, i);
+                case '"', '\'' -> literalEnd(sparql, i);
+                default        -> i;
+            };
+            code.append(close == i ? c : ' ');
+            i = close;
+        }
+        return VOLATILE_CALL.matcher(code).find();
+    }
+
+    /**
+     * Get the cache key for a query and response media type, or null if disabled or if the
+     * query {@link #isVolatile(CharSequence) is volatile}.
+     */
+    public @Nullable Key key(@NonNull CharSequence sparql, @NonNull MediaType mediaType) {
+        if (!isEnabled())
+            return null;
+        String normalized = normalize(sparql);
+        return isVolatile(normalized) ? null : new Key(normalized, mediaType);
+    }
+
+    /**
+     * Get a {@link ChunkedPublisher} that replays the response stored for {@code key}, or
+     * null if there is no such response.
+     */
+    public @Nullable ChunkedPublisher get(@NonNull Key key) {
+        Entry entry;
+        synchronized (this) {
+            entry = map.get(key);
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return new Replay(entry);
+    }
+
+    /**
+     * Wrap {@code publisher} so that its chunks are stored for {@code key} once it completes.
+     *
+     * @param key the key, as used in the preceding {@link #get(Key)}
+     * @param publisher the encoder output, to which the returned publisher delegates
+     * @return a {@link ChunkedPublisher} with the same chunks as {@code publisher}
+     */
+    public @NonNull ChunkedPublisher recording(@NonNull Key key,
+                                               @NonNull ChunkedPublisher publisher) {
+        return isEnabled() ? new Recorder(key, publisher) : publisher;
+    }
+
+    private synchronized void put(@NonNull Key key, @NonNull List<byte @NonNull[]> chunks,
+                                  long chunkBytes, long rows) {
+        long cost = ENTRY_OVERHEAD + 2L*key.sparql.length()
+                  + chunkBytes + (long) CHUNK_OVERHEAD*chunks.size();
+        if (cost > budget)
+            return;
+        Entry old = map.remove(key);
+        if (old != null)
+            bytes -= old.cost;
+        for (var it = map.values().iterator(); bytes + cost > budget && it.hasNext(); ) {
+            bytes -= it.next().cost;
+            it.remove();
+        }
+        map.put(key, new Entry(chunks, rows, cost));
+        bytes += cost;
+    }
+
+    /** Replays the chunks of a stored response, honoring downstream demand. */
+    private static final class Replay implements ChunkedPublisher {
+        private final @NonNull Entry entry;
+        private @Nullable TerminationListener listener;
+
+        Replay(@NonNull Entry entry) { this.entry = entry; }
+
+        @Override public @NonNull ChunkedPublisher onTermination(TerminationListener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        @Override public void subscribe(Subscriber<? super byte[]> s) {
+            long start = nanoTime();
+            long[] items = {0};
+            TerminationListener l = listener;
+            Flux<byte[]> flux = Flux.fromIterable(entry.chunks).doOnNext(c -> ++items[0]);
+            if (l != null) {
+                flux = flux.doOnComplete(() -> l.onTerminate(null, false, entry.rows,
+                                                             items[0], nanoTime()-start))
+                           .doOnCancel(() -> l.onTerminate(null, true, entry.rows,
+                                                           items[0], nanoTime()-start));
+            }
+            flux.subscribe(s);
+        }
+    }
+
+    /** Copies references to chunks as they are delivered downstream. */
+    private final class Recorder implements ChunkedPublisher {
+        private final @NonNull Key key;
+        private final @NonNull ChunkedPublisher delegate;
+        private @Nullable List<byte @NonNull[]> chunks = new ArrayList<>();
+        private long chunkBytes;
+
+        Recorder(@NonNull Key key, @NonNull ChunkedPublisher delegate) {
+            this.key = key;
+            this.delegate = delegate;
+            delegate.onTermination((err, cancelled, rows, items, nanos) -> store(err, cancelled,
+                                                                                 rows));
+        }
+
+        private void store(@Nullable Throwable error, boolean cancelled, long rows) {
+            List<byte[]> chunks = this.chunks;
+            this.chunks = null;
+            if (chunks != null && error == null && !cancelled)
+                put(key, chunks, chunkBytes, rows);
+        }
+
+        @Override public @NonNull ChunkedPublisher onTermination(TerminationListener listener) {
+            delegate.onTermination((err, cancelled, rows, items, nanos) -> {
+                store(err, cancelled, rows);
+                listener.onTerminate(err, cancelled, rows, items, nanos);
+            });
+            return this;
+        }
+
+        @Override public void subscribe(Subscriber<? super byte[]> s) {
+            delegate.subscribe(new Subscriber<>() {
+                @Override public void onSubscribe(Subscription subscription) {
+                    s.onSubscribe(subscription);
+                }
+
+                @Override public void onNext(byte[] chunk) {
+                    List<byte[]> chunks = Recorder.this.chunks;
+                    if (chunks != null) {
+                        if ((chunkBytes += chunk.length) > maxEntryBytes)
+                            Recorder.this.chunks = null; // too large, stop recording
+                        else
+                            chunks.add(chunk);
+                    }
+                    s.onNext(chunk);
+                }
+
+                @Override public void onError(Throwable t) { s.onError(t); }
+                @Override public void onComplete()         { s.onComplete(); }
+            });
+        }
+    }
+
+    @Override public @NonNull String cacheName() { return "SPARQL response"; }
+    @Override public long hits()   { return hits.sum(); }
+    @Override public long misses() { return misses.sum(); }
+    @Override public synchronized long bytes() { return bytes; }
+
+    @Override public String toString() {
+        return String.format("ResponseCache{budget=%d, bytes=%d, hits=%d, misses=%d}",
+                             budget, bytes(), hits(), misses());
+    }
+}
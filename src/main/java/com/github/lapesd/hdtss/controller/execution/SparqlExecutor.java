@@ -1,5 +1,6 @@
 package com.github.lapesd.hdtss.controller.execution;
 
+import com.github.lapesd.hdtss.data.query.HdtQueryService;
 import com.github.lapesd.hdtss.model.nodes.Op;
 import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
 import com.github.lapesd.hdtss.sparql.GetPredicatesExecutor;
@@ -7,6 +8,7 @@ import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
 import com.github.lapesd.hdtss.sparql.SparqlParser;
 import com.github.lapesd.hdtss.sparql.optimizer.OptimizerRunner;
 import com.github.lapesd.hdtss.sparql.results.chunked.ChunkedEncoder;
+import com.github.lapesd.hdtss.sparql.results.chunked.ChunkedPublisher;
 import io.micronaut.http.MediaType;
 import jakarta.inject.Singleton;
 import lombok.Getter;
@@ -33,6 +35,9 @@ public class SparqlExecutor {
     private final @NonNull List<@NonNull QueryInfoConsumer> infoConsumers;
     private final @NonNull GetPredicatesExecutor predicatesExecutor;
     private final @NonNull OpExecutorDispatcher dispatcher;
+    private final @NonNull HdtQueryService hdtQueryService;
+    private final @NonNull ResponseCache responseCache;
+    private final @NonNull PlanCache planCache;
     private final @NonNull ScheduledExecutorService scheduledExecutor
             = Executors.newScheduledThreadPool(1, new ThreadFactory() {
                 private final AtomicInteger nextId = new AtomicInteger(1);
@@ -53,6 +58,9 @@ public class SparqlExecutor {
     /**
      * Parse, optimize and dispatch the query, while collecting metrics.
      *
+     * If the {@link PlanCache} has a plan for a query with the same shape, that plan is
+     * bound to the terms of this query and dispatched without parsing nor optimizing.
+     *
      * @return A {@link DispatchResult} with {@link QuerySolutions} and {@link QueryInfo}
      *         with parse, optimize and dispatch metrics filled.
      * @throws RuntimeException Anything thrown by the {@link SparqlParser},
@@ -65,20 +73,31 @@ public class SparqlExecutor {
         QueryInfo.Builder info = QueryInfo.builder(sparql);
         try {
             long reference = nanoTime();
-            Op parsed = parser.parse(sparql);
-            info.addParseNs(nanoTime() - reference);
-
-            reference = nanoTime();
-            QuerySolutions solutions = predicatesExecutor.tryExecute(parsed);
-            info.addDispatchNs(nanoTime() - reference);
+            PlanCache.Shape shape = planCache.shape(sparql);
+            Op plan = shape == null ? null : planCache.get(shape);
+            QuerySolutions solutions = null;
+            if (plan == null) {
+                Op parsed = parser.parse(sparql);
+                info.addParseNs(nanoTime() - reference);
 
-            if (solutions == null) {
                 reference = nanoTime();
-                Op optimized = optimizer.optimize(parsed);
-                info.addOptimizeNs(nanoTime() - reference);
+                solutions = predicatesExecutor.tryExecute(parsed);
+                info.addDispatchNs(nanoTime() - reference);
+
+                if (solutions == null) {
+                    reference = nanoTime();
+                    plan = optimizer.optimize(parsed);
+                    if (shape != null)
+                        planCache.put(shape, plan);
+                    info.addOptimizeNs(nanoTime() - reference);
+                }
+            } else {
+                info.addParseNs(nanoTime() - reference);
+            }
 
+            if (solutions == null) {
                 reference = nanoTime();
-                solutions = dispatcher.execute(optimized);
+                solutions = dispatcher.execute(plan, null, info.memoStats());
                 info.addDispatchNs(nanoTime() - reference);
             }
 
@@ -94,14 +113,28 @@ public class SparqlExecutor {
      *
      * <p>The publisher will be instrumented to fill and distribute a {@link QueryInfo} upon
      * termination (whatever the cause: cancel, error or completion).</p>
+     *
+     * <p>If the {@link ResponseCache} is enabled and holds a response for the same
+     * (normalized) query and media type, the cached chunks are replayed without parsing or
+     * executing the query. Otherwise, the response will be stored if it completes.</p>
      */
     public @NonNull Publisher<byte[]> execute(@NonNull CharSequence sparql,
                                               @NonNull ChunkedEncoder encoder,
                                               @NonNull MediaType mt) {
-        DispatchResult dr = dispatch(sparql);
-        return encoder.encode(mt, dr.solutions)
-                .onTermination((err, cancelled, rows, items, nanos)
-                        -> notify(dr.info.error(err).cancelled(cancelled).rows(rows).build()));
+        ResponseCache.Key key = responseCache.key(sparql, mt);
+        ChunkedPublisher publisher = key == null ? null : responseCache.get(key);
+        QueryInfo.Builder info;
+        if (publisher != null) {
+            info = QueryInfo.builder(sparql);
+        } else {
+            DispatchResult dr = dispatch(sparql);
+            info = dr.info;
+            publisher = encoder.encode(mt, dr.solutions);
+            if (key != null)
+                publisher = responseCache.recording(key, publisher);
+        }
+        return publisher.onTermination((err, cancelled, rows, items, nanos)
+                -> notify(info.error(err).cancelled(cancelled).rows(rows).build()));
     }
 
     /**
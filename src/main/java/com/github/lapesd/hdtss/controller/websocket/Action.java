@@ -1,10 +1,18 @@
 package com.github.lapesd.hdtss.controller.websocket;
 
+import com.github.lapesd.hdtss.model.Term;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.List;
 
 public sealed interface Action {
     record Query(@NonNull String sparql) implements Action {}
     record Bind(@NonNull String sparql) implements Action {}
+    record Prepare(@NonNull List<@NonNull String> params, @NonNull String sparql)
+            implements Action {}
+    record Execute(@NonNull String handle, @NonNull List<@Nullable Term> values)
+            implements Action {}
     record Cancel() implements Action {}
     record QueueCap() implements Action {}
 
@@ -7,6 +7,7 @@ import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -151,12 +152,64 @@ public abstract class MessageParser {
                         state = State.VARS;
                     }
                 }
+                case "prepare"       -> {
+                    terminal = true;
+                    onAction(parsePrepare(msg, end));
+                }
+                case "execute"       -> {
+                    terminal = true;
+                    onAction(parseExecute(msg, end));
+                }
             }
         }
         if (!terminal && end < msg.length() && !WS_RX.matcher(msg.substring(end)).matches())
             raiseUnexpectedVerb(msg.substring(end));
     }
 
+    /** Parse the optional parameters headers line and the SPARQL query of a !prepare. */
+    static Action.@NonNull Prepare parsePrepare(@NonNull String msg,
+                                                int begin) throws ProtocolException {
+        if (begin < msg.length() && msg.charAt(begin) == '?') {
+            List<@NonNull String> params = parseVars(msg, begin);
+            return new Action.Prepare(params, msg.substring(msg.indexOf('\n', begin)+1));
+        }
+        return new Action.Prepare(List.of(), msg.substring(begin));
+    }
+
+    /**
+     * Parse the handle and the optional values line of an !execute. The number of values is
+     * given by the line itself and is only checked against the prepared query parameters
+     * when the action is processed.
+     */
+    static Action.@NonNull Execute parseExecute(@NonNull String msg,
+                                                int begin) throws ProtocolException {
+        int len = msg.length(), handleEnd = begin;
+        while (handleEnd < len && !Character.isWhitespace(msg.charAt(handleEnd)))
+            ++handleEnd;
+        if (handleEnd == begin)
+            throw new ProtocolException("Missing handle after !execute");
+        String handle = msg.substring(begin, handleEnd);
+        int eol = msg.indexOf('\n', handleEnd);
+        if (eol < 0 || eol+1 == len) {
+            if (!msg.substring(handleEnd).isBlank())
+                throw new ProtocolException("Expected line feed after !execute "+handle);
+            return new Action.Execute(handle, List.of());
+        }
+        if (!msg.substring(handleEnd, eol).isBlank())
+            throw new ProtocolException("Expected line feed after !execute "+handle);
+        int valuesEol = msg.indexOf('\n', eol+1);
+        if (valuesEol < 0)
+            throw new ProtocolException("Missing line feed after values of !execute "+handle);
+        int columns = 1;
+        for (int i = eol+1; i < valuesEol; i++) {
+            if (msg.charAt(i) == '\t') ++columns;
+        }
+        Term[] values = parseTerms(msg, eol+1, columns);
+        if (!msg.substring(valuesEol+1).isBlank())
+            throw new ProtocolException("!execute expects a single values line");
+        return new Action.Execute(handle, Arrays.asList(values));
+    }
+
     private void raiseUnexpectedVerb(@NonNull String msg) throws ProtocolException {
         Matcher m = VERB_RX.matcher(msg);
         var reason = "Unexpected command verb: '"+(m.find() ? m.group(1) : "")+"'";
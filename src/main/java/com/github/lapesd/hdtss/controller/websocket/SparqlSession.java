@@ -2,6 +2,8 @@ package com.github.lapesd.hdtss.controller.websocket;
 
 import com.github.lapesd.hdtss.controller.websocket.task.AbstractQueryTask;
 import com.github.lapesd.hdtss.controller.websocket.task.BindTask;
+import com.github.lapesd.hdtss.controller.websocket.task.ExecuteTask;
+import com.github.lapesd.hdtss.controller.websocket.task.PreparedQuery;
 import com.github.lapesd.hdtss.controller.websocket.task.QueryTask;
 import com.github.lapesd.hdtss.controller.websocket.task.TaskTerminationListener;
 import com.github.lapesd.hdtss.controller.websocket.task.TaskTerminationListener.Cause;
@@ -14,7 +16,9 @@ import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static io.micronaut.http.MediaType.TEXT_PLAIN_TYPE;
 import static java.lang.System.nanoTime;
@@ -68,6 +72,8 @@ public class SparqlSession implements AutoCloseable {
     private final @NonNull WebSocketSession session;
     private final @NonNull ArrayDeque<Action> queue;
     private final @NonNull TaskTerminationListener onTermination;
+    private final @NonNull LinkedHashMap<String, PreparedQuery> prepared;
+    private int lastHandle = 0;
     private @Nullable AbstractQueryTask task = null;
     private volatile long nextPing;
     private boolean closed;
@@ -77,6 +83,11 @@ public class SparqlSession implements AutoCloseable {
         this.session = session;
         this.context = ctx;
         this.queue = new ArrayDeque<>(ctx.actionQueueCapacity());
+        this.prepared = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override protected boolean removeEldestEntry(Map.Entry<String, PreparedQuery> e) {
+                return size() > ctx.preparedCapacity();
+            }
+        };
         this.nextPing = nanoTime() + ctx.pingIntervalNanos();
         checkPing(); // will not ping but will schedule future check
         this.onTermination = cause -> {
@@ -140,6 +151,57 @@ public class SparqlSession implements AutoCloseable {
         context.executor().scheduledExecutor().schedule(this::checkPing, delay, NANOSECONDS);
     }
 
+    /**
+     * Parse the query of a {@code !prepare}, store it under a new handle and send
+     * {@code !prepared <handle>}. Handles are assigned sequentially from 1, thus clients
+     * may pipeline {@code !execute} actions without waiting for the {@code !prepared}.
+     *
+     * If the query cannot be parsed, an {@code !error} is sent instead and the session
+     * remains open, as for {@code !query}. The handle is still consumed, so that handles of
+     * pipelined {@code !prepare}s remain predictable.
+     */
+    private void prepare(Action.@NonNull Prepare action) {
+        String handle = String.valueOf(++lastHandle);
+        String msg;
+        try {
+            var parsed = context.executor().parser().parse(action.sparql());
+            prepared.put(handle, new PreparedQuery(action.sparql(), action.params(), parsed));
+            msg = "!prepared " + handle + "\n";
+        } catch (Throwable err) {
+            msg = "!error "+err.toString().replace("\n", "\\n")+"\n";
+        }
+        sendReply(msg);
+    }
+
+    /**
+     * Start an {@link ExecuteTask} for the prepared query of an {@code !execute}. If the
+     * handle is unknown (or was evicted) or if the number of values does not match the
+     * parameters of the prepared query, an {@code !error} is sent instead and the session
+     * remains open, as for {@code !prepare}.
+     */
+    private void execute(Action.@NonNull Execute action) {
+        PreparedQuery pq = prepared.get(action.handle());
+        if (pq == null) {
+            sendReply("!error No prepared query with handle "+action.handle()+"\n");
+        } else if (pq.params().size() != action.values().size()) {
+            sendReply("!error Expected "+pq.params().size()+" values for !execute "
+                      +action.handle()+", got "+action.values().size()+"\n");
+        } else {
+            task = new ExecuteTask(this, onTermination, pq, action.values());
+            task.start();
+        }
+    }
+
+    /** Send a reply to an action that does not start a task, closing the session on failure. */
+    private void sendReply(@NonNull String msg) {
+        try {
+            send(msg);
+        } catch (Throwable err) {
+            log.warn("Failed to send {}: {}", msg, err.toString());
+            close();
+        }
+    }
+
     /** If there is no active task, dequeue and start execution. */
     private void handleNext() {
         while (task == null) {
@@ -147,19 +209,17 @@ public class SparqlSession implements AutoCloseable {
             if (ac == null) {
                 break;
             } else if (ac instanceof Action.QueueCap) {
-                String msg = "!action-queue-cap=" + context.actionQueueCapacity() + "\n";
-                try {
-                    send(msg);
-                } catch (Throwable err) {
-                    log.warn("Failed to send {}: {}", msg, err.toString());
-                    close();
-                }
+                sendReply("!action-queue-cap=" + context.actionQueueCapacity() + "\n");
             } else if (ac instanceof Action.Query q) {
                 task = new QueryTask(this, onTermination, q.sparql());
                 task.start();
             } else if (ac instanceof Action.Bind b) {
                 task = new BindTask(this, onTermination, b.sparql());
                 task.start();
+            } else if (ac instanceof Action.Prepare p) {
+                prepare(p);
+            } else if (ac instanceof Action.Execute e) {
+                execute(e);
             } else if (ac instanceof Action.Cancel) {
                 log.error("Cancel action should not have been queued");
                 assert false : "Action.Cancel in queue";
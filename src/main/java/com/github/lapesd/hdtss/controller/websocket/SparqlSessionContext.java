@@ -12,7 +12,7 @@ import org.checkerframework.checker.nullness.qual.NonNull;
 @Getter @Accessors(fluent = true)
 public class SparqlSessionContext {
     private final @NonNull SparqlExecutor executor;
-    private final int actionQueueCapacity, bindRequest, windowRows;
+    private final int actionQueueCapacity, bindRequest, windowRows, preparedCapacity;
     private final long windowNanos, pingIntervalNanos;
     private final boolean tracing;
 
@@ -27,7 +27,9 @@ public class SparqlSessionContext {
                                 @Property(name = "sparql.ws.window.us", defaultValue = "500")
                                         long windowMicros,
                                 @Property(name = "sparql.ws.ping.secs", defaultValue = "120")
-                                        int pingIntervalSecs
+                                        int pingIntervalSecs,
+                                @Property(name = "sparql.ws.prepared", defaultValue = "64")
+                                        int preparedCapacity
     ) {
         this.executor = executor;
         this.actionQueueCapacity = actionQueueCapacity;
@@ -35,6 +37,7 @@ public class SparqlSessionContext {
         this.windowRows = windowRows;
         this.windowNanos = windowMicros*1000L;
         this.pingIntervalNanos = pingIntervalSecs*1_000_000_000L;
+        this.preparedCapacity = Math.max(1, preparedCapacity);
         this.tracing = log.isTraceEnabled();
     }
 }
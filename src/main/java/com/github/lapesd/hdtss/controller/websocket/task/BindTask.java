@@ -4,6 +4,7 @@ import com.github.lapesd.hdtss.controller.execution.QueryInfo;
 import com.github.lapesd.hdtss.controller.execution.SparqlExecutor;
 import com.github.lapesd.hdtss.controller.websocket.ProtocolException;
 import com.github.lapesd.hdtss.controller.websocket.SparqlSession;
+import com.github.lapesd.hdtss.model.IdSparql;
 import com.github.lapesd.hdtss.model.Term;
 import com.github.lapesd.hdtss.model.nodes.Op;
 import com.github.lapesd.hdtss.utils.Binding;
@@ -13,6 +14,7 @@ import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.ArrayDeque;
+import java.util.HashMap;
 import java.util.List;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
@@ -31,6 +33,9 @@ public class BindTask extends AbstractQueryTask {
     private final @NonNull Condition hasBindings;
     private final @NonNull ArrayDeque<@Nullable Term @NonNull[]> bindingsQueue;
     private @MonotonicNonNull Op template;
+    /** Terms resolved by the worker since the start of the current batch of rows */
+    private final @NonNull HashMap<Term, Term> resolved = new HashMap<>();
+    private long resolvedRows;
     private volatile boolean hasWorker = false;
 
 
@@ -163,8 +168,18 @@ public class BindTask extends AbstractQueryTask {
         boolean optimized = false;
         SparqlExecutor executor = session.context().executor();
         var dispatcher = executor.dispatcher();
+        var hdtQueryService = executor.hdtQueryService();
         boolean ok = sendHeaders(binding.unbound(template.outputVars()));
         for (var terms = takeBinding(); ok && terms != END_BINDING; terms = takeBinding()) {
+            if (++resolvedRows > batchSize) {
+                resolved.clear();
+                resolvedRows = 1;
+            }
+            for (int i = 0; i < terms.length; i++) { // carry IDs into all bound patterns
+                Term term = terms[i];
+                if (term != null && !(term.sparql() instanceof IdSparql))
+                    terms[i] = resolved.computeIfAbsent(term, hdtQueryService::resolve);
+            }
             if (!optimized) {
                 optimized = true;
                 long start = nanoTime();
@@ -173,7 +188,8 @@ public class BindTask extends AbstractQueryTask {
                 info.addOptimizeNs(nanoTime()-start);
             }
             long start = nanoTime();
-            var solutions = dispatcher.execute(template, binding.setTerms(terms));
+            binding.setTerms(terms);
+            var solutions = dispatcher.execute(template, binding, info.memoStats());
             info.addDispatchNs(nanoTime()-start);
             assert buf.length() == 0 : "Concurrent use of buf";
             buf.append("!active-binding ");
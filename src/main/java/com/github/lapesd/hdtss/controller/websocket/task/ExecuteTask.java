@@ -0,0 +1,73 @@
+package com.github.lapesd.hdtss.controller.websocket.task;
+
+import com.github.lapesd.hdtss.controller.execution.QueryInfo;
+import com.github.lapesd.hdtss.controller.execution.SparqlExecutor;
+import com.github.lapesd.hdtss.controller.websocket.SparqlSession;
+import com.github.lapesd.hdtss.model.Term;
+import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
+import com.github.lapesd.hdtss.utils.Binding;
+import lombok.extern.slf4j.Slf4j;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.List;
+
+import static java.lang.System.nanoTime;
+
+@Slf4j
+public class ExecuteTask extends AbstractQueryTask {
+    private final @NonNull PreparedQuery prepared;
+    private final @Nullable Term @NonNull[] values;
+
+    public ExecuteTask(@NonNull SparqlSession session,
+                       @NonNull TaskTerminationListener onTermination,
+                       @NonNull PreparedQuery prepared, @NonNull List<@Nullable Term> values) {
+        super(session, onTermination);
+        this.prepared = prepared;
+        this.values = values.toArray(Term[]::new);
+    }
+
+    @Override protected QueryInfo.@Nullable Builder doStart() {
+        QueryInfo.Builder info = QueryInfo.builder(prepared.sparql());
+        SparqlExecutor executor = session.context().executor();
+        QuerySolutions solutions;
+        try {
+            var hdtQueryService = executor.hdtQueryService();
+            for (int i = 0; i < values.length; i++) { // carry IDs into all bound patterns
+                Term term = values[i];
+                if (term != null)
+                    values[i] = hdtQueryService.resolve(term);
+            }
+            Binding binding = values.length == 0 ? null
+                            : new Binding(prepared.params(), values);
+            if (!prepared.optimized()) {
+                long start = nanoTime();
+                prepared.optimized(binding == null
+                        ? executor.optimizer().optimize(prepared.plan())
+                        : executor.optimizer().optimize(prepared.plan(), binding));
+                info.addOptimizeNs(nanoTime()-start);
+            }
+            long start = nanoTime();
+            var dispatcher = executor.dispatcher();
+            solutions = dispatcher.execute(prepared.plan(), binding, info.memoStats());
+            info.addDispatchNs(nanoTime()-start);
+        } catch (Throwable error) {
+            serializer.end("!error "+error.toString().replace("\n", "\\n"), error);
+            return null;
+        }
+        executor.scheduler().schedule(() -> work(solutions));
+        return info;
+    }
+
+    private void work(@NonNull QuerySolutions solutions) {
+        String originalName = Thread.currentThread().getName();
+        Thread.currentThread().setName("ExecuteTask-worker-"+session.id());
+        try {
+            sendHeaders(solutions.varNames());
+            if (serialize(solutions))
+                sendEnd();
+        } finally {
+            Thread.currentThread().setName(originalName);
+        }
+    }
+}
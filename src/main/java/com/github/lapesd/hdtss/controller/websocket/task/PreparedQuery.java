@@ -0,0 +1,41 @@
+package com.github.lapesd.hdtss.controller.websocket.task;
+
+import com.github.lapesd.hdtss.model.nodes.Op;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.List;
+
+/**
+ * A query parsed by a {@code !prepare} action, whose parameters are bound by each
+ * {@code !execute} of its handle.
+ *
+ * The plan is optimized once, using the values of the first {@code !execute} to estimate
+ * cardinalities (as {@link BindTask} does with its first binding), and is reused by all
+ * subsequent executions. A {@link PreparedQuery} is only used by one task at a time, since a
+ * session executes its actions sequentially.
+ */
+@Getter @Accessors(fluent = true)
+public class PreparedQuery {
+    private final @NonNull String sparql;
+    private final @NonNull List<@NonNull String> params;
+    private @NonNull Op plan;
+    private boolean optimized;
+
+    public PreparedQuery(@NonNull String sparql, @NonNull List<@NonNull String> params,
+                         @NonNull Op parsed) {
+        this.sparql = sparql;
+        this.params = params;
+        this.plan = parsed;
+    }
+
+    void optimized(@NonNull Op plan) {
+        this.plan = plan;
+        this.optimized = true;
+    }
+
+    @Override public String toString() {
+        return "PreparedQuery{params="+params+", optimized="+optimized+", sparql="+sparql+"}";
+    }
+}
@@ -1,16 +1,24 @@
 package com.github.lapesd.hdtss.data.load;
 
+import com.github.lapesd.hdtss.data.query.impl.HdtIdentity;
+import com.github.lapesd.hdtss.data.query.impl.LiteralRangeIndex;
+import com.github.lapesd.hdtss.data.query.impl.LiteralTextIndex;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.rdfhdt.hdt.hdt.HDT;
 
 import javax.validation.constraints.NotEmpty;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Comparator;
 import java.util.List;
 import java.util.regex.Pattern;
 
+@Slf4j
 @Singleton
 public class HDTLoaderUtil {
     private static final Pattern URI_RX = Pattern.compile("(?i)^[a-z][-+.a-z0-9]*:.*$");
@@ -148,4 +156,87 @@ public class HDTLoaderUtil {
     public @NonNull HDT load() throws IOException {
         return load(cfg.getLocation());
     }
+
+    /**
+     * Get the {@link LiteralRangeIndex} for {@code hdt}, loaded from {@code hdt.location}.
+     *
+     * If {@code hdt.location} is a file path, the index is read from the sidecar file
+     * obtained by appending {@link LiteralRangeIndex#SUFFIX}. If that file does not exist or
+     * was built for another HDT file (see {@link HdtIdentity}), the index is built and
+     * saved in the sidecar file. A failure to save is logged and the index built in memory
+     * is returned.
+     *
+     * @param hdt the HDT loaded by {@link HDTLoaderUtil#load()}
+     * @return the index or {@code null} if {@code hdt.load.range-index} is false, if
+     *         {@code hdt.load.indexed} is false (range scans search triples by object) or
+     *         if the HDT has too many literals of a kind (see
+     *         {@link LiteralRangeIndex#build}), which is logged.
+     * @throws IOException if the sidecar file exists but could not be read
+     */
+    public @Nullable LiteralRangeIndex loadRangeIndex(@NonNull HDT hdt) throws IOException {
+        HdtConfig.LoadOptions options = cfg.getLoadOptions();
+        if (!options.isRangeIndex() || !options.isIndexed())
+            return null;
+        String location = cfg.getLocation();
+        if (!isFilePath(location))
+            return LiteralRangeIndex.build(hdt.getDictionary());
+        Path hdtPath = Path.of(toFilePath(location));
+        Path path = Path.of(hdtPath + LiteralRangeIndex.SUFFIX);
+        HdtIdentity identity = HdtIdentity.of(hdtPath, hdt.getDictionary());
+        LiteralRangeIndex index = LiteralRangeIndex.read(path, identity);
+        if (index == null) {
+            log.info("Building literal range index {}", path);
+            index = LiteralRangeIndex.build(hdt.getDictionary());
+            if (index == null)
+                return null;
+            try {
+                index.write(path, identity);
+            } catch (IOException e) {
+                log.warn("Could not save literal range index to {}: {}", path, e.toString());
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Get the memory-mapped {@link LiteralTextIndex} for {@code hdt}, loaded from
+     * {@code hdt.location}.
+     *
+     * If {@code hdt.location} is a file path, the index is mapped from the sidecar file
+     * obtained by appending {@link LiteralTextIndex#SUFFIX}, which is built first if it does
+     * not exist or was built for another HDT file (see {@link HdtIdentity}). Otherwise, the
+     * index is built into a temporary file.
+     *
+     * @param hdt the HDT loaded by {@link HDTLoaderUtil#load()}
+     * @return the index or {@code null} if {@code hdt.load.text-index} is false or if
+     *         {@code hdt.load.indexed} is false, since candidates are searched by object.
+     * @throws IOException if the sidecar file could not be read or written
+     */
+    public @Nullable LiteralTextIndex loadTextIndex(@NonNull HDT hdt) throws IOException {
+        HdtConfig.LoadOptions options = cfg.getLoadOptions();
+        if (!options.isTextIndex() || !options.isIndexed())
+            return null;
+        String location = cfg.getLocation();
+        LiteralTextIndex index = null;
+        Path path;
+        HdtIdentity identity;
+        if (isFilePath(location)) {
+            Path hdtPath = Path.of(toFilePath(location));
+            path = Path.of(hdtPath + LiteralTextIndex.SUFFIX);
+            identity = HdtIdentity.of(hdtPath, hdt.getDictionary());
+            index = LiteralTextIndex.open(path, identity);
+        } else {
+            path = Files.createTempFile("hdtss-", LiteralTextIndex.SUFFIX);
+            path.toFile().deleteOnExit();
+            identity = HdtIdentity.of(null, hdt.getDictionary());
+        }
+        if (index == null) {
+            log.info("Building literal text index {}", path);
+            LiteralTextIndex.build(hdt.getDictionary(), identity, path);
+            index = LiteralTextIndex.open(path, identity);
+            if (index == null)
+                throw new IOException("Could not open "+path+" after building it");
+        }
+        return index;
+    }
 }
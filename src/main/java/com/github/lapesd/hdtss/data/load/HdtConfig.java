@@ -20,5 +20,7 @@ public interface HdtConfig {
         @Bindable(defaultValue =  "true") boolean isMmap();
         @Bindable(defaultValue =  "true") boolean isCanCreateIndex();
         @Bindable(defaultValue = "false") boolean isRequireAll();
+        @Bindable(defaultValue = "false") boolean isRangeIndex();
+        @Bindable(defaultValue = "false") boolean isTextIndex();
     }
 }
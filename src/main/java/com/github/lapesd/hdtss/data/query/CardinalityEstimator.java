@@ -1,6 +1,10 @@
 package com.github.lapesd.hdtss.data.query;
 
+import com.github.lapesd.hdtss.model.nodes.Op;
+import com.github.lapesd.hdtss.model.nodes.Slice;
 import com.github.lapesd.hdtss.model.nodes.TriplePattern;
+import com.github.lapesd.hdtss.model.nodes.Values;
+import org.checkerframework.checker.nullness.qual.NonNull;
 
 public interface CardinalityEstimator {
 
@@ -18,4 +22,37 @@ public interface CardinalityEstimator {
      * @return the estimate number of solutions for the variables in the triple.
      */
     long estimate(TriplePattern triple);
+
+    /**
+     * Estimate the number of solutions of {@code op}, as in hash joins.
+     *
+     * Triple patterns are estimated by {@link #estimate(TriplePattern)} and an IDENTITY node
+     * yields one solution. VALUES yield their rows times the estimate of their inner operand
+     * and a SLICE yields at most its limit. Other nodes yield at most the sum of their operands.
+     *
+     * @param op the node to estimate
+     * @return the estimate number of solutions, saturated at {@link Long#MAX_VALUE}.
+     */
+    default long estimate(@NonNull Op op) {
+        return switch (op.type()) {
+            case TRIPLE -> estimate((TriplePattern) op);
+            case IDENTITY, ASK -> 1;
+            case VALUES -> {
+                long rows = ((Values) op).values().list().size();
+                long inner = estimate(op.children().get(0));
+                yield rows == 0 ? 0 : (inner > Long.MAX_VALUE/rows ? Long.MAX_VALUE : rows*inner);
+            }
+            case SLICE -> Math.min(((Slice) op).limit(), estimate(op.children().get(0)));
+            case MINUS,EXISTS -> estimate(op.children().get(0));
+            default -> {
+                long sum = 0;
+                for (Op child : op.children()) {
+                    long childEstimate = estimate(child);
+                    sum = childEstimate > Long.MAX_VALUE - sum ? Long.MAX_VALUE
+                                                                : sum + childEstimate;
+                }
+                yield sum;
+            }
+        };
+    }
 }
@@ -1,12 +1,25 @@
 package com.github.lapesd.hdtss.data.query;
 
+import com.github.lapesd.hdtss.data.query.impl.HDTUtils;
 import com.github.lapesd.hdtss.model.FlowType;
+import com.github.lapesd.hdtss.model.Term;
+import com.github.lapesd.hdtss.model.TermPosition;
 import com.github.lapesd.hdtss.model.nodes.TriplePattern;
 import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
+import com.github.lapesd.hdtss.model.solutions.VectorQuerySolutions;
+import com.github.lapesd.hdtss.utils.Binding;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.rdfhdt.hdt.enums.ResultEstimationType;
 import org.rdfhdt.hdt.hdt.HDT;
+import org.rdfhdt.hdt.triples.IteratorTripleID;
+import org.rdfhdt.hdt.triples.TripleID;
+import org.rdfhdt.hdt.triples.Triples;
 
 import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 public interface HdtQueryService {
     /**
@@ -14,6 +27,150 @@ public interface HdtQueryService {
      */
     @NonNull HDT hdt();
 
+    /**
+     * Get the {@link Term} for an ID in the dictionary of {@link HdtQueryService#hdt()}.
+     *
+     * Implementations may serve the {@link Term} from a cache shared among all queries.
+     *
+     * @param id the {@code > 0} ID
+     * @param position the position of the term, which determines the ID space of {@code id}.
+     * @return a non-null {@link Term}
+     */
+    default @NonNull Term decode(long id, @NonNull TermPosition position) {
+        return HDTUtils.fromHDTId(hdt().getDictionary(), id, position);
+    }
+
+    /**
+     * Get the ID of a {@link Term} at the given position in the dictionary of
+     * {@link HdtQueryService#hdt()}.
+     *
+     * Implementations may serve the ID from a cache shared among all queries.
+     *
+     * @param term the {@link Term} to lookup
+     * @param position the position of the term in triples to be matched
+     * @return the {@code > 0} ID, zero if {@code term} is a blank node or variable or -1 if
+     *         there is no triple with {@code term} at {@code position}.
+     */
+    default long toHDTId(@NonNull Term term, @NonNull TermPosition position) {
+        return HDTUtils.toHDTId(hdt().getDictionary(), term, HDTUtils.pos2role(position));
+    }
+
+    /**
+     * Get a {@link Term} equal to {@code term} that carries its ID in the dictionary of
+     * {@link HdtQueryService#hdt()}, so that triple patterns where it gets bound do not
+     * need to look it up again.
+     *
+     * @param term the term to resolve
+     * @return a {@link Term} equal to {@code term}, possibly {@code term} itself.
+     */
+    default @NonNull Term resolve(@NonNull Term term) {
+        return term;
+    }
+
+    /**
+     * Get the number of solutions of {@code query} without decoding nor materializing them.
+     *
+     * The count is taken from the HDT triples index when it reports an exact number of
+     * results. Otherwise, triple IDs are enumerated and counted.
+     *
+     * @param query the triple pattern whose matches will be counted
+     * @return the number of solutions of {@code query} or -1 if a variable occurs more than
+     *         once in {@code query}, which requires checking each triple.
+     */
+    default long count(@NonNull TriplePattern query) {
+        if (query.collectVarsInfo().sharedVars() != TriplePattern.SharedVars.NONE)
+            return -1;
+        long[] ids = new long[3];
+        for (TermPosition position : TermPosition.values()) {
+            long id = toHDTId(query.get(position), position);
+            if (id < 0)
+                return 0;
+            ids[position.ordinal()] = id;
+        }
+        Triples triples = hdt().getTriples();
+        if (ids[0] == 0 && ids[1] == 0 && ids[2] == 0)
+            return triples.getNumberOfElements();
+        IteratorTripleID it = triples.search(new TripleID(ids[0], ids[1], ids[2]));
+        if (it.numResultEstimation() == ResultEstimationType.EXACT)
+            return it.estimatedNumResults();
+        long count = 0;
+        while (it.hasNext()) {
+            it.next();
+            ++count;
+        }
+        return count;
+    }
+
+    /**
+     * Get the position by whose IDs the solutions of {@code query} will be sorted.
+     *
+     * If non-null, the IDs of the variable at the returned position, in the ID space of that
+     * position, never decrease from one solution to the next, for all {@code query*()}
+     * methods.
+     *
+     * @param query the triple pattern to be queried
+     * @return the position that defines the order of solutions or null if the order is
+     *         not known in advance.
+     */
+    default @Nullable TermPosition sortedBy(@NonNull TriplePattern query) {
+        return HDTUtils.scanOrder(query);
+    }
+
+    /**
+     * Answer {@code query} only for the literals in {@code range} at its object position.
+     *
+     * This is meant for {@code FILTER}s that compare the object variable of {@code query} with
+     * constants. The solutions are a superset of the solutions of {@code query} whose object
+     * satisfies such comparisons, thus the comparisons must still be evaluated on each
+     * solution. Solutions are in no particular order.
+     *
+     * @param query the triple pattern, whose object must be a variable that does not occur
+     *              elsewhere in the pattern.
+     * @param range the values of the literals that may be bound to the object variable
+     * @return the solutions or {@code null} if a range scan is not available or is not
+     *         expected to be faster than {@link HdtQueryService#query(TriplePattern)}.
+     */
+    default @Nullable QuerySolutions queryRange(@NonNull TriplePattern query,
+                                                @NonNull ValueRange range) {
+        return null;
+    }
+
+    /**
+     * Whether {@link HdtQueryService#queryRange(TriplePattern, ValueRange)} may return
+     * non-null solutions, which happens only if a range index is available.
+     */
+    default boolean hasRangeIndex() {
+        return false;
+    }
+
+    /**
+     * Answer {@code query} only for the literals at its object position whose lexical forms
+     * may contain all {@code substrings}, ignoring case.
+     *
+     * This is meant for {@code FILTER}s with {@code CONTAINS} or {@code REGEX} on the object
+     * variable of {@code query}. As with
+     * {@link HdtQueryService#queryRange(TriplePattern, ValueRange)}, solutions are a superset,
+     * in no particular order, and the filters must still be evaluated on each solution.
+     *
+     * @param query the triple pattern, whose object must be a variable that does not occur
+     *              elsewhere in the pattern.
+     * @param substrings strings that must occur in the lexical form of the object
+     * @return the solutions or {@code null} if a text index is not available or is not
+     *         expected to be faster than {@link HdtQueryService#query(TriplePattern)}.
+     */
+    default @Nullable QuerySolutions queryText(@NonNull TriplePattern query,
+                                               @NonNull Collection<@NonNull String> substrings) {
+        return null;
+    }
+
+    /**
+     * Whether {@link HdtQueryService#queryText(TriplePattern, Collection)} may return
+     * non-null solutions, which happens only if a text index is available.
+     */
+    default boolean hasTextIndex() {
+        return false;
+    }
+
     /**
      * Call {@link HdtQueryService#query(TriplePattern, FlowType)} with this implementation's
      * default {@link FlowType}.
@@ -35,6 +192,7 @@ public interface HdtQueryService {
             case REACTIVE -> queryReactive(query);
             case ITERATOR -> queryIterator(query);
             case BATCH -> queryBatch(query);
+            case VECTOR -> queryVector(query);
         };
     }
 
@@ -58,6 +216,30 @@ public interface HdtQueryService {
      */
     @NonNull QuerySolutions queryReactive(@NotNull TriplePattern query);
 
+    /**
+     * Answer {@code query} once for each row of values for the variables in {@code vars}.
+     *
+     * This is equivalent to calling {@link HdtQueryService#queryIterator(TriplePattern)} for
+     * {@code query.bind(new Binding(vars, row))} and collecting the solutions, for every row.
+     * Implementations may share dictionary lookups and searches among rows and skip the
+     * creation of bound {@link TriplePattern}s.
+     *
+     * @param query the triple pattern to query for
+     * @param vars names of the variables in each row
+     * @param rows values for {@code vars}, without nulls
+     * @return a list with the solutions for each row of {@code rows}, in the same order.
+     *         Solutions have the variables of {@code query.outputVars()} not in {@code vars}.
+     */
+    default @NonNull List<@NonNull List<@Nullable Term @NonNull[]>>
+    queryBlock(@NonNull TriplePattern query, @NonNull List<@NonNull String> vars,
+               @NonNull List<@Nullable Term @NonNull[]> rows) {
+        Binding binding = new Binding(vars);
+        List<List<@Nullable Term @NonNull[]>> results = new ArrayList<>(rows.size());
+        for (Term[] row : rows)
+            results.add(queryIterator((TriplePattern) query.bind(binding.setTerms(row))).list());
+        return results;
+    }
+
     /**
      * Answer a single triple pattern query.
      *
@@ -70,4 +252,18 @@ public interface HdtQueryService {
      * @return A non-null, cold, {@link QuerySolutions} backed by a {@link java.util.List}.
      */
     @NonNull QuerySolutions queryBatch(@NotNull TriplePattern query);
+
+    /**
+     * Answer a single triple pattern query.
+     *
+     * The answers honor the semantics of a single variable appearing in more than one position.
+     *
+     * Solutions are produced as {@link com.github.lapesd.hdtss.model.solutions.IdBatch}es
+     * with one column per variable holding HDT IDs in the ID space of the first position
+     * where the variable occurs in {@code query}.
+     *
+     * @param query a query
+     * @return A non-null {@link VectorQuerySolutions}.
+     */
+    @NonNull VectorQuerySolutions queryVector(@NotNull TriplePattern query);
 }
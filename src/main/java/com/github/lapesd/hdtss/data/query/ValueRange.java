@@ -0,0 +1,142 @@
+package com.github.lapesd.hdtss.data.query;
+
+import com.github.lapesd.hdtss.vocab.XSD;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeConstants;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+import java.math.BigDecimal;
+import java.util.Set;
+
+/**
+ * An inclusive range of values of numeric or temporal literals.
+ *
+ * Values are mapped to {@code double}s: numbers by their value and {@code xsd:date} and
+ * {@code xsd:dateTime} by milliseconds since the epoch, assuming UTC if there is no
+ * timezone. Rounding preserves order, thus a range is a superset of the literals that
+ * satisfy the comparisons from which it was derived. Such comparisons must still be
+ * evaluated on the literals found in the range.
+ */
+public record ValueRange(@NonNull Kind kind, double min, double max) {
+    /**
+     * Literals of different kinds are never comparable by SPARQL operators, thus ranges only
+     * contain values of a single kind.
+     */
+    public enum Kind {
+        NUMERIC,
+        TEMPORAL;
+
+        private static final @NonNull Set<String> NUMERIC_TYPES = Set.of(
+                "integer", "decimal", "float", "double", "long", "int", "short", "byte",
+                "nonNegativeInteger", "positiveInteger", "nonPositiveInteger", "negativeInteger",
+                "unsignedLong", "unsignedInt", "unsignedShort", "unsignedByte");
+        private static final @NonNull Set<String> TEMPORAL_TYPES = Set.of(
+                "dateTime", "dateTimeStamp", "date");
+
+        /** Get the kind of literals with the given datatype IRI, or {@code null}. */
+        public static @Nullable Kind of(@Nullable CharSequence datatype) {
+            if (datatype == null || datatype.length() <= XSD.NS.length())
+                return null;
+            String string = datatype.toString();
+            if (!string.startsWith(XSD.NS))
+                return null;
+            String local = string.substring(XSD.NS.length());
+            if (NUMERIC_TYPES.contains(local))  return NUMERIC;
+            if (TEMPORAL_TYPES.contains(local)) return TEMPORAL;
+            return null;
+        }
+    }
+
+    /**
+     * Milliseconds by which bounds of {@link Kind#TEMPORAL} ranges are widened, since
+     * values without timezone are compared to values with timezone as if they could be at
+     * any timezone between -14:00 and +14:00 and dates may be compared as whole days.
+     */
+    public static final double TEMPORAL_SLACK = (14+24) * 3600 * 1000.0;
+
+    /**
+     * Relative amount by which bounds of {@link Kind#NUMERIC} ranges are widened, since
+     * {@code xsd:float} values are compared at single precision.
+     */
+    public static final double NUMERIC_SLACK = 1e-6;
+
+    private static @Nullable DatatypeFactory datatypeFactory;
+
+    /** A range with all values of the given kind */
+    public static @NonNull ValueRange all(@NonNull Kind kind) {
+        return new ValueRange(kind, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+    }
+
+    /** Whether no value is in this range */
+    public boolean isEmpty() {
+        return !(min <= max);
+    }
+
+    /** Get the intersection of this range with {@code other}, or {@code null} if of other kind */
+    public @Nullable ValueRange intersect(@NonNull ValueRange other) {
+        if (other.kind != kind)
+            return null;
+        return new ValueRange(kind, Math.max(min, other.min), Math.min(max, other.max));
+    }
+
+    /**
+     * Get a copy of this range widened by {@link #NUMERIC_SLACK} or {@link #TEMPORAL_SLACK},
+     * so that it includes all literals that a SPARQL comparison with the bounds could accept.
+     */
+    public @NonNull ValueRange withSlack() {
+        return switch (kind) {
+            case NUMERIC -> new ValueRange(kind, widen(min, -1), widen(max, 1));
+            case TEMPORAL -> new ValueRange(kind, min-TEMPORAL_SLACK, max+TEMPORAL_SLACK);
+        };
+    }
+
+    private static double widen(double value, int signal) {
+        if (Double.isInfinite(value))
+            return value;
+        return value + signal*(Math.abs(value)*NUMERIC_SLACK + Float.MIN_NORMAL);
+    }
+
+    /**
+     * Get the value of a literal in the order of its kind.
+     *
+     * @param kind the {@link Kind} of the literal datatype
+     * @param lexicalForm the lexical form of the literal
+     * @return the value or {@link Double#NaN} if the lexical form is not valid (or is NaN).
+     */
+    public static double valueOf(@NonNull Kind kind, @NonNull CharSequence lexicalForm) {
+        String lex = lexicalForm.toString().trim();
+        try {
+            return switch (kind) {
+                case NUMERIC -> switch (lex) {
+                    case "INF", "+INF" -> Double.POSITIVE_INFINITY;
+                    case "-INF" -> Double.NEGATIVE_INFINITY;
+                    case "NaN" -> Double.NaN;
+                    default -> new BigDecimal(lex).doubleValue();
+                };
+                case TEMPORAL -> {
+                    XMLGregorianCalendar calendar = datatypeFactory().newXMLGregorianCalendar(lex);
+                    if (calendar.getTimezone() == DatatypeConstants.FIELD_UNDEFINED)
+                        calendar.setTimezone(0);
+                    yield calendar.toGregorianCalendar().getTimeInMillis();
+                }
+            };
+        } catch (IllegalArgumentException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static @NonNull DatatypeFactory datatypeFactory() {
+        DatatypeFactory factory = datatypeFactory;
+        if (factory == null) {
+            try {
+                datatypeFactory = factory = DatatypeFactory.newInstance();
+            } catch (DatatypeConfigurationException e) {
+                throw new IllegalStateException("No javax.xml.datatype implementation", e);
+            }
+        }
+        return factory;
+    }
+}
@@ -4,7 +4,9 @@ import com.github.lapesd.hdtss.model.Term;
 import com.github.lapesd.hdtss.model.TermPosition;
 import com.github.lapesd.hdtss.model.nodes.TriplePattern;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.rdfhdt.hdt.dictionary.Dictionary;
+import org.rdfhdt.hdt.dictionary.DictionarySection;
 import org.rdfhdt.hdt.enums.TripleComponentOrder;
 import org.rdfhdt.hdt.enums.TripleComponentRole;
 import org.rdfhdt.hdt.exceptions.NotFoundException;
@@ -16,6 +18,7 @@ import org.rdfhdt.hdt.triples.TripleID;
 import org.rdfhdt.hdt.triples.TripleString;
 import org.rdfhdt.hdt.triples.impl.EmptyTriplesIterator;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.function.Predicate;
@@ -61,10 +64,35 @@ public class HDTUtils {
      * @param term The {@link Term} to lookup
      * @param role The position of the Term in triples to be matched.
      * @return the {@code > 0} ID, a zero if Term is a blank node or variable or -1 if there is
-     *         no triple in the HDT file with the given term at the given position.
+     *         no triple in the HDT file with the given term at the given position. Blank
+     *         nodes obtained via {@link HDTUtils#fromHDTIdLazy(Dictionary, long, TermPosition)}
+     *         from the same dictionary yield their ID.
      */
     public static long toHDTId(@NonNull Dictionary dictionary, @NonNull Term term,
                                @NonNull TripleComponentRole role) {
+        return toHDTId(dictionary, term, role, null);
+    }
+
+    /**
+     * Same as {@link HDTUtils#toHDTId(Dictionary, Term, TripleComponentRole)}, but lookups
+     * of terms that do not carry an ID will go through the given {@link TermIdCache}.
+     */
+    public static long toHDTId(@NonNull Dictionary dictionary, @NonNull Term term,
+                               @NonNull TripleComponentRole role,
+                               @Nullable TermIdCache cache) {
+        if (cache != null)
+            return cache.toId(dictionary, term, role);
+        if (term.sparql() instanceof HdtIdSparql idSparql) {
+            long id = idSparql.idIn(dictionary, role);
+            if (id != 0)
+                return id;
+        }
+        return lookupId(dictionary, term, role);
+    }
+
+    /** {@link HDTUtils#toHDTId(Dictionary, Term, TripleComponentRole)} without any shortcut. */
+    static long lookupId(@NonNull Dictionary dictionary, @NonNull Term term,
+                         @NonNull TripleComponentRole role) {
         var string = toHDT(term);
         if (string.isEmpty())
             return 0;
@@ -94,6 +122,131 @@ public class HDTUtils {
         return fromHDT(dictionary.idToString(id, pos2role(position)).toString());
     }
 
+    /**
+     * Get a {@link Term} that carries the given HDT id and will only be decoded if its
+     * {@link Term#sparql()} is read.
+     *
+     * The returned {@link Term} is equal to the result of
+     * {@link HDTUtils#fromHDTId(Dictionary, long, TermPosition)}. However, comparison with
+     * other {@link Term}s from the same {@link Dictionary} is done by ID and
+     * {@link HDTUtils#toHDTId(Dictionary, Term, TripleComponentRole)} will not require
+     * decoding nor a dictionary lookup.
+     *
+     * @param dictionary The HDT {@link Dictionary} where the id originated
+     * @param id a {@code > 0} ID
+     * @param position the {@link TermPosition} of the {@link Term} to which the ID refers to.
+     * @return a non-null {@link Term} whose {@link Term#sparql()} is a {@link HdtIdSparql}.
+     */
+    public static @NonNull Term fromHDTIdLazy(@NonNull Dictionary dictionary, long id,
+                                              @NonNull TermPosition position) {
+        return fromHDTIdLazy(dictionary, id, position, null);
+    }
+
+    /**
+     * Same as {@link HDTUtils#fromHDTIdLazy(Dictionary, long, TermPosition)}, but decoding
+     * (if it ever happens) will go through the given {@link TermDecodeCache}.
+     */
+    public static @NonNull Term fromHDTIdLazy(@NonNull Dictionary dictionary, long id,
+                                              @NonNull TermPosition position,
+                                              @Nullable TermDecodeCache cache) {
+        return new Term(new HdtIdSparql(dictionary, id, pos2role(position), cache));
+    }
+
+    /**
+     * Get the keys, as in {@link HdtIdSparql#idKey()}, of all terms whose HDT string (see
+     * {@link HDTUtils#toHDT(Term)}) starts with one of the given prefixes.
+     *
+     * Dictionary sections are sorted, thus the strings with a prefix have contiguous IDs
+     * in each section, which are found by binary search, decoding {@code O(log n)} strings.
+     *
+     * @param dictionary the HDT dictionary
+     * @param predicates whether to search the predicates section (whose IDs are in a scope
+     *                   of their own) instead of the shared, subjects and objects sections.
+     * @param prefixes the prefixes of HDT strings
+     * @return sorted and disjoint inclusive {@code [first, last]} key ranges, in a single array.
+     */
+    public static long @NonNull[] prefixKeyRanges(@NonNull Dictionary dictionary,
+                                                  boolean predicates,
+                                                  @NonNull String... prefixes) {
+        List<long[]> ranges = new ArrayList<>();
+        long nShared = dictionary.getNshared();
+        for (String prefix : prefixes) {
+            if (predicates) {
+                addRange(ranges, prefixRange(dictionary.getPredicates(), prefix), 0, false);
+            } else {
+                addRange(ranges, prefixRange(dictionary.getShared(), prefix), 0, false);
+                addRange(ranges, prefixRange(dictionary.getSubjects(), prefix), nShared, false);
+                addRange(ranges, prefixRange(dictionary.getObjects(), prefix), nShared, true);
+            }
+        }
+        ranges.sort((l, r) -> Long.compare(l[0], r[0]));
+        long[] flat = new long[2*ranges.size()];
+        for (int i = 0; i < ranges.size(); i++) {
+            flat[2*i  ] = ranges.get(i)[0];
+            flat[2*i+1] = ranges.get(i)[1];
+        }
+        return flat;
+    }
+
+    private static void addRange(@NonNull List<long[]> ranges, long @Nullable[] range,
+                                 long offset, boolean negate) {
+        if (range == null)
+            return;
+        long first = offset+range[0], last = offset+range[1];
+        ranges.add(negate ? new long[]{-last, -first} : new long[]{first, last});
+    }
+
+    /**
+     * Get the first and last positions (starting from 1) of strings in {@code section} that
+     * start with {@code prefix}, or {@code null} if there is no such string.
+     *
+     * HDT sorts strings by their UTF-8 bytes, which is the same as sorting by code points.
+     */
+    static long @Nullable[] prefixRange(@NonNull DictionarySection section,
+                                        @NonNull String prefix) {
+        long n = section.getNumberOfElements();
+        long lo = 1, hi = n+1;
+        while (lo < hi) { // first string >= prefix
+            long mid = (lo + hi) >>> 1;
+            if (compareCodePoints(section.extract(mid), prefix) < 0) lo = mid+1;
+            else                                                     hi = mid;
+        }
+        long first = lo;
+        hi = n+1;
+        while (lo < hi) { // first string > prefix that does not start with it
+            long mid = (lo + hi) >>> 1;
+            if (startsWith(section.extract(mid), prefix)) lo = mid+1;
+            else                                          hi = mid;
+        }
+        return lo > first ? new long[]{first, lo-1} : null;
+    }
+
+    private static boolean startsWith(@Nullable CharSequence string, @NonNull String prefix) {
+        int length = prefix.length();
+        if (string == null || string.length() < length)
+            return false;
+        for (int i = 0; i < length; i++) {
+            if (string.charAt(i) != prefix.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /** Compare by code points, which differs from {@link String#compareTo(String)}. */
+    static int compareCodePoints(@Nullable CharSequence l, @NonNull CharSequence r) {
+        if (l == null)
+            return -1;
+        for (int i = 0, end = Math.min(l.length(), r.length()); i < end; i++) {
+            char lc = l.charAt(i), rc = r.charAt(i);
+            if (lc != rc) {
+                boolean lSurrogate = Character.isSurrogate(lc);
+                if (lSurrogate != Character.isSurrogate(rc))
+                    return lSurrogate ? 1 : -1; // supplementary code points are the largest
+                return lc - rc;
+            }
+        }
+        return l.length() - r.length();
+    }
+
     /**
      * Query a {@link TriplePattern} against an HDT file and iterate of triples of strings IDs.
      *
@@ -108,19 +261,53 @@ public class HDTUtils {
      */
     public static @NonNull IteratorTripleID queryIds(@NonNull HDT hdt,
                                                      @NonNull TriplePattern tp) {
+        return queryIds(hdt, tp, null);
+    }
+
+    /**
+     * Same as {@link HDTUtils#queryIds(HDT, TriplePattern)}, but bound terms are converted
+     * to IDs through the given {@link TermIdCache}.
+     */
+    public static @NonNull IteratorTripleID queryIds(@NonNull HDT hdt, @NonNull TriplePattern tp,
+                                                     @Nullable TermIdCache cache) {
         var dict = hdt.getDictionary();
-        long s = toHDTId(dict, tp.subject(), TripleComponentRole.SUBJECT);
+        long s = toHDTId(dict, tp.subject(), TripleComponentRole.SUBJECT, cache);
         if (s == -1)
             return new EmptyTriplesIterator(TripleComponentOrder.SPO);
-        long p = toHDTId(dict, tp.predicate(), TripleComponentRole.PREDICATE);
+        long p = toHDTId(dict, tp.predicate(), TripleComponentRole.PREDICATE, cache);
         if (p == -1)
             return new EmptyTriplesIterator(TripleComponentOrder.SPO);
-        long o = toHDTId(dict, tp.object(), TripleComponentRole.OBJECT);
+        long o = toHDTId(dict, tp.object(), TripleComponentRole.OBJECT, cache);
         if (o == -1)
             return new EmptyTriplesIterator(TripleComponentOrder.SPO);
         return hdt.getTriples().search(new TripleID(s, p, o));
     }
 
+    /**
+     * Get the position whose IDs never decrease along the triples returned by
+     * {@link HDTUtils#queryIds(HDT, TriplePattern)} for {@code tp}.
+     *
+     * Patterns with unbound subject are scanned in subject order, either from the SPO
+     * triples or from the predicate and object indices of the {@code .index.v1-1} sidecar.
+     * The exception is {@code ?s ?p <o>}, which is scanned in predicate order if the sidecar
+     * is loaded and in subject order otherwise. If the subject is bound, triples are sorted
+     * by the first unbound position among predicate and object.
+     *
+     * @param tp the triple pattern to be scanned
+     * @return the position that defines the ID space and order of triples or null if the
+     *         order is not known in advance.
+     */
+    public static @Nullable TermPosition scanOrder(@NonNull TriplePattern tp) {
+        boolean s = isWildcard(tp.subject()), p = isWildcard(tp.predicate());
+        if (s)
+            return p && !isWildcard(tp.object()) ? null : TermPosition.SUB;
+        return p ? TermPosition.PRE : TermPosition.OBJ;
+    }
+
+    private static boolean isWildcard(@NonNull Term term) {
+        return term.isVar() || term.isBlank();
+    }
+
     /**
      * Equivalent to {@link HDTUtils#queryIds(HDT, TriplePattern)}, but will iterate over
      * {@link TripleString}s (triples of strings instead of triples of longs)
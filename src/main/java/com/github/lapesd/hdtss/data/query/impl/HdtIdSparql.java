@@ -0,0 +1,152 @@
+package com.github.lapesd.hdtss.data.query.impl;
+
+import com.github.lapesd.hdtss.model.IdSparql;
+import com.github.lapesd.hdtss.model.Term;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import org.checkerframework.checker.index.qual.Positive;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.rdfhdt.hdt.dictionary.Dictionary;
+import org.rdfhdt.hdt.enums.TripleComponentRole;
+
+import static org.rdfhdt.hdt.enums.TripleComponentRole.OBJECT;
+import static org.rdfhdt.hdt.enums.TripleComponentRole.PREDICATE;
+import static org.rdfhdt.hdt.enums.TripleComponentRole.SUBJECT;
+
+/**
+ * An {@link IdSparql} for a term in the dictionary of an HDT file.
+ *
+ * In HDT, subjects and objects share the IDs {@code 1..nShared}. IDs above {@code nShared}
+ * are exclusive to their role: a subject-only term can never be an object and vice-versa.
+ * Predicates have their own ID space, thus comparing a predicate ID with a subject/object ID
+ * requires decoding.
+ *
+ * Distinct IDs usually denote distinct terms, but a dictionary may hold both {@code "a"} and
+ * {@code "a"^^xsd:string}, which {@link Term#equals(Object)} considers equal. Thus, distinct
+ * object-only IDs, which may be such literals, are compared as strings.
+ */
+@Accessors(fluent = true)
+public final class HdtIdSparql extends IdSparql {
+    private final @Getter @NonNull Dictionary dictionary;
+    private final @Getter @Positive long id;
+    private final @Getter @NonNull TripleComponentRole role;
+    private final @Nullable TermDecodeCache cache;
+
+    public HdtIdSparql(@NonNull Dictionary dictionary, @Positive long id,
+                       @NonNull TripleComponentRole role) {
+        this(dictionary, id, role, (TermDecodeCache) null);
+    }
+
+    public HdtIdSparql(@NonNull Dictionary dictionary, @Positive long id,
+                       @NonNull TripleComponentRole role, @Nullable TermDecodeCache cache) {
+        this.dictionary = dictionary;
+        this.id = id;
+        this.role = role;
+        this.cache = cache;
+    }
+
+    public HdtIdSparql(@NonNull Dictionary dictionary, @Positive long id,
+                       @NonNull TripleComponentRole role, @NonNull String sparql) {
+        super(sparql);
+        this.dictionary = dictionary;
+        this.id = id;
+        this.role = role;
+        this.cache = null;
+    }
+
+    /**
+     * Get the ID of this term when it appears in the given role within the given dictionary.
+     *
+     * @param dictionary the dictionary where the ID will be used
+     * @param role the role the term should have
+     * @return the {@code > 0} ID, {@code -1} if this term certainly does not occur in the
+     *         given role or {@code 0} if the ID cannot be determined without decoding.
+     */
+    public long idIn(@NonNull Dictionary dictionary, @NonNull TripleComponentRole role) {
+        if (dictionary != this.dictionary)
+            return 0;
+        if (role == this.role)
+            return id;
+        if (role == PREDICATE || this.role == PREDICATE)
+            return 0;
+        return id <= dictionary.getNshared() ? id : -1; // SUBJECT <-> OBJECT
+    }
+
+    @Override public @Nullable Boolean sameTerm(@NonNull IdSparql other) {
+        if (!(other instanceof HdtIdSparql o))
+            return null;
+        long oId = o.idIn(dictionary, role);
+        if (oId == 0)
+            return null;
+        if (oId == id)
+            return Boolean.TRUE;
+        return mayBeLiteral() && o.mayBeLiteral() ? null : Boolean.FALSE;
+    }
+
+    /** Literals only occur as objects, thus never in the shared subject/object section. */
+    private boolean mayBeLiteral() {
+        return role == OBJECT && id > dictionary.getNshared();
+    }
+
+    /**
+     * Subjects and objects share a scope, predicates have their own. Subject-only and
+     * object-only IDs overlap, thus object-only keys are negated.
+     */
+    @Override public @NonNull Object idScope() {
+        return role == PREDICATE ? dictionary.getPredicates() : dictionary;
+    }
+
+    @Override public long idKey() {
+        return role == OBJECT && id > dictionary.getNshared() ? -id : id;
+    }
+
+    @Override public long idKeyOf(@NonNull Term term) {
+        if (term.sparql() instanceof IdSparql other && idScope().equals(other.idScope()))
+            return other.idKey();
+        String string = term.isBlank() ? term.sparql().toString() : HDTUtils.toHDT(term);
+        if (string.isEmpty())
+            return 0;
+        if (role == PREDICATE)
+            return Math.max(0, dictionary.stringToId(string, PREDICATE));
+        long id = dictionary.stringToId(string, SUBJECT);
+        if (id > 0)
+            return id;
+        id = dictionary.stringToId(string, OBJECT);
+        if (id <= 0)
+            return 0;
+        return id > dictionary.getNshared() ? -id : id;
+    }
+
+    @Override public @NonNull Term termForIdKey(long key) {
+        TripleComponentRole keyRole = role == PREDICATE ? PREDICATE : key < 0 ? OBJECT : SUBJECT;
+        return new Term(new HdtIdSparql(dictionary, Math.abs(key), keyRole, cache));
+    }
+
+    /**
+     * IRIs and literals are found by binary search of {@code prefix} and {@code "prefix} in
+     * the dictionary sections. Not supported if {@code prefix} contains {@code "} or starts
+     * with {@code _}, as HDT strings with such prefixes may belong to other kinds of terms.
+     */
+    @Override public long @Nullable[] strPrefixKeyRanges(@NonNull String prefix) {
+        if (prefix.isEmpty() || prefix.charAt(0) == '_' || prefix.indexOf('"') >= 0)
+            return null;
+        if (role == PREDICATE)
+            return HDTUtils.prefixKeyRanges(dictionary, true, prefix);
+        return HDTUtils.prefixKeyRanges(dictionary, false, prefix, '"'+prefix);
+    }
+
+    @Override public long @NonNull[] blankKeyRanges() {
+        return HDTUtils.prefixKeyRanges(dictionary, role == PREDICATE, "_:");
+    }
+
+    @Override public Term.@Nullable Type type() {
+        return role == PREDICATE ? Term.Type.URI : null;
+    }
+
+    @Override protected @NonNull String decode() {
+        if (cache != null)
+            return cache.decode(dictionary, id, role).sparql().toString();
+        return HDTUtils.fromHDT(dictionary.idToString(id, role)).sparql().toString();
+    }
+}
@@ -0,0 +1,69 @@
+package com.github.lapesd.hdtss.data.query.impl;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.rdfhdt.hdt.dictionary.Dictionary;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Identifies the HDT file from which a sidecar index was built.
+ *
+ * Sidecar indices store this in their headers and are rebuilt when the identity of the
+ * loaded HDT file differs. Dictionary sizes alone do not suffice, since a regenerated HDT
+ * file with changed literals may keep the same number of terms.
+ *
+ * @param fileSize size in bytes of the HDT file or -1 if it is not a local file
+ * @param lastModified last modification of the HDT file in milliseconds since the epoch, or
+ *                     -1 if it is not a local file
+ * @param nShared number of shared subject/object terms in the dictionary
+ * @param nObjects number of object terms in the dictionary
+ */
+public record HdtIdentity(long fileSize, long lastModified, long nShared, long nObjects) {
+    /** Number of bytes written by {@link #write(DataOutput)} */
+    public static final int BYTES = 4*8;
+
+    /**
+     * Get the identity of an HDT file and its dictionary.
+     *
+     * @param file the HDT file or {@code null} if it was not loaded from a local file. A
+     *             file that does not exist is treated as {@code null}.
+     * @param dictionary the dictionary of the loaded HDT
+     * @return a new {@link HdtIdentity}
+     * @throws IOException if the size or modification time of {@code file} cannot be read
+     */
+    public static @NonNull HdtIdentity of(@Nullable Path file,
+                                          @NonNull Dictionary dictionary) throws IOException {
+        long size = -1, lastModified = -1;
+        if (file != null && Files.exists(file)) {
+            size = Files.size(file);
+            lastModified = Files.getLastModifiedTime(file).toMillis();
+        }
+        return new HdtIdentity(size, lastModified, dictionary.getNshared(),
+                               dictionary.getNobjects());
+    }
+
+    /** Write {@link #BYTES} bytes that {@link #read(DataInput)} parses back */
+    public void write(@NonNull DataOutput out) throws IOException {
+        out.writeLong(fileSize);
+        out.writeLong(lastModified);
+        out.writeLong(nShared);
+        out.writeLong(nObjects);
+    }
+
+    /** Read an identity written by {@link #write(DataOutput)} */
+    public static @NonNull HdtIdentity read(@NonNull DataInput in) throws IOException {
+        return new HdtIdentity(in.readLong(), in.readLong(), in.readLong(), in.readLong());
+    }
+
+    /** Read an identity written by {@link #write(DataOutput)} at {@code offset} */
+    public static @NonNull HdtIdentity read(@NonNull ByteBuffer buffer, int offset) {
+        return new HdtIdentity(buffer.getLong(offset), buffer.getLong(offset+8),
+                               buffer.getLong(offset+16), buffer.getLong(offset+24));
+    }
+}
@@ -2,14 +2,19 @@ package com.github.lapesd.hdtss.data.query.impl;
 
 import com.github.lapesd.hdtss.data.load.HDTLoaderUtil;
 import com.github.lapesd.hdtss.data.query.HdtQueryService;
+import com.github.lapesd.hdtss.data.query.ValueRange;
 import com.github.lapesd.hdtss.model.FlowType;
 import com.github.lapesd.hdtss.model.Term;
 import com.github.lapesd.hdtss.model.TermPosition;
 import com.github.lapesd.hdtss.model.nodes.TriplePattern;
 import com.github.lapesd.hdtss.model.solutions.BatchQuerySolutions;
 import com.github.lapesd.hdtss.model.solutions.FluxQuerySolutions;
+import com.github.lapesd.hdtss.model.solutions.IdBatch;
 import com.github.lapesd.hdtss.model.solutions.IteratorQuerySolutions;
 import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
+import com.github.lapesd.hdtss.model.solutions.VectorQuerySolutions;
+import com.github.lapesd.hdtss.utils.Binding;
+import com.github.lapesd.hdtss.utils.CloseableUtils;
 import com.github.lapesd.hdtss.utils.QueryExecutionScheduler;
 import io.micronaut.context.annotation.Property;
 import jakarta.inject.Inject;
@@ -21,7 +26,6 @@ import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.rdfhdt.hdt.dictionary.Dictionary;
 import org.rdfhdt.hdt.hdt.HDT;
-import org.rdfhdt.hdt.triples.IteratorTripleID;
 import org.rdfhdt.hdt.triples.TripleID;
 import reactor.core.publisher.Flux;
 import reactor.core.scheduler.Scheduler;
@@ -29,43 +33,81 @@ import reactor.core.scheduler.Scheduler;
 import javax.validation.constraints.NotNull;
 import java.io.Closeable;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
-import java.util.NoSuchElementException;
+import java.util.*;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 @Singleton
 public class HdtQueryServiceImpl implements HdtQueryService, Closeable {
     private HDT hdt;
     private @NonNull final FlowType flowType;
     private @NonNull final Scheduler scheduler;
+    private final boolean lazy;
+    private final @NonNull TermDecodeCache decodeCache;
+    private final @NonNull TermIdCache idCache;
+    private final @NonNull ParallelScanner parallelScanner;
+    private final @NonNull TriplePatternCache patternCache;
+    private final @Nullable LiteralRangeIndex rangeIndex;
+    private final @Nullable LiteralTextIndex textIndex;
+
+    /**
+     * When {@link Term}s of solutions are decoded from the HDT dictionary.
+     */
+    public enum Materialization {
+        /** Decode all terms of a solution as soon as it is produced */
+        EAGER,
+        /**
+         * Solutions carry the HDT IDs and terms are only decoded once read (e.g., by
+         * serialization or by a FILTER). Joins, MINUS and EXISTS work directly on IDs.
+         */
+        LAZY
+    }
 
     @Inject
     public HdtQueryServiceImpl(@NonNull HDTLoaderUtil loader,
                                @Property(name = "sparql.hdt.flow", defaultValue = "REACTIVE")
                                @NonNull FlowType flowType,
-                               @Named(QueryExecutionScheduler.NAME) @NonNull Scheduler scheduler)
+                               @Named(QueryExecutionScheduler.NAME) @NonNull Scheduler scheduler,
+                               @Property(name = "sparql.hdt.materialization", defaultValue = "LAZY")
+                               @NonNull Materialization materialization,
+                               @NonNull TermDecodeCache decodeCache,
+                               @NonNull TermIdCache idCache,
+                               @NonNull ParallelScanner parallelScanner,
+                               @NonNull TriplePatternCache patternCache)
             throws IOException {
         this.hdt = loader.load();
         this.flowType = flowType;
         this.scheduler = scheduler;
+        this.lazy = materialization == Materialization.LAZY;
+        this.decodeCache = decodeCache;
+        this.idCache = idCache;
+        this.parallelScanner = parallelScanner;
+        this.patternCache = patternCache;
+        this.rangeIndex = loader.loadRangeIndex(hdt);
+        this.textIndex = loader.loadTextIndex(hdt);
     }
 
     @RequiredArgsConstructor
-    public static class SolutionIterator implements Iterator<@Nullable Term @NonNull[]> {
+    public static class SolutionIterator implements Iterator<@Nullable Term @NonNull[]>,
+                                                    AutoCloseable {
         private final @NonNull Dictionary dictionary;
-        private final @NonNull IteratorTripleID source;
+        private final @NonNull Iterator<TripleID> source;
         private final @NonNull TermPosition[] order;
         private final @NonNull Predicate<TripleID> filter;
+        private final boolean lazy;
+        private final @NonNull TermDecodeCache cache;
         private @Nullable Term @Nullable[] next;
 
 
         private @Nullable Term @NonNull[] lift(@NonNull TripleID tid) {
             int len = order.length;
             Term[] terms = new Term[len];
-            for (int i = 0; i < len; i++)
-                terms[i] = HDTUtils.fromHDTId(dictionary, HDTUtils.get(tid, order[i]), order[i]);
+            for (int i = 0; i < len; i++) {
+                TermPosition pos = order[i];
+                long id = HDTUtils.get(tid, pos);
+                terms[i] = lazy ? HDTUtils.fromHDTIdLazy(dictionary, id, pos, cache)
+                                : cache.decode(dictionary, id, HDTUtils.pos2role(pos));
+            }
             return terms;
         }
 
@@ -87,6 +129,12 @@ public class HdtQueryServiceImpl implements HdtQueryService, Closeable {
             assert row != null;
             return row;
         }
+
+        /** Release the source of triples (e.g., a parallel scan) before its exhaustion. */
+        @Override public void close() {
+            next = null;
+            CloseableUtils.closeIfCloseable(source);
+        }
     }
 
     private record NamesAndIt(@NonNull List<@NonNull String> names,
@@ -96,13 +144,48 @@ public class HdtQueryServiceImpl implements HdtQueryService, Closeable {
         }
     }
 
+    private @NonNull Iterator<TripleID> scan(@NonNull TriplePattern query,
+                                             TriplePattern.@NonNull SharedVars sharedVars) {
+        if (!patternCache.isEnabled()) {
+            var parallel = parallelScanner.scan(hdt, query, idCache);
+            return parallel != null ? parallel : HDTUtils.queryIds(hdt, query, idCache);
+        }
+        long s = toHDTId(query.subject(), TermPosition.SUB);
+        long p = s == -1 ? -1 : toHDTId(query.predicate(), TermPosition.PRE);
+        long o = p == -1 ? -1 : toHDTId(query.object(), TermPosition.OBJ);
+        if (o == -1)
+            return Collections.emptyIterator();
+        var key = new TriplePatternCache.Key(s, p, o, sharedVars);
+        var cached = patternCache.get(key);
+        if (cached != null)
+            return cached;
+        var parallel = parallelScanner.scan(hdt, query, idCache);
+        var source = parallel != null ? parallel : hdt.getTriples().search(new TripleID(s, p, o));
+        return patternCache.recording(key, source, HDTUtils.sharedVarIDFilter(sharedVars));
+    }
+
+    /** Search the HDT triples for the given IDs (0 for unbound), through the pattern cache */
+    private @NonNull Iterator<TripleID> search(long s, long p, long o,
+                                               TriplePattern.@NonNull SharedVars sharedVars) {
+        var pattern = new TripleID(s, p, o);
+        if (!patternCache.isEnabled())
+            return hdt.getTriples().search(pattern);
+        var key = new TriplePatternCache.Key(s, p, o, sharedVars);
+        var cached = patternCache.get(key);
+        if (cached != null)
+            return cached;
+        var source = hdt.getTriples().search(pattern);
+        return patternCache.recording(key, source, HDTUtils.sharedVarIDFilter(sharedVars));
+    }
+
     protected @NonNull NamesAndIt getSolutionIt(@NonNull TriplePattern query) {
         if (hdt == null)
             throw new IllegalStateException("HdtQueryServiceImpl is close()ed");
-        var hdtIt = HDTUtils.queryIds(hdt, query);
         var vi = query.collectVarsInfo();
+        var hdtIt = scan(query, vi.sharedVars());
         var it = new SolutionIterator(hdt.getDictionary(), hdtIt, vi.positions(),
-                                    HDTUtils.sharedVarIDFilter(vi.sharedVars()));
+                                    HDTUtils.sharedVarIDFilter(vi.sharedVars()), lazy,
+                                    decodeCache);
         return new NamesAndIt(query.outputVars(), it);
     }
 
@@ -110,13 +193,32 @@ public class HdtQueryServiceImpl implements HdtQueryService, Closeable {
         return hdt;
     }
 
+    @Override public @NonNull Term decode(long id, @NonNull TermPosition position) {
+        return decodeCache.decode(hdt.getDictionary(), id, HDTUtils.pos2role(position));
+    }
+
+    @Override public long toHDTId(@NonNull Term term, @NonNull TermPosition position) {
+        return idCache.toId(hdt.getDictionary(), term, HDTUtils.pos2role(position));
+    }
+
+    @Override public @NonNull Term resolve(@NonNull Term term) {
+        return idCache.resolve(hdt.getDictionary(), term);
+    }
+
+    @Override public @Nullable TermPosition sortedBy(@NonNull TriplePattern query) {
+        if (parallelScanner.mayReorder(query))
+            return null;
+        return HdtQueryService.super.sortedBy(query);
+    }
+
     @Override public @NonNull QuerySolutions query(@NotNull TriplePattern query) {
         return query(query, flowType);
     }
 
     @Override public @NonNull QuerySolutions queryReactive(@NotNull TriplePattern query) {
         var ni = getSolutionIt(query);
-        return new FluxQuerySolutions(ni.names, Flux.fromIterable(ni).publishOn(scheduler));
+        var flux = Flux.fromIterable(ni).doFinally(s -> ni.it.close());
+        return new FluxQuerySolutions(ni.names, flux.publishOn(scheduler));
     }
 
     @Override public @NonNull QuerySolutions queryBatch(@NotNull TriplePattern query) {
@@ -131,6 +233,185 @@ public class HdtQueryServiceImpl implements HdtQueryService, Closeable {
         return new IteratorQuerySolutions(ni.names, ni.it);
     }
 
+    /** Searches the triples for each object ID, in sequence. */
+    @RequiredArgsConstructor
+    private static class ObjectScan implements Iterator<TripleID> {
+        private final @NonNull HDT hdt;
+        private final long s, p;
+        private final long @NonNull[] objects;
+        private int nextObject = 0;
+        private @NonNull Iterator<TripleID> current = Collections.emptyIterator();
+
+        @Override public boolean hasNext() {
+            while (!current.hasNext() && nextObject < objects.length)
+                current = hdt.getTriples().search(new TripleID(s, p, objects[nextObject++]));
+            return current.hasNext();
+        }
+
+        @Override public TripleID next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return current.next();
+        }
+    }
+
+    @Override public boolean hasRangeIndex() {
+        return rangeIndex != null;
+    }
+
+    @Override public @Nullable QuerySolutions queryRange(@NonNull TriplePattern query,
+                                                         @NonNull ValueRange range) {
+        LiteralRangeIndex index = rangeIndex;
+        if (index == null)
+            return null;
+        return queryObjects(query, index.count(range), () -> index.ids(range));
+    }
+
+    @Override public boolean hasTextIndex() {
+        return textIndex != null;
+    }
+
+    @Override public @Nullable QuerySolutions
+    queryText(@NonNull TriplePattern query, @NonNull Collection<@NonNull String> substrings) {
+        LiteralTextIndex index = textIndex;
+        if (index == null)
+            return null;
+        return queryObjects(query, index.maxCandidates(substrings),
+                            () -> index.candidates(substrings));
+    }
+
+    /**
+     * Search {@code query} once for each object ID given by {@code candidates}, if
+     * {@code maxCandidates} is smaller than the number of triples matching {@code query}.
+     */
+    private @Nullable QuerySolutions
+    queryObjects(@NonNull TriplePattern query, long maxCandidates,
+                 @NonNull Supplier<long @Nullable[]> candidates) {
+        if (hdt == null)
+            throw new IllegalStateException("HdtQueryServiceImpl is close()ed");
+        var vi = query.collectVarsInfo();
+        if (maxCandidates < 0 || !query.object().isVar()
+                || vi.sharedVars() != TriplePattern.SharedVars.NONE) {
+            return null;
+        }
+        long s = toHDTId(query.subject(), TermPosition.SUB);
+        long p = s == -1 ? -1 : toHDTId(query.predicate(), TermPosition.PRE);
+        if (p == -1)
+            return new BatchQuerySolutions(query.outputVars(), List.of());
+        // each candidate costs an object index lookup, only worth it if it skips many triples
+        long triples = hdt.getTriples().search(new TripleID(s, p, 0)).estimatedNumResults();
+        if (maxCandidates >= triples)
+            return null;
+        long[] objects = candidates.get();
+        if (objects == null)
+            return null;
+        var scan = new ObjectScan(hdt, s, p, objects);
+        var it = new SolutionIterator(hdt.getDictionary(), scan, vi.positions(), t -> true,
+                                      lazy, decodeCache);
+        return new IteratorQuerySolutions(query.outputVars(), it);
+    }
+
+    /** IDs of a bound triple pattern, shared by the rows of a block that bind it alike. */
+    private record SearchKey(long s, long p, long o) implements Comparable<SearchKey> {
+        @Override public int compareTo(@NonNull SearchKey rhs) {
+            int diff = Long.compare(s, rhs.s);
+            if (diff == 0) diff = Long.compare(p, rhs.p);
+            return diff == 0 ? Long.compare(o, rhs.o) : diff;
+        }
+    }
+
+    @Override public @NonNull List<@NonNull List<@Nullable Term @NonNull[]>>
+    queryBlock(@NonNull TriplePattern query, @NonNull List<@NonNull String> vars,
+               @NonNull List<@Nullable Term @NonNull[]> rows) {
+        if (hdt == null)
+            throw new IllegalStateException("HdtQueryServiceImpl is close()ed");
+        if (rows.isEmpty())
+            return List.of();
+        // all rows bind the same positions, thus the first row gives the shape of solutions
+        var shape = (TriplePattern) query.bind(new Binding(vars).setTerms(rows.get(0)));
+        var vi = shape.collectVarsInfo();
+        var filter = HDTUtils.sharedVarIDFilter(vi.sharedVars());
+        TermPosition[] positions = TermPosition.values();
+        long[] template = new long[3];
+        int[] source = new int[3]; // index in vars of the value bound at each position
+        for (int i = 0; i < 3; i++) {
+            Term term = query.get(positions[i]);
+            source[i] = term.isVar() ? vars.indexOf(term.content().toString()) : -1;
+            if (!term.isVar() && (template[i] = toHDTId(term, positions[i])) == -1)
+                return Collections.nCopies(rows.size(), List.of());
+        }
+        SearchKey[] keys = new SearchKey[rows.size()];
+        Map<SearchKey, List<@Nullable Term @NonNull[]>> searches = new TreeMap<>();
+        for (int r = 0; r < keys.length; r++) {
+            Term[] row = rows.get(r);
+            long[] ids = template.clone();
+            boolean empty = false;
+            for (int i = 0; !empty && i < 3; i++) {
+                if (source[i] >= 0)
+                    empty = (ids[i] = toHDTId(row[source[i]], positions[i])) == -1;
+            }
+            if (!empty)
+                searches.put(keys[r] = new SearchKey(ids[0], ids[1], ids[2]), List.of());
+        }
+        // searching in ID order improves locality of HDT bitmap and sequence accesses
+        Dictionary dictionary = hdt.getDictionary();
+        for (var e : searches.entrySet()) {
+            SearchKey k = e.getKey();
+            var it = new SolutionIterator(dictionary, search(k.s, k.p, k.o, vi.sharedVars()),
+                                          vi.positions(), filter, lazy, decodeCache);
+            List<@Nullable Term @NonNull[]> list = new ArrayList<>();
+            it.forEachRemaining(list::add);
+            e.setValue(list);
+        }
+        List<List<@Nullable Term @NonNull[]>> results = new ArrayList<>(keys.length);
+        for (SearchKey key : keys)
+            results.add(key == null ? List.of() : searches.get(key));
+        return results;
+    }
+
+    /** Fills {@link IdBatch}es with the columns of interest of matched {@link TripleID}s. */
+    @RequiredArgsConstructor
+    private static class ScanSource implements VectorQuerySolutions.BatchSource {
+        private final @NonNull Iterator<TripleID> source;
+        private final @NonNull TermPosition[] order;
+        private final @NonNull Predicate<TripleID> filter;
+        private final @NonNull IdBatch batch;
+
+        @Override public @Nullable IdBatch nextBatch() {
+            batch.clear();
+            int width = order.length;
+            while (!batch.isFull() && source.hasNext()) {
+                TripleID tid = source.next();
+                if (!filter.test(tid))
+                    continue;
+                int row = batch.nextRow();
+                for (int i = 0; i < width; i++)
+                    batch.column(i)[row] = HDTUtils.get(tid, order[i]);
+                batch.commitRow();
+            }
+            return batch.size() > 0 ? batch : null;
+        }
+
+        @Override public void close() {
+            CloseableUtils.closeIfCloseable(source);
+        }
+    }
+
+    @Override public @NonNull VectorQuerySolutions queryVector(@NotNull TriplePattern query) {
+        if (hdt == null)
+            throw new IllegalStateException("HdtQueryServiceImpl is close()ed");
+        var vi = query.collectVarsInfo();
+        var hdtIt = scan(query, vi.sharedVars());
+        var batch = new IdBatch(vi.positions(), IdBatch.DEFAULT_CAPACITY);
+        var source = new ScanSource(hdtIt, vi.positions(),
+                                    HDTUtils.sharedVarIDFilter(vi.sharedVars()), batch);
+        Dictionary dict = hdt.getDictionary();
+        VectorQuerySolutions.Decoder decoder = lazy
+                ? (id, pos) -> HDTUtils.fromHDTIdLazy(dict, id, pos, decodeCache)
+                : (id, pos) -> decodeCache.decode(dict, id, HDTUtils.pos2role(pos));
+        return new VectorQuerySolutions(query.outputVars(), source, decoder);
+    }
+
     @Override public void close() throws IOException {
         if (hdt != null) {
             hdt.close();
@@ -0,0 +1,256 @@
+package com.github.lapesd.hdtss.data.query.impl;
+
+import com.github.lapesd.hdtss.data.query.ValueRange;
+import lombok.extern.slf4j.Slf4j;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.rdfhdt.hdt.dictionary.Dictionary;
+import org.rdfhdt.hdt.dictionary.DictionarySection;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Object IDs of numeric and temporal literals of an HDT file, sorted by their values.
+ *
+ * HDT dictionaries sort literals by their lexical form ({@code "10"} comes before
+ * {@code "9"}), thus answering a range FILTER requires decoding every literal. This index
+ * keeps, for each {@link ValueRange.Kind}, the values (see
+ * {@link ValueRange#valueOf(ValueRange.Kind, CharSequence)}) of all literals of that kind
+ * and their IDs in the object ID space, so that the literals within a {@link ValueRange}
+ * are found with two binary searches.
+ *
+ * The index is built by reading the literals of the objects section once and can be
+ * saved into a sidecar file (see {@link LiteralRangeIndex#SUFFIX}), which stores 16 bytes
+ * per indexed literal and the {@link HdtIdentity} of the HDT file it was built from.
+ */
+@Slf4j
+public class LiteralRangeIndex {
+    /** Suffix appended to the HDT file path to obtain the sidecar file path. */
+    public static final @NonNull String SUFFIX = ".ranges.v2";
+    private static final int MAGIC = 0x48525632; // HRV2
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_SIZE = Integer.MAX_VALUE-8;
+
+    private final double @NonNull[] @NonNull[] values;
+    private final long @NonNull[] @NonNull[] ids;
+
+    private LiteralRangeIndex(double @NonNull[] @NonNull[] values,
+                              long @NonNull[] @NonNull[] ids) {
+        this.values = values;
+        this.ids = ids;
+    }
+
+    /**
+     * Build the index by decoding all literals in the objects section of {@code dictionary}.
+     *
+     * Literals with other datatypes, ill-formed lexical forms or {@code NaN} values are not
+     * indexed, since they never satisfy a range comparison.
+     *
+     * @param dictionary the HDT dictionary
+     * @return a new {@link LiteralRangeIndex} or {@code null} if some kind has more literals
+     *         than an array can hold.
+     */
+    public static @Nullable LiteralRangeIndex build(@NonNull Dictionary dictionary) {
+        ValueRange.Kind[] kinds = ValueRange.Kind.values();
+        double[][] values = new double[kinds.length][];
+        long[][] ids = new long[kinds.length][];
+        for (int k = 0; k < kinds.length; k++) {
+            values[k] = new double[INITIAL_CAPACITY];
+            ids[k] = new long[INITIAL_CAPACITY];
+        }
+        long nShared = dictionary.getNshared();
+        DictionarySection objects = dictionary.getObjects();
+        // literals are never subjects, thus they are only in the objects section
+        long[] range = HDTUtils.prefixRange(objects, "\"");
+        long first = range == null ? 1 : range[0], last = range == null ? 0 : range[1];
+        int[] sizes = new int[kinds.length];
+        for (long position = first; position <= last; position++) {
+            CharSequence literal = objects.extract(position);
+            if (literal == null)
+                continue;
+            String string = literal.toString();
+            int typeStart = string.lastIndexOf("\"^^<");
+            if (typeStart <= 0 || !string.endsWith(">"))
+                continue;
+            var kind = ValueRange.Kind.of(string.substring(typeStart+4, string.length()-1));
+            if (kind == null)
+                continue;
+            double value = ValueRange.valueOf(kind, string.substring(1, typeStart));
+            if (Double.isNaN(value))
+                continue;
+            int k = kind.ordinal(), size = sizes[k];
+            if (size == values[k].length) {
+                if (size == MAX_SIZE) {
+                    log.warn("More than {} {} literals, will not build a range index",
+                             MAX_SIZE, kind);
+                    return null;
+                }
+                int grown = (int) Math.min(MAX_SIZE, size*2L);
+                values[k] = Arrays.copyOf(values[k], grown);
+                ids[k] = Arrays.copyOf(ids[k], grown);
+            }
+            values[k][size] = value;
+            ids[k][size] = nShared + position;
+            ++sizes[k];
+        }
+        for (int k = 0; k < kinds.length; k++) {
+            values[k] = Arrays.copyOf(values[k], sizes[k]);
+            ids[k] = Arrays.copyOf(ids[k], sizes[k]);
+            sort(values[k], ids[k]);
+        }
+        return new LiteralRangeIndex(values, ids);
+    }
+
+    /** Sort {@code values} and apply the same permutation to {@code ids}. */
+    private static void sort(double @NonNull[] values, long @NonNull[] ids) {
+        if (values.length < 2)
+            return;
+        double[] valuesBuffer = new double[values.length];
+        long[] idsBuffer = new long[ids.length];
+        // bottom-up merge sort, alternating between the arrays and the buffers
+        double[] srcValues = values, dstValues = valuesBuffer;
+        long[] srcIds = ids, dstIds = idsBuffer;
+        for (int width = 1; width < values.length; width *= 2) {
+            for (int lo = 0; lo < values.length; lo += 2*width) {
+                int mid = Math.min(lo+width, values.length);
+                int hi = (int) Math.min(lo+2L*width, values.length);
+                int l = lo, r = mid;
+                for (int i = lo; i < hi; i++) {
+                    if (r >= hi || (l < mid && Double.compare(srcValues[l], srcValues[r]) <= 0)) {
+                        dstValues[i] = srcValues[l];
+                        dstIds[i] = srcIds[l++];
+                    } else {
+                        dstValues[i] = srcValues[r];
+                        dstIds[i] = srcIds[r++];
+                    }
+                }
+            }
+            double[] swapValues = srcValues;
+            srcValues = dstValues;
+            dstValues = swapValues;
+            long[] swapIds = srcIds;
+            srcIds = dstIds;
+            dstIds = swapIds;
+        }
+        if (srcValues != values) {
+            System.arraycopy(srcValues, 0, values, 0, values.length);
+            System.arraycopy(srcIds, 0, ids, 0, ids.length);
+        }
+    }
+
+    /**
+     * Read an index previously saved with {@link LiteralRangeIndex#write(Path, HdtIdentity)}.
+     *
+     * @param path the sidecar file
+     * @param identity the identity of the loaded HDT file.
+     * @return the index or {@code null} if the file does not exist or was built for another
+     *         HDT file or another version of it.
+     * @throws IOException if the file could not be read or is corrupt.
+     */
+    public static @Nullable LiteralRangeIndex read(@NonNull Path path,
+                                                   @NonNull HdtIdentity identity)
+            throws IOException {
+        if (!Files.exists(path))
+            return null;
+        var buffered = new BufferedInputStream(Files.newInputStream(path), 65536);
+        try (var in = new DataInputStream(buffered)) {
+            if (in.readInt() != MAGIC)
+                throw new IOException(path+" is not a literal range index");
+            if (!HdtIdentity.read(in).equals(identity))
+                return null;
+            int nKinds = ValueRange.Kind.values().length;
+            double[][] values = new double[nKinds][];
+            long[][] ids = new long[nKinds][];
+            for (int k = 0; k < nKinds; k++) {
+                int size = in.readInt();
+                values[k] = new double[size];
+                ids[k] = new long[size];
+                for (int i = 0; i < size; i++) {
+                    values[k][i] = in.readDouble();
+                    ids[k][i] = in.readLong();
+                }
+            }
+            return new LiteralRangeIndex(values, ids);
+        }
+    }
+
+    /**
+     * Save this index into the given sidecar file, replacing it if it exists.
+     *
+     * @param path the sidecar file.
+     * @param identity the identity of the HDT file from which this index was built.
+     * @throws IOException if the file could not be written.
+     */
+    public void write(@NonNull Path path, @NonNull HdtIdentity identity) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName()+".tmp");
+        var buffered = new BufferedOutputStream(Files.newOutputStream(tmp), 65536);
+        try (var out = new DataOutputStream(buffered)) {
+            out.writeInt(MAGIC);
+            identity.write(out);
+            for (int k = 0; k < values.length; k++) {
+                out.writeInt(values[k].length);
+                for (int i = 0; i < values[k].length; i++) {
+                    out.writeDouble(values[k][i]);
+                    out.writeLong(ids[k][i]);
+                }
+            }
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /** Number of indexed literals of the given kind */
+    public int size(ValueRange.@NonNull Kind kind) {
+        return values[kind.ordinal()].length;
+    }
+
+    /** Number of indexed literals whose values are in {@code range} */
+    public int count(@NonNull ValueRange range) {
+        if (range.isEmpty())
+            return 0;
+        double[] v = values[range.kind().ordinal()];
+        return upperBound(v, range.max()) - lowerBound(v, range.min());
+    }
+
+    /**
+     * Get the object IDs of the indexed literals whose values are in {@code range}.
+     *
+     * @param range the range of values
+     * @return a new array with the object IDs sorted in increasing order.
+     */
+    public long @NonNull[] ids(@NonNull ValueRange range) {
+        if (range.isEmpty())
+            return new long[0];
+        int k = range.kind().ordinal();
+        int begin = lowerBound(values[k], range.min()), end = upperBound(values[k], range.max());
+        long[] selected = Arrays.copyOfRange(ids[k], begin, Math.max(begin, end));
+        // searching in ID order improves locality of the HDT object index
+        Arrays.sort(selected);
+        return selected;
+    }
+
+    /** Index of the first value {@code >= min} */
+    private static int lowerBound(double @NonNull[] values, double min) {
+        int lo = 0, hi = values.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] < min) lo = mid+1;
+            else                   hi = mid;
+        }
+        return lo;
+    }
+
+    /** Index of the first value {@code > max} */
+    private static int upperBound(double @NonNull[] values, double max) {
+        int lo = 0, hi = values.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] <= max) lo = mid+1;
+            else                    hi = mid;
+        }
+        return lo;
+    }
+}
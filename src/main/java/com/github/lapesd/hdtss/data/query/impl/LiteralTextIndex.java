@@ -0,0 +1,565 @@
+package com.github.lapesd.hdtss.data.query.impl;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.rdfhdt.hdt.dictionary.Dictionary;
+import org.rdfhdt.hdt.dictionary.DictionarySection;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * An inverted index from trigrams to the literals of an HDT file that contain them.
+ *
+ * Trigrams are sequences of three code points of the lexical form, after case folding
+ * (see {@link LiteralTextIndex#fold(int)}). A literal containing a string contains all
+ * trigrams of that string, thus intersecting the postings of such trigrams yields a
+ * superset of the literals containing the string, which must still be verified.
+ *
+ * The index is a sidecar file (see {@link LiteralTextIndex#SUFFIX}) which is memory-mapped,
+ * like the HDT file itself. It has a header with the {@link HdtIdentity} of the HDT file, a
+ * table of trigrams sorted by key with the offsets of their postings and the postings: the
+ * number of literals followed by the deltas between their positions in the objects section,
+ * as variable-length integers.
+ */
+public class LiteralTextIndex {
+    /** Suffix appended to the HDT file path to obtain the sidecar file path. */
+    public static final @NonNull String SUFFIX = ".text.v2";
+    private static final int MAGIC = 0x48545832; // HTX2
+    /** Magic, padding, {@link HdtIdentity} and number of trigrams */
+    private static final int HEADER_BYTES = 8 + HdtIdentity.BYTES + 8;
+    private static final int IDENTITY_OFFSET = 8, N_GRAMS_OFFSET = 8 + HdtIdentity.BYTES;
+    private static final int ENTRY_BYTES = 16;
+    /** Mapped segments are aligned with table entries, which never span two segments */
+    private static final int SEGMENT_BITS = 30;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1;
+    /** Maximum number of postings held in memory while building the index */
+    static final int CHUNK_POSTINGS = 1 << 22;
+    /** Maximum number of run files open at once while building the index */
+    static final int MAX_FAN_IN = 64;
+    private static final int RUN_BUFFER_BYTES = 8192;
+
+    private final long nShared;
+    private final long nGrams;
+    private final @NonNull ByteBuffer @NonNull[] segments;
+
+    private LiteralTextIndex(long nShared, long nGrams, @NonNull ByteBuffer @NonNull[] segments) {
+        this.nShared = nShared;
+        this.nGrams = nGrams;
+        this.segments = segments;
+    }
+
+    /**
+     * Case folding applied to indexed literals and to searched strings.
+     *
+     * This maps all code points that are equal ignoring case, as in
+     * {@link String#equalsIgnoreCase(String)}, to the same code point.
+     */
+    public static int fold(int codePoint) {
+        return Character.toLowerCase(Character.toUpperCase(codePoint));
+    }
+
+    /**
+     * Get the keys of all trigrams in {@code string}, after {@link #fold(int)}.
+     *
+     * Trigrams with non-spacing marks are skipped, since {@code LCASE} may introduce
+     * them (e.g., {@code U+0130} becomes {@code i} followed by {@code U+0307}).
+     *
+     * @param string the string to split into trigrams
+     * @return the distinct trigram keys, in no particular order
+     */
+    public static long @NonNull[] trigrams(@NonNull CharSequence string) {
+        int[] cps = string.codePoints().map(LiteralTextIndex::fold).toArray();
+        long[] keys = new long[Math.max(0, cps.length-2)];
+        int size = 0;
+        for (int i = 0; i+2 < cps.length; i++) {
+            if (isMark(cps[i]) || isMark(cps[i+1]) || isMark(cps[i+2]))
+                continue;
+            keys[size++] = ((long)cps[i] << 42) | ((long)cps[i+1] << 21) | cps[i+2];
+        }
+        return Arrays.stream(keys, 0, size).distinct().toArray();
+    }
+
+    private static boolean isMark(int codePoint) {
+        return Character.getType(codePoint) == Character.NON_SPACING_MARK;
+    }
+
+    /** Get the lexical form of a literal as stored in HDT, or {@code null} if not a literal */
+    private static @Nullable CharSequence lexicalForm(@Nullable CharSequence literal) {
+        if (literal == null || literal.length() < 2 || literal.charAt(0) != '"')
+            return null;
+        // language tags and datatype IRIs never contain '"'
+        String string = literal.toString();
+        return string.substring(1, string.lastIndexOf('"'));
+    }
+
+    /**
+     * Build the index for the literals of {@code dictionary} and save it to {@code path}.
+     *
+     * Postings are built in chunks of up to {@link #CHUNK_POSTINGS} postings (8 bytes each),
+     * which are sorted by trigram in memory and written to temporary run files next to
+     * {@code path}. The runs are then merged into the sidecar file, thus heap usage does not
+     * grow with the number of literals. If there are more than {@link #MAX_FAN_IN} runs,
+     * groups of consecutive runs are first merged into longer runs, so that no more than
+     * {@link #MAX_FAN_IN} files are open at once.
+     *
+     * @param dictionary the HDT dictionary
+     * @param identity the identity of the HDT file, see {@link HdtIdentity#of(Path, Dictionary)}
+     * @param path the sidecar file to create or replace
+     * @throws IOException if the file could not be written
+     */
+    public static void build(@NonNull Dictionary dictionary, @NonNull HdtIdentity identity,
+                             @NonNull Path path) throws IOException {
+        build(dictionary, identity, path, CHUNK_POSTINGS, MAX_FAN_IN);
+    }
+
+    static void build(@NonNull Dictionary dictionary, @NonNull HdtIdentity identity,
+                      @NonNull Path path, int chunkPostings, int fanIn) throws IOException {
+        DictionarySection objects = dictionary.getObjects();
+        // literals are never subjects, thus they are only in the objects section
+        long[] range = HDTUtils.prefixRange(objects, "\"");
+        long first = range == null ? 1 : range[0], last = range == null ? 0 : range[1];
+        List<Path> runs = new ArrayList<>();
+        try {
+            int maxPostings = Math.max(1, chunkPostings);
+            for (long position = first; position <= last; )
+                position = writeRun(objects, position, last, maxPostings, path, runs);
+            merge(runs, Math.max(2, fanIn), identity, path);
+        } finally {
+            for (Path run : runs)
+                Files.deleteIfExists(run);
+        }
+    }
+
+    /**
+     * Write the postings of the literals from position {@code begin} until the first literal
+     * at which the chunk reaches {@code maxPostings} into a new run file added to {@code runs}.
+     *
+     * A run lists the trigrams in increasing key order, each followed by its number of
+     * literals and the deltas between their positions. A negative key ends the run.
+     *
+     * @return the position following the last literal in the run
+     */
+    private static long writeRun(@NonNull DictionarySection objects, long begin, long last,
+                                 int maxPostings, @NonNull Path path,
+                                 @NonNull List<Path> runs) throws IOException {
+        // count postings per trigram, then place positions (which increase) in their slots
+        Map<Long, int[]> counts = new HashMap<>();
+        long total = 0, end = begin;
+        while (end <= last && total < maxPostings) {
+            CharSequence lex = lexicalForm(objects.extract(end++));
+            if (lex == null)
+                continue;
+            for (long key : trigrams(lex)) {
+                ++counts.computeIfAbsent(key, k -> new int[1])[0];
+                ++total;
+            }
+        }
+        if (total > Integer.MAX_VALUE-8)
+            throw new IOException("Too many trigrams in literal at position "+(end-1));
+        long[] keys = counts.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+        if (keys.length == 0)
+            return end;
+        int[] starts = new int[keys.length+1];
+        for (int i = 0; i < keys.length; i++)
+            starts[i+1] = starts[i] + counts.get(keys[i])[0];
+        counts.clear();
+        long[] postings = new long[(int)total];
+        int[] fill = Arrays.copyOf(starts, keys.length);
+        for (long position = begin; position < end; position++) {
+            CharSequence lex = lexicalForm(objects.extract(position));
+            if (lex == null)
+                continue;
+            for (long key : trigrams(lex))
+                postings[fill[Arrays.binarySearch(keys, key)]++] = position;
+        }
+        Path run = createTempFile(path, ".run");
+        runs.add(run);
+        var buffered = new BufferedOutputStream(Files.newOutputStream(run), 65536);
+        try (var out = new DataOutputStream(buffered)) {
+            for (int i = 0; i < keys.length; i++) {
+                out.writeLong(keys[i]);
+                writeVarInt(out, starts[i+1]-starts[i]);
+                for (int j = starts[i]; j < starts[i+1]; j++)
+                    writeVarInt(out, j == starts[i] ? postings[j] : postings[j]-postings[j-1]);
+            }
+            out.writeLong(-1);
+        }
+        return end;
+    }
+
+    /** Create a temporary file in the directory of the sidecar file at {@code path}. */
+    private static @NonNull Path createTempFile(@NonNull Path path,
+                                                @NonNull String suffix) throws IOException {
+        Path dir = path.toAbsolutePath().getParent();
+        return Files.createTempFile(dir, path.getFileName()+".", suffix);
+    }
+
+    /**
+     * Merge the runs, which cover increasing positions, into the sidecar file at {@code path}.
+     *
+     * While there are more than {@code fanIn} runs, groups of {@code fanIn} consecutive runs
+     * are merged into a single run, which replaces them in {@code runs}. The trigram table and
+     * the postings are then written to temporary files, since the offsets in the table depend
+     * on the number of trigrams, known only at the end.
+     */
+    private static void merge(@NonNull List<Path> runs, int fanIn, @NonNull HdtIdentity identity,
+                              @NonNull Path path) throws IOException {
+        while (runs.size() > fanIn) {
+            List<Path> merged = new ArrayList<>();
+            for (int i = 0, size = runs.size(); i < size; i += fanIn) {
+                List<Path> group = runs.subList(i, Math.min(size, i+fanIn));
+                merged.add(group.size() == 1 ? group.get(0) : mergeRuns(group, path));
+            }
+            for (Path run : runs) {
+                if (!merged.contains(run))
+                    Files.deleteIfExists(run);
+            }
+            runs.clear();
+            runs.addAll(merged);
+        }
+        Path table = createTempFile(path, ".table");
+        Path postings = createTempFile(path, ".postings");
+        try {
+            long nGrams = 0;
+            var tableBuffer = new BufferedOutputStream(Files.newOutputStream(table), 65536);
+            var postingsBuffer = new BufferedOutputStream(Files.newOutputStream(postings), 65536);
+            try (var merger = new RunMerger(runs);
+                 var tableOut = new DataOutputStream(tableBuffer);
+                 var postingsOut = new DataOutputStream(postingsBuffer)) {
+                long offset = 0;
+                while (merger.next()) {
+                    ++nGrams;
+                    tableOut.writeLong(merger.key);
+                    tableOut.writeLong(offset);
+                    offset += writeVarInt(postingsOut, merger.count);
+                    offset += merger.writePostings(postingsOut);
+                }
+            }
+            write(path, identity, nGrams, table, postings);
+        } finally {
+            Files.deleteIfExists(table);
+            Files.deleteIfExists(postings);
+        }
+    }
+
+    /** Merge consecutive {@code runs} into a new run file next to {@code path}. */
+    private static @NonNull Path mergeRuns(@NonNull List<Path> runs,
+                                           @NonNull Path path) throws IOException {
+        Path run = createTempFile(path, ".run");
+        try (var merger = new RunMerger(runs);
+             var out = new DataOutputStream(new BufferedOutputStream(
+                     Files.newOutputStream(run), 65536))) {
+            while (merger.next()) {
+                out.writeLong(merger.key);
+                writeVarInt(out, merger.count);
+                merger.writePostings(out);
+            }
+            out.writeLong(-1);
+        } catch (Throwable t) {
+            Files.deleteIfExists(run);
+            throw t;
+        }
+        return run;
+    }
+
+    /** An open run file and the trigram at its head. */
+    private static final class RunReader {
+        final int index;
+        final @NonNull DataInputStream in;
+        long key, count;
+
+        RunReader(int index, @NonNull Path run) throws IOException {
+            this.index = index;
+            var buffered = new BufferedInputStream(Files.newInputStream(run), RUN_BUFFER_BYTES);
+            this.in = new DataInputStream(buffered);
+        }
+    }
+
+    /**
+     * Yields the trigrams of runs that cover increasing positions in increasing key order,
+     * with the postings of all runs for each trigram.
+     */
+    private static final class RunMerger implements Closeable {
+        private final @NonNull List<RunReader> readers = new ArrayList<>();
+        private final @NonNull PriorityQueue<RunReader> queue = new PriorityQueue<>(
+                Comparator.<RunReader>comparingLong(r -> r.key).thenComparingInt(r -> r.index));
+        private final @NonNull List<RunReader> current = new ArrayList<>();
+        long key, count;
+
+        RunMerger(@NonNull List<Path> runs) throws IOException {
+            try {
+                for (Path run : runs) {
+                    var reader = new RunReader(readers.size(), run);
+                    readers.add(reader);
+                    current.add(reader);
+                }
+            } catch (Throwable t) {
+                close();
+                throw t;
+            }
+        }
+
+        /**
+         * Advance to the next trigram, setting {@link #key} and {@link #count}. The postings of
+         * the previous trigram must have been consumed by {@link #writePostings(DataOutputStream)}.
+         *
+         * @return {@code false} if all runs are exhausted
+         */
+        boolean next() throws IOException {
+            for (RunReader reader : current) {
+                reader.key = reader.in.readLong();
+                if (reader.key >= 0)
+                    queue.add(reader);
+            }
+            current.clear();
+            if (queue.isEmpty())
+                return false;
+            key = queue.peek().key;
+            count = 0;
+            while (!queue.isEmpty() && queue.peek().key == key) {
+                RunReader reader = queue.poll();
+                reader.count = readVarInt(reader.in);
+                count += reader.count;
+                current.add(reader); // in increasing index, thus increasing positions
+            }
+            return true;
+        }
+
+        /**
+         * Write the deltas between positions of the current trigram in all runs.
+         *
+         * @return the number of bytes written
+         */
+        long writePostings(@NonNull DataOutputStream out) throws IOException {
+            long bytes = 0, previous = 0;
+            for (RunReader reader : current) {
+                long position = 0;
+                for (long i = 0; i < reader.count; i++) {
+                    position += readVarInt(reader.in);
+                    bytes += writeVarInt(out, position-previous);
+                    previous = position;
+                }
+            }
+            return bytes;
+        }
+
+        @Override public void close() throws IOException {
+            IOException error = null;
+            for (RunReader reader : readers) {
+                try {
+                    reader.in.close();
+                } catch (IOException e) {
+                    if (error == null) error = e;
+                    else               error.addSuppressed(e);
+                }
+            }
+            if (error != null)
+                throw error;
+        }
+    }
+
+    private static void write(@NonNull Path path, @NonNull HdtIdentity identity, long nGrams,
+                              @NonNull Path table, @NonNull Path postings) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName()+".tmp");
+        var buffered = new BufferedOutputStream(Files.newOutputStream(tmp), 65536);
+        try (var out = new DataOutputStream(buffered);
+             var tableIn = new DataInputStream(new BufferedInputStream(
+                     Files.newInputStream(table), 65536))) {
+            out.writeInt(MAGIC);
+            out.writeInt(0);
+            identity.write(out);
+            out.writeLong(nGrams);
+            long base = HEADER_BYTES + (long)ENTRY_BYTES*nGrams;
+            for (long i = 0; i < nGrams; i++) {
+                out.writeLong(tableIn.readLong());
+                out.writeLong(base + tableIn.readLong());
+            }
+            Files.copy(postings, out);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /** Write {@code value} as a variable-length integer and return the number of bytes */
+    private static int writeVarInt(@NonNull DataOutputStream out,
+                                   long value) throws IOException {
+        int bytes = 1;
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int)(value & 0x7F) | 0x80);
+            value >>>= 7;
+            ++bytes;
+        }
+        out.writeByte((int)value);
+        return bytes;
+    }
+
+    private static long readVarInt(@NonNull DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long)(b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+    }
+
+    /**
+     * Memory-map an index previously created by {@link #build(Dictionary, HdtIdentity, Path)}.
+     *
+     * @param path the sidecar file
+     * @param identity the identity of the loaded HDT file
+     * @return the index or {@code null} if the file does not exist or was built for another
+     *         HDT file or another version of it.
+     * @throws IOException if the file could not be mapped or is not a text index.
+     */
+    public static @Nullable LiteralTextIndex open(@NonNull Path path,
+                                                  @NonNull HdtIdentity identity)
+            throws IOException {
+        if (!Files.exists(path))
+            return null;
+        try (var channel = FileChannel.open(path)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES)
+                throw new IOException(path+" is not a literal text index");
+            var segments = new ByteBuffer[(int)((size + SEGMENT_MASK) >>> SEGMENT_BITS)];
+            for (int i = 0; i < segments.length; i++) {
+                long start = (long)i << SEGMENT_BITS;
+                long length = Math.min(size - start, 1L << SEGMENT_BITS);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            }
+            if (segments[0].getInt(0) != MAGIC)
+                throw new IOException(path+" is not a literal text index");
+            ByteBuffer header = segments[0];
+            if (!HdtIdentity.read(header, IDENTITY_OFFSET).equals(identity))
+                return null;
+            return new LiteralTextIndex(identity.nShared(), header.getLong(N_GRAMS_OFFSET),
+                                        segments);
+        }
+    }
+
+    private long getLong(long offset) {
+        return segments[(int)(offset >>> SEGMENT_BITS)].getLong((int)(offset & SEGMENT_MASK));
+    }
+
+    /** Reads variable-length integers from a position of the mapped file */
+    private class Reader {
+        private long offset;
+
+        Reader(long offset) { this.offset = offset; }
+
+        long next() {
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = segments[(int)(offset >>> SEGMENT_BITS)]
+                        .get((int)(offset & SEGMENT_MASK));
+                ++offset;
+                value |= (long)(b & 0x7F) << shift;
+                if ((b & 0x80) == 0)
+                    return value;
+            }
+        }
+    }
+
+    /** Offset of the postings of {@code key}, or -1 if no literal has the trigram */
+    private long postingsOffset(long key) {
+        long lo = 0, hi = nGrams;
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            long midKey = getLong(HEADER_BYTES + mid*ENTRY_BYTES);
+            if      (midKey < key) lo = mid+1;
+            else if (midKey > key) hi = mid;
+            else return getLong(HEADER_BYTES + mid*ENTRY_BYTES + 8);
+        }
+        return -1;
+    }
+
+    private long @Nullable[] offsets(@NonNull Collection<@NonNull String> substrings) {
+        long[] keys = substrings.stream().map(LiteralTextIndex::trigrams)
+                                .flatMapToLong(Arrays::stream).distinct().toArray();
+        if (keys.length == 0)
+            return null;
+        long[] offsets = new long[keys.length];
+        for (int i = 0; i < keys.length; i++)
+            offsets[i] = postingsOffset(keys[i]);
+        return offsets;
+    }
+
+    /**
+     * Get an upper bound for the number of literals that contain all {@code substrings},
+     * which is the number of literals containing the rarest of their trigrams.
+     *
+     * @param substrings strings, compared after {@link #fold(int)}
+     * @return the upper bound or -1 if there are no trigrams in {@code substrings}.
+     */
+    public long maxCandidates(@NonNull Collection<@NonNull String> substrings) {
+        long[] offsets = offsets(substrings);
+        if (offsets == null)
+            return -1;
+        long min = Long.MAX_VALUE;
+        for (long offset : offsets)
+            min = Math.min(min, offset < 0 ? 0 : new Reader(offset).next());
+        return min;
+    }
+
+    /**
+     * Get the object IDs of the literals whose lexical forms contain all trigrams of all
+     * {@code substrings}.
+     *
+     * @param substrings strings, compared after {@link #fold(int)}
+     * @return the object IDs, in increasing order, or {@code null} if there are no trigrams
+     *         in {@code substrings}.
+     */
+    public long @Nullable[] candidates(@NonNull Collection<@NonNull String> substrings) {
+        long[] offsets = offsets(substrings);
+        if (offsets == null)
+            return null;
+        long[] counts = new long[offsets.length];
+        for (int i = 0; i < offsets.length; i++) {
+            if (offsets[i] < 0)
+                return new long[0];
+            counts[i] = new Reader(offsets[i]).next();
+        }
+        Integer[] order = new Integer[offsets.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparingLong(i -> counts[i]));
+        long[] result = decode(offsets[order[0]]);
+        int size = result.length;
+        for (int i = 1; i < order.length && size > 0; i++)
+            size = intersect(result, size, offsets[order[i]]);
+        for (int i = 0; i < size; i++)
+            result[i] += nShared;
+        return Arrays.copyOf(result, size);
+    }
+
+    private long @NonNull[] decode(long offset) {
+        Reader reader = new Reader(offset);
+        long[] positions = new long[(int)reader.next()];
+        long position = 0;
+        for (int i = 0; i < positions.length; i++)
+            positions[i] = position += reader.next();
+        return positions;
+    }
+
+    /** Keep in {@code positions[0:size]} only the positions also in the postings at offset */
+    private int intersect(long @NonNull[] positions, int size, long offset) {
+        Reader reader = new Reader(offset);
+        long remaining = reader.next(), other = 0;
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            while (other < positions[i] && remaining > 0) {
+                other += reader.next();
+                --remaining;
+            }
+            if (other == positions[i])
+                positions[kept++] = other;
+            else if (other < positions[i])
+                break; // no more postings
+        }
+        return kept;
+    }
+}
@@ -0,0 +1,408 @@
+package com.github.lapesd.hdtss.data.query.impl;
+
+import com.github.lapesd.hdtss.data.query.CardinalityEstimator;
+import com.github.lapesd.hdtss.model.nodes.TriplePattern;
+import io.micronaut.context.annotation.Property;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Provider;
+import jakarta.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.rdfhdt.hdt.hdt.HDT;
+import org.rdfhdt.hdt.triples.TripleID;
+import org.rdfhdt.hdt.triples.Triples;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.rdfhdt.hdt.enums.TripleComponentRole.PREDICATE;
+
+/**
+ * Scans large triple patterns with unbound subject and object using multiple threads.
+ *
+ * The subject ID range {@code [1, nSubjects]} is split into disjoint partitions, each scanned
+ * by a task in a dedicated {@link ForkJoinPool}. Matched triples are sent to the consumer
+ * in chunks. At most {@code sparql.hdt.parallel.threads} partitions of a scan are started
+ * ahead of the consumer. In unordered mode, a partition that ends starts the next one and
+ * chunks are delivered as soon as any partition produces them. In ordered mode, partitions
+ * are delivered in subject order (which is the order of a sequential scan) and the consumer
+ * starts a partition whenever it finishes consuming an earlier one.
+ *
+ * Producers never block a thread of the pool: once the queue of a partition is full, its
+ * task parks (i.e., returns, keeping its position) and the consumer resumes it after taking
+ * a chunk from that queue. Thus, slow consumers do not hold threads of other scans and the
+ * pool never grows beyond {@code sparql.hdt.parallel.threads} threads.
+ *
+ * Each partition issues one HDT search per subject, thus splitting is only worth it if the
+ * {@link CardinalityEstimator} predicts many triples overall and per subject. Patterns with
+ * a bound object are never split, since a sequential scan of the object index is cheaper.
+ *
+ * Scans stop when their iterator is exhausted or {@link AutoCloseable#close()}d. A scan
+ * whose iterator is abandoned without being closed holds no thread once its queues are full
+ * and is garbage collected with its iterator.
+ */
+@Slf4j
+@Singleton
+public class ParallelScanner {
+    private static final int CHUNK_TRIPLES = 1024;
+    private static final long @NonNull[] END = new long[0];
+
+    private final boolean enabled, ordered;
+    private final int threads;
+    private final long minTriples;
+    private final @NonNull Provider<CardinalityEstimator> estimator;
+    private @Nullable ForkJoinPool pool;
+
+    public ParallelScanner(@Property(name = "sparql.hdt.parallel.enabled", defaultValue = "false")
+                           boolean enabled,
+                           @Property(name = "sparql.hdt.parallel.threads", defaultValue = "-1")
+                           int threads,
+                           @Property(name = "sparql.hdt.parallel.min-triples",
+                                     defaultValue = "1000000")
+                           long minTriples,
+                           @Property(name = "sparql.hdt.parallel.ordered", defaultValue = "false")
+                           boolean ordered,
+                           @NonNull Provider<CardinalityEstimator> estimator) {
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.enabled = enabled && this.threads > 1;
+        this.minTriples = minTriples;
+        this.ordered = ordered;
+        this.estimator = estimator;
+    }
+
+    private synchronized @NonNull ForkJoinPool pool() {
+        if (pool == null) {
+            AtomicInteger nextId = new AtomicInteger(1);
+            pool = new ForkJoinPool(threads, p -> {
+                ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                t.setName("ParallelScanner-"+nextId.getAndIncrement());
+                t.setDaemon(true);
+                return t;
+            }, null, false);
+        }
+        return pool;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow();
+            pool = null;
+        }
+    }
+
+    /**
+     * Whether {@link ParallelScanner#scan(HDT, TriplePattern, TermIdCache)} may deliver
+     * triples of {@code tp} in an order different from a sequential scan.
+     */
+    public boolean mayReorder(@NonNull TriplePattern tp) {
+        return enabled && !ordered && tp.subject().isVar() && tp.object().isVar();
+    }
+
+    /**
+     * Scan {@code tp} in parallel if it is large enough.
+     *
+     * The returned iterator does not check variables that occur more than once in
+     * {@code tp}, as is the case for {@link HDTUtils#queryIds(HDT, TriplePattern)}. It is
+     * also {@link AutoCloseable}: closing it before exhaustion stops its partitions and
+     * never starts the remaining ones.
+     *
+     * @param hdt the HDT to scan
+     * @param tp the triple pattern to scan
+     * @param idCache cache for converting the predicate into an ID
+     * @return An iterator over all matching {@link TripleID}s or null if {@code tp} should
+     *         be scanned sequentially.
+     */
+    public @Nullable Iterator<TripleID> scan(@NonNull HDT hdt, @NonNull TriplePattern tp,
+                                             @Nullable TermIdCache idCache) {
+        if (!enabled || !tp.subject().isVar() || !tp.object().isVar())
+            return null;
+        long p = HDTUtils.toHDTId(hdt.getDictionary(), tp.predicate(), PREDICATE, idCache);
+        long nSubjects = hdt.getDictionary().getNsubjects();
+        if (p < 0 || nSubjects < 2)
+            return null;
+        long estimate = estimator.get().estimate(tp);
+        if (estimate < minTriples || estimate * 4 < nSubjects)
+            return null; // too few triples or too many subject lookups without matches
+        int partitions = (int) Math.min(nSubjects, threads * 4L);
+        log.debug("Scanning {} in {} partitions, estimate={}", tp, partitions, estimate);
+        var channel = new Channel(pool(), hdt.getTriples(), p, nSubjects, partitions,
+                                  ordered, threads);
+        return new Merge(channel);
+    }
+
+    /** State shared by producers and the consumer. Producers never see the {@link Merge}. */
+    private static final class Channel {
+        private final @NonNull Executor executor;
+        private final @NonNull Triples triples;
+        private final long predicate, nSubjects;
+        private final int partitions;
+        private final @Nullable BlockingQueue<long[]> shared;
+        private final @Nullable BlockingQueue<long[]> @Nullable[] perPartition;
+        /** Started partitions, only in ordered mode */
+        private final @Nullable Partition @Nullable[] started;
+        /** Partitions that may be parked on {@link #shared}, only in unordered mode */
+        private final @NonNull Queue<Partition> parked = new ConcurrentLinkedQueue<>();
+        private final @NonNull AtomicInteger next = new AtomicInteger();
+        private final @NonNull AtomicInteger remaining;
+        private volatile @Nullable Throwable error;
+        private volatile boolean cancelled;
+
+        @SuppressWarnings("unchecked")
+        Channel(@NonNull Executor executor, @NonNull Triples triples, long predicate,
+                long nSubjects, int partitions, boolean ordered, int threads) {
+            this.executor = executor;
+            this.triples = triples;
+            this.predicate = predicate;
+            this.nSubjects = nSubjects;
+            this.partitions = partitions;
+            this.remaining = new AtomicInteger(partitions);
+            if (ordered) {
+                shared = null;
+                perPartition = new BlockingQueue[partitions];
+                for (int i = 0; i < partitions; i++)
+                    perPartition[i] = new ArrayBlockingQueue<>(4);
+                started = new Partition[partitions];
+            } else {
+                shared = new ArrayBlockingQueue<>(4 * threads);
+                perPartition = null;
+                started = null;
+            }
+        }
+
+        @NonNull BlockingQueue<long[]> queue(int partition) {
+            if (perPartition != null) {
+                var queue = perPartition[partition];
+                assert queue != null;
+                return queue;
+            }
+            assert shared != null;
+            return shared;
+        }
+
+        /** Start scanning the next partition, if there is one. */
+        void startNext() {
+            int partition = next.getAndIncrement();
+            if (partition >= partitions || cancelled)
+                return;
+            Partition task = new Partition(partition);
+            if (started != null)
+                started[partition] = task;
+            executor.execute(task);
+        }
+
+        /**
+         * Called by the consumer after it took a chunk from the queue of {@code partition}:
+         * resume a producer parked on that queue, if any.
+         */
+        void resume(int partition) {
+            if (cancelled)
+                return;
+            if (started != null) {
+                Partition task = started[partition];
+                if (task != null && task.parked.compareAndSet(true, false))
+                    executor.execute(task);
+                return;
+            }
+            for (Partition task; (task = parked.poll()) != null; ) {
+                if (task.parked.compareAndSet(true, false)) {
+                    executor.execute(task);
+                    return;
+                } // else: task resumed itself before being polled
+            }
+        }
+
+        /**
+         * Make producers stop and replace queued chunks with {@link #END}, so that a consumer
+         * blocked in another thread does not stay blocked. Parked producers are dropped.
+         */
+        void cancel() {
+            cancelled = true;
+            parked.clear();
+            if (shared != null) {
+                shared.clear();
+                shared.offer(END);
+            }
+            if (perPartition != null) {
+                for (BlockingQueue<long[]> queue : perPartition) {
+                    if (queue != null) {
+                        queue.clear();
+                        queue.offer(END);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Scans a partition, one chunk at a time. Once a chunk does not fit the queue, the
+         * task parks until {@link Channel#resume(int)} runs it again.
+         */
+        private final class Partition implements Runnable {
+            private final @NonNull BlockingQueue<long[]> queue;
+            private final long end;
+            private long subject;
+            private @Nullable Iterator<TripleID> it;
+            /** Chunk not yet offered to the queue */
+            private long @Nullable[] pending;
+            private boolean scanned;
+            final @NonNull AtomicBoolean parked = new AtomicBoolean();
+
+            Partition(int partition) {
+                this.queue = queue(partition);
+                this.subject = 1 + partition * nSubjects / partitions;
+                this.end = 1 + (partition + 1) * nSubjects / partitions;
+            }
+
+            @Override public void run() {
+                while (!cancelled) {
+                    if (pending == null) {
+                        if (!scanned) {
+                            fill();
+                            continue;
+                        }
+                        if (!finish())
+                            return;
+                    }
+                    if (!queue.offer(pending)) {
+                        if (park())
+                            return;
+                    } else if (pending == END) {
+                        return;
+                    } else {
+                        pending = null;
+                    }
+                }
+            }
+
+            /** Scan until a chunk is full or the partition ends, setting {@link #pending}. */
+            private void fill() {
+                try {
+                    long[] chunk = new long[3 * CHUNK_TRIPLES];
+                    int n = 0;
+                    while (n < chunk.length && !cancelled) {
+                        Iterator<TripleID> it = this.it;
+                        if (it != null && it.hasNext()) {
+                            TripleID t = it.next();
+                            chunk[n++] = t.getSubject();
+                            chunk[n++] = t.getPredicate();
+                            chunk[n++] = t.getObject();
+                        } else if (subject < end) {
+                            this.it = triples.search(new TripleID(subject++, predicate, 0));
+                        } else {
+                            this.it = null;
+                            scanned = true;
+                            break;
+                        }
+                    }
+                    pending = n == 0 ? null : (n == chunk.length ? chunk : Arrays.copyOf(chunk, n));
+                } catch (Throwable t) {
+                    error = t;
+                    it = null;
+                    scanned = true;
+                    pending = null;
+                }
+            }
+
+            /**
+             * Called once all chunks of this partition were queued. In unordered mode, starts
+             * the next partition and only the last partition to end queues {@link #END}.
+             *
+             * @return true iff {@link #END} must be queued by this task.
+             */
+            private boolean finish() {
+                if (started == null) {
+                    startNext();
+                    if (remaining.decrementAndGet() > 0)
+                        return false;
+                }
+                pending = END;
+                return true;
+            }
+
+            /**
+             * Park until the consumer takes from {@link #queue}.
+             *
+             * @return true if parked, false if the queue has room again and this task
+             *         must continue.
+             */
+            private boolean park() {
+                parked.set(true);
+                if (started == null)
+                    Channel.this.parked.add(this);
+                // the consumer may have taken from the queue before it could see this task
+                return queue.remainingCapacity() == 0 || !parked.compareAndSet(true, false);
+            }
+        }
+    }
+
+    /** Consumer side, an {@link Iterator} over the merged partitions. */
+    private final class Merge implements Iterator<TripleID>, AutoCloseable {
+        private final @NonNull Channel channel;
+        private long @Nullable[] chunk;
+        private int position, current;
+        private volatile boolean done;
+
+        Merge(@NonNull Channel channel) {
+            this.channel = channel;
+            for (int i = 0, initial = Math.min(threads, channel.partitions); i < initial; i++)
+                channel.startNext();
+        }
+
+        private long @NonNull[] take() {
+            try {
+                while (true) {
+                    long[] chunk = channel.queue(current).take();
+                    if (channel.cancelled)
+                        return END;
+                    channel.resume(current);
+                    if (chunk != END || !ordered)
+                        return chunk;
+                    if (++current == channel.partitions)
+                        return END;
+                    channel.startNext();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for parallel scan", e);
+            }
+        }
+
+        @Override public boolean hasNext() {
+            while (!done && (chunk == null || position == chunk.length)) {
+                chunk = take();
+                position = 0;
+                if (chunk == END) {
+                    done = true;
+                    Throwable error = channel.error;
+                    if (error != null)
+                        throw new RuntimeException("Parallel scan failed", error);
+                }
+            }
+            return !done;
+        }
+
+        @Override public @NonNull TripleID next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            long[] chunk = this.chunk;
+            assert chunk != null;
+            int i = position;
+            position += 3;
+            return new TripleID(chunk[i], chunk[i+1], chunk[i+2]);
+        }
+
+        /** Cancel running partitions and never start the remaining ones. */
+        @Override public void close() {
+            if (done)
+                return;
+            done = true;
+            channel.cancel();
+        }
+    }
+}
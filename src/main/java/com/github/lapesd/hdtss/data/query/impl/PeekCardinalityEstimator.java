@@ -23,6 +23,7 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 
+import static com.github.lapesd.hdtss.model.TermPosition.*;
 import static java.lang.String.format;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static org.rdfhdt.hdt.enums.TripleComponentRole.*;
@@ -40,6 +41,7 @@ public class PeekCardinalityEstimator implements CardinalityEstimator {
     private static final int MAX_PREDICATES_CACHED = (512*1024*1024) / 4;
 
     private final @NonNull HDT hdt;
+    private final @NonNull HdtQueryService hdtQueryService;
     private final long typeId;
     private final long nPred, nSub, nObj, nTriples;
     private final @Nullable Cache predicateCache;
@@ -60,6 +62,7 @@ public class PeekCardinalityEstimator implements CardinalityEstimator {
             @Property(name = "hdt.estimator.lookup", defaultValue = "ALWAYS")
                     @NonNull Lookup lookup) {
         this.lookup = lookup;
+        this.hdtQueryService = hdtQueryService;
         hdt = hdtQueryService.hdt();
         Dictionary dict = hdt.getDictionary();
         typeId = HDTUtils.toHDTId(dict, RDF.typeTerm, PREDICATE);
@@ -88,10 +91,9 @@ public class PeekCardinalityEstimator implements CardinalityEstimator {
     @Override public long estimate(TriplePattern tp) {
         if (nTriples == 0)
             return 0;
-        Dictionary dictionary = hdt.getDictionary();
-        long s = HDTUtils.toHDTId(dictionary, tp.  subject(), SUBJECT);
-        long p = HDTUtils.toHDTId(dictionary, tp.predicate(), PREDICATE);
-        long o = HDTUtils.toHDTId(dictionary, tp.   object(), OBJECT);
+        long s = hdtQueryService.toHDTId(tp.  subject(), SUB);
+        long p = hdtQueryService.toHDTId(tp.predicate(), PRE);
+        long o = hdtQueryService.toHDTId(tp.   object(), OBJ);
         if (s == -1 || p == -1 || o == -1)
             return 0;
         if (s == 0 && p == 0 && o == 0)
@@ -0,0 +1,158 @@
+package com.github.lapesd.hdtss.data.query.impl;
+
+import com.github.lapesd.hdtss.model.Term;
+import com.github.lapesd.hdtss.model.TermPosition;
+import com.github.lapesd.hdtss.utils.CacheStats;
+import io.micronaut.context.annotation.Property;
+import jakarta.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.rdfhdt.hdt.dictionary.Dictionary;
+import org.rdfhdt.hdt.enums.TripleComponentRole;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A process-wide, lock-free, cache of {@link Term}s decoded from HDT dictionary IDs.
+ *
+ * The cache is a direct-mapped table indexed by a hash of {@code (role, id)}: a colliding
+ * insertion replaces the previous entry, which is cheap and favors recently decoded terms.
+ * If inserting an entry would exceed the byte budget given by {@code hdt.decode-cache.bytes},
+ * other entries are first evicted by a CLOCK sweep: entries hit since the hand last passed
+ * them get a second chance, which approximates LRU without locks or linked lists.
+ */
+@Slf4j
+@Singleton
+public class TermDecodeCache implements CacheStats {
+    /** Estimated bytes used by an Entry, its Term and its String, excluding the chars */
+    private static final int ENTRY_OVERHEAD = 96;
+    /** Assumed average entry size, used only to size the table */
+    private static final int AVG_ENTRY_BYTES = 160;
+    private static final int MAX_SLOTS = 1 << 28;
+    /** Maximum number of slots visited by the CLOCK hand to admit a single entry */
+    private static final int MAX_SWEEP = 64;
+
+    private final @Nullable AtomicReferenceArray<Entry> table;
+    private final int mask;
+    private final long budget;
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicInteger hand = new AtomicInteger();
+    private final LongAdder hits = new LongAdder(), misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private static final class Entry {
+        final @NonNull Dictionary dictionary;
+        final long key;
+        final @NonNull Term term;
+        final int bytes;
+        /** Set on hits and cleared by the CLOCK hand. Races only lose a second chance */
+        boolean referenced;
+
+        Entry(@NonNull Dictionary dictionary, long key, @NonNull Term term, int bytes) {
+            this.dictionary = dictionary;
+            this.key = key;
+            this.term = term;
+            this.bytes = bytes;
+        }
+    }
+
+    public TermDecodeCache(@Property(name = "hdt.decode-cache.enabled", defaultValue = "true")
+                           boolean enabled,
+                           @Property(name = "hdt.decode-cache.bytes", defaultValue = "67108864")
+                           long budget) {
+        this.budget = enabled ? Math.max(0, budget) : 0;
+        long slots = Math.min(MAX_SLOTS, Long.highestOneBit(this.budget / AVG_ENTRY_BYTES));
+        if (slots < 16) {
+            if (enabled)
+                log.info("hdt.decode-cache.bytes={} is too small, disabling cache", budget);
+            this.table = null;
+            this.mask = 0;
+        } else {
+            this.table = new AtomicReferenceArray<>((int) slots);
+            this.mask = (int) slots - 1;
+        }
+    }
+
+    /** Whether this cache is enabled. If false, all lookups are forwarded to the dictionary. */
+    public boolean isEnabled() {
+        return table != null;
+    }
+
+    /**
+     * Equivalent to {@link HDTUtils#fromHDTId(Dictionary, long, TermPosition)}, but will use
+     * and fill the cache.
+     *
+     * @param dictionary the HDT dictionary where {@code id} originates
+     * @param id the {@code > 0} ID
+     * @param role role of the term which determines the ID space of {@code id}
+     * @return a non-null {@link Term} whose {@link Term#sparql()} is a {@link String}.
+     */
+    public @NonNull Term decode(@NonNull Dictionary dictionary, long id,
+                                @NonNull TripleComponentRole role) {
+        var table = this.table;
+        if (table == null)
+            return HDTUtils.fromHDT(dictionary.idToString(id, role)).withString();
+        long key = (id << 2) | role.ordinal();
+        int idx = slot(key);
+        Entry e = table.get(idx);
+        if (e != null && e.key == key && e.dictionary == dictionary) {
+            hits.increment();
+            if (!e.referenced)
+                e.referenced = true;
+            return e.term;
+        }
+        misses.increment();
+        Term term = HDTUtils.fromHDT(dictionary.idToString(id, role)).withString();
+        int cost = ENTRY_OVERHEAD + 2*term.sparql().length();
+        long delta = cost - (e == null ? 0 : e.bytes);
+        if (bytes.get() + delta > budget)
+            evict(table, idx, delta);
+        if (bytes.get() + delta <= budget
+                && table.compareAndSet(idx, e, new Entry(dictionary, key, term, cost))) {
+            bytes.addAndGet(delta);
+        }
+        return term;
+    }
+
+    /**
+     * Advance the CLOCK hand, evicting unreferenced entries (other than the one at
+     * {@code keep}) until {@code delta} more bytes fit in the budget or
+     * {@link #MAX_SWEEP} slots were visited.
+     */
+    private void evict(@NonNull AtomicReferenceArray<Entry> table, int keep, long delta) {
+        for (int i = 0; i < MAX_SWEEP && bytes.get() + delta > budget; i++) {
+            int idx = hand.getAndIncrement() & mask;
+            Entry victim = table.get(idx);
+            if (victim == null || idx == keep)
+                continue;
+            if (victim.referenced) {
+                victim.referenced = false;
+            } else if (table.compareAndSet(idx, victim, null)) {
+                bytes.addAndGet(-victim.bytes);
+                evictions.increment();
+            }
+        }
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    @Override public @NonNull String cacheName() { return "HDT decode"; }
+    @Override public long hits()   { return hits.sum(); }
+    @Override public long misses() { return misses.sum(); }
+    @Override public long bytes()  { return bytes.get(); }
+
+    /** Number of entries evicted to admit new entries within the budget */
+    public long evictions() { return evictions.sum(); }
+
+    @Override public String toString() {
+        return String.format("TermDecodeCache{budget=%d, bytes=%d, hits=%d, misses=%d, " +
+                             "evictions=%d}", budget, bytes(), hits(), misses(), evictions());
+    }
+}
@@ -0,0 +1,153 @@
+package com.github.lapesd.hdtss.data.query.impl;
+
+import com.github.lapesd.hdtss.model.Term;
+import com.github.lapesd.hdtss.utils.CacheStats;
+import io.micronaut.context.annotation.Property;
+import jakarta.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.rdfhdt.hdt.dictionary.Dictionary;
+import org.rdfhdt.hdt.enums.TripleComponentRole;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.rdfhdt.hdt.enums.TripleComponentRole.*;
+
+/**
+ * A process-wide, lock-free, cache of HDT dictionary IDs for {@link Term}s that were not
+ * obtained from the HDT file (e.g., constants in queries, {@code VALUES} and {@code !bind} rows).
+ *
+ * The cache is keyed by the NT/SPARQL representation of the term and by the role. Thus a hit
+ * avoids both the conversion done by {@link HDTUtils#toHDT(Term)} and the binary search on
+ * the dictionary section. Negative lookups (the term does not occur in the role) are also
+ * cached. Like {@link TermDecodeCache}, this is a direct-mapped table bounded by
+ * {@code hdt.id-cache.bytes}.
+ */
+@Slf4j
+@Singleton
+public class TermIdCache implements CacheStats {
+    /** Estimated bytes used by an Entry and its String, excluding the chars */
+    private static final int ENTRY_OVERHEAD = 80;
+    /** Assumed average entry size, used only to size the table */
+    private static final int AVG_ENTRY_BYTES = 128;
+    private static final int MAX_SLOTS = 1 << 28;
+
+    private final @Nullable AtomicReferenceArray<Entry> table;
+    private final int mask;
+    private final long budget;
+    private final AtomicLong bytes = new AtomicLong();
+    private final LongAdder hits = new LongAdder(), misses = new LongAdder();
+
+    private record Entry(@NonNull Dictionary dictionary, @NonNull String sparql,
+                         @NonNull TripleComponentRole role, long id, int bytes) {}
+
+    public TermIdCache(@Property(name = "hdt.id-cache.enabled", defaultValue = "true")
+                       boolean enabled,
+                       @Property(name = "hdt.id-cache.bytes", defaultValue = "16777216")
+                       long budget) {
+        this.budget = enabled ? Math.max(0, budget) : 0;
+        long slots = Math.min(MAX_SLOTS, Long.highestOneBit(this.budget / AVG_ENTRY_BYTES));
+        if (slots < 16) {
+            if (enabled)
+                log.info("hdt.id-cache.bytes={} is too small, disabling cache", budget);
+            this.table = null;
+            this.mask = 0;
+        } else {
+            this.table = new AtomicReferenceArray<>((int) slots);
+            this.mask = (int) slots - 1;
+        }
+    }
+
+    /** Whether this cache is enabled. If false, all lookups are forwarded to the dictionary. */
+    public boolean isEnabled() {
+        return table != null;
+    }
+
+    /**
+     * Equivalent to {@link HDTUtils#toHDTId(Dictionary, Term, TripleComponentRole)}, but will
+     * use and fill the cache.
+     *
+     * @param dictionary The HDT dictionary
+     * @param term The {@link Term} to lookup
+     * @param role The position of the Term in triples to be matched.
+     * @return the {@code > 0} ID, a zero if Term is a blank node or variable or -1 if there is
+     *         no triple in the HDT file with the given term at the given position.
+     */
+    public long toId(@NonNull Dictionary dictionary, @NonNull Term term,
+                     @NonNull TripleComponentRole role) {
+        if (term.sparql() instanceof HdtIdSparql idSparql) {
+            long id = idSparql.idIn(dictionary, role);
+            if (id != 0)
+                return id;
+        }
+        var table = this.table;
+        if (table == null || !term.isGround())
+            return HDTUtils.lookupId(dictionary, term, role);
+        String sparql = term.sparql().toString();
+        int idx = slot(sparql, role);
+        Entry e = table.get(idx);
+        if (e != null && e.role == role && e.dictionary == dictionary && e.sparql.equals(sparql)) {
+            hits.increment();
+            return e.id;
+        }
+        misses.increment();
+        long id = HDTUtils.lookupId(dictionary, term, role);
+        int cost = ENTRY_OVERHEAD + 2*sparql.length();
+        long delta = cost - (e == null ? 0 : e.bytes);
+        if (bytes.get() + delta <= budget
+                && table.compareAndSet(idx, e, new Entry(dictionary, sparql, role, id, cost))) {
+            bytes.addAndGet(delta);
+        }
+        return id;
+    }
+
+    /**
+     * Get a {@link Term} equal to {@code term} that carries its ID in {@code dictionary}.
+     *
+     * If the term is bound into a triple pattern (e.g., via {@code Op.bind()}), the ID will be
+     * used directly, without string conversion nor dictionary lookups. Since subjects and
+     * objects share IDs, the ID is resolved first as a subject, then as an object and only
+     * then as a predicate.
+     *
+     * @param dictionary the dictionary where the ID will be looked up
+     * @param term the term to resolve.
+     * @return A {@link Term} whose {@link Term#sparql()} is a {@link HdtIdSparql} or
+     *         {@code term} itself if it already carries an ID, is not ground, does not occur in
+     *         the dictionary or if its NT representation is not the one used by HDT.
+     */
+    public @NonNull Term resolve(@NonNull Dictionary dictionary, @NonNull Term term) {
+        if (term.sparql() instanceof HdtIdSparql || !term.isGround())
+            return term;
+        TripleComponentRole role = SUBJECT;
+        long id = toId(dictionary, term, SUBJECT);
+        if (id <= 0)
+            id = toId(dictionary, term, role = OBJECT);
+        if (id <= 0)
+            id = toId(dictionary, term, role = PREDICATE);
+        if (id <= 0)
+            return term;
+        String sparql = term.sparql().toString();
+        // hashCode() is string-based: only carry the ID if HDT would yield the same string
+        if (!HDTUtils.fromHDT(HDTUtils.toHDT(term)).sparql().toString().equals(sparql))
+            return term;
+        return new Term(new HdtIdSparql(dictionary, id, role, sparql));
+    }
+
+    private int slot(@NonNull String sparql, @NonNull TripleComponentRole role) {
+        long h = (sparql.hashCode()*4L + role.ordinal()) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    @Override public @NonNull String cacheName() { return "HDT term->id"; }
+    @Override public long hits()   { return hits.sum(); }
+    @Override public long misses() { return misses.sum(); }
+    @Override public long bytes()  { return bytes.get(); }
+
+    @Override public String toString() {
+        return String.format("TermIdCache{budget=%d, bytes=%d, hits=%d, misses=%d}",
+                             budget, bytes(), hits(), misses());
+    }
+}
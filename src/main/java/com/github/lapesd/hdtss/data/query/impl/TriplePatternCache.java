@@ -0,0 +1,313 @@
+package com.github.lapesd.hdtss.data.query.impl;
+
+import com.github.lapesd.hdtss.model.nodes.TriplePattern;
+import com.github.lapesd.hdtss.utils.CacheStats;
+import com.github.lapesd.hdtss.utils.CloseableUtils;
+import io.micronaut.context.annotation.Property;
+import jakarta.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.rdfhdt.hdt.triples.TripleID;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * A process-wide cache of the {@link TripleID}s that match a triple pattern.
+ *
+ * Since the HDT file is immutable, the triples matching a pattern never change. Entries are
+ * keyed by the IDs of the bound terms (0 for variables) and by the
+ * {@link TriplePattern.SharedVars} of the pattern, and hold only the IDs at the unbound
+ * positions of triples that pass the shared-variable filter, in a single {@code long[]}.
+ *
+ * Only scans that are fully consumed and yield at most {@code hdt.pattern-cache.max-rows}
+ * triples are stored. Once {@code hdt.pattern-cache.bytes} is reached, the least recently
+ * used entries are evicted only if the new entry was looked up more often than each of
+ * them, according to a count-min sketch of lookups that is periodically halved (TinyLFU
+ * admission). If any of them is as popular, nothing is evicted and the new entry is
+ * dropped. This keeps one-off scans from displacing the patterns queried over and over.
+ *
+ * Large caches are split into up to {@link #MAX_SEGMENTS} segments, selected by the hash of
+ * the key. Each segment has its own share of the budget, LRU order and sketch, behind its own
+ * lock, thus concurrent lookups of different patterns seldom contend. Entries larger than
+ * the share of a segment are not stored.
+ */
+@Slf4j
+@Singleton
+public class TriplePatternCache implements CacheStats {
+    /** Estimated bytes used by an Entry, its Key and the map node, excluding the IDs */
+    private static final int ENTRY_OVERHEAD = 128;
+    /** Assumed average entry size, used only to size the frequency sketch */
+    private static final int AVG_ENTRY_BYTES = 1024;
+    /** Maximum number of independently locked segments. Must be a power of 2 */
+    private static final int MAX_SEGMENTS = 16;
+    /** Smaller budgets are not split, so that small caches keep a single LRU order */
+    private static final long MIN_SEGMENT_BYTES = 1024*1024;
+
+    private final long budget;
+    private final int maxRows;
+    private final @NonNull Segment @NonNull[] segments;
+    private final LongAdder hits = new LongAdder(), misses = new LongAdder();
+
+    /** IDs of the bound terms (0 if unbound) and the variables shared among positions. */
+    public record Key(long s, long p, long o, TriplePattern.@NonNull SharedVars sharedVars) {
+        int width() {
+            return (s == 0 ? 1 : 0) + (p == 0 ? 1 : 0) + (o == 0 ? 1 : 0);
+        }
+    }
+
+    private record Entry(long @NonNull[] ids, int rows, int cost) { }
+
+    public TriplePatternCache(@Property(name = "hdt.pattern-cache.enabled", defaultValue = "true")
+                              boolean enabled,
+                              @Property(name = "hdt.pattern-cache.bytes",
+                                        defaultValue = "33554432") long budget,
+                              @Property(name = "hdt.pattern-cache.max-rows",
+                                        defaultValue = "16384") int maxRows) {
+        this.budget = enabled ? Math.max(0, budget) : 0;
+        this.maxRows = maxRows;
+        if (this.budget < ENTRY_OVERHEAD || maxRows <= 0) {
+            if (enabled)
+                log.info("hdt.pattern-cache.bytes={} is too small, disabling cache", budget);
+            this.segments = new Segment[0];
+        } else {
+            long max = Math.max(1, Math.min(MAX_SEGMENTS, this.budget / MIN_SEGMENT_BYTES));
+            this.segments = new Segment[(int) Long.highestOneBit(max)];
+            for (int i = 0; i < segments.length; i++)
+                segments[i] = new Segment(this.budget / segments.length);
+        }
+    }
+
+    /** Whether this cache is enabled. If false, {@link #get(Key)} always returns null. */
+    public boolean isEnabled() {
+        return segments.length > 0;
+    }
+
+    private @NonNull Segment segment(@NonNull Key key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (segments.length-1)];
+    }
+
+    /**
+     * Get an iterator over the cached triples for {@code key}, or null if not cached.
+     *
+     * Every call counts as a lookup of {@code key} for admission purposes.
+     */
+    public @Nullable Iterator<TripleID> get(@NonNull Key key) {
+        if (segments.length == 0)
+            return null;
+        Entry entry = segment(key).lookup(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return new Replay(key, entry.ids, entry.rows);
+    }
+
+    /**
+     * Wrap {@code source} so that triples passing {@code filter} are stored for {@code key}
+     * once {@code source} is exhausted.
+     *
+     * @param key the key, as used in the preceding {@link #get(Key)}
+     * @param source matches for the pattern, possibly including triples rejected by
+     *               {@code filter}
+     * @param filter the shared-variable filter (see
+     *               {@link HDTUtils#sharedVarIDFilter(TriplePattern.SharedVars)})
+     * @return an iterator with the same triples as {@code source}.
+     */
+    public @NonNull Iterator<TripleID> recording(@NonNull Key key,
+                                                 @NonNull Iterator<TripleID> source,
+                                                 @NonNull Predicate<TripleID> filter) {
+        if (segments.length == 0)
+            return source;
+        return new Recorder(key, source, filter);
+    }
+
+    /** A share of the budget, with its own LRU order and sketch, guarded by its monitor */
+    private static final class Segment {
+        private final long budget;
+        private final @NonNull FrequencySketch sketch;
+        private final @NonNull LinkedHashMap<Key, Entry> map =
+                new LinkedHashMap<>(64, 0.75f, true);
+        private long bytes;
+
+        Segment(long budget) {
+            this.budget = budget;
+            this.sketch = new FrequencySketch(budget / AVG_ENTRY_BYTES);
+        }
+
+        synchronized @Nullable Entry lookup(@NonNull Key key) {
+            sketch.increment(key.hashCode());
+            return map.get(key);
+        }
+
+        synchronized long bytes() { return bytes; }
+
+        synchronized void put(@NonNull Key key, long @NonNull[] ids, int rows) {
+            int cost = ENTRY_OVERHEAD + 8 * ids.length;
+            if (cost > budget || map.containsKey(key))
+                return;
+            int frequency = sketch.frequency(key.hashCode()), victims = 0;
+            // admit only if every victim is less popular, before evicting any of them
+            long freed = 0;
+            for (var it = map.entrySet().iterator(); bytes - freed + cost > budget; ++victims) {
+                var victim = it.next(); // cost <= budget, thus there are enough entries
+                if (sketch.frequency(victim.getKey().hashCode()) >= frequency)
+                    return;
+                freed += victim.getValue().cost;
+            }
+            for (var it = map.values().iterator(); victims > 0; --victims) {
+                bytes -= it.next().cost;
+                it.remove();
+            }
+            map.put(key, new Entry(ids, rows, cost));
+            bytes += cost;
+        }
+    }
+
+    /** Yields the cached triples, filling the bound positions from the key. */
+    private static final class Replay implements Iterator<TripleID> {
+        private final @NonNull Key key;
+        private final long @NonNull[] ids;
+        private final int rows;
+        private int row, next;
+
+        Replay(@NonNull Key key, long @NonNull[] ids, int rows) {
+            this.key = key;
+            this.ids = ids;
+            this.rows = rows;
+        }
+
+        @Override public boolean hasNext() {
+            return row < rows;
+        }
+
+        @Override public @NonNull TripleID next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            ++row;
+            long s = key.s == 0 ? ids[next++] : key.s;
+            long p = key.p == 0 ? ids[next++] : key.p;
+            long o = key.o == 0 ? ids[next++] : key.o;
+            return new TripleID(s, p, o);
+        }
+    }
+
+    /** Copies the unbound positions of filtered triples while they are iterated. */
+    private final class Recorder implements Iterator<TripleID>, AutoCloseable {
+        private final @NonNull Key key;
+        private final @NonNull Iterator<TripleID> source;
+        private final @NonNull Predicate<TripleID> filter;
+        private final int width;
+        private long @Nullable[] ids = new long[16];
+        private int size, rows;
+
+        Recorder(@NonNull Key key, @NonNull Iterator<TripleID> source,
+                 @NonNull Predicate<TripleID> filter) {
+            this.key = key;
+            this.source = source;
+            this.filter = filter;
+            this.width = key.width();
+        }
+
+        @Override public boolean hasNext() {
+            boolean has = source.hasNext();
+            if (!has && ids != null) {
+                segment(key).put(key, Arrays.copyOf(ids, size), rows);
+                ids = null;
+            }
+            return has;
+        }
+
+        @Override public TripleID next() {
+            TripleID tid = source.next();
+            long[] ids = this.ids;
+            if (ids != null && filter.test(tid)) {
+                if (++rows > maxRows) {
+                    this.ids = null; // too large, stop recording
+                } else {
+                    if (size + width > ids.length)
+                        this.ids = ids = Arrays.copyOf(ids, Math.max(2*ids.length, size+width));
+                    if (key.s == 0) ids[size++] = tid.getSubject();
+                    if (key.p == 0) ids[size++] = tid.getPredicate();
+                    if (key.o == 0) ids[size++] = tid.getObject();
+                }
+            }
+            return tid;
+        }
+
+        /** Stop recording (an incomplete result is never cached) and close the source */
+        @Override public void close() {
+            ids = null;
+            CloseableUtils.closeIfCloseable(source);
+        }
+    }
+
+    /** Count-min sketch of 4-bit counters, halved after a sample of increments. */
+    private static final class FrequencySketch {
+        private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L,
+                                             0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+        private final long @NonNull[] table;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(long expectedEntries) {
+            int longs = (int) Math.min(1 << 24, Math.max(64, Long.highestOneBit(expectedEntries)));
+            this.table = new long[longs];
+            this.mask = longs - 1;
+            this.sampleSize = 10 * longs;
+        }
+
+        private int index(int hash, int i) {
+            long h = (hash + SEEDS[i]) * SEEDS[i];
+            return (int) (h ^ (h >>> 32));
+        }
+
+        int frequency(int hash) {
+            int min = 15;
+            for (int i = 0; i < 4; i++) {
+                int h = index(hash, i), offset = (h & 15) << 2;
+                min = Math.min(min, (int) ((table[(h >>> 4) & mask] >>> offset) & 0xF));
+            }
+            return min;
+        }
+
+        void increment(int hash) {
+            boolean added = false;
+            for (int i = 0; i < 4; i++) {
+                int h = index(hash, i), idx = (h >>> 4) & mask, offset = (h & 15) << 2;
+                if (((table[idx] >>> offset) & 0xF) < 15) {
+                    table[idx] += 1L << offset;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                additions /= 2;
+                for (int i = 0; i < table.length; i++)
+                    table[i] = (table[i] >>> 1) & 0x7777777777777777L;
+            }
+        }
+    }
+
+    @Override public @NonNull String cacheName() { return "HDT triple pattern"; }
+    @Override public long hits()   { return hits.sum(); }
+    @Override public long misses() { return misses.sum(); }
+    @Override public long bytes() {
+        long sum = 0;
+        for (Segment segment : segments)
+            sum += segment.bytes();
+        return sum;
+    }
+
+    @Override public String toString() {
+        return String.format("TriplePatternCache{budget=%d, bytes=%d, hits=%d, misses=%d}",
+                             budget, bytes(), hits(), misses());
+    }
+}
@@ -3,5 +3,6 @@ package com.github.lapesd.hdtss.model;
 public enum FlowType {
     REACTIVE,
     ITERATOR,
-    BATCH
+    BATCH,
+    VECTOR
 }
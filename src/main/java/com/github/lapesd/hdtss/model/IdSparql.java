@@ -0,0 +1,150 @@
+package com.github.lapesd.hdtss.model;
+
+import org.checkerframework.checker.index.qual.Positive;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A {@link CharSequence} to be used as {@link Term#sparql()} for terms that were obtained
+ * from a dictionary-encoded source (e.g., an HDT file).
+ *
+ * Implementations carry the dictionary ID of the term and only compute the NT/SPARQL
+ * representation once a char of it is actually read (or {@link IdSparql#toString()} is
+ * called). This allows solutions to flow through joins, MINUS and EXISTS (which bind
+ * terms back into triple patterns) without ever decoding their strings from the dictionary.
+ *
+ * Instances never represent variables.
+ */
+public abstract class IdSparql implements CharSequence {
+    private @Nullable String sparql;
+
+    protected IdSparql() { }
+
+    /**
+     * Create an instance whose string representation is already known. This is useful when
+     * a {@link Term} was built from a string and its ID was later resolved.
+     *
+     * @param sparql the NT/SPARQL representation of the term
+     */
+    protected IdSparql(@Nullable String sparql) {
+        this.sparql = sparql;
+    }
+
+    /** The {@code > 0} ID of this term in the source dictionary. */
+    public abstract @Positive long id();
+
+    /**
+     * Compare the IDs of this and {@code other} to determine whether both refer to the same term.
+     *
+     * The answer must agree with the string comparison done by {@link Term#equals(Object)},
+     * which considers a plain literal equal to its explicitly xsd:string-typed form.
+     *
+     * @param other another {@link IdSparql}
+     * @return {@link Boolean#TRUE} or {@link Boolean#FALSE} if the IDs alone allow deciding if
+     *         both refer to the same term or {@code null} if a string comparison is required
+     *         (e.g., IDs come from different dictionaries or ID spaces, or may be the plain and
+     *         typed forms of the same string).
+     */
+    public abstract @Nullable Boolean sameTerm(@NonNull IdSparql other);
+
+    /**
+     * Get an object that identifies the space of {@link #idKey()} values.
+     *
+     * If two instances have equal non-null scopes, they refer to the same term if and only if
+     * their {@link #idKey()}s are equal. This allows hashing terms by their IDs, e.g., when
+     * grouping solutions, provided all hashed terms share the same scope.
+     *
+     * @return the scope of {@link #idKey()} or {@code null} if terms must be compared as strings.
+     */
+    public @Nullable Object idScope() {
+        return null;
+    }
+
+    /** A key that identifies this term among all instances with the same {@link #idScope()}. */
+    public long idKey() {
+        return id();
+    }
+
+    /**
+     * Get the {@link #idKey()} that {@code term} has in the {@link #idScope()} of this instance,
+     * which may require a dictionary lookup. Implementations with a non-null
+     * {@link #idScope()} must override this.
+     *
+     * @param term a term, which may or may not carry an {@link IdSparql}
+     * @return the {@link #idKey()} of {@code term} or zero if it does not occur in this scope.
+     */
+    public long idKeyOf(@NonNull Term term) {
+        return 0;
+    }
+
+    /**
+     * Create a {@link Term} that has the same {@link #idScope()} as this instance and the
+     * given {@link #idKey()}. Implementations with a non-null {@link #idScope()} must
+     * override this.
+     *
+     * @param key an {@link #idKey()} previously obtained from an instance with the same scope
+     * @return a non-null {@link Term} whose {@link Term#sparql()} is an {@link IdSparql}
+     */
+    public @NonNull Term termForIdKey(long key) {
+        throw new UnsupportedOperationException(getClass().getSimpleName()+" has no idScope()");
+    }
+
+    /**
+     * Get the {@link #idKey()}s of all IRIs and literals in this {@link #idScope()} whose
+     * {@code STR()} starts with {@code prefix}, if the source can find them without
+     * decoding every term (e.g., a sorted dictionary).
+     *
+     * @param prefix a non-empty prefix of IRIs and unescaped lexical forms
+     * @return sorted and disjoint inclusive ranges of keys, as {@code [first, last]} pairs
+     *         in a single array, or {@code null} if not supported for this prefix.
+     */
+    public long @Nullable[] strPrefixKeyRanges(@NonNull String prefix) {
+        return null;
+    }
+
+    /**
+     * Get the {@link #idKey()}s of all blank nodes in this {@link #idScope()}, in the same
+     * format as {@link #strPrefixKeyRanges(String)}.
+     *
+     * @return key ranges or {@code null} if blank nodes cannot be found without decoding.
+     */
+    public long @Nullable[] blankKeyRanges() {
+        return null;
+    }
+
+    /**
+     * Get the {@link Term.Type} of this term without decoding it, if possible.
+     *
+     * @return the {@link Term.Type} or {@code null} if it cannot be known without decoding.
+     */
+    public Term.@Nullable Type type() {
+        return null;
+    }
+
+    /** Compute the NT/SPARQL representation of the term. Called at most once. */
+    protected abstract @NonNull String decode();
+
+    /** Whether {@link IdSparql#decode()} has already been called (or was not necessary). */
+    public boolean isDecoded() {
+        return sparql != null;
+    }
+
+    @Override public @NonNull String toString() {
+        String s = sparql;
+        if (s == null)
+            sparql = s = decode();
+        return s;
+    }
+
+    @Override public int length() {
+        return toString().length();
+    }
+
+    @Override public char charAt(int index) {
+        return toString().charAt(index);
+    }
+
+    @Override public @NonNull CharSequence subSequence(int start, int end) {
+        return toString().subSequence(start, end);
+    }
+}
@@ -477,6 +477,11 @@ public record Term(@lombok.NonNull @NonNull CharSequence sparql) {
     }
 
     public @NonNull Type type() {
+        if (sparql instanceof IdSparql id && !id.isDecoded()) {
+            Type type = id.type();
+            if (type != null)
+                return type;
+        }
         try {
             return Type.fromNTFirstChar(sparql.charAt(0));
         } catch (IndexOutOfBoundsException e) {
@@ -484,7 +489,7 @@ public record Term(@lombok.NonNull @NonNull CharSequence sparql) {
         }
     }
 
-    public boolean isVar()     { return type() == Type.VAR;     }
+    public boolean isVar()     { return !(sparql instanceof IdSparql) && type() == Type.VAR; }
     public boolean isBlank()   { return type() == Type.BLANK;   }
     public boolean isURI()     { return type() == Type.URI;     }
     public boolean isLiteral() { return type() == Type.LITERAL; }
@@ -745,6 +750,11 @@ public record Term(@lombok.NonNull @NonNull CharSequence sparql) {
     @Override public boolean equals(Object obj) {
         if (!(obj instanceof Term rt)) return false;
         CharSequence rs = rt.sparql;
+        if (sparql instanceof IdSparql lId && rs instanceof IdSparql rId) {
+            Boolean same = lId.sameTerm(rId);
+            if (same != null)
+                return same;
+        }
         int length = sparql.length(), rLength = rs.length();
         boolean fullCompare = true;
         if (isStringLiteral() && rt.isStringLiteral()) {
@@ -0,0 +1,198 @@
+package com.github.lapesd.hdtss.model.nodes;
+
+import com.github.lapesd.hdtss.model.Term;
+import com.github.lapesd.hdtss.utils.Binding;
+import com.github.lapesd.hdtss.utils.ExprUtils;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Groups the solutions of its single operand by the values of {@link #keys()} (GROUP BY) and
+ * computes one {@link Aggregate} per group.
+ *
+ * Output solutions have the key vars followed by the aggregate vars, in the iteration order of
+ * {@link #aggregates()}. If the query has no GROUP BY clause ({@link #implicit()}), all
+ * solutions form a single group, which yields one solution even if the operand has no
+ * solutions (e.g., {@code COUNT(*)} is zero).
+ */
+@Accessors(fluent = true)
+public final class Group extends AbstractOp {
+    public enum Function {
+        COUNT,
+        SUM,
+        MIN,
+        MAX,
+        AVG,
+        SAMPLE
+    }
+
+    /** Aggregation algorithm chosen by an optimizer for a specific {@link Group} node. */
+    public enum Strategy {
+        /** Keep the accumulators of all groups in a hash table until the input ends */
+        HASH,
+        /**
+         * The operand yields solutions sorted by the HDT IDs of the single key var. Each group
+         * is output as soon as the key changes, keeping only the accumulators of one group.
+         */
+        STREAM
+    }
+
+    /**
+     * An aggregate function applied to a SPARQL expression (without the function wrapper).
+     * {@code expr} is null only for {@code COUNT(*)}.
+     */
+    public record Aggregate(@NonNull Function function, boolean distinct, @Nullable String expr) {
+        public Aggregate {
+            if (expr == null && function != Function.COUNT)
+                throw new IllegalArgumentException(function+" requires an expression");
+        }
+
+        public static @NonNull Aggregate countAll() {
+            return new Aggregate(Function.COUNT, false, null);
+        }
+        public static @NonNull Aggregate of(@NonNull Function function, @NonNull String expr) {
+            return new Aggregate(function, false, expr);
+        }
+        public static @NonNull Aggregate distinct(@NonNull Function function,
+                                                  @Nullable String expr) {
+            return new Aggregate(function, true, expr);
+        }
+
+        public @NonNull Aggregate bind(@NonNull Binding binding) {
+            if (expr == null)
+                return this;
+            return new Aggregate(function, distinct, ExprUtils.bindExpr(expr, binding));
+        }
+
+        @Override public @NonNull String toString() {
+            String arg = expr == null ? "*" : expr;
+            return function.name()+"("+(distinct ? "DISTINCT " : "")+arg+")";
+        }
+    }
+
+    @Getter private final @NonNull List<@NonNull String> keys;
+    @Getter private final @NonNull Map<@NonNull String, @NonNull Aggregate> aggregates;
+    @Getter private final boolean implicit;
+    /**
+     * The {@link Strategy} chosen for evaluating this node or null if the executor
+     * should use its default.
+     */
+    @Getter private final @Nullable Strategy strategy;
+    private @Nullable Set<String> aggregatesVarNames;
+
+    private Group(@NonNull Op inner, @NonNull List<@NonNull String> keys,
+                  @NonNull Map<@NonNull String, @NonNull Aggregate> aggregates, boolean implicit,
+                  @Nullable Strategy strategy) {
+        super(List.of(inner));
+        this.keys = keys;
+        this.aggregates = aggregates;
+        this.implicit = implicit;
+        this.strategy = strategy;
+        for (String var : aggregates.keySet()) {
+            if (keys.contains(var))
+                throw new IllegalArgumentException("?"+var+" is both a key and an aggregate");
+        }
+    }
+
+    public Group(@NonNull Op inner, @NonNull List<@NonNull String> keys,
+                 @NonNull Map<@NonNull String, @NonNull Aggregate> aggregates) {
+        this(inner, keys, aggregates, keys.isEmpty(), null);
+    }
+
+    /** Create a {@link Group} without keys, i.e., all solutions are in a single group. */
+    public Group(@NonNull Op inner, @NonNull Map<@NonNull String, @NonNull Aggregate> aggregates) {
+        this(inner, List.of(), aggregates);
+    }
+
+    public @NonNull Op inner() { return children.get(0); }
+
+    /** Get a copy of this node with the given {@link Group#strategy()}. */
+    public @NonNull Group withStrategy(@Nullable Strategy strategy) {
+        if (strategy == this.strategy)
+            return this;
+        return new Group(inner(), keys, aggregates, implicit, strategy);
+    }
+
+    /**
+     * Get the set of variables mentioned in the aggregate expressions.
+     *
+     * @return a non-null, possibly empty set of non-null and non-empty variable names
+     *         (not including leading '?' and '$').
+     */
+    public @NonNull Set<@NonNull String> aggregatesVarNames() {
+        if (aggregatesVarNames == null) {
+            Set<@NonNull String> set = new HashSet<>();
+            for (Aggregate aggregate : aggregates.values()) {
+                if (aggregate.expr() != null)
+                    ExprUtils.findVarNames(aggregate.expr(), set);
+            }
+            aggregatesVarNames = Collections.unmodifiableSet(set);
+        }
+        return aggregatesVarNames;
+    }
+
+    @Override public @NonNull Type type() { return Type.GROUP; }
+
+    @Override public @NonNull List<@NonNull String> outputVars() {
+        if (varNames == null) {
+            List<@NonNull String> list = new ArrayList<>(keys.size() + aggregates.size());
+            list.addAll(keys);
+            list.addAll(aggregates.keySet());
+            varNames = list;
+        }
+        return varNames;
+    }
+
+    /**
+     * Binding a key var filters the groups, thus the var is bound in the operand. Binding an
+     * aggregate var can only be evaluated after aggregation and yields a {@link Filter}
+     * on top of the {@link Group}.
+     */
+    @Override public @NonNull Op bind(@NonNull Binding binding) {
+        Binding innerBinding = binding.filter(v -> !aggregates.containsKey(v));
+        Op inner = inner(), boundInner = inner.bind(innerBinding);
+        if (boundInner == inner && !binding.intersects(outputVars()))
+            return this;
+        Map<@NonNull String, @NonNull Aggregate> boundAggregates = new LinkedHashMap<>();
+        List<@NonNull String> filters = new ArrayList<>();
+        for (Map.Entry<String, Aggregate> e : aggregates.entrySet()) {
+            String var = e.getKey();
+            Term term = binding.get(var, null);
+            if (term != null)
+                filters.add("sameTerm(?"+var+", "+term.sparql()+")");
+            boundAggregates.put(var, e.getValue().bind(innerBinding));
+        }
+        Op bound = new Group(boundInner, binding.unbound(keys), boundAggregates, implicit,
+                             strategy);
+        if (!binding.intersects(aggregates.keySet()))
+            return bound;
+        if (!filters.isEmpty())
+            bound = new Filter(bound, filters);
+        return new Project(binding.unbound(outputVars()), bound);
+    }
+
+    @Override public @NonNull Op withChildren(@NonNull List<@NonNull Op> replacements) {
+        return new Group(OpUtils.single(replacements), keys, aggregates, implicit, strategy);
+    }
+
+    @Override public boolean deepEquals(@NonNull Op other) {
+        if (!(other instanceof Group o)) return false;
+        return o.implicit == implicit && o.strategy == strategy && o.keys.equals(keys)
+                && new ArrayList<>(o.aggregates.entrySet())
+                        .equals(new ArrayList<>(aggregates.entrySet()))
+                && inner().deepEquals(o.inner());
+    }
+
+    @Override public @NonNull String toString() {
+        String list = aggregates.entrySet().stream().map(e -> "?"+e.getKey()+"="+e.getValue())
+                                .collect(Collectors.joining(", "));
+        String keysString = keys.stream().map(k -> "?"+k).collect(Collectors.joining(", "));
+        String hint = strategy == null ? "" : strategy+", ";
+        return "Group["+hint+keysString+(keys.isEmpty() ? "" : ", ")+list+"]("+inner()+")";
+    }
+}
@@ -1,15 +1,34 @@
 package com.github.lapesd.hdtss.model.nodes;
 
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
+import java.util.stream.Collectors;
 
 public class Join extends AbstractOp {
+    /** Join algorithm chosen by an optimizer for a specific {@link Join} node. */
+    public enum Strategy {
+        /** Execute the right operand once for each left solution, bound to it */
+        BIND,
+        /** Execute all operands independently and join solutions in a hash table */
+        HASH,
+        /**
+         * Scan all operands, which must be triple patterns sorted by the HDT IDs of the same
+         * variable, and join them in a single pass. Only applies to JOIN nodes.
+         */
+        MERGE
+    }
+
+    protected final @Nullable Strategy strategy;
+
     public Join(@NonNull List<@NonNull Op> operands) {
+        this(operands, null);
+    }
+
+    public Join(@NonNull List<@NonNull Op> operands, @Nullable Strategy strategy) {
         super(operands);
+        this.strategy = strategy;
     }
 
     public Join(@NonNull Op... operands) {
@@ -29,6 +48,19 @@ public class Join extends AbstractOp {
         return Type.JOIN;
     }
 
+    /**
+     * The {@link Strategy} chosen for evaluating this node or null if the executor
+     * should use its default.
+     */
+    public @Nullable Strategy strategy() {
+        return strategy;
+    }
+
+    /** Get a copy of this node with the given {@link Join#strategy()}. */
+    public @NonNull Join withStrategy(@Nullable Strategy strategy) {
+        return strategy == this.strategy ? this : new Join(children, strategy);
+    }
+
     @Override public @NonNull Set<@NonNull String> inputVars() {
         Set<@NonNull String> result = null;
         outer:
@@ -50,10 +82,21 @@ public class Join extends AbstractOp {
         return switch (replacements.size()) {
             case 0 -> IdentityNode.INSTANCE;
             case 1 -> replacements.get(0);
-            default -> new Join(replacements);
+            default -> new Join(replacements, strategy);
         };
     }
 
+    @Override public boolean deepEquals(@NonNull Op other) {
+        return super.deepEquals(other) && ((Join) other).strategy == strategy;
+    }
+
+    @Override public @NonNull String toString() {
+        if (strategy == null)
+            return super.toString();
+        String list = children.stream().map(Objects::toString).collect(Collectors.joining(", "));
+        return getClass().getSimpleName()+"["+strategy+"]("+list+")";
+    }
+
     public boolean isBGP() {
         for (Op o : children) {
             if (o instanceof TriplePattern) continue;
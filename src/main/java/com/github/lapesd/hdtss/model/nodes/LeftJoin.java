@@ -1,6 +1,7 @@
 package com.github.lapesd.hdtss.model.nodes;
 
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.HashSet;
 import java.util.List;
@@ -9,6 +10,9 @@ import java.util.Set;
 public final class LeftJoin extends Join {
     public LeftJoin(@NonNull List<@NonNull Op> operands) { super(operands); }
     public LeftJoin(@NonNull Op... operands) { super(operands); }
+    public LeftJoin(@NonNull List<@NonNull Op> operands, @Nullable Strategy strategy) {
+        super(operands, strategy);
+    }
 
     @Override public @NonNull Type type() {
         return Type.LEFT_JOIN;
@@ -35,10 +39,14 @@ public final class LeftJoin extends Join {
         return switch (replacements.size()) {
             case 0 -> IdentityNode.INSTANCE;
             case 1 -> replacements.get(0);
-            default -> new LeftJoin(replacements);
+            default -> new LeftJoin(replacements, strategy);
         };
     }
 
+    @Override public @NonNull LeftJoin withStrategy(@Nullable Strategy strategy) {
+        return strategy == this.strategy ? this : new LeftJoin(children, strategy);
+    }
+
     @Override public boolean isBGP() {
         return false;
     }
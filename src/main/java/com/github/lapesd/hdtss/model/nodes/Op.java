@@ -18,10 +18,12 @@ public interface Op {
         WEAK_DISTINCT,
         EXISTS,
         FILTER,
+        GROUP,
         IDENTITY,
         JOIN,
         LEFT_JOIN,
         MINUS,
+        ORDER,
         SLICE,
         PROJECT,
         TRIPLE,
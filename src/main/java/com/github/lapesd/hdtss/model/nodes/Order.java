@@ -0,0 +1,121 @@
+package com.github.lapesd.hdtss.model.nodes;
+
+import com.github.lapesd.hdtss.utils.Binding;
+import com.github.lapesd.hdtss.utils.ExprUtils;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Sorts the solutions of its single operand by a list of {@link Condition}s (ORDER BY).
+ *
+ * If {@link #limit()} is not {@link Long#MAX_VALUE}, only the first {@code limit()} sorted
+ * solutions will be consumed by the parent (e.g., a {@link Slice} with that
+ * {@code offset+limit}) and the remaining solutions need not be produced.
+ */
+@Accessors(fluent = true)
+public final class Order extends AbstractOp {
+    /** A sort key: a SPARQL expression (without the ASC()/DESC() wrapper) and a direction. */
+    public record Condition(@NonNull String expr, boolean descending) {
+        public static @NonNull Condition asc(@NonNull String expr)  {
+            return new Condition(expr, false);
+        }
+        public static @NonNull Condition desc(@NonNull String expr) {
+            return new Condition(expr, true);
+        }
+
+        @Override public @NonNull String toString() {
+            return (descending ? "DESC(" : "ASC(") + expr + ")";
+        }
+    }
+
+    @Getter private final @NonNull List<@NonNull Condition> conditions;
+    @Getter private final long limit;
+    private @Nullable Set<String> conditionsVarNames;
+
+    public Order(@NonNull Op inner, @NonNull List<@NonNull Condition> conditions, long limit) {
+        super(List.of(inner));
+        if (conditions.isEmpty())
+            throw new IllegalArgumentException("conditions is empty");
+        if (limit <= 0)
+            throw new IllegalArgumentException("limit ("+limit+") <= 0");
+        this.conditions = conditions;
+        this.limit = limit;
+    }
+
+    public Order(@NonNull Op inner, @NonNull List<@NonNull Condition> conditions) {
+        this(inner, conditions, Long.MAX_VALUE);
+    }
+
+    public Order(@NonNull Op inner, @NonNull Condition... conditions) {
+        this(inner, Arrays.asList(conditions));
+    }
+
+    public @NonNull Op inner() { return children.get(0); }
+
+    /**
+     * Get the set of variables mentioned in the sort expressions.
+     *
+     * @return a non-null, possibly empty set of non-null and non-empty variable names
+     *         (not including leading '?' and '$').
+     */
+    public @NonNull Set<@NonNull String> conditionsVarNames() {
+        if (conditionsVarNames == null) {
+            Set<@NonNull String> set = new HashSet<>();
+            for (Condition condition : conditions)
+                ExprUtils.findVarNames(condition.expr(), set);
+            conditionsVarNames = Collections.unmodifiableSet(set);
+        }
+        return conditionsVarNames;
+    }
+
+    @Override public @NonNull Type type() { return Type.ORDER; }
+
+    @Override public @NonNull List<@NonNull String> outputVars() {
+        return children.get(0).outputVars();
+    }
+
+    @Override public @NonNull Set<@NonNull String> inputVars() {
+        Op child = children.get(0);
+        List<@NonNull String> childOutputs = child.outputVars();
+        Set<@NonNull String> childInputs = child.inputVars();
+        Set<@NonNull String> union = null;
+        for (String var : conditionsVarNames()) {
+            if (!childOutputs.contains(var))
+                (union == null ? union = new HashSet<>() : union).add(var);
+        }
+        if (union == null)
+            return childInputs;
+        union.addAll(childInputs);
+        return union;
+    }
+
+    @Override public @NonNull Op bind(@NonNull Binding binding) {
+        if (!binding.intersects(outputVars()) && !binding.intersects(inputVars()))
+            return this;
+        List<@NonNull Condition> bound = new ArrayList<>(conditions.size());
+        for (Condition c : conditions)
+            bound.add(new Condition(ExprUtils.bindExpr(c.expr(), binding), c.descending()));
+        return new Order(inner().bind(binding), bound, limit);
+    }
+
+    @Override public @NonNull Op withChildren(@NonNull List<@NonNull Op> replacements) {
+        return new Order(OpUtils.single(replacements), conditions, limit);
+    }
+
+    @Override public boolean deepEquals(@NonNull Op other) {
+        if (!(other instanceof Order o)) return false;
+        return o.limit == limit && o.conditions.equals(conditions)
+                && inner().deepEquals(o.inner());
+    }
+
+    @Override public @NonNull String toString() {
+        String list = conditions.stream().map(Condition::toString)
+                                .collect(Collectors.joining(", "));
+        return "Order["+list+(limit == Long.MAX_VALUE ? "" : ", lim="+limit)+"]("+inner()+")";
+    }
+}
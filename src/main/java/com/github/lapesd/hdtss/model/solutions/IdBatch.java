@@ -0,0 +1,149 @@
+package com.github.lapesd.hdtss.model.solutions;
+
+import com.github.lapesd.hdtss.model.TermPosition;
+import org.checkerframework.checker.index.qual.NonNegative;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A batch of solutions stored column-wise as dictionary IDs.
+ *
+ * Each column corresponds to a variable and holds IDs in the ID space of its
+ * {@link TermPosition} (see {@link IdBatch#position(int)}). A zero ID denotes an unbound
+ * variable in that row and a null column denotes a variable unbound in all rows.
+ *
+ * Rows {@code [0, size())} are physically stored, but only the rows listed in the selection
+ * vector are part of the batch. Operators such as FILTER and LIMIT/OFFSET drop rows by
+ * shrinking the selection vector instead of copying columns. If no selection was set,
+ * all stored rows are selected.
+ */
+public final class IdBatch {
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final long @Nullable[] @NonNull[] columns;
+    private final @Nullable TermPosition @NonNull[] positions;
+    private final int capacity;
+    private final int @NonNull[] selection;
+    private int size;
+    /** Number of entries in selection or -1 if all {@code size} rows are selected. */
+    private int selected = -1;
+
+    /**
+     * Create an empty batch.
+     *
+     * @param positions the {@link TermPosition} of the IDs in each column.
+     * @param capacity maximum number of rows in the batch
+     */
+    public IdBatch(@NonNull TermPosition @NonNull[] positions, int capacity) {
+        this.positions = positions;
+        this.capacity = capacity;
+        this.columns = new long[positions.length][];
+        for (int i = 0; i < positions.length; i++)
+            columns[i] = new long[capacity];
+        this.selection = new int[capacity];
+    }
+
+    private IdBatch(long @Nullable[] @NonNull[] columns,
+                    @Nullable TermPosition @NonNull[] positions, int capacity,
+                    int @NonNull[] selection, int size, int selected) {
+        this.columns = columns;
+        this.positions = positions;
+        this.capacity = capacity;
+        this.selection = selection;
+        this.size = size;
+        this.selected = selected;
+    }
+
+    /** Number of columns (variables) */
+    public int width() { return columns.length; }
+
+    /** Maximum number of stored rows. */
+    public int capacity() { return capacity; }
+
+    /** Number of stored rows, including rows not selected. */
+    public int size() { return size; }
+
+    /** Whether no more rows can be stored. */
+    public boolean isFull() { return size == capacity; }
+
+    /** The array with IDs of the i-th variable or null if it is unbound in all rows. */
+    public long @Nullable[] column(int i) { return columns[i]; }
+
+    /** The {@link TermPosition} that defines the ID space of the i-th column. */
+    public @Nullable TermPosition position(int i) { return positions[i]; }
+
+    /** Number of selected rows. */
+    public int selectedCount() { return selected < 0 ? size : selected; }
+
+    /** Index of the i-th selected row, to be used with arrays returned by {@code column()}. */
+    public int selectedRow(int i) { return selected < 0 ? i : selection[i]; }
+
+    /** Drop all rows and reset the selection vector. */
+    public void clear() {
+        size = 0;
+        selected = -1;
+    }
+
+    /**
+     * Get the index for a new row. Callers must write the row values at this index of
+     * non-null columns and then call {@link IdBatch#commitRow()}.
+     */
+    public int nextRow() {
+        assert size < capacity : "batch is full";
+        return size;
+    }
+
+    /** Make the row at {@link IdBatch#nextRow()} part of this batch. */
+    public void commitRow() {
+        assert selected < 0 : "cannot add rows after a selection was made";
+        ++size;
+    }
+
+    /**
+     * Keep only the selected rows for which {@code keep} was set. The array must have at least
+     * {@link IdBatch#selectedCount()} elements and its i-th element refers to the i-th
+     * selected row.
+     */
+    public void retain(boolean @NonNull[] keep) {
+        int n = 0;
+        for (int i = 0, count = selectedCount(); i < count; i++) {
+            if (keep[i])
+                selection[n++] = selectedRow(i); // n <= i, thus safe to overwrite
+        }
+        selected = n;
+    }
+
+    /**
+     * Keep only the selected rows with index in {@code [from, to)} among the currently
+     * selected rows.
+     */
+    public void retainRange(@NonNegative int from, @NonNegative int to) {
+        assert from <= to && to <= selectedCount();
+        if (from == 0 && selected < 0) {
+            size = to;
+            return;
+        }
+        for (int i = from; i < to; i++)
+            selection[i-from] = selectedRow(i);
+        selected = to-from;
+    }
+
+    /**
+     * Get a view of this batch where the i-th column is the {@code indices[i]}-th column of
+     * this batch (or a null column if {@code indices[i] < 0}). Column arrays are shared,
+     * not copied.
+     */
+    public @NonNull IdBatch project(int @NonNull[] indices) {
+        long[][] projectedColumns = new long[indices.length][];
+        TermPosition[] projectedPositions = new TermPosition[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            int idx = indices[i];
+            if (idx >= 0) {
+                projectedColumns[i] = columns[idx];
+                projectedPositions[i] = positions[idx];
+            }
+        }
+        return new IdBatch(projectedColumns, projectedPositions, capacity, selection,
+                           size, selected);
+    }
+}
@@ -1,6 +1,7 @@
 package com.github.lapesd.hdtss.model.solutions;
 
 import com.github.lapesd.hdtss.model.Term;
+import com.github.lapesd.hdtss.utils.CloseableUtils;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
@@ -23,16 +24,29 @@ public class IteratorQuerySolutions implements QuerySolutions, Iterable<@Nullabl
     private @EqualsAndHashCode.Exclude @ToString.Exclude List<@Nullable Term @NonNull[]> list;
     private @EqualsAndHashCode.Exclude @ToString.Exclude Boolean askResult;
 
+    /**
+     * If the iterator is {@link AutoCloseable}, it is closed when the {@link Flux} terminates
+     * or is cancelled.
+     */
     @Override public @NonNull Flux<@Nullable Term @NonNull[]> flux() {
-        return list != null ? Flux.fromIterable(list) : Flux.fromIterable(this);
+        if (list != null)
+            return Flux.fromIterable(list);
+        var flux = Flux.fromIterable(this);
+        if (iterator instanceof AutoCloseable)
+            flux = flux.doFinally(s -> CloseableUtils.closeIfCloseable(iterator));
+        return flux;
     }
 
+    /** If the iterator is {@link AutoCloseable}, it is closed with the {@link Stream}. */
     @Override public @NonNull Stream<@Nullable Term @NonNull[]> stream() {
         if (list != null)
             return list.stream();
         var split = Spliterators.spliteratorUnknownSize(iterator,
                 Spliterator.NONNULL | Spliterator.ORDERED);
-        return StreamSupport.stream(split, false);
+        var stream = StreamSupport.stream(split, false);
+        if (iterator instanceof AutoCloseable)
+            stream = stream.onClose(() -> CloseableUtils.closeIfCloseable(iterator));
+        return stream;
     }
 
     @Override public @NonNull Iterator<@Nullable Term @NonNull[]> iterator() {
@@ -0,0 +1,184 @@
+package com.github.lapesd.hdtss.model.solutions;
+
+import com.github.lapesd.hdtss.model.Term;
+import com.github.lapesd.hdtss.model.TermPosition;
+import com.github.lapesd.hdtss.utils.CloseableIterator;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import reactor.core.publisher.Flux;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+
+/**
+ * A {@link QuerySolutions} whose solutions are produced in {@link IdBatch}es.
+ *
+ * Vectorized operators consume whole batches via {@link VectorQuerySolutions#nextBatch()}.
+ * Other consumers can use any row-oriented accessor (e.g., {@link QuerySolutions#iterator()}),
+ * in which case rows are built from the batches and {@link Term}s are obtained from the
+ * {@link Decoder}. Both forms of consumption are destructive.
+ *
+ * Consumers that stop before exhausting the batches should {@link #close()} the solutions
+ * (or the row iterator), so that the {@link BatchSource} can release its resources.
+ */
+@Accessors(fluent = true)
+public class VectorQuerySolutions implements QuerySolutions {
+    @Getter private final @NonNull List<@NonNull String> varNames;
+    private final @NonNull BatchSource source;
+    @Getter private final @NonNull Decoder decoder;
+    private @Nullable IteratorQuerySolutions rows;
+
+    /**
+     * Produces the batches of a {@link VectorQuerySolutions}.
+     *
+     * Sources that hold resources (or wrap other sources) override {@link #close()}.
+     */
+    @FunctionalInterface
+    public interface BatchSource extends AutoCloseable {
+        /**
+         * Get the next non-empty batch.
+         *
+         * The returned batch (and its columns) may be reused by the source, thus it is only
+         * valid until the next call to this method. Consumers may change the selection of the
+         * returned batch.
+         *
+         * @return the next batch or null if there are no more solutions.
+         */
+        @Nullable IdBatch nextBatch();
+
+        /** Release resources. Later {@link #nextBatch()} calls may return null. Idempotent. */
+        @Override default void close() { }
+    }
+
+    /** Converts an ID in a {@link IdBatch} column into a {@link Term}. */
+    @FunctionalInterface
+    public interface Decoder {
+        @NonNull Term decode(long id, @NonNull TermPosition position);
+    }
+
+    public VectorQuerySolutions(@NonNull List<@NonNull String> varNames,
+                                @NonNull BatchSource source, @NonNull Decoder decoder) {
+        this.varNames = varNames;
+        this.source = source;
+        this.decoder = decoder;
+    }
+
+    /**
+     * Get the next batch of solutions. See {@link BatchSource#nextBatch()}.
+     *
+     * @throws IllegalStateException if the solutions are already being consumed as rows.
+     */
+    public @Nullable IdBatch nextBatch() {
+        if (rows != null)
+            throw new IllegalStateException("solutions already consumed as rows");
+        return source.nextBatch();
+    }
+
+    /**
+     * Create solutions whose batches are batches of this projected with
+     * {@link IdBatch#project(int[])}. Closing the result closes this.
+     *
+     * @param varNames variable names of the projected solutions
+     * @param indices for each of {@code varNames}, the index of the column in this
+     * @return a new {@link VectorQuerySolutions} that consumes this.
+     */
+    public @NonNull VectorQuerySolutions project(@NonNull List<@NonNull String> varNames,
+                                                 int @NonNull[] indices) {
+        return new VectorQuerySolutions(varNames, new BatchSource() {
+            @Override public @Nullable IdBatch nextBatch() {
+                IdBatch batch = VectorQuerySolutions.this.nextBatch();
+                return batch == null ? null : batch.project(indices);
+            }
+
+            @Override public void close() {
+                VectorQuerySolutions.this.close();
+            }
+        }, decoder);
+    }
+
+    /** Release resources held by the {@link BatchSource}. Idempotent. */
+    public void close() {
+        source.close();
+    }
+
+    /**
+     * Get the {@link Term}s for the given row of the batch.
+     *
+     * @param batch a batch obtained from this {@link VectorQuerySolutions}
+     * @param row index of the row in {@link IdBatch} columns
+     * @return a new array of {@link Term}s, with nulls for unbound variables.
+     */
+    public @Nullable Term @NonNull[] row(@NonNull IdBatch batch, int row) {
+        int width = batch.width();
+        Term[] terms = new Term[width];
+        for (int i = 0; i < width; i++) {
+            long[] column = batch.column(i);
+            long id = column == null ? 0 : column[row];
+            if (id > 0) {
+                TermPosition position = batch.position(i);
+                assert position != null;
+                terms[i] = decoder.decode(id, position);
+            }
+        }
+        return terms;
+    }
+
+    private @NonNull IteratorQuerySolutions rows() {
+        if (rows != null)
+            return rows;
+        return rows = new IteratorQuerySolutions(varNames, new CloseableIterator<>() {
+            private @Nullable IdBatch batch;
+            private int next;
+            private boolean exhausted;
+
+            @Override public boolean hasNext() {
+                while (!exhausted && (batch == null || next == batch.selectedCount())) {
+                    batch = source.nextBatch();
+                    next = 0;
+                    exhausted = batch == null;
+                }
+                return !exhausted;
+            }
+
+            @Override public @Nullable Term @NonNull[] next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                assert batch != null;
+                return row(batch, batch.selectedRow(next++));
+            }
+
+            @Override public void close() {
+                exhausted = true;
+                source.close();
+            }
+        });
+    }
+
+    @Override public @NonNull Flux<@Nullable Term @NonNull[]> flux() {
+        return rows().flux();
+    }
+
+    @Override public @NonNull Iterator<@Nullable Term @NonNull[]> iterator() {
+        return rows().iterator();
+    }
+
+    @Override public @NonNull Stream<@Nullable Term @NonNull[]> stream() {
+        return rows().stream();
+    }
+
+    @Override public @NonNull List<@Nullable Term @NonNull[]> list() {
+        return rows().list();
+    }
+
+    @Override public boolean askResult() {
+        return rows().askResult();
+    }
+
+    @Override public String toString() {
+        return "VectorQuerySolutions{varNames=" + varNames + '}';
+    }
+}
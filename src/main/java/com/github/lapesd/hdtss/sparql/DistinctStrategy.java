@@ -7,4 +7,12 @@ import java.util.Collection;
 
 public interface DistinctStrategy {
     @NonNull Collection<@NonNull Row> createSet();
+
+    /**
+     * Create a set for a DISTINCT whose input order must be kept in its output (e.g., the
+     * input comes from an ORDER BY). The default implementation calls {@link #createSet()}.
+     */
+    default @NonNull Collection<@NonNull Row> createOrderedSet() {
+        return createSet();
+    }
 }
@@ -1,7 +1,6 @@
 package com.github.lapesd.hdtss.sparql;
 
 import com.github.lapesd.hdtss.data.query.HdtQueryService;
-import com.github.lapesd.hdtss.data.query.impl.HDTUtils;
 import com.github.lapesd.hdtss.model.Term;
 import com.github.lapesd.hdtss.model.nodes.Op;
 import com.github.lapesd.hdtss.model.nodes.TriplePattern;
@@ -53,7 +52,7 @@ public class GetPredicatesExecutor {
             final long last = dict.getNpredicates();
             @Override public boolean hasNext() { return next <= last; }
             @Override public @Nullable Term @NonNull[] next() {
-                return new Term[]{HDTUtils.fromHDTId(dict, next++, PRE)};
+                return new Term[]{hdtQueryService.decode(next++, PRE)};
             }
         });
     }
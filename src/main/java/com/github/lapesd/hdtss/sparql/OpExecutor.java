@@ -2,6 +2,7 @@ package com.github.lapesd.hdtss.sparql;
 
 import com.github.lapesd.hdtss.model.nodes.Op;
 import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
 import com.github.lapesd.hdtss.utils.Binding;
 import io.micronaut.core.order.Ordered;
 import org.checkerframework.checker.nullness.qual.NonNull;
@@ -25,7 +26,7 @@ public interface OpExecutor extends Ordered {
      * @return a {@link QuerySolutions}, which can be lazy or asynchronous.
      */
     default @NonNull QuerySolutions execute(@NonNull Op node) {
-        return execute(node, null);
+        return execute(node, null, null);
     }
 
     /**
@@ -35,5 +36,23 @@ public interface OpExecutor extends Ordered {
      * @param binding A mapping from variables to values that should replace them in {@code node}.
      * @return a non-null {@link QuerySolutions}, which can be lazy or asynchronous.
      */
-    @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding);
+    default @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding) {
+        return execute(node, binding, null);
+    }
+
+    /**
+     * Equivalent to {@link #execute(Op, Binding)}, accounting hits and misses of
+     * {@link LookupMemo}s into {@code stats}.
+     *
+     * Implementations pass {@code stats} to the {@link LookupMemo}s they create and to every
+     * {@link OpExecutorDispatcher#execute(Op, Binding, LookupMemo.Stats)} of operands,
+     * including dispatches done later, while the solutions are consumed.
+     *
+     * @param node the root of the SPARQL algebra to be executed
+     * @param binding A mapping from variables to values that should replace them in {@code node}.
+     * @param stats where {@link LookupMemo} hits and misses are accounted, if non-null.
+     * @return a non-null {@link QuerySolutions}, which can be lazy or asynchronous.
+     */
+    @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding,
+                                    LookupMemo.@Nullable Stats stats);
 }
@@ -2,6 +2,7 @@ package com.github.lapesd.hdtss.sparql;
 
 import com.github.lapesd.hdtss.model.nodes.Op;
 import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
 import com.github.lapesd.hdtss.utils.Binding;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
@@ -23,7 +24,9 @@ public interface OpExecutorDispatcher {
      * @return A non-null, possilby empty and possibly lazy {@link QuerySolutions} object over
      *         solutions for the given SPARQL query.
      */
-    @NonNull QuerySolutions execute(@NonNull Op node);
+    default @NonNull QuerySolutions execute(@NonNull Op node) {
+        return execute(node, null, null);
+    }
 
     /**
      * Equivalent to {@code execute(node.bind(binding))}, but faster by minimizing creation of new
@@ -34,5 +37,21 @@ public interface OpExecutorDispatcher {
      * @return A non-null, possibly empty and possibly lazye {@link QuerySolutions} object
      *         over the solutions for {@code node.bind(bindings)}.
      */
-    @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding);
+    default @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding) {
+        return execute(node, binding, null);
+    }
+
+    /**
+     * Equivalent to {@link #execute(Op, Binding)}, but hits and misses of {@link LookupMemo}s
+     * created while evaluating {@code node} (even lazily, after this method returns) are
+     * accounted into {@code stats}.
+     *
+     * @param node  a SPARQL algebra expression to evaluate
+     * @param binding A mapping from vars to values that should replace them in {@code node}.
+     * @param stats where {@link LookupMemo} hits and misses are accounted, if non-null.
+     * @return A non-null, possibly empty and possibly lazy {@link QuerySolutions} object
+     *         over the solutions for {@code node.bind(bindings)}.
+     */
+    @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding,
+                                    LookupMemo.@Nullable Stats stats);
 }
@@ -1,5 +1,6 @@
 package com.github.lapesd.hdtss.sparql.impl;
 
+import com.github.lapesd.hdtss.model.nodes.Join;
 import com.github.lapesd.hdtss.model.nodes.Op;
 import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
 import com.github.lapesd.hdtss.sparql.OpExecutor;
@@ -29,11 +30,15 @@ public class DefaultOpExecutorDispatcher implements OpExecutorDispatcher {
     private final @NonNull Provider<OpExecutor> leftJoinExecutor;
     private final @NonNull Provider<OpExecutor> identityExecutor;
     private final @NonNull Provider<OpExecutor> sliceExecutor;
+    private final @NonNull Provider<OpExecutor> orderExecutor;
+    private final @NonNull Provider<OpExecutor> groupExecutor;
     private final @NonNull Provider<OpExecutor> valuesExecutor;
     private final @NonNull Provider<OpExecutor> assignExecutor;
     private final @NonNull Provider<OpExecutor> existsExecutor;
     private final @NonNull Provider<OpExecutor> minusExecutor;
     private final @NonNull Provider<OpExecutor> askExecutor;
+    private final @NonNull Provider<OpExecutor> mergeJoinExecutor;
+    private @Nullable OpExecutor mergeJoin;
     private @Nullable Map<Op.@NonNull Type, @NonNull OpExecutor> executorMap;
 
     @Inject
@@ -47,11 +52,14 @@ public class DefaultOpExecutorDispatcher implements OpExecutorDispatcher {
                                        @Named("leftJoin")      @NonNull Provider<OpExecutor> leftJoinExecutor,
                                        @Named("identity")      @NonNull Provider<OpExecutor> identityExecutor,
                                        @Named("slice")         @NonNull Provider<OpExecutor> sliceExecutor,
+                                       @Named("order")         @NonNull Provider<OpExecutor> orderExecutor,
+                                       @Named("group")         @NonNull Provider<OpExecutor> groupExecutor,
                                        @Named("values")        @NonNull Provider<OpExecutor> valuesExecutor,
                                        @Named("assign")        @NonNull Provider<OpExecutor> assignExecutor,
                                        @Named("exists")        @NonNull Provider<OpExecutor> existsExecutor,
                                        @Named("minus")         @NonNull Provider<OpExecutor> minusExecutor,
-                                       @Named("ask")           @NonNull Provider<OpExecutor> askExecutor) {
+                                       @Named("ask")           @NonNull Provider<OpExecutor> askExecutor,
+                                       @Named("mergeJoin")     @NonNull Provider<OpExecutor> mergeJoinExecutor) {
         this.tripleExecutor = tripleExecutor;
         this.filterExecutor = filterExecutor;
         this.projectExecutor = projectExecutor;
@@ -62,11 +70,14 @@ public class DefaultOpExecutorDispatcher implements OpExecutorDispatcher {
         this.leftJoinExecutor = leftJoinExecutor;
         this.identityExecutor = identityExecutor;
         this.sliceExecutor = sliceExecutor;
+        this.orderExecutor = orderExecutor;
+        this.groupExecutor = groupExecutor;
         this.valuesExecutor = valuesExecutor;
         this.assignExecutor = assignExecutor;
         this.existsExecutor = existsExecutor;
         this.minusExecutor = minusExecutor;
         this.askExecutor = askExecutor;
+        this.mergeJoinExecutor = mergeJoinExecutor;
     }
 
     @Override  public void init() {
@@ -82,32 +93,36 @@ public class DefaultOpExecutorDispatcher implements OpExecutorDispatcher {
         map.put(Op.Type.LEFT_JOIN,     this.leftJoinExecutor.get());
         map.put(Op.Type.IDENTITY,      this.identityExecutor.get());
         map.put(Op.Type.SLICE,         this.sliceExecutor.get());
+        map.put(Op.Type.ORDER,         this.orderExecutor.get());
+        map.put(Op.Type.GROUP,         this.groupExecutor.get());
         map.put(Op.Type.VALUES,        this.valuesExecutor.get());
         map.put(Op.Type.ASSIGN,        this.assignExecutor.get());
         map.put(Op.Type.EXISTS,        this.existsExecutor.get());
         map.put(Op.Type.MINUS,         this.minusExecutor.get());
         map.put(Op.Type.ASK,           this.askExecutor.get());
         assert Arrays.stream(Op.Type.values()).allMatch(map::containsKey);
+        this.mergeJoin = this.mergeJoinExecutor.get();
         this.executorMap = map;
         double ms = (System.nanoTime() - startNs)/1000000.0;
         log.debug("OpExecutorDispatcher.init() took {}", String.format("%.3fms", ms));
     }
 
-    @Override public @NonNull QuerySolutions execute(@NonNull Op node) {
+    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding,
+                                                     LookupMemo.@Nullable Stats stats) {
         if (executorMap == null)
             init();
-        QuerySolutions solutions = executorMap.get(node.type()).execute(node);
+        QuerySolutions solutions = executorFor(node).execute(node, binding, stats);
         // multiple OpExecutor implementations rely on this:
-        assert solutions.varNames().equals(node.outputVars());
+        assert validOutputVars(solutions, node, binding);
         return solutions;
     }
 
-    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding) {
-        if (executorMap == null)
-            init();
-        QuerySolutions solutions = executorMap.get(node.type()).execute(node, binding);
-        assert validOutputVars(solutions, node, binding);
-        return solutions;
+    private @NonNull OpExecutor executorFor(@NonNull Op node) {
+        assert executorMap != null && mergeJoin != null;
+        Op.Type type = node.type();
+        if (type == Op.Type.JOIN && ((Join) node).strategy() == Join.Strategy.MERGE)
+            return mergeJoin;
+        return executorMap.get(type);
     }
 
     private boolean validOutputVars(@NonNull QuerySolutions solutions, @NonNull Op node,
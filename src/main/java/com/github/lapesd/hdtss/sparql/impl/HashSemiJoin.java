@@ -0,0 +1,295 @@
+package com.github.lapesd.hdtss.sparql.impl;
+
+import com.github.lapesd.hdtss.model.Row;
+import com.github.lapesd.hdtss.model.Term;
+import com.github.lapesd.hdtss.model.nodes.Op;
+import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
+import com.github.lapesd.hdtss.sparql.impl.distinct.IdDistinctSet;
+import org.checkerframework.checker.nullness.qual.EnsuresNonNullIf;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Hash semi-join ({@code EXISTS}) and anti-join ({@code NOT EXISTS}, {@code MINUS}) of
+ * outer solutions with the solutions of an inner operand, which is executed only once.
+ *
+ * Solutions are matched by the variables shared by both sides. The projections of the built
+ * side on those variables are stored in an {@link IdDistinctSet}, i.e., as one {@code long}
+ * per variable, and the other side is streamed:
+ *
+ * <ul>
+ *     <li>{@link #test(Term[])} and {@link #filter(Iterator, boolean)} with
+ *         {@code buildOuter=false} build the inner side on first use. Outer solutions are
+ *         then accepted or rejected as they arrive, with a single lookup.</li>
+ *     <li>{@link #filter(Iterator, boolean)} with {@code buildOuter=true} stores the outer
+ *         solutions, streams the inner solutions keeping only the keys that match some outer
+ *         solution and then outputs the accepted outer solutions.</li>
+ * </ul>
+ *
+ * An outer key where some shared variable is unbound is looked up in a projection of the
+ * complete inner keys on its bound variables. Such projections are built once per subset of
+ * bound variables. Inner keys where some shared variable is unbound are compared with a
+ * linear scan. For {@code MINUS}, a match also requires some shared variable to be bound on both
+ * sides (per § 8.3 of the SPARQL 1.1 recommendation), thus nothing is removed if no
+ * variable is shared.
+ *
+ * For {@code EXISTS}, matching by shared variables is only equivalent to substituting outer
+ * values into the inner operand for some operands, see
+ * {@link #supportsExists(Op, Collection)}.
+ */
+public final class HashSemiJoin implements Predicate<@Nullable Term @NonNull[]> {
+    public enum Kind {
+        EXISTS,
+        NOT_EXISTS,
+        MINUS;
+
+        /** Whether outer solutions that match some inner solution are removed */
+        public boolean isAnti() { return this != EXISTS; }
+    }
+
+    private static final @NonNull Set<Op.Type> EXISTS_TYPES = EnumSet.of(
+            Op.Type.TRIPLE, Op.Type.JOIN, Op.Type.UNION, Op.Type.FILTER, Op.Type.PROJECT,
+            Op.Type.DISTINCT, Op.Type.WEAK_DISTINCT, Op.Type.VALUES, Op.Type.IDENTITY,
+            Op.Type.ORDER);
+
+    private final @NonNull List<@NonNull String> outerVars;
+    private final @NonNull Supplier<@NonNull QuerySolutions> inner;
+    private final @NonNull Kind kind;
+    private int @Nullable[] outerKey;
+    private int @NonNull[] innerKey = new int[0];
+    /** Keys of inner solutions without unbound variables. */
+    private final @NonNull IdDistinctSet innerKeys = new IdDistinctSet(Long.MAX_VALUE);
+    /** Projections of {@link #innerKeys} by bitmask of the shared variables kept. */
+    private final @NonNull Map<Long, IdDistinctSet> innerKeysBySubset = new HashMap<>();
+    /** Keys of inner solutions with some, but not all, shared variables unbound. */
+    private final @NonNull List<@Nullable Term @NonNull[]> innerPartial = new ArrayList<>();
+    /** Whether every outer solution matches (e.g., inner solution with all shared unbound) */
+    private boolean matchesAll;
+    /** Whether no outer solution matches (e.g., MINUS without shared variables) */
+    private boolean matchesNone;
+
+    /**
+     * @param outerVars variable names of the outer solutions
+     * @param inner executes the inner operand. Called at most once, on first use
+     * @param kind how matches affect outer solutions
+     */
+    public HashSemiJoin(@NonNull List<@NonNull String> outerVars,
+                        @NonNull Supplier<@NonNull QuerySolutions> inner, @NonNull Kind kind) {
+        this.outerVars = outerVars;
+        this.inner = inner;
+        this.kind = kind;
+    }
+
+    /**
+     * Whether an {@code EXISTS} with the given filter operand can be evaluated by this class,
+     * yielding the same result as substituting values of {@code rowVars} into {@code filter}.
+     *
+     * @param filter the inner operand of the {@code EXISTS}
+     * @param rowVars variables of the outer solutions
+     */
+    public static boolean supportsExists(@NonNull Op filter,
+                                         @NonNull Collection<@NonNull String> rowVars) {
+        for (String name : filter.inputVars()) {
+            if (rowVars.contains(name)) return false;
+        }
+        ArrayDeque<Op> stack = new ArrayDeque<>();
+        stack.push(filter);
+        while (!stack.isEmpty()) {
+            Op op = stack.pop();
+            if (!EXISTS_TYPES.contains(op.type()))
+                return false;
+            for (Op child : op.children())
+                stack.push(child);
+        }
+        return true;
+    }
+
+    /**
+     * Whether the outer solution {@code row} is accepted. The inner side is executed and
+     * stored on the first call.
+     */
+    @Override public boolean test(@Nullable Term @NonNull[] row) {
+        if (outerKey == null)
+            build(null);
+        return matches(ExecutorUtils.project(outerKey, row)) != kind.isAnti();
+    }
+
+    /**
+     * Get the accepted solutions among {@code outer}.
+     *
+     * @param outer the outer solutions, with variables as given in the constructor
+     * @param buildOuter whether to store the outer solutions and stream the inner ones,
+     *                   instead of storing the inner keys and streaming {@code outer}.
+     */
+    public @NonNull Iterator<@Nullable Term @NonNull[]>
+    filter(@NonNull Iterator<@Nullable Term @NonNull[]> outer, boolean buildOuter) {
+        return new Iterator<>() {
+            private @Nullable Iterator<@Nullable Term @NonNull[]> source;
+            private @Nullable Term @Nullable[] next;
+
+            @EnsuresNonNullIf(expression = "this.next", result = true)
+            @Override public boolean hasNext() {
+                if (source == null)
+                    source = buildOuter ? buildOuter(outer) : outer;
+                while (next == null && source.hasNext()) {
+                    var candidate = source.next();
+                    if (test(candidate))
+                        next = candidate;
+                }
+                return next != null;
+            }
+
+            @Override public @Nullable Term @NonNull[] next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                var row = this.next;
+                this.next = null;
+                assert row != null;
+                return row;
+            }
+        };
+    }
+
+    /** Store all outer solutions, then build the inner side, restricted to their keys. */
+    private @NonNull Iterator<@Nullable Term @NonNull[]>
+    buildOuter(@NonNull Iterator<@Nullable Term @NonNull[]> outer) {
+        List<@Nullable Term @NonNull[]> rows = new ArrayList<>();
+        while (outer.hasNext())
+            rows.add(outer.next());
+        var outerKeys = new IdDistinctSet(Long.MAX_VALUE);
+        build(new OuterKeys(rows, outerKeys));
+        outerKeys.close();
+        return rows.iterator();
+    }
+
+    /** Keys of the stored outer solutions, used to discard inner keys that match nothing */
+    private static final class OuterKeys {
+        final @NonNull List<@Nullable Term @NonNull[]> rows;
+        final @NonNull IdDistinctSet keys;
+        boolean hasPartial;
+
+        OuterKeys(@NonNull List<@Nullable Term @NonNull[]> rows, @NonNull IdDistinctSet keys) {
+            this.rows = rows;
+            this.keys = keys;
+        }
+    }
+
+    private void build(@Nullable OuterKeys outer) {
+        QuerySolutions solutions = inner.get();
+        List<@NonNull String> innerVars = solutions.varNames(), shared = new ArrayList<>();
+        for (String name : outerVars) {
+            if (innerVars.contains(name)) shared.add(name);
+        }
+        int[] outerKey = ExecutorUtils.findIndices(shared, outerVars);
+        innerKey = ExecutorUtils.findIndices(shared, innerVars);
+        if (outer != null) {
+            for (var row : outer.rows) {
+                Term[] key = ExecutorUtils.project(outerKey, row);
+                if (isComplete(key)) outer.keys.add(new Row(key));
+                else                 outer.hasPartial = true;
+            }
+        }
+        this.outerKey = outerKey;
+        if (kind == Kind.MINUS && shared.isEmpty()) {
+            matchesNone = true;
+            return;
+        }
+        for (Iterator<@Nullable Term @NonNull[]> it = solutions.iterator(); it.hasNext(); ) {
+            Term[] key = ExecutorUtils.project(innerKey, it.next());
+            if (isComplete(key)) {
+                Row row = new Row(key);
+                if (outer == null || outer.hasPartial || outer.keys.contains(row))
+                    innerKeys.add(row);
+            } else if (!isUnbound(key)) {
+                innerPartial.add(key);
+            } else if (kind != Kind.MINUS) {
+                matchesAll = true; // compatible with any outer solution
+                break;
+            }
+        }
+    }
+
+    private boolean matches(@Nullable Term @NonNull[] outerKey) {
+        if (matchesAll || matchesNone)
+            return matchesAll;
+        if (isComplete(outerKey)) {
+            if (innerKeys.contains(new Row(outerKey)))
+                return true;
+        } else if (matchesPartial(outerKey)) {
+            return true;
+        }
+        for (Term[] key : innerPartial) {
+            if (compatible(outerKey, key)) return true;
+        }
+        return false;
+    }
+
+    /** Whether the outer key, with some shared variable unbound, matches a complete inner key */
+    private boolean matchesPartial(@Nullable Term @NonNull[] outerKey) {
+        if (innerKeys.isEmpty())
+            return false;
+        if (outerKey.length >= Long.SIZE) { // too many shared variables for a bitmask
+            for (Row row : innerKeys) {
+                if (compatible(outerKey, row.terms())) return true;
+            }
+            return false;
+        }
+        long mask = 0;
+        int bound = 0;
+        for (int i = 0; i < outerKey.length; i++) {
+            if (outerKey[i] != null) {
+                mask |= 1L << i;
+                ++bound;
+            }
+        }
+        if (bound == 0)
+            return kind != Kind.MINUS; // all inner keys are compatible, none shares a value
+        var projections = innerKeysBySubset.computeIfAbsent(mask, m -> {
+            var set = new IdDistinctSet(Long.MAX_VALUE);
+            for (Row row : innerKeys)
+                set.add(new Row(projectBound(m, row.terms())));
+            return set;
+        });
+        return projections.contains(new Row(projectBound(mask, outerKey)));
+    }
+
+    private static @Nullable Term @NonNull[] projectBound(long mask,
+                                                          @Nullable Term @NonNull[] key) {
+        Term[] projection = new Term[Long.bitCount(mask)];
+        for (int i = 0, j = 0; i < key.length; i++) {
+            if ((mask & (1L << i)) != 0) projection[j++] = key[i];
+        }
+        return projection;
+    }
+
+    private boolean compatible(@Nullable Term @NonNull[] outerKey,
+                               @Nullable Term @NonNull[] innerKey) {
+        boolean shared = false;
+        for (int i = 0; i < outerKey.length; i++) {
+            Term l = outerKey[i], r = innerKey[i];
+            if (l != null && r != null) {
+                if (!l.equals(r)) return false;
+                shared = true;
+            }
+        }
+        return shared || kind != Kind.MINUS;
+    }
+
+    private static boolean isComplete(@Nullable Term @NonNull[] key) {
+        for (Term term : key) {
+            if (term == null) return false;
+        }
+        return true;
+    }
+
+    private static boolean isUnbound(@Nullable Term @NonNull[] key) {
+        for (Term term : key) {
+            if (term != null) return false;
+        }
+        return true;
+    }
+}
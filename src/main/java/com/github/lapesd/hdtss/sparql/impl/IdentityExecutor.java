@@ -26,11 +26,8 @@ public class IdentityExecutor implements OpExecutor {
         return SUPPORTED_TYPES;
     }
 
-    @Override public @NonNull QuerySolutions execute(@NonNull Op node) {
-        return SOLUTIONS;
-    }
-
-    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding) {
+    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding,
+                                                     LookupMemo.@Nullable Stats stats) {
         return SOLUTIONS;
     }
 }
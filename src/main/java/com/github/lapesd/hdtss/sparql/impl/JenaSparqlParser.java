@@ -14,18 +14,17 @@ import org.apache.jena.graph.Triple;
 import org.apache.jena.query.Query;
 import org.apache.jena.query.QueryException;
 import org.apache.jena.query.QueryFactory;
+import org.apache.jena.query.SortCondition;
 import org.apache.jena.sparql.core.TriplePath;
 import org.apache.jena.sparql.core.Var;
-import org.apache.jena.sparql.expr.E_Exists;
-import org.apache.jena.sparql.expr.E_NotExists;
-import org.apache.jena.sparql.expr.Expr;
+import org.apache.jena.sparql.core.VarExprList;
+import org.apache.jena.sparql.expr.*;
+import org.apache.jena.sparql.expr.aggregate.*;
 import org.apache.jena.sparql.syntax.*;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
+import java.util.function.Function;
 
 import static com.github.lapesd.hdtss.utils.JenaUtils.fromBinding;
 import static com.github.lapesd.hdtss.utils.JenaUtils.toSPARQL;
@@ -57,6 +56,14 @@ public class JenaSparqlParser implements SparqlParser {
         List<String> vars = query.getResultVars();
         if (query.hasValues())
             root = new Values(convertValues(query), root);
+        ExprRenamer renamer = new ExprRenamer();
+        if (query.hasGroupBy() || query.hasAggregators())
+            root = convertGroup(root, query, renamer, queryString);
+        if (query.hasHaving())
+            root = Filter.withFilters(root, query.getHavingExprs().stream().map(renamer).toList());
+        root = convertProjectExprs(root, query, renamer);
+        if (query.hasOrderBy())
+            root = new Order(root, convertOrderBy(query, renamer), orderLimit(query));
         if (!vars.equals(root.outputVars()) && !query.isAskType())
             root = new Project(vars, root);
         if (query.isDistinct())
@@ -206,6 +213,147 @@ public class JenaSparqlParser implements SparqlParser {
         return op[0];
     }
 
+    /**
+     * Converts Jena {@link Expr}s into SPARQL strings, replacing references to aggregates and
+     * to Jena-internal variables (e.g., {@code GROUP BY (STR(?x))}) with named variables.
+     */
+    private static final class ExprRenamer extends ExprTransformCopy
+            implements Function<@NonNull Expr, @NonNull String> {
+        private final @NonNull Map<@NonNull Var, @NonNull String> names = new HashMap<>();
+
+        /** Get the name of a var, creating one with the given prefix if it is internal. */
+        @NonNull String name(@NonNull Var var, @NonNull String prefix) {
+            return names.computeIfAbsent(var, v -> isInternal(v) ? prefix+names.size()
+                                                                 : v.getVarName());
+        }
+
+        @Override public @NonNull String apply(@NonNull Expr expr) {
+            return toSPARQL(names.isEmpty() ? expr : ExprTransformer.transform(this, expr));
+        }
+
+        @Override public Expr transform(ExprVar exprVar) {
+            String name = names.get(exprVar.asVar());
+            return name == null ? super.transform(exprVar) : new ExprVar(name);
+        }
+
+        @Override public Expr transform(ExprAggregator eAgg) {
+            String name = names.get(eAgg.getVar());
+            return name == null ? super.transform(eAgg) : new ExprVar(name);
+        }
+
+        private static boolean isInternal(@NonNull Var var) {
+            char first = var.getVarName().charAt(0);
+            return !Character.isLetterOrDigit(first) && first != '_';
+        }
+    }
+
+    private static final Map<Class<?>, Group.Function> AGGREGATORS = Map.ofEntries(
+            Map.entry(AggCount.class,            Group.Function.COUNT),
+            Map.entry(AggCountDistinct.class,    Group.Function.COUNT),
+            Map.entry(AggCountVar.class,         Group.Function.COUNT),
+            Map.entry(AggCountVarDistinct.class, Group.Function.COUNT),
+            Map.entry(AggSum.class,              Group.Function.SUM),
+            Map.entry(AggSumDistinct.class,      Group.Function.SUM),
+            Map.entry(AggMin.class,              Group.Function.MIN),
+            Map.entry(AggMinDistinct.class,      Group.Function.MIN),
+            Map.entry(AggMax.class,              Group.Function.MAX),
+            Map.entry(AggMaxDistinct.class,      Group.Function.MAX),
+            Map.entry(AggAvg.class,              Group.Function.AVG),
+            Map.entry(AggAvgDistinct.class,      Group.Function.AVG),
+            Map.entry(AggSample.class,           Group.Function.SAMPLE),
+            Map.entry(AggSampleDistinct.class,   Group.Function.SAMPLE)
+    );
+    private static final Set<Class<?>> DISTINCT_AGGREGATORS = Set.of(
+            AggCountDistinct.class, AggCountVarDistinct.class, AggSumDistinct.class,
+            AggMinDistinct.class, AggMaxDistinct.class, AggAvgDistinct.class,
+            AggSampleDistinct.class
+    );
+
+    /**
+     * Wrap {@code root} with a {@link Group}. Expressions in GROUP BY become an {@link Assign}
+     * below the {@link Group}. Aggregates that are directly projected (e.g.,
+     * {@code (COUNT(*) AS ?c)}) are named after the projected var.
+     */
+    private @NonNull Op convertGroup(@NonNull Op root, @NonNull Query query,
+                                     @NonNull ExprRenamer renamer, @NonNull String queryString) {
+        VarExprList groupBy = query.getGroupBy();
+        List<@NonNull String> keys = new ArrayList<>(groupBy.size());
+        Map<@NonNull String, @NonNull String> keyAssignments = new LinkedHashMap<>();
+        for (Var var : groupBy.getVars()) {
+            String name = renamer.name(var, "hdtssKey");
+            keys.add(name);
+            Expr expr = groupBy.getExpr(var);
+            if (expr != null)
+                keyAssignments.put(name, renamer.apply(expr));
+        }
+        if (!keyAssignments.isEmpty())
+            root = Assign.withAssignments(root, keyAssignments);
+
+        VarExprList project = query.getProject();
+        for (Var var : project.getVars()) {
+            if (project.getExpr(var) instanceof ExprAggregator ea
+                    && !renamer.names.containsKey(ea.getVar())
+                    && !renamer.names.containsValue(var.getVarName())) {
+                renamer.names.put(ea.getVar(), var.getVarName());
+            }
+        }
+        Map<@NonNull String, Group.@NonNull Aggregate> aggregates = new LinkedHashMap<>();
+        for (ExprAggregator ea : query.getAggregators()) {
+            String name = renamer.name(ea.getVar(), "hdtssAgg");
+            if (!aggregates.containsKey(name))
+                aggregates.put(name, convertAggregator(ea.getAggregator(), renamer, queryString));
+        }
+        return new Group(root, keys, aggregates);
+    }
+
+    private static Group.@NonNull Aggregate
+    convertAggregator(@NonNull Aggregator aggregator, @NonNull ExprRenamer renamer,
+                      @NonNull String queryString) {
+        Group.Function function = AGGREGATORS.get(aggregator.getClass());
+        if (function == null)
+            throw new FeatureNotSupportedException("Aggregate "+aggregator, queryString);
+        ExprList args = aggregator.getExprList();
+        String expr = args == null || args.isEmpty() ? null : renamer.apply(args.get(0));
+        boolean distinct = DISTINCT_AGGREGATORS.contains(aggregator.getClass());
+        return new Group.Aggregate(function, distinct, expr);
+    }
+
+    /**
+     * Wrap {@code root} with one {@link Assign} per {@code (expr AS ?var)} in the SELECT
+     * clause, in order, since an expression may refer to vars assigned by previous ones.
+     */
+    private @NonNull Op convertProjectExprs(@NonNull Op root, @NonNull Query query,
+                                            @NonNull ExprRenamer renamer) {
+        VarExprList project = query.getProject();
+        for (Var var : project.getVars()) {
+            Expr expr = project.getExpr(var);
+            String name = var.getVarName();
+            if (expr == null || root.outputVars().contains(name))
+                continue; // not an expression or an aggregate already named after var
+            root = new Assign(Map.of(name, renamer.apply(expr)), root);
+        }
+        return root;
+    }
+
+    private @NonNull List<Order.@NonNull Condition> convertOrderBy(@NonNull Query query,
+                                                                  @NonNull ExprRenamer renamer) {
+        List<Order.@NonNull Condition> list = new ArrayList<>(query.getOrderBy().size());
+        for (SortCondition sc : query.getOrderBy()) {
+            String expr = renamer.apply(sc.getExpression());
+            boolean descending = sc.getDirection() == Query.ORDER_DESCENDING;
+            list.add(new Order.Condition(expr, descending));
+        }
+        return list;
+    }
+
+    /** How many sorted solutions are consumed by LIMIT/OFFSET, if DISTINCT does not interfere */
+    private static long orderLimit(@NonNull Query query) {
+        if (!query.hasLimit() || query.isDistinct() || query.isReduced())
+            return Long.MAX_VALUE;
+        long offset = Math.max(0, query.getOffset()), limit = query.getLimit();
+        return limit > Long.MAX_VALUE - offset ? Long.MAX_VALUE : Math.max(1, offset + limit);
+    }
+
     private @NonNull QuerySolutions convertValues(@NonNull Query query) {
         var vars = query.getValuesVariables();
         var rows = query.getValuesData().stream().map(b -> {
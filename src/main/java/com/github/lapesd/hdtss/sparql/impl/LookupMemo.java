@@ -0,0 +1,159 @@
+package com.github.lapesd.hdtss.sparql.impl;
+
+import com.github.lapesd.hdtss.model.Row;
+import com.github.lapesd.hdtss.model.Term;
+import com.github.lapesd.hdtss.model.nodes.Op;
+import com.github.lapesd.hdtss.utils.Binding;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Arrays.copyOf;
+
+/**
+ * A size-bounded memo of the results of evaluating an {@link Op} bound to values of
+ * variables shared with the solutions that drive the evaluation (e.g., the left operand of
+ * a bind join or the outer solutions of an {@code EXISTS}).
+ *
+ * A memo lives as long as the execution of the operator that created it and is keyed by
+ * the values of the shared variables. Each entry costs the number of rows it holds (or 1 if
+ * there are none). Once the total cost would exceed {@code maxRows}, the least recently
+ * used entries are evicted.
+ *
+ * Hits and misses are accounted into the {@link Stats} given to the constructor. Executors
+ * receive the {@link Stats} of the query as an argument of
+ * {@link com.github.lapesd.hdtss.sparql.OpExecutor#execute(Op, Binding, Stats)} and must
+ * pass them to the memos they create and to every nested dispatch.
+ *
+ * @param <V> the type of memoized results
+ */
+public final class LookupMemo<V> {
+    /** Hit and miss counters shared by all memos created during the dispatch of a query. */
+    public static final class Stats {
+        private final @NonNull LongAdder hits = new LongAdder(), misses = new LongAdder();
+
+        public long hits()   { return hits.sum(); }
+        public long misses() { return misses.sum(); }
+    }
+
+    private record Entry<V>(@NonNull V value, int cost) { }
+
+    private final int maxRows;
+    private final @Nullable Stats stats;
+    private final @NonNull LinkedHashMap<@NonNull Row, @NonNull Entry<V>> map
+            = new LinkedHashMap<>(16, 0.75f, true);
+    private int rows;
+
+    /**
+     * Create a memo holding at most {@code maxRows} rows.
+     *
+     * @param maxRows maximum total cost of entries. If zero or negative, {@link #get(Row)}
+     *                will always return null and {@link #put(Row, Object, int)} is a no-op.
+     * @param stats where hits and misses are accounted, usually the {@link Stats} given to
+     *              the creating executor.
+     */
+    public LookupMemo(int maxRows, @Nullable Stats stats) {
+        this.maxRows = maxRows;
+        this.stats = stats;
+    }
+
+    /**
+     * Get the indices in {@code rowVars} of variables that are used by {@code op}, either as
+     * output or as input variables. Values at these indices form the keys of a memo for
+     * {@code op}.
+     */
+    public static int @NonNull[] keyIndices(@NonNull List<@NonNull String> rowVars,
+                                            @NonNull Op op) {
+        Set<@NonNull String> used = new HashSet<>(op.outputVars());
+        used.addAll(op.inputVars());
+        int[] indices = new int[rowVars.size()];
+        int n = 0;
+        for (int i = 0; i < indices.length; i++) {
+            if (used.contains(rowVars.get(i)))
+                indices[n++] = i;
+        }
+        return n == indices.length ? indices : copyOf(indices, n);
+    }
+
+    /** Create a memo key with the values of {@code row} at {@code keyIndices}. */
+    public static @NonNull Row key(int @NonNull[] keyIndices, @Nullable Term @NonNull[] row) {
+        return new Row(ExecutorUtils.project(keyIndices, row));
+    }
+
+    /**
+     * Wrap {@code it} so that the rows it yields are stored into {@code memo} under
+     * {@code key} once {@code it} is exhausted.
+     *
+     * If more than {@code maxRows} rows are yielded, recording stops and nothing is stored.
+     */
+    public static @NonNull Iterator<@Nullable Term @NonNull[]>
+    recording(@NonNull LookupMemo<List<@Nullable Term @NonNull[]>> memo, @NonNull Row key,
+              @NonNull Iterator<@Nullable Term @NonNull[]> it) {
+        if (!memo.isEnabled())
+            return it;
+        return new Iterator<>() {
+            private @Nullable List<@Nullable Term @NonNull[]> recorded = new ArrayList<>();
+
+            @Override public boolean hasNext() {
+                boolean has = it.hasNext();
+                if (!has && recorded != null) {
+                    memo.put(key, recorded, recorded.size());
+                    recorded = null;
+                }
+                return has;
+            }
+
+            @Override public @Nullable Term @NonNull[] next() {
+                Term[] row = it.next();
+                if (recorded != null) {
+                    if (recorded.size() < memo.maxRows)
+                        recorded.add(copyOf(row, row.length)); // it may reuse arrays
+                    else
+                        recorded = null;
+                }
+                return row;
+            }
+        };
+    }
+
+    public boolean isEnabled() {
+        return maxRows > 0;
+    }
+
+    /** The {@link Stats} given to the constructor, to be handed over to nested dispatches */
+    public @Nullable Stats stats() {
+        return stats;
+    }
+
+    /** Get the value stored for {@code key} or null if there is none, counting a hit/miss. */
+    public synchronized @Nullable V get(@NonNull Row key) {
+        if (!isEnabled())
+            return null;
+        Entry<V> entry = map.get(key);
+        if (stats != null)
+            (entry == null ? stats.misses : stats.hits).increment();
+        return entry == null ? null : entry.value;
+    }
+
+    /**
+     * Store {@code value} for {@code key}, evicting least recently used entries as needed.
+     *
+     * @param rows number of rows in {@code value}.
+     */
+    public synchronized void put(@NonNull Row key, @NonNull V value, int rows) {
+        int cost = Math.max(1, rows);
+        if (cost > maxRows)
+            return;
+        Entry<V> old = map.remove(key);
+        if (old != null)
+            this.rows -= old.cost;
+        for (var it = map.values().iterator(); this.rows + cost > maxRows && it.hasNext(); ) {
+            this.rows -= it.next().cost;
+            it.remove();
+        }
+        map.put(key, new Entry<>(value, cost));
+        this.rows += cost;
+    }
+}
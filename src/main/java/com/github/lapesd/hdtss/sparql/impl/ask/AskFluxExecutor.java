@@ -5,6 +5,7 @@ import com.github.lapesd.hdtss.model.nodes.Op;
 import com.github.lapesd.hdtss.model.solutions.FluxQuerySolutions;
 import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
 import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
 import com.github.lapesd.hdtss.sparql.impl.conditional.RequiresOperatorFlow;
 import com.github.lapesd.hdtss.utils.Binding;
 import jakarta.inject.Inject;
@@ -21,8 +22,9 @@ public class AskFluxExecutor extends AskExecutor {
         super(dispatcher);
     }
 
-    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding) {
-        var flux = dispatcher.execute(node.children().get(0), binding).flux()
+    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding,
+                                                     LookupMemo.@Nullable Stats stats) {
+        var flux = dispatcher.execute(node.children().get(0), binding, stats).flux()
                                         .take(1).map(r -> Row.EMPTY);
         return new FluxQuerySolutions(node.outputVars(), flux);
     }
@@ -6,6 +6,7 @@ import com.github.lapesd.hdtss.model.nodes.Op;
 import com.github.lapesd.hdtss.model.solutions.IteratorQuerySolutions;
 import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
 import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
 import com.github.lapesd.hdtss.sparql.impl.conditional.RequiresOperatorFlow;
 import com.github.lapesd.hdtss.utils.Binding;
 import jakarta.inject.Inject;
@@ -19,14 +20,15 @@ import java.util.NoSuchElementException;
 
 @Singleton
 @Named("ask")
-@RequiresOperatorFlow(values = {"ITERATOR", "HEAVY_REACTIVE", "HDT_REACTIVE"})
+@RequiresOperatorFlow(values = {"ITERATOR", "HEAVY_REACTIVE", "HDT_REACTIVE", "VECTOR"})
 public class AskItExecutor extends AskExecutor {
     @Inject public AskItExecutor(@NonNull OpExecutorDispatcher dispatcher) {
         super(dispatcher);
     }
 
-    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding) {
-        var it = dispatcher.execute(node.children().get(0), binding).iterator();
+    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding,
+                                                     LookupMemo.@Nullable Stats stats) {
+        var it = dispatcher.execute(node.children().get(0), binding, stats).iterator();
         return new IteratorQuerySolutions(node.outputVars(), new Iterator<>() {
             private boolean exhausted = false;
             @Override public boolean hasNext() {
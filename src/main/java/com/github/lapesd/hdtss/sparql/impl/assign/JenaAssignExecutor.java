@@ -8,6 +8,7 @@ import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
 import com.github.lapesd.hdtss.utils.JenaExprEvaluator;
 import com.github.lapesd.hdtss.utils.JenaUtils;
 import org.apache.jena.sparql.expr.Expr;
+import org.apache.jena.sparql.expr.ExprEvalException;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
@@ -34,15 +35,22 @@ abstract class JenaAssignExecutor implements OpExecutor {
             implements Function<@Nullable Term @NonNull[], @Nullable Term @NonNull[]> {
         private final @NonNull JenaExprEvaluator evaluator;
         private final @NonNull Map<String, Expr> var2expr;
+        private final @NonNull Map<String, Term> var2constant;
         private final @NonNull List<String> outVars;
 
         public Evaluator(@NonNull Assign assign) {
             this.evaluator = new JenaExprEvaluator(assign.inner().outputVars());
             this.var2expr = new HashMap<>();
-            for (Map.Entry<String, String> e : assign.var2expr().entrySet())
-                this.var2expr.put(e.getKey(), JenaUtils.parseFilter(e.getValue()));
+            this.var2constant = new HashMap<>();
+            for (Map.Entry<String, String> e : assign.var2expr().entrySet()) {
+                Expr expr = JenaUtils.parseFilter(e.getValue());
+                if (expr.isConstant()) // no need to evaluate for each row
+                    var2constant.put(e.getKey(), JenaUtils.fromNode(expr.getConstant().asNode()));
+                else
+                    var2expr.put(e.getKey(), expr);
+            }
             this.outVars = assign.outputVars();
-            assert assign.outputVars().stream().filter(v -> !var2expr.containsKey(v))
+            assert assign.outputVars().stream().filter(v -> !assign.var2expr().containsKey(v))
                     .allMatch(v -> outVars.indexOf(v) == assign.inner().outputVars().indexOf(v))
                     : "Assign is rearranging variables from its input Op";
         }
@@ -51,8 +59,20 @@ abstract class JenaAssignExecutor implements OpExecutor {
             evaluator.setInput(inputs);
             Term[] outputs = new Term[outVars.size()];
             for (int i = 0; i < outputs.length; i++) {
-                var expr = var2expr.getOrDefault(outVars.get(i), null);
-                outputs[i] = expr == null ? inputs[i] : evaluator.apply(expr);
+                String name = outVars.get(i);
+                var expr = var2expr.getOrDefault(name, null);
+                Term constant = var2constant.get(name);
+                if (constant != null) {
+                    outputs[i] = constant;
+                } else if (expr == null) {
+                    outputs[i] = inputs[i];
+                } else {
+                    try {
+                        outputs[i] = evaluator.apply(expr);
+                    } catch (ExprEvalException e) {
+                        outputs[i] = null; // as in BIND, an error leaves the var unbound
+                    }
+                }
             }
             return outputs;
         }
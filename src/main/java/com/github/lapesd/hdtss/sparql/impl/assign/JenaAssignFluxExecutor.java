@@ -5,6 +5,7 @@ import com.github.lapesd.hdtss.model.nodes.Op;
 import com.github.lapesd.hdtss.model.solutions.FluxQuerySolutions;
 import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
 import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
 import com.github.lapesd.hdtss.sparql.impl.conditional.RequiresOperatorFlow;
 import com.github.lapesd.hdtss.utils.Binding;
 import jakarta.inject.Inject;
@@ -22,13 +23,11 @@ public class JenaAssignFluxExecutor extends JenaAssignExecutor {
         super(dispatcher);
     }
 
-    @Override public @NonNull QuerySolutions execute(@NonNull Op node) {
-        Evaluator evaluator = new Evaluator((Assign) node);
-        return new FluxQuerySolutions(node.outputVars(),
-                dispatcher.execute(node.children().get(0)).flux().map(evaluator));
-    }
-
-    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding) {
-        return execute(binding == null ? node : node.bind(binding));
+    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding,
+                                                     LookupMemo.@Nullable Stats stats) {
+        Op bound = binding == null ? node : node.bind(binding);
+        Evaluator evaluator = new Evaluator((Assign) bound);
+        return new FluxQuerySolutions(bound.outputVars(),
+                dispatcher.execute(bound.children().get(0), null, stats).flux().map(evaluator));
     }
 }
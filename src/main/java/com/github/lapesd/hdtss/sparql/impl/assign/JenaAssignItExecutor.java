@@ -6,6 +6,7 @@ import com.github.lapesd.hdtss.model.nodes.Op;
 import com.github.lapesd.hdtss.model.solutions.IteratorQuerySolutions;
 import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
 import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
 import com.github.lapesd.hdtss.sparql.impl.conditional.RequiresOperatorFlow;
 import com.github.lapesd.hdtss.utils.Binding;
 import jakarta.inject.Inject;
@@ -18,7 +19,7 @@ import java.util.Iterator;
 
 @Singleton
 @Named("assign")
-@RequiresOperatorFlow(values = {"ITERATOR", "HDT_REACTIVE"})
+@RequiresOperatorFlow(values = {"ITERATOR", "HDT_REACTIVE", "VECTOR"})
 public class JenaAssignItExecutor extends JenaAssignExecutor {
 
     @Inject
@@ -26,16 +27,14 @@ public class JenaAssignItExecutor extends JenaAssignExecutor {
         super(dispatcher);
     }
 
-    @Override public @NonNull QuerySolutions execute(@NonNull Op node) {
-        var it = dispatcher.execute(node.children().get(0)).iterator();
-        Evaluator evaluator = new Evaluator((Assign) node);
-        return new IteratorQuerySolutions(node.outputVars(), new Iterator<>() {
+    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding,
+                                                     LookupMemo.@Nullable Stats stats) {
+        Op bound = binding == null ? node : node.bind(binding);
+        var it = dispatcher.execute(bound.children().get(0), null, stats).iterator();
+        Evaluator evaluator = new Evaluator((Assign) bound);
+        return new IteratorQuerySolutions(bound.outputVars(), new Iterator<>() {
             @Override public boolean hasNext() { return it.hasNext(); }
             @Override public @Nullable Term @NonNull[] next() { return evaluator.apply(it.next()); }
         });
     }
-
-    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding) {
-        return execute(binding == null ? node : node.bind(binding));
-    }
 }
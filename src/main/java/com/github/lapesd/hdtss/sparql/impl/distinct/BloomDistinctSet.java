@@ -0,0 +1,198 @@
+package com.github.lapesd.hdtss.sparql.impl.distinct;
+
+import com.github.lapesd.hdtss.model.IdSparql;
+import com.github.lapesd.hdtss.model.Row;
+import com.github.lapesd.hdtss.model.Term;
+import lombok.extern.slf4j.Slf4j;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * A set of rows for WEAK_DISTINCT backed by a fixed-size Bloom filter over 64-bit row
+ * hashes and an exact {@link IdDistinctSet} of the first {@code capacity} accepted rows.
+ *
+ * The filter is sized on creation for {@code capacity} rows with a false positive rate of
+ * {@code fpp} and does not grow. A row that is not in the filter is new and skips the
+ * exact set lookup. A row that is in the filter may be a duplicate or a false positive,
+ * thus {@link #add(Row)} only rejects it if it is also in the exact set. Otherwise, the row
+ * is accepted: a WEAK_DISTINCT may let duplicates through, but must never drop a solution.
+ *
+ * The exact set stores rows as packed {@link IdSparql#idKey()}s (see {@link IdDistinctSet})
+ * and stops growing after {@code capacity} rows, thus memory usage is bounded. Duplicates of
+ * rows accepted after that are let through. Since false positives also become more frequent
+ * after more than {@code capacity} rows were added (see {@link #falsePositiveRate()}),
+ * more rows pay for an exact set lookup.
+ *
+ * Dictionary-encoded terms are hashed by {@link IdSparql#idKey()} and
+ * {@link IdSparql#idScope()}, without converting them to strings. Thus, the same term from
+ * two ID scopes (or from an ID scope and a plain string) may not be recognized as a
+ * duplicate, which only lets a duplicate through.
+ *
+ * Rows are not decoded back, thus {@link #iterator()} is not supported.
+ */
+@Slf4j
+public final class BloomDistinctSet extends AbstractCollection<@NonNull Row> {
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+    private static final int MAX_HASHES = 16;
+
+    private final long @NonNull[] bits;
+    private final long nBits;
+    private final int hashes;
+    private final int capacity;
+    private final double fpp;
+    private @NonNull IdDistinctSet exact;
+    /** Rows that set at least one bit, which determines the false positive rate */
+    private int inserted;
+    /** Rows accepted by {@link #add(Row)} */
+    private int size;
+    /** Accepted rows that were in the filter but not in the exact set */
+    private long unconfirmed;
+
+    public BloomDistinctSet(int capacity, double fpp) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("capacity must be positive, got "+capacity);
+        if (!(fpp > 0 && fpp < 1))
+            throw new IllegalArgumentException("fpp must be in (0, 1), got "+fpp);
+        this.capacity = capacity;
+        this.fpp = fpp;
+        this.exact = new IdDistinctSet(Long.MAX_VALUE);
+        double ln2 = Math.log(2);
+        double optimalBits = Math.ceil(-capacity * Math.log(fpp) / (ln2 * ln2));
+        int words = (int) Math.min(Integer.MAX_VALUE/64, Math.max(1, (optimalBits + 63) / 64));
+        this.bits = new long[words];
+        this.nBits = 64L * words;
+        this.hashes = (int) Math.max(1, Math.min(MAX_HASHES,
+                                                 Math.round(nBits * ln2 / capacity)));
+    }
+
+    public int capacity() { return capacity; }
+    public double fpp() { return fpp; }
+    public long bitCount() { return nBits; }
+    public int hashCount() { return hashes; }
+
+    /** Number of accepted rows kept for confirming duplicates, at most {@link #capacity()}. */
+    public int confirmable() { return exact.size(); }
+
+    /**
+     * Number of accepted rows that were found in the Bloom filter but not in the exact set.
+     * These are either false positives of the filter or duplicates of rows accepted after
+     * the exact set reached {@link #capacity()} rows.
+     */
+    public long unconfirmed() { return unconfirmed; }
+
+    /**
+     * The expected probability that a row not added before is found in the Bloom filter,
+     * given the number of rows added so far. This is at most {@link #fpp()} while no more
+     * than {@link #capacity()} distinct rows were added. Such rows are still accepted, but
+     * cost an exact set lookup.
+     */
+    public double falsePositiveRate() {
+        return Math.pow(1 - Math.exp(-(double) hashes * inserted / nBits), hashes);
+    }
+
+    /** Number of rows accepted by {@link #add(Row)} so far. */
+    @Override public int size() {
+        return size;
+    }
+
+    @Override public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Whether {@code o} is a {@link Row} that is probably in the Bloom filter. */
+    @Override public boolean contains(Object o) {
+        if (!(o instanceof Row row))
+            return false;
+        long hash = hash(row.terms());
+        int h1 = (int) hash, h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = index(h1 + i * h2);
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0)
+                return false;
+        }
+        return true;
+    }
+
+    @Override public boolean add(@NonNull Row row) {
+        long hash = hash(row.terms());
+        int h1 = (int) hash, h2 = (int) (hash >>> 32) | 1;
+        boolean changed = false;
+        for (int i = 0; i < hashes; i++) {
+            long bit = index(h1 + i * h2);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            if ((bits[word] & mask) == 0) {
+                bits[word] |= mask;
+                changed = true;
+            }
+        }
+        if (changed) {
+            if (++inserted == capacity+1) {
+                log.info("WEAK_DISTINCT Bloom filter exceeded sparql.weakDistinct.capacity={}, " +
+                         "false positive rate will grow above fpp={}. Consider a larger " +
+                         "capacity", capacity, fpp);
+            }
+        } else if (exact.contains(row)) {
+            return false; // confirmed duplicate
+        } else {
+            ++unconfirmed;
+        }
+        if (exact.size() < capacity)
+            exact.add(row);
+        ++size;
+        return true;
+    }
+
+    @Override public void clear() {
+        Arrays.fill(bits, 0);
+        exact = new IdDistinctSet(Long.MAX_VALUE);
+        inserted = size = 0;
+        unconfirmed = 0;
+    }
+
+    @Override public @NonNull Iterator<@NonNull Row> iterator() {
+        throw new UnsupportedOperationException("BloomDistinctSet does not store rows");
+    }
+
+    @Override public String toString() {
+        return String.format("BloomDistinctSet{size=%d, capacity=%d, fpp=%g, bits=%d, k=%d, " +
+                             "confirmable=%d, unconfirmed=%d, falsePositiveRate=%g}",
+                             size, capacity, fpp, nBits, hashes, exact.size(), unconfirmed,
+                             falsePositiveRate());
+    }
+
+    /** Map a 32-bit hash into {@code [0, nBits)} without a division. */
+    private long index(int hash) {
+        return ((hash & 0xffffffffL) * nBits) >>> 32;
+    }
+
+    private static long hash(@Nullable Term @NonNull[] terms) {
+        long h = SEED ^ terms.length;
+        for (Term term : terms) {
+            long termHash = 0;
+            if (term != null) {
+                Object scope = term.sparql() instanceof IdSparql id ? id.idScope() : null;
+                if (scope != null)
+                    termHash = ((IdSparql) term.sparql()).idKey() * SEED + scope.hashCode();
+                else
+                    termHash = ((long) term.hashCode() << 32) | 1;
+            }
+            h = mix(h ^ termHash) + SEED;
+        }
+        return mix(h);
+    }
+
+    /** The finalizer of MurmurHash3 (64-bit). */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
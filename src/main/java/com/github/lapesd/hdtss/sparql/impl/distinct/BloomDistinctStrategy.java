@@ -0,0 +1,18 @@
+package com.github.lapesd.hdtss.sparql.impl.distinct;
+
+import com.github.lapesd.hdtss.model.Row;
+import com.github.lapesd.hdtss.sparql.DistinctStrategy;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.Collection;
+
+/**
+ * Approximate de-duplication with a {@link BloomDistinctSet}. This may let duplicates
+ * through, thus it is only used for WEAK_DISTINCT.
+ */
+public record BloomDistinctStrategy(int capacity, double fpp)
+        implements DistinctStrategy {
+    @Override public @NonNull Collection<Row> createSet() {
+        return new BloomDistinctSet(capacity, fpp);
+    }
+}
@@ -1,11 +1,14 @@
 package com.github.lapesd.hdtss.sparql.impl.distinct;
 
+import com.github.lapesd.hdtss.model.Row;
+import com.github.lapesd.hdtss.model.nodes.Op;
 import com.github.lapesd.hdtss.model.nodes.Op.Type;
 import com.github.lapesd.hdtss.sparql.DistinctStrategy;
 import com.github.lapesd.hdtss.sparql.OpExecutor;
 import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
+import java.util.Collection;
 import java.util.Set;
 
 abstract class DistinctExecutor implements OpExecutor {
@@ -22,4 +25,19 @@ abstract class DistinctExecutor implements OpExecutor {
     @Override public @NonNull Set<Type> supportedTypes() {
         return SUPPORTED_TYPES;
     }
+
+    /**
+     * Create the set of seen rows for {@code node}, using
+     * {@link DistinctStrategy#createOrderedSet()} if its operand yields solutions from an
+     * ORDER BY only through operators that keep their order.
+     */
+    protected @NonNull Collection<@NonNull Row> createSet(@NonNull Op node) {
+        Op op = node.children().get(0);
+        while (op.type() == Type.PROJECT || op.type() == Type.FILTER
+                || op.type() == Type.ASSIGN || op.type() == Type.SLICE) {
+            op = op.children().get(0);
+        }
+        return op.type() == Type.ORDER ? distinctStrategy.createOrderedSet()
+                                       : distinctStrategy.createSet();
+    }
 }
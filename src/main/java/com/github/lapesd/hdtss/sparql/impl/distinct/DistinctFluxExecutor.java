@@ -6,6 +6,7 @@ import com.github.lapesd.hdtss.model.solutions.FluxQuerySolutions;
 import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
 import com.github.lapesd.hdtss.sparql.DistinctStrategy;
 import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
 import com.github.lapesd.hdtss.sparql.impl.conditional.RequiresOperatorFlow;
 import com.github.lapesd.hdtss.utils.Binding;
 import jakarta.inject.Inject;
@@ -13,6 +14,7 @@ import jakarta.inject.Named;
 import jakarta.inject.Singleton;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
+import reactor.core.publisher.Flux;
 
 @Singleton
 @Named("distinct")
@@ -24,10 +26,17 @@ public class DistinctFluxExecutor extends DistinctExecutor {
         super(dispatcher, distinctStrategy);
     }
 
-    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding) {
-        var set = distinctStrategy.createSet();
-        var flux = dispatcher.execute(node.children().get(0), binding)
+    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding,
+                                                     LookupMemo.@Nullable Stats stats) {
+        var set = createSet(node);
+        var flux = dispatcher.execute(node.children().get(0), binding, stats)
                              .flux().filter(r -> set.add(new Row(r)));
+        if (set instanceof IdDistinctSet spilling) {
+            flux = flux.concatWith(Flux.defer(() -> {
+                var it = spilling.deferred();
+                return Flux.fromIterable(() -> it);
+            })).doFinally(s -> spilling.close());
+        }
         var outVars = binding == null ? node.outputVars() : binding.unbound(node.outputVars());
         return new FluxQuerySolutions(outVars, flux);
     }
@@ -7,8 +7,11 @@ import com.github.lapesd.hdtss.model.solutions.IteratorQuerySolutions;
 import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
 import com.github.lapesd.hdtss.sparql.DistinctStrategy;
 import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
 import com.github.lapesd.hdtss.sparql.impl.conditional.RequiresOperatorFlow;
 import com.github.lapesd.hdtss.utils.Binding;
+import com.github.lapesd.hdtss.utils.CloseableIterator;
+import com.github.lapesd.hdtss.utils.CloseableUtils;
 import jakarta.inject.Inject;
 import jakarta.inject.Named;
 import jakarta.inject.Singleton;
@@ -21,7 +24,7 @@ import java.util.NoSuchElementException;
 
 @Singleton
 @Named("distinct")
-@RequiresOperatorFlow(values = {"ITERATOR", "HEAVY_REACTIVE", "HDT_REACTIVE"})
+@RequiresOperatorFlow(values = {"ITERATOR", "HEAVY_REACTIVE", "HDT_REACTIVE", "VECTOR"})
 public class DistinctItExecutor extends DistinctExecutor {
 
     @Inject
@@ -30,20 +33,38 @@ public class DistinctItExecutor extends DistinctExecutor {
         super(dispatcher, distinctStrategy);
     }
 
-    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding) {
-        var inner = dispatcher.execute(node.children().get(0), binding).iterator();
-        var set = distinctStrategy.createSet();
+    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding,
+                                                     LookupMemo.@Nullable Stats stats) {
+        var inner = dispatcher.execute(node.children().get(0), binding, stats).iterator();
+        var set = createSet(node);
         var outVars = binding == null ? node.outputVars() : binding.unbound(node.outputVars());
-        return new IteratorQuerySolutions(outVars, new Iterator<>() {
+        return new IteratorQuerySolutions(outVars, new CloseableIterator<>() {
             private @Nullable Term @Nullable[] next;
+            private @Nullable Iterator<@Nullable Term @NonNull[]> deferred;
+            private boolean closed;
 
             @EnsuresNonNullIf(expression = "this.next", result = true)
             @Override public boolean hasNext() {
-                while (next == null && inner.hasNext()) {
-                    var candidate = inner.next();
-                    if (set.add(new Row(candidate)))
-                        next = candidate;
+                if (closed)
+                    return false;
+                try {
+                    while (next == null && inner.hasNext()) {
+                        var candidate = inner.next();
+                        if (set.add(new Row(candidate)))
+                            next = candidate;
+                    }
+                    if (next == null && set instanceof IdDistinctSet spilling) {
+                        if (deferred == null)
+                            deferred = spilling.deferred();
+                        if (deferred.hasNext())
+                            next = deferred.next();
+                    }
+                } catch (Throwable t) {
+                    close();
+                    throw t;
                 }
+                if (next == null)
+                    close();
                 return next != null;
             }
 
@@ -55,6 +76,15 @@ public class DistinctItExecutor extends DistinctExecutor {
                 assert row != null;
                 return row;
             }
+
+            @Override public void close() {
+                if (closed)
+                    return;
+                closed = true;
+                next = null;
+                CloseableUtils.closeIfCloseable(inner);
+                CloseableUtils.closeIfCloseable(set); // spill writers, readers and files
+            }
         });
     }
 }
@@ -0,0 +1,629 @@
+package com.github.lapesd.hdtss.sparql.impl.distinct;
+
+import com.github.lapesd.hdtss.model.IdSparql;
+import com.github.lapesd.hdtss.model.Row;
+import com.github.lapesd.hdtss.model.Term;
+import lombok.extern.slf4j.Slf4j;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A set of rows for DISTINCT that stores each row as packed {@code long}s in an
+ * open-addressing table, instead of {@link Row} and {@link Term} objects.
+ *
+ * Each column is encoded by the {@link IdSparql#idKey()} of its terms, in the
+ * {@link IdSparql#idScope()} of the first dictionary-encoded term seen in that column. Other
+ * terms (e.g., computed by BIND or given in VALUES) are looked up in that scope with
+ * {@link IdSparql#idKeyOf(Term)} and only terms that do not occur there are interned. If the
+ * first term of a column is not dictionary-encoded, all terms of that column are interned.
+ *
+ * Rows are hash-partitioned. Once the estimated memory usage exceeds {@code maxBytes}, the
+ * largest partitions are spilled to temporary files, where their rows are marked as already
+ * output. Further rows of a spilled partition are appended to its file and {@link #add(Row)}
+ * returns false for them. Once all rows were added, {@link #deferred()} de-duplicates each
+ * spilled partition (recursively, with a different hash partitioning) and yields its rows
+ * that were not output before. Thus, spilling changes the order of rows.
+ *
+ * Spilled files are deleted once opened for reading or by {@link #close()}.
+ */
+@Slf4j
+public final class IdDistinctSet extends AbstractCollection<@NonNull Row>
+        implements AutoCloseable {
+    private static final int PARTITION_BITS = 4;
+    private static final int PARTITIONS = 1 << PARTITION_BITS;
+    /** Hash multipliers for partitioning at each recursion depth. */
+    private static final int[] PARTITION_MULTIPLIERS =
+            {0x9E3779B1, 0x85EBCA77, 0xC2B2AE3D, 0x27D4EB2F};
+    /** At this depth partitions are no longer spilled, since hashes may collide. */
+    private static final int MAX_DEPTH = PARTITION_MULTIPLIERS.length;
+    /** Interned terms have keys {@code LOCAL_BASE + i}, far below any {@link IdSparql#idKey()} */
+    private static final long LOCAL_BASE = Long.MIN_VALUE;
+    private static final long LOCAL_LIMIT = Long.MIN_VALUE / 2;
+    /** Placeholder for a term that would be interned, but has not been interned yet */
+    private static final long NOT_INTERNED = Long.MAX_VALUE;
+    /** Estimated bytes used by an interned term, beyond its chars */
+    private static final int LOCAL_TERM_BYTES = 80;
+    /** Marks a column whose terms are all interned */
+    private static final Object INTERNED = new Object();
+    private static final int TAG_NULL = 0, TAG_ID = 1, TAG_STRING = 2;
+
+    private final long maxBytes;
+    private final int depth;
+    private int width = -1;
+    private @Nullable Object @NonNull[] scopes = new Object[0];
+    private @Nullable IdSparql @NonNull[] prototypes = new IdSparql[0];
+    private long @NonNull[] scratch = new long[0];
+    private @Nullable Term @NonNull[] scratchTerms = new Term[0];
+    private long @NonNull[] keys = new long[0];
+    /** hash of each slot, zero if the slot is empty */
+    private int @NonNull[] hashes = new int[0];
+    private int size;
+    private final int @NonNull[] partitionSizes = new int[PARTITIONS];
+    private final @Nullable DataOutputStream @NonNull[] writers =
+            new DataOutputStream[PARTITIONS];
+    private final @Nullable Path @NonNull[] files = new Path[PARTITIONS];
+    private @NonNull HashMap<Term, Long> localKeys = new HashMap<>();
+    private @NonNull ArrayList<Term> localTerms = new ArrayList<>();
+    private long localBytes;
+    private final @NonNull List<@NonNull AutoCloseable> open = new ArrayList<>();
+
+    /**
+     * Create a set that spills partitions once its estimated memory usage exceeds
+     * {@code maxBytes}. Use {@link Long#MAX_VALUE} to never spill.
+     */
+    public IdDistinctSet(long maxBytes) {
+        this(maxBytes, 0);
+    }
+
+    private IdDistinctSet(long maxBytes, int depth) {
+        this.maxBytes = maxBytes;
+        this.depth = depth;
+    }
+
+    /** Number of distinct rows held in memory. */
+    @Override public int size() {
+        return size;
+    }
+
+    /** Whether some partition was spilled, i.e., {@link #add(Row)} may have deferred rows. */
+    public boolean hasSpilled() {
+        for (Path file : files) {
+            if (file != null) return true;
+        }
+        return false;
+    }
+
+    /** Estimated number of bytes used by the in-memory table and interned terms. */
+    public long memoryBytes() {
+        return hashes.length*4L + keys.length*8L + localBytes;
+    }
+
+    /**
+     * Add a row, unless it is a duplicate or its partition was spilled to disk.
+     *
+     * @return true iff {@code row} was never added before and was not deferred to
+     *         {@link #deferred()}.
+     */
+    @Override public boolean add(@NonNull Row row) {
+        return add(row.terms(), false);
+    }
+
+    /**
+     * Add a row, which may have been output already (i.e., it is only a marker that
+     * prevents its duplicates from being output).
+     *
+     * @return true iff {@code terms} were not seen before, not {@code output} and not deferred.
+     */
+    private boolean add(@Nullable Term @NonNull[] terms, boolean output) {
+        if (width < 0)
+            init(terms.length);
+        else if (terms.length != width)
+            throw new IllegalArgumentException("Expected "+width+" columns, got "+terms.length);
+        int hash = encode(terms);
+        int partition = partition(hash);
+        DataOutputStream writer = writers[partition];
+        if (writer != null) {
+            write(writer, partition, output, scratch, 0, scratchTerms);
+            return false;
+        }
+        if (!insert(hash))
+            return false;
+        ++partitionSizes[partition];
+        if (memoryBytes() > maxBytes)
+            spill();
+        return !output;
+    }
+
+    /**
+     * Whether {@code o} is a {@link Row} held in memory. Rows of spilled partitions are not
+     * found. Terms are not interned by this method.
+     */
+    @Override public boolean contains(Object o) {
+        if (!(o instanceof Row row) || width < 0 || row.terms().length != width)
+            return false;
+        int hash = encode(row.terms());
+        for (int c = 0; c < width; c++) {
+            if (scratch[c] == NOT_INTERNED)
+                return false;
+        }
+        return find(hash, scratch, 0) >= 0;
+    }
+
+    /**
+     * Iterate over the distinct rows whose partitions were spilled. Must be called once,
+     * after all calls to {@link #add(Row)}. Once the iterator is exhausted, this set is
+     * {@link #close()}d.
+     */
+    public @NonNull Iterator<@Nullable Term @NonNull[]> deferred() {
+        closeWriters();
+        List<Path> pending = new ArrayList<>();
+        for (int i = 0; i < PARTITIONS; i++) {
+            if (files[i] != null)
+                pending.add(files[i]);
+        }
+        Iterator<Path> pendingIt = pending.iterator();
+        return new Iterator<>() {
+            private Iterator<@Nullable Term @NonNull[]> current = Collections.emptyIterator();
+
+            @Override public boolean hasNext() {
+                while (!current.hasNext()) {
+                    if (!pendingIt.hasNext()) {
+                        close();
+                        return false;
+                    }
+                    current = new PartitionIterator(read(pendingIt.next()));
+                }
+                return true;
+            }
+
+            @Override public @Nullable Term @NonNull[] next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                return current.next();
+            }
+        };
+    }
+
+    /** Iterate over the rows held in memory. */
+    @Override public @NonNull Iterator<@NonNull Row> iterator() {
+        return new Iterator<>() {
+            private int slot = nextSlot(0);
+
+            private int nextSlot(int from) {
+                while (from < hashes.length && hashes[from] == 0) ++from;
+                return from;
+            }
+
+            @Override public boolean hasNext() { return slot < hashes.length; }
+
+            @Override public @NonNull Row next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                Term[] terms = new Term[width];
+                for (int c = 0; c < width; c++)
+                    terms[c] = decode(c, keys[slot*width + c]);
+                slot = nextSlot(slot+1);
+                return new Row(terms);
+            }
+        };
+    }
+
+    @Override public void close() {
+        closeWriters();
+        for (AutoCloseable closeable : open) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                log.warn("Ignoring failure to close spilled DISTINCT partition: {}", e.toString());
+            }
+        }
+        open.clear();
+        for (int i = 0; i < PARTITIONS; i++) {
+            if (files[i] != null) {
+                delete(files[i]);
+                files[i] = null;
+            }
+        }
+    }
+
+    /* --- --- --- encoding --- --- --- */
+
+    private void init(int width) {
+        this.width = width;
+        this.scopes = new Object[width];
+        this.prototypes = new IdSparql[width];
+        this.scratch = new long[width];
+        this.scratchTerms = new Term[width];
+        resize(16);
+    }
+
+    /**
+     * Encode {@code terms} into {@link #scratch}. Terms that should be interned are also
+     * stored in {@link #scratchTerms}.
+     *
+     * @return the non-zero hash of the encoded row
+     */
+    private int encode(@Nullable Term @NonNull[] terms) {
+        int hash = 1;
+        for (int c = 0; c < width; c++) {
+            Term term = terms[c];
+            long key = 0;
+            int termHash = 0;
+            scratchTerms[c] = null;
+            if (term != null) {
+                key = idKey(c, term);
+                if (key == 0) {
+                    scratchTerms[c] = term;
+                    key = localKeys.getOrDefault(term, NOT_INTERNED);
+                    termHash = term.hashCode();
+                } else {
+                    termHash = Long.hashCode(key * 0x9E3779B97F4A7C15L);
+                }
+            }
+            scratch[c] = key;
+            hash = 31*hash + termHash;
+        }
+        return mix(hash);
+    }
+
+    private long idKey(int column, @NonNull Term term) {
+        Object scope = scopes[column];
+        if (scope == INTERNED)
+            return 0;
+        IdSparql id = term.sparql() instanceof IdSparql i ? i : null;
+        Object termScope = id == null ? null : id.idScope();
+        if (scope == null) {
+            if (termScope == null) {
+                scopes[column] = INTERNED;
+                return 0;
+            }
+            scopes[column] = termScope;
+            prototypes[column] = id;
+            return id.idKey();
+        } else if (scope.equals(termScope)) {
+            return id.idKey();
+        }
+        IdSparql prototype = prototypes[column];
+        assert prototype != null;
+        return prototype.idKeyOf(term);
+    }
+
+    private @Nullable Term decode(int column, long key) {
+        if (key == 0)
+            return null;
+        if (key < LOCAL_LIMIT)
+            return localTerms.get((int)(key - LOCAL_BASE));
+        IdSparql prototype = prototypes[column];
+        assert prototype != null;
+        return prototype.termForIdKey(key);
+    }
+
+    private long intern(@NonNull Term term) {
+        Long key = localKeys.get(term);
+        if (key == null) {
+            localKeys.put(term, key = LOCAL_BASE + localTerms.size());
+            localTerms.add(term);
+            localBytes += LOCAL_TERM_BYTES + 2L*term.sparql().length();
+        }
+        return key;
+    }
+
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        return hash == 0 ? 1 : hash;
+    }
+
+    private int partition(int hash) {
+        return (hash * PARTITION_MULTIPLIERS[Math.min(depth, MAX_DEPTH-1)]) >>> (32-PARTITION_BITS);
+    }
+
+    /* --- --- --- open addressing --- --- --- */
+
+    /** Insert the row in {@link #scratch}, interning terms if needed. */
+    private boolean insert(int hash) {
+        boolean interned = true;
+        for (int c = 0; c < width && interned; c++)
+            interned = scratch[c] != NOT_INTERNED;
+        if (interned && find(hash, scratch, 0) >= 0)
+            return false; // else: a non-interned term makes the row new
+        for (int c = 0; c < width; c++) {
+            if (scratch[c] == NOT_INTERNED) {
+                Term term = scratchTerms[c];
+                assert term != null;
+                scratch[c] = intern(term);
+            }
+        }
+        if ((size+1)*2 > hashes.length)
+            resize(hashes.length*2);
+        store(hash, scratch, 0);
+        return true;
+    }
+
+    /** Get the slot of the given row or {@code -1} if not present. */
+    private int find(int hash, long @NonNull[] row, int offset) {
+        int mask = hashes.length-1;
+        for (int i = hash & mask; ; i = (i+1) & mask) {
+            int slotHash = hashes[i];
+            if (slotHash == 0)
+                return -1;
+            if (slotHash == hash && Arrays.equals(keys, i*width, (i+1)*width,
+                                                  row, offset, offset+width)) {
+                return i;
+            }
+        }
+    }
+
+    private void store(int hash, long @NonNull[] row, int offset) {
+        int mask = hashes.length-1, i = hash & mask;
+        while (hashes[i] != 0)
+            i = (i+1) & mask;
+        hashes[i] = hash;
+        System.arraycopy(row, offset, keys, i*width, width);
+        ++size;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldHashes = hashes;
+        keys = new long[capacity*width];
+        hashes = new int[capacity];
+        size = 0;
+        for (int i = 0; i < oldHashes.length; i++) {
+            if (oldHashes[i] != 0)
+                store(oldHashes[i], oldKeys, i*width);
+        }
+    }
+
+    /* --- --- --- spilling --- --- --- */
+
+    /**
+     * Spill the largest in-memory partitions until the estimated memory usage is at most half
+     * of {@code maxBytes}. The table and the interned terms are rebuilt with the remaining rows.
+     */
+    private void spill() {
+        if (depth >= MAX_DEPTH || width == 0)
+            return; // rows without columns are all equal, thus at most one is kept
+        while (memoryBytes() > maxBytes/2) {
+            boolean[] victims = new boolean[PARTITIONS];
+            long victimRows = 0;
+            while (victimRows*2 < size) {
+                int victim = -1;
+                for (int p = 0; p < PARTITIONS; p++) {
+                    if (writers[p] == null && !victims[p]
+                            && (victim < 0 || partitionSizes[p] > partitionSizes[victim])) {
+                        victim = p;
+                    }
+                }
+                if (victim < 0)
+                    break;
+                victims[victim] = true;
+                victimRows += partitionSizes[victim];
+            }
+            if (victimRows == 0)
+                return; // nothing left to spill
+            for (int p = 0; p < PARTITIONS; p++) {
+                if (victims[p])
+                    writers[p] = createWriter(p);
+            }
+            rebuild();
+            log.debug("Spilled {} DISTINCT rows at depth {}, {} rows remain in memory",
+                      victimRows, depth, size);
+        }
+    }
+
+    /**
+     * Write rows of spilled partitions to their files and re-insert the remaining rows into
+     * a new table with new interned keys.
+     */
+    private void rebuild() {
+        long[] oldKeys = keys;
+        int[] oldHashes = hashes;
+        ArrayList<Term> oldLocalTerms = localTerms;
+        localKeys = new HashMap<>();
+        localTerms = new ArrayList<>();
+        localBytes = 0;
+        int remaining = 0;
+        for (int p = 0; p < PARTITIONS; p++) {
+            if (writers[p] == null) remaining += partitionSizes[p];
+        }
+        int capacity = 16;
+        while (capacity < remaining*2)
+            capacity <<= 1;
+        keys = new long[capacity*width];
+        hashes = new int[capacity];
+        size = 0;
+        Term[] locals = new Term[width];
+        for (int i = 0; i < oldHashes.length; i++) {
+            int hash = oldHashes[i];
+            if (hash == 0)
+                continue;
+            int partition = partition(hash), offset = i*width;
+            for (int c = 0; c < width; c++) {
+                long key = oldKeys[offset+c];
+                locals[c] = key != 0 && key < LOCAL_LIMIT
+                          ? oldLocalTerms.get((int)(key - LOCAL_BASE)) : null;
+            }
+            DataOutputStream writer = writers[partition];
+            if (writer != null) {
+                write(writer, partition, true, oldKeys, offset, locals);
+                partitionSizes[partition] = 0;
+            } else {
+                for (int c = 0; c < width; c++) {
+                    if (locals[c] != null)
+                        oldKeys[offset+c] = intern(locals[c]);
+                }
+                store(hash, oldKeys, offset);
+            }
+        }
+    }
+
+    private @NonNull DataOutputStream createWriter(int partition) {
+        Path path = null;
+        try {
+            path = Files.createTempFile("hdtss-distinct-", ".part");
+            files[partition] = path;
+            return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)));
+        } catch (IOException e) {
+            if (path != null)
+                delete(path);
+            files[partition] = null;
+            throw new UncheckedIOException("Could not spill DISTINCT partition to disk", e);
+        }
+    }
+
+    /**
+     * Write a row whose columns are {@code keys[offset..offset+width)}. Columns with a
+     * non-null term in {@code locals} are written as strings, others as ID keys.
+     */
+    private void write(@NonNull DataOutputStream out, int partition, boolean output,
+                       long @NonNull[] keys, int offset, @Nullable Term @NonNull[] locals) {
+        try {
+            out.writeBoolean(output);
+            for (int c = 0; c < width; c++) {
+                long key = keys[offset+c];
+                Term local = locals[c];
+                if (local != null) {
+                    byte[] utf8 = local.sparql().toString().getBytes(UTF_8);
+                    out.writeByte(TAG_STRING);
+                    out.writeInt(utf8.length);
+                    out.write(utf8);
+                } else if (key == 0) {
+                    out.writeByte(TAG_NULL);
+                } else {
+                    out.writeByte(TAG_ID);
+                    out.writeLong(key);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write to spilled DISTINCT partition "
+                                           +files[partition], e);
+        }
+    }
+
+    /** A row read from a spilled partition and whether it was already output. */
+    private record Spilled(@Nullable Term @NonNull[] row, boolean output) { }
+
+    private @NonNull Iterator<@NonNull Spilled> read(@NonNull Path path) {
+        DataInputStream in;
+        try {
+            in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read spilled DISTINCT partition "+path, e);
+        }
+        open.add(in);
+        delete(path); // on POSIX systems the open stream remains readable
+        return new Iterator<>() {
+            private @Nullable Spilled next = readRow();
+
+            private @Nullable Spilled readRow() {
+                try {
+                    int output = in.read();
+                    if (output < 0)
+                        return null;
+                    Term[] row = new Term[width];
+                    for (int c = 0; c < width; c++) {
+                        int tag = in.readUnsignedByte();
+                        row[c] = switch (tag) {
+                            case TAG_NULL -> null;
+                            case TAG_ID -> decode(c, in.readLong());
+                            case TAG_STRING -> {
+                                byte[] utf8 = in.readNBytes(in.readInt());
+                                yield new Term(new String(utf8, UTF_8));
+                            }
+                            default -> throw new IOException("Bad tag "+tag);
+                        };
+                    }
+                    return new Spilled(row, output != 0);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not read spilled DISTINCT partition "
+                                                   +path, e);
+                }
+            }
+
+            @Override public boolean hasNext() { return next != null; }
+
+            @Override public @NonNull Spilled next() {
+                Spilled spilled = next;
+                if (spilled == null)
+                    throw new NoSuchElementException();
+                next = readRow();
+                return spilled;
+            }
+        };
+    }
+
+    private void closeWriters() {
+        for (int i = 0; i < PARTITIONS; i++) {
+            DataOutputStream writer = writers[i];
+            if (writer == null)
+                continue;
+            writers[i] = null;
+            try {
+                writer.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write spilled DISTINCT partition "
+                                               +files[i], e);
+            }
+        }
+    }
+
+    private static void delete(@NonNull Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            path.toFile().deleteOnExit();
+        }
+    }
+
+    /**
+     * De-duplicates the rows of a spilled partition with a child set, which may spill
+     * again, yielding the rows it accepts that were not output before and then its
+     * deferred rows.
+     */
+    private final class PartitionIterator implements Iterator<@Nullable Term @NonNull[]> {
+        private final @NonNull IdDistinctSet child = new IdDistinctSet(maxBytes, depth+1);
+        private final @NonNull Iterator<@NonNull Spilled> rows;
+        private @Nullable Iterator<@Nullable Term @NonNull[]> childDeferred;
+        private @Nullable Term @Nullable[] next;
+
+        PartitionIterator(@NonNull Iterator<@NonNull Spilled> rows) {
+            this.rows = rows;
+            open.add(child);
+        }
+
+        @Override public boolean hasNext() {
+            while (next == null) {
+                if (rows.hasNext()) {
+                    Spilled spilled = rows.next();
+                    if (child.add(spilled.row, spilled.output))
+                        next = spilled.row;
+                } else {
+                    if (childDeferred == null)
+                        childDeferred = child.deferred();
+                    if (!childDeferred.hasNext())
+                        return false;
+                    next = childDeferred.next();
+                }
+            }
+            return true;
+        }
+
+        @Override public @Nullable Term @NonNull[] next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            Term[] row = next;
+            next = null;
+            assert row != null;
+            return row;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.github.lapesd.hdtss.sparql.impl.distinct;
+
+import com.github.lapesd.hdtss.model.Row;
+import com.github.lapesd.hdtss.sparql.DistinctStrategy;
+import io.micronaut.context.annotation.Property;
+import io.micronaut.context.annotation.Requires;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.Collection;
+
+/**
+ * Creates {@link IdDistinctSet}s, which store rows as packed dictionary IDs and spill
+ * hash partitions to disk once {@code sparql.distinct.max-bytes} is exceeded.
+ *
+ * Spilling changes the order of rows, thus sets for DISTINCTs over ordered input never spill.
+ */
+@Singleton
+@Requires(property = "sparql.distinct.strategy", value = "ID")
+public class IdDistinctStrategy implements DistinctStrategy {
+    private final long maxBytes;
+
+    @Inject
+    public IdDistinctStrategy(@Property(name = "sparql.distinct.max-bytes",
+                                        defaultValue = "67108864") long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    @Override public @NonNull Collection<Row> createSet() {
+        return new IdDistinctSet(maxBytes);
+    }
+
+    @Override public @NonNull Collection<Row> createOrderedSet() {
+        return new IdDistinctSet(Long.MAX_VALUE);
+    }
+}
@@ -1,6 +1,7 @@
 package com.github.lapesd.hdtss.sparql.impl.distinct;
 
 import com.github.lapesd.hdtss.model.nodes.Op;
+import com.github.lapesd.hdtss.sparql.DistinctStrategy;
 import com.github.lapesd.hdtss.sparql.OpExecutor;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
@@ -12,4 +13,22 @@ public abstract class WeakDistinctExecutor implements OpExecutor {
     @Override public @NonNull Set<Op.Type> supportedTypes() {
         return SUPPORTED_TYPES;
     }
+
+    /**
+     * Create the {@link DistinctStrategy} named by {@code sparql.weakDistinct.strategy}.
+     *
+     * @param name either {@code WINDOW} or {@code BLOOM} (case-insensitive)
+     * @param window the window size for {@code WINDOW}
+     * @param capacity the expected number of distinct rows for {@code BLOOM} and the
+     *                 number of rows it keeps to confirm that a row is a duplicate
+     * @param fpp the false positive rate of {@code BLOOM} up to {@code capacity} rows
+     */
+    protected static @NonNull DistinctStrategy
+    createStrategy(@NonNull String name, int window, int capacity, double fpp) {
+        return switch (name.trim().toUpperCase()) {
+            case "WINDOW" -> new WindowDistinctStrategy(window);
+            case "BLOOM" -> new BloomDistinctStrategy(capacity, fpp);
+            default -> throw new IllegalArgumentException("Bad sparql.weakDistinct.strategy="+name);
+        };
+    }
 }
@@ -3,6 +3,7 @@ package com.github.lapesd.hdtss.sparql.impl.distinct;
 import com.github.lapesd.hdtss.model.nodes.Op;
 import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
 import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
 import com.github.lapesd.hdtss.sparql.impl.conditional.RequiresOperatorFlow;
 import com.github.lapesd.hdtss.utils.Binding;
 import io.micronaut.context.annotation.Property;
@@ -14,23 +15,30 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 
 @Singleton
 @Named("weakDistinct")
-@RequiresOperatorFlow(values = {"ITERATOR", "HEAVY_REACTIVE", "HDT_REACTIVE"})
+@RequiresOperatorFlow(values = {"ITERATOR", "HEAVY_REACTIVE", "HDT_REACTIVE", "VECTOR"})
 public class WeakDistinctItExecutor extends WeakDistinctExecutor {
     private final @NonNull DistinctItExecutor delegate;
 
     @Inject
     public WeakDistinctItExecutor(@NonNull OpExecutorDispatcher dispatcher,
+                                  @Property(name = "sparql.weakDistinct.strategy",
+                                            defaultValue = "WINDOW")
+                                  @NonNull String strategy,
                                   @Property(name = "sparql.weakDistinct.window",
                                             defaultValue = "8192")
-                                  int window) {
-        delegate = new DistinctItExecutor(dispatcher, new WindowDistinctStrategy(window));
+                                  int window,
+                                  @Property(name = "sparql.weakDistinct.capacity",
+                                            defaultValue = "65536")
+                                  int capacity,
+                                  @Property(name = "sparql.weakDistinct.fpp",
+                                            defaultValue = "0.01")
+                                  double fpp) {
+        delegate = new DistinctItExecutor(dispatcher,
+                                          createStrategy(strategy, window, capacity, fpp));
     }
 
-    @Override public @NonNull QuerySolutions execute(@NonNull Op node) {
-        return delegate.execute(node);
-    }
-
-    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding) {
-        return delegate.execute(node, binding);
+    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding,
+                                                     LookupMemo.@Nullable Stats stats) {
+        return delegate.execute(node, binding, stats);
     }
 }
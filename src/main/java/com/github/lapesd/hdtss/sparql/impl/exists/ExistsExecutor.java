@@ -1,30 +1,74 @@
 package com.github.lapesd.hdtss.sparql.impl.exists;
 
+import com.github.lapesd.hdtss.data.query.CardinalityEstimator;
+import com.github.lapesd.hdtss.model.Row;
 import com.github.lapesd.hdtss.model.Term;
+import com.github.lapesd.hdtss.model.nodes.Exists;
 import com.github.lapesd.hdtss.model.nodes.Op;
 import com.github.lapesd.hdtss.sparql.OpExecutor;
 import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
+import com.github.lapesd.hdtss.sparql.impl.HashSemiJoin;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
 import com.github.lapesd.hdtss.utils.Binding;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 
 abstract class ExistsExecutor implements OpExecutor {
     private final @NonNull Set<Op.Type> SUPPORTED_TYPES = Set.of(Op.Type.EXISTS);
     protected final @NonNull OpExecutorDispatcher dispatcher;
+    protected final int memoRows;
+    protected final @NonNull CardinalityEstimator estimator;
+    protected final boolean hash;
 
-    public ExistsExecutor(@NonNull OpExecutorDispatcher dispatcher) {
+    public ExistsExecutor(@NonNull OpExecutorDispatcher dispatcher, int memoRows,
+                          @NonNull CardinalityEstimator estimator, @NonNull String strategy) {
         this.dispatcher = dispatcher;
+        this.memoRows = memoRows;
+        this.estimator = estimator;
+        this.hash = switch (strategy.trim().toUpperCase()) {
+            case "ASK" -> false;
+            case "HASH" -> true;
+            default -> throw new IllegalArgumentException("Bad sparql.exists.strategy="+strategy);
+        };
     }
 
     @Override public @NonNull Set<Op.Type> supportedTypes() {
         return SUPPORTED_TYPES;
     }
 
+    /**
+     * If {@code sparql.exists.strategy=HASH} and {@link HashSemiJoin} supports the filter of
+     * {@code exists}, evaluate it as a hash semi-join (or anti-join, for NOT EXISTS), storing
+     * the side estimated to be smaller.
+     *
+     * @return the accepted solutions of {@code exists.main()} bound to {@code binding} or
+     *         {@code null} if the filter must be asked for every solution.
+     */
+    protected @Nullable Iterator<@Nullable Term @NonNull[]>
+    hashJoin(@NonNull Exists exists, @Nullable Binding binding,
+             LookupMemo.@Nullable Stats stats) {
+        if (!hash)
+            return null;
+        Op main = exists.main(), filter = exists.filter();
+        var rowVars = binding == null ? main.outputVars() : binding.unbound(main.outputVars());
+        if (!HashSemiJoin.supportsExists(filter, rowVars))
+            return null;
+        var kind = exists.negate() ? HashSemiJoin.Kind.NOT_EXISTS : HashSemiJoin.Kind.EXISTS;
+        var outer = dispatcher.execute(main, binding, stats);
+        var join = new HashSemiJoin(outer.varNames(),
+                                    () -> dispatcher.execute(filter, binding, stats), kind);
+        Op boundMain = main, boundFilter = filter;
+        if (binding != null) {
+            boundMain = main.bind(binding);
+            boundFilter = filter.bind(binding);
+        }
+        boolean buildOuter = estimator.estimate(boundMain)
+                           < estimator.estimate(boundFilter);
+        return join.filter(outer.iterator(), buildOuter);
+    }
+
     protected final @NonNull Binding createTemplate(@NonNull Op main, @NonNull Binding parent) {
         List<@NonNull String> offeredVars = main.outputVars();
         List<String> rightBindingVars = new ArrayList<>(offeredVars.size() + parent.size());
@@ -39,6 +83,49 @@ abstract class ExistsExecutor implements OpExecutor {
         return template;
     }
 
+    /**
+     * Evaluates the ASK result of a filter for outer rows, memoizing it for the values of
+     * the outer variables that the filter uses.
+     */
+    protected final class Asker {
+        private final @NonNull Op filter;
+        private final int @NonNull[] keyIndices;
+        private final LookupMemo.@Nullable Stats stats;
+        private final @NonNull LookupMemo<Boolean> memo;
+
+        /**
+         * @param filter the filter {@link Op} of an EXISTS node
+         * @param rowVars the names of the variables in outer rows given to
+         *                {@link Asker#ask(Binding, Term[])}, in the binding of the filter.
+         * @param stats the {@link LookupMemo.Stats} given to the EXISTS executor
+         */
+        public Asker(@NonNull Op filter, @NonNull List<@NonNull String> rowVars,
+                     LookupMemo.@Nullable Stats stats) {
+            this.filter = filter;
+            this.keyIndices = LookupMemo.keyIndices(rowVars, filter);
+            this.stats = stats;
+            this.memo = new LookupMemo<>(memoRows, stats);
+        }
+
+        /**
+         * Get the ASK result of {@code filter} bound to {@code binding}, whose values for
+         * {@code rowVars} come from {@code row}.
+         */
+        public boolean ask(@NonNull Binding binding, @Nullable Term @NonNull[] row) {
+            if (!memo.isEnabled())
+                return execute(binding);
+            Row key = LookupMemo.key(keyIndices, row);
+            Boolean cached = memo.get(key);
+            if (cached == null)
+                memo.put(key, cached = execute(binding), 1);
+            return cached;
+        }
+
+        private boolean execute(@NonNull Binding binding) {
+            return dispatcher.execute(filter, binding, stats).askResult();
+        }
+    }
+
     protected final @NonNull Binding fillTemplate(@NonNull Binding template,
                                                   @Nullable Term @NonNull [] row) {
         System.arraycopy(row, 0, template.terms(), 0, row.length);
@@ -1,54 +1,78 @@
 package com.github.lapesd.hdtss.sparql.impl.exists;
 
+import com.github.lapesd.hdtss.data.query.CardinalityEstimator;
 import com.github.lapesd.hdtss.model.nodes.Exists;
 import com.github.lapesd.hdtss.model.nodes.IdentityNode;
 import com.github.lapesd.hdtss.model.nodes.Op;
 import com.github.lapesd.hdtss.model.solutions.FluxQuerySolutions;
+import com.github.lapesd.hdtss.model.solutions.IteratorQuerySolutions;
 import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
 import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
 import com.github.lapesd.hdtss.sparql.impl.conditional.RequiresOperatorFlow;
 import com.github.lapesd.hdtss.utils.Binding;
+import io.micronaut.context.annotation.Property;
 import jakarta.inject.Inject;
 import jakarta.inject.Named;
 import jakarta.inject.Singleton;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import java.util.Arrays;
+
 @Singleton
 @Named("exists")
 @RequiresOperatorFlow(values = {"REACTIVE", "HEAVY_REACTIVE"})
 public class ExistsFluxExecutor extends ExistsExecutor {
     @Inject
-    public ExistsFluxExecutor(@NonNull OpExecutorDispatcher dispatcher) {
-        super(dispatcher);
+    public ExistsFluxExecutor(@NonNull OpExecutorDispatcher dispatcher,
+                              @Property(name = "sparql.memo.max-rows", defaultValue = "65536")
+                              int memoRows,
+                              @NonNull CardinalityEstimator estimator,
+                              @Property(name = "sparql.exists.strategy", defaultValue = "ASK")
+                              @NonNull String strategy) {
+        super(dispatcher, memoRows, estimator, strategy);
     }
 
-    @Override public @NonNull QuerySolutions execute(@NonNull Op node) {
+    private @NonNull QuerySolutions executeUnbound(@NonNull Op node,
+                                                   LookupMemo.@Nullable Stats stats) {
         Exists exists = (Exists) node;
         Op main = exists.main(), filter = exists.filter();
         if (IdentityNode.is(filter))
-            return dispatcher.execute(main);
+            return dispatcher.execute(main, null, stats);
+        var joined = hashJoin(exists, null, stats);
+        if (joined != null) {
+            var its = new IteratorQuerySolutions(node.outputVars(), joined);
+            return new FluxQuerySolutions(its.varNames(), its.flux());
+        }
         boolean negate = exists.negate();
         var outerVars = main.outputVars().toArray(String[]::new);
-        var flux = dispatcher.execute(main).flux()
-                .filter(r -> {
-                    Op bound = filter.bind(new Binding(outerVars, r));
-                    return negate ^ dispatcher.execute(bound).askResult();
-                });
+        var asker = new Asker(filter, main.outputVars(), stats);
+        var flux = dispatcher.execute(main, null, stats).flux()
+                .filter(r -> negate ^ asker.ask(new Binding(outerVars, r), r));
         return new FluxQuerySolutions(node.outputVars(), flux);
     }
 
-    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding) {
+    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding,
+                                                     LookupMemo.@Nullable Stats stats) {
         if (binding == null || binding.isEmpty())
-            return execute(node);
+            return executeUnbound(node, stats);
         Exists exists = (Exists) node;
         Op main = exists.main(), filter = exists.filter();
         if (IdentityNode.is(filter))
-            return dispatcher.execute(main, binding);
+            return dispatcher.execute(main, binding, stats);
+        var joined = hashJoin(exists, binding, stats);
+        if (joined != null) {
+            var its = new IteratorQuerySolutions(binding.unbound(node.outputVars()), joined);
+            return new FluxQuerySolutions(its.varNames(), its.flux());
+        }
         boolean negate = exists.negate();
         Binding template = createTemplate(exists.main(), binding);
-        var flux = dispatcher.execute(main, binding).flux().filter(
-                r -> negate ^ dispatcher.execute(filter, fillTemplate(template, r)).askResult());
+        int width = template.size() - binding.size(); // vars of main not bound by binding
+        var rowVars = Arrays.asList(template.vars()).subList(0, width);
+        var asker = new Asker(filter, rowVars, stats);
+        var flux = dispatcher.execute(main, binding, stats).flux().filter(
+                r -> negate ^ asker.ask(fillTemplate(template, r), r));
         return new FluxQuerySolutions(binding.unbound(node.outputVars()), flux);
     }
 
@@ -1,5 +1,6 @@
 package com.github.lapesd.hdtss.sparql.impl.exists;
 
+import com.github.lapesd.hdtss.data.query.CardinalityEstimator;
 import com.github.lapesd.hdtss.model.Term;
 import com.github.lapesd.hdtss.model.nodes.Exists;
 import com.github.lapesd.hdtss.model.nodes.IdentityNode;
@@ -7,8 +8,10 @@ import com.github.lapesd.hdtss.model.nodes.Op;
 import com.github.lapesd.hdtss.model.solutions.IteratorQuerySolutions;
 import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
 import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
 import com.github.lapesd.hdtss.sparql.impl.conditional.RequiresOperatorFlow;
 import com.github.lapesd.hdtss.utils.Binding;
+import io.micronaut.context.annotation.Property;
 import jakarta.inject.Inject;
 import jakarta.inject.Named;
 import jakarta.inject.Singleton;
@@ -16,26 +19,37 @@ import org.checkerframework.checker.nullness.qual.EnsuresNonNullIf;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
 @Singleton
 @Named("exists")
-@RequiresOperatorFlow(values = {"ITERATOR", "HDT_REACTIVE"})
+@RequiresOperatorFlow(values = {"ITERATOR", "HDT_REACTIVE", "VECTOR"})
 public class ExistsItExecutor extends ExistsExecutor {
     @Inject
-    public ExistsItExecutor(@NonNull OpExecutorDispatcher dispatcher) {
-        super(dispatcher);
+    public ExistsItExecutor(@NonNull OpExecutorDispatcher dispatcher,
+                            @Property(name = "sparql.memo.max-rows", defaultValue = "65536")
+                            int memoRows,
+                            @NonNull CardinalityEstimator estimator,
+                            @Property(name = "sparql.exists.strategy", defaultValue = "ASK")
+                            @NonNull String strategy) {
+        super(dispatcher, memoRows, estimator, strategy);
     }
 
-    @Override public @NonNull QuerySolutions execute(@NonNull Op node) {
+    private @NonNull QuerySolutions executeUnbound(@NonNull Op node,
+                                                   LookupMemo.@Nullable Stats stats) {
         Exists exists = (Exists) node;
         Op main = exists.main(), filter = exists.filter();
         if (IdentityNode.is(filter))
-            return dispatcher.execute(main);
+            return dispatcher.execute(main, null, stats);
+        var joined = hashJoin(exists, null, stats);
+        if (joined != null)
+            return new IteratorQuerySolutions(main.outputVars(), joined);
         boolean negate = exists.negate();
         var vars = main.outputVars();
-        var it = dispatcher.execute(main).iterator();
+        var it = dispatcher.execute(main, null, stats).iterator();
+        var asker = new Asker(filter, vars, stats);
         return new IteratorQuerySolutions(vars, new Iterator<>() {
             private @Nullable Term @Nullable[] next;
             private final @NonNull Binding binding = new Binding(vars.toArray(String[]::new));
@@ -44,8 +58,7 @@ public class ExistsItExecutor extends ExistsExecutor {
             @Override public boolean hasNext() {
                 while (next == null && it.hasNext()) {
                     var outerRow = it.next();
-                    Op bound = filter.bind(binding.setTerms(outerRow));
-                    if (negate ^ dispatcher.execute(bound).askResult())
+                    if (negate ^ asker.ask(binding.setTerms(outerRow), outerRow))
                         this.next = outerRow;
                 }
                 return next != null;
@@ -62,17 +75,23 @@ public class ExistsItExecutor extends ExistsExecutor {
         });
     }
 
-    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding) {
+    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding,
+                                                     LookupMemo.@Nullable Stats stats) {
         if (binding == null || binding.isEmpty())
-            return execute(node);
+            return executeUnbound(node, stats);
 
         Exists exists = (Exists) node;
         Op main = exists.main(), filter = exists.filter();
         if (IdentityNode.is(filter))
-            return dispatcher.execute(main, binding);
+            return dispatcher.execute(main, binding, stats);
+        var joined = hashJoin(exists, binding, stats);
+        if (joined != null)
+            return new IteratorQuerySolutions(binding.unbound(main.outputVars()), joined);
         boolean negate = exists.negate();
         Binding template = createTemplate(main, binding);
-        var it = dispatcher.execute(main).iterator();
+        var it = dispatcher.execute(main, null, stats).iterator();
+        var rowVars = Arrays.asList(template.vars()).subList(0, main.outputVars().size());
+        var asker = new Asker(filter, rowVars, stats);
         return new IteratorQuerySolutions(binding.unbound(main.outputVars()), new Iterator<>() {
             private @Nullable Term @Nullable[] next;
 
@@ -80,8 +99,7 @@ public class ExistsItExecutor extends ExistsExecutor {
             @Override public boolean hasNext() {
                 while (next == null && it.hasNext()) {
                     var outerRow = it.next();
-                    fillTemplate(template, outerRow);
-                    if (negate ^ dispatcher.execute(filter, template).askResult())
+                    if (negate ^ asker.ask(fillTemplate(template, outerRow), outerRow))
                         this.next = outerRow;
                 }
                 return next != null;
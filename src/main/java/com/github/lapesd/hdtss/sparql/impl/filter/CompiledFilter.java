@@ -0,0 +1,850 @@
+package com.github.lapesd.hdtss.sparql.impl.filter;
+
+import com.github.lapesd.hdtss.model.IdSparql;
+import com.github.lapesd.hdtss.model.Term;
+import com.github.lapesd.hdtss.utils.JenaExprEvaluator;
+import com.github.lapesd.hdtss.utils.JenaUtils;
+import com.github.lapesd.hdtss.vocab.RDF;
+import com.github.lapesd.hdtss.vocab.XSD;
+import org.apache.jena.sparql.expr.*;
+import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Evaluates FILTER expressions over rows of {@link Term}s without converting the terms into
+ * Jena {@code Node}s and {@code NodeValue}s, as long as the expression is in the supported
+ * subset of SPARQL:
+ *
+ * <ul>
+ *     <li>{@code &&}, {@code ||} and {@code !}, with the SPARQL error semantics;</li>
+ *     <li>{@code BOUND}, {@code isIRI}, {@code isURI}, {@code isBlank}, {@code isLiteral}
+ *         and {@code sameTerm} over variables;</li>
+ *     <li>{@code =}, {@code !=}, {@code <}, {@code <=}, {@code >} and {@code >=} between
+ *         variables and constants or between {@code STR(?x)}, {@code LANG(?x)} and
+ *         constant plain strings;</li>
+ *     <li>{@code STRSTARTS}, {@code STRENDS} and {@code CONTAINS} whose first argument is
+ *         a variable, {@code STR(?x)} or {@code LANG(?x)} and whose second argument is a
+ *         constant plain string;</li>
+ *     <li>{@code REGEX} with a constant pattern that only matches a literal prefix (e.g.,
+ *         {@code "^Ali"}) and no flags, which is evaluated as {@code STRSTARTS};</li>
+ *     <li>{@code IN} and {@code NOT IN}, as disjunctions of {@code =} and conjunctions of
+ *         {@code !=}.</li>
+ * </ul>
+ *
+ * Equality of a variable with constant IRIs ({@code =}, {@code !=}, {@code sameTerm},
+ * {@code IN} and {@code NOT IN}) compares {@link IdSparql#idKey()}s if the terms of the row
+ * have an {@link IdSparql#idScope()}. The constants are resolved once per scope. Likewise,
+ * {@code STRSTARTS(STR(?x), "prefix")} checks if the key of the term falls in one of the
+ * ranges given by {@link IdSparql#strPrefixKeyRanges(String)}, without decoding the term.
+ *
+ * Comparisons of terms are native if both terms are numeric literals (xsd:integer, xsd:int,
+ * xsd:short, xsd:decimal, xsd:float or xsd:double, with a valid lexical form), if both are
+ * plain strings or if {@code =} or {@code !=} involves an IRI or blank node. Other cases
+ * (e.g., dates) are delegated to Jena for that row only. Unsupported expressions are
+ * delegated to Jena as a whole, but their enclosing {@code &&}, {@code ||} and {@code !}
+ * remain native.
+ *
+ * Instances are not thread-safe.
+ */
+public final class CompiledFilter implements Predicate<@Nullable Term @NonNull[]> {
+    /* three-valued results of conditions */
+    private static final int FALSE = 0, TRUE = 1, ERROR = 2;
+    /* result of compareNumbers() when the comparison must be done by Jena */
+    private static final int INCOMPARABLE = Integer.MIN_VALUE;
+    /* numeric kinds, in promotion order */
+    private static final int NOT_NUMERIC = 0, INTEGER = 1, DECIMAL = 2, FLOAT = 3, DOUBLE = 4;
+    /* characters that have special meaning in a regex, unless escaped */
+    private static final @NonNull String REGEX_META = "\\.[]{}()*+?^$|";
+
+    private final @NonNull List<@NonNull String> inVars;
+    private final @NonNull Condition @NonNull[] conditions;
+    private @MonotonicNonNull JenaExprEvaluator jena;
+    private int fallbacks;
+
+    /**
+     * Compile the given filters
+     *
+     * @param inVars variables of the rows given to {@link #test(Term[])}
+     * @param filters parsed filter expressions. A row must satisfy all of them.
+     */
+    public CompiledFilter(@NonNull List<@NonNull String> inVars,
+                          @NonNull List<@NonNull Expr> filters) {
+        this.inVars = inVars;
+        this.conditions = new Condition[filters.size()];
+        for (int i = 0; i < conditions.length; i++)
+            conditions[i] = compile(filters.get(i));
+    }
+
+    /**
+     * Number of sub-expressions that are always evaluated by Jena. Zero means the
+     * filters are fully native, except for comparisons of unsupported datatypes.
+     */
+    public int fallbacks() {
+        return fallbacks;
+    }
+
+    @Override public boolean test(@Nullable Term @NonNull[] row) {
+        for (Condition condition : conditions) {
+            if (condition.eval(row) != TRUE)
+                return false;
+        }
+        return true;
+    }
+
+    private @NonNull JenaExprEvaluator jena() {
+        if (jena == null)
+            jena = new JenaExprEvaluator(inVars);
+        return jena;
+    }
+
+    /* --- --- --- compilation --- --- --- */
+
+    private @NonNull Condition compile(@NonNull Expr expr) {
+        if (expr instanceof E_LogicalAnd and)
+            return new And(compile(and.getArg1()), compile(and.getArg2()));
+        if (expr instanceof E_LogicalOr or)
+            return new Or(compile(or.getArg1()), compile(or.getArg2()));
+        if (expr instanceof E_LogicalNot not)
+            return new Not(compile(not.getArg()));
+        if (expr instanceof E_Bound bound && bound.getArg() instanceof ExprVar v) {
+            int idx = inVars.indexOf(v.getVarName());
+            return idx < 0 ? new Constant(FALSE) : new Bound(idx);
+        }
+        if (expr instanceof E_IsIRI f && f.getArg() instanceof ExprVar v)
+            return new IsType(variable(v), Term.Type.URI);
+        if (expr instanceof E_IsBlank f && f.getArg() instanceof ExprVar v)
+            return new IsType(variable(v), Term.Type.BLANK);
+        if (expr instanceof E_IsLiteral f && f.getArg() instanceof ExprVar v)
+            return new IsType(variable(v), Term.Type.LITERAL);
+        if (expr instanceof E_SameTerm f) {
+            Condition iri = iriEquality(f.getArg1(), f.getArg2(), false);
+            if (iri != null)
+                return iri;
+            TermOperand l = termOperand(f.getArg1()), r = termOperand(f.getArg2());
+            if (l != null && r != null && !(l.constant && r.constant))
+                return new SameTerm(l, r, new Fallback(expr));
+        }
+        if (expr instanceof E_OneOfBase f && !f.getRHS().isEmpty())
+            return compileOneOf(f.getLHS(), f.getRHS().getList(), f instanceof E_NotOneOf);
+        Comparison cmp = Comparison.of(expr);
+        if (cmp != null) {
+            var f = (ExprFunction2) expr;
+            if (cmp == Comparison.EQ || cmp == Comparison.NE) {
+                Condition iri = iriEquality(f.getArg1(), f.getArg2(), cmp == Comparison.NE);
+                if (iri != null)
+                    return iri;
+            }
+            TermOperand l = termOperand(f.getArg1()), r = termOperand(f.getArg2());
+            if (l != null && r != null && !(l.constant && r.constant))
+                return new Compare(cmp, l, r, new Fallback(expr));
+            StringOperand ls = stringOperand(f.getArg1(), false);
+            StringOperand rs = stringOperand(f.getArg2(), false);
+            if (ls != null && rs != null && !(ls instanceof ConstantString
+                                              && rs instanceof ConstantString)) {
+                return new CompareStrings(cmp, ls, rs);
+            }
+        }
+        StringTest test = StringTest.of(expr);
+        if (test != null) {
+            var f = (ExprFunction2) expr;
+            StringOperand l = stringOperand(f.getArg1(), true);
+            if (l != null && !(l instanceof ConstantString)
+                    && stringOperand(f.getArg2(), false) instanceof ConstantString r) {
+                return testString(test, l, r.value);
+            }
+        }
+        if (expr instanceof E_Regex f && isNoFlags(f)) {
+            StringOperand l = stringOperand(f.getArg(1), true);
+            String prefix = stringOperand(f.getArg(2), false) instanceof ConstantString r
+                          ? regexPrefix(r.value) : null;
+            if (l != null && !(l instanceof ConstantString) && prefix != null)
+                return testString(StringTest.STARTS, l, prefix);
+        }
+        ++fallbacks;
+        return new Fallback(expr);
+    }
+
+    private static @NonNull Condition testString(@NonNull StringTest test,
+                                                 @NonNull StringOperand operand,
+                                                 @NonNull String arg) {
+        var condition = new TestString(test, operand, arg);
+        if (test == StringTest.STARTS && operand instanceof Str str && !arg.isEmpty())
+            return new StrPrefix(str.index, arg, condition);
+        return condition;
+    }
+
+    private static boolean isNoFlags(@NonNull E_Regex regex) {
+        if (regex.numArgs() == 2)
+            return true;
+        Expr flags = regex.getArg(3);
+        return flags.isConstant() && flags.getConstant().isString()
+                && flags.getConstant().getString().isEmpty();
+    }
+
+    /**
+     * Get the string matched by {@code regex} if it is an anchored ({@code ^}) sequence of
+     * literal or escaped characters, else {@code null}.
+     */
+    private static @Nullable String regexPrefix(@NonNull String regex) {
+        int length = regex.length();
+        if (length < 2 || regex.charAt(0) != '^')
+            return null;
+        StringBuilder b = new StringBuilder(length);
+        for (int i = 1; i < length; i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                if (++i == length || (REGEX_META.indexOf(c = regex.charAt(i)) < 0 && c != '-'))
+                    return null; // \d, \w, \p{...}, back-references, etc.
+            } else if (REGEX_META.indexOf(c) >= 0) {
+                return null;
+            }
+            b.append(c);
+        }
+        return b.toString();
+    }
+
+    /** Compile {@code ?x IN (...)} into {@code ?x = ... || ...}, or the NOT IN analogue. */
+    private @NonNull Condition compileOneOf(@NonNull Expr lhs, @NonNull List<Expr> values,
+                                            boolean not) {
+        if (lhs instanceof ExprVar v) {
+            Set<Term> iris = new HashSet<>();
+            boolean allIRIs = true;
+            for (int i = 0, size = values.size(); allIRIs && i < size; i++) {
+                Term iri = constantIRI(values.get(i));
+                if (iri == null) allIRIs = false;
+                else             iris.add(iri);
+            }
+            if (allIRIs)
+                return new IriMember(variable(v), new IriKeys(iris), not);
+        }
+        Condition condition = null;
+        for (Expr value : values) {
+            Condition c = compile(not ? new E_NotEquals(lhs, value) : new E_Equals(lhs, value));
+            if (condition == null) condition = c;
+            else                   condition = not ? new And(condition, c) : new Or(condition, c);
+        }
+        assert condition != null;
+        return condition;
+    }
+
+    /**
+     * If one of the operands is a variable and the other a constant IRI, get a condition
+     * that compares them by ID, when possible.
+     */
+    private @Nullable Condition iriEquality(@NonNull Expr l, @NonNull Expr r, boolean not) {
+        Term iri = constantIRI(r);
+        ExprVar var = l instanceof ExprVar v ? v : null;
+        if (iri == null || var == null) {
+            iri = constantIRI(l);
+            var = r instanceof ExprVar v ? v : null;
+        }
+        if (iri == null || var == null)
+            return null;
+        return new IriMember(variable(var), new IriKeys(Set.of(iri)), not);
+    }
+
+    private static @Nullable Term constantIRI(@NonNull Expr expr) {
+        if (!expr.isConstant() || !expr.getConstant().isIRI())
+            return null;
+        return JenaUtils.fromNode(expr.getConstant().asNode());
+    }
+
+    private int variable(@NonNull ExprVar var) {
+        return inVars.indexOf(var.getVarName());
+    }
+
+    private @Nullable TermOperand termOperand(@NonNull Expr expr) {
+        if (expr instanceof ExprVar v)
+            return new TermOperand(variable(v), null);
+        if (expr.isConstant()) {
+            Term term = JenaUtils.fromNode(expr.getConstant().asNode());
+            return term == null ? null : new TermOperand(-1, term);
+        }
+        return null;
+    }
+
+    /**
+     * Get an operand that evaluates to a plain string from {@code STR(?x)}, {@code LANG(?x)},
+     * a plain string constant or, if {@code lexical}, a variable bound to a plain or
+     * language-tagged string.
+     */
+    private @Nullable StringOperand stringOperand(@NonNull Expr expr, boolean lexical) {
+        if (expr instanceof E_Str f && f.getArg() instanceof ExprVar v)
+            return new Str(variable(v));
+        if (expr instanceof E_Lang f && f.getArg() instanceof ExprVar v)
+            return new Lang(variable(v));
+        if (lexical && expr instanceof ExprVar v)
+            return new Lexical(variable(v));
+        if (expr.isConstant()) {
+            Term term = JenaUtils.fromNode(expr.getConstant().asNode());
+            if (term != null && term.isStringLiteral())
+                return new ConstantString(term.unescapedContent().toString());
+        }
+        return null;
+    }
+
+    /* --- --- --- conditions --- --- --- */
+
+    private static abstract class Condition {
+        /** Evaluate to {@link #TRUE}, {@link #FALSE} or {@link #ERROR}. */
+        abstract int eval(@Nullable Term @NonNull[] row);
+    }
+
+    private static final class Constant extends Condition {
+        private final int value;
+        Constant(int value) { this.value = value; }
+        @Override int eval(@Nullable Term @NonNull[] row) { return value; }
+    }
+
+    private static final class And extends Condition {
+        private final @NonNull Condition left, right;
+        And(@NonNull Condition left, @NonNull Condition right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override int eval(@Nullable Term @NonNull[] row) {
+            int l = left.eval(row);
+            if (l == FALSE) return FALSE;
+            int r = right.eval(row);
+            return r == FALSE ? FALSE : (l == TRUE && r == TRUE ? TRUE : ERROR);
+        }
+    }
+
+    private static final class Or extends Condition {
+        private final @NonNull Condition left, right;
+        Or(@NonNull Condition left, @NonNull Condition right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override int eval(@Nullable Term @NonNull[] row) {
+            int l = left.eval(row);
+            if (l == TRUE) return TRUE;
+            int r = right.eval(row);
+            return r == TRUE ? TRUE : (l == FALSE && r == FALSE ? FALSE : ERROR);
+        }
+    }
+
+    private static final class Not extends Condition {
+        private final @NonNull Condition operand;
+        Not(@NonNull Condition operand) { this.operand = operand; }
+
+        @Override int eval(@Nullable Term @NonNull[] row) {
+            int value = operand.eval(row);
+            return value == ERROR ? ERROR : TRUE - value;
+        }
+    }
+
+    private static final class Bound extends Condition {
+        private final int index;
+        Bound(int index) { this.index = index; }
+        @Override int eval(@Nullable Term @NonNull[] row) {
+            return row[index] == null ? FALSE : TRUE;
+        }
+    }
+
+    private static final class IsType extends Condition {
+        private final int index;
+        private final Term.@NonNull Type type;
+        IsType(int index, Term.@NonNull Type type) {
+            this.index = index;
+            this.type = type;
+        }
+
+        @Override int eval(@Nullable Term @NonNull[] row) {
+            Term term = index < 0 ? null : row[index];
+            return term == null ? ERROR : (term.type() == type ? TRUE : FALSE);
+        }
+    }
+
+    /** Evaluates an expression with Jena */
+    private final class Fallback extends Condition {
+        private final @NonNull Expr expr;
+        Fallback(@NonNull Expr expr) { this.expr = expr; }
+
+        @Override int eval(@Nullable Term @NonNull[] row) {
+            Boolean value = jena().setInput(row).ebv(expr);
+            return value == null ? ERROR : (value ? TRUE : FALSE);
+        }
+    }
+
+    private static final class SameTerm extends Condition {
+        private final @NonNull TermOperand left, right;
+        private final @NonNull Fallback fallback;
+
+        SameTerm(@NonNull TermOperand left, @NonNull TermOperand right,
+                 @NonNull Fallback fallback) {
+            this.left = left;
+            this.right = right;
+            this.fallback = fallback;
+        }
+
+        @Override int eval(@Nullable Term @NonNull[] row) {
+            Term l = left.get(row), r = right.get(row);
+            if (l == null || r == null)
+                return ERROR;
+            if (l.equals(r))
+                return TRUE;
+            // Jena ignores the case of language tags
+            return l.isLangStringLiteral() && r.isLangStringLiteral() ? fallback.eval(row)
+                                                                        : FALSE;
+        }
+    }
+
+    /**
+     * Whether the term of a variable is one of some IRIs ({@code ?x = <a>} or
+     * {@code ?x IN (<a>, <b>)}) or, if {@code not}, none of them. As comparisons of IRIs with
+     * other terms are false (not errors), this is the same as {@code sameTerm}.
+     */
+    private static final class IriMember extends Condition {
+        private final int index;
+        private final @NonNull IriKeys iris;
+        private final boolean not;
+
+        IriMember(int index, @NonNull IriKeys iris, boolean not) {
+            this.index = index;
+            this.iris = iris;
+            this.not = not;
+        }
+
+        @Override int eval(@Nullable Term @NonNull[] row) {
+            Term term = index < 0 ? null : row[index];
+            if (term == null)
+                return ERROR;
+            return iris.contains(term) != not ? TRUE : FALSE;
+        }
+    }
+
+    /** A set of IRIs that remembers their {@link IdSparql#idKey()}s in each seen scope. */
+    private static final class IriKeys {
+        private final @NonNull Set<@NonNull Term> iris;
+        /** Scopes are dictionaries, thus compared by identity. */
+        private final @NonNull Map<Object, long[]> keysByScope = new IdentityHashMap<>();
+
+        IriKeys(@NonNull Set<@NonNull Term> iris) {
+            this.iris = iris;
+        }
+
+        boolean contains(@NonNull Term term) {
+            if (term.sparql() instanceof IdSparql id) {
+                Object idScope = id.idScope();
+                if (idScope != null) {
+                    long[] keys = keysByScope.computeIfAbsent(idScope, k -> resolve(id));
+                    return Arrays.binarySearch(keys, id.idKey()) >= 0;
+                }
+            }
+            return term.isURI() && iris.contains(term);
+        }
+
+        private long @NonNull[] resolve(@NonNull IdSparql id) {
+            long[] keys = new long[iris.size()];
+            int size = 0;
+            for (Term iri : iris) {
+                long key = id.idKeyOf(iri);
+                if (key != 0) keys[size++] = key;
+            }
+            keys = Arrays.copyOf(keys, size);
+            Arrays.sort(keys);
+            return keys;
+        }
+    }
+
+    private enum Comparison {
+        EQ, NE, LT, LE, GT, GE;
+
+        static @Nullable Comparison of(@NonNull Expr expr) {
+            if (expr instanceof E_Equals)             return EQ;
+            if (expr instanceof E_NotEquals)          return NE;
+            if (expr instanceof E_LessThan)           return LT;
+            if (expr instanceof E_LessThanOrEqual)    return LE;
+            if (expr instanceof E_GreaterThan)        return GT;
+            if (expr instanceof E_GreaterThanOrEqual) return GE;
+            return null;
+        }
+
+        boolean isOrder() { return this != EQ && this != NE; }
+
+        /** Get {@link #TRUE} or {@link #FALSE} given the result of a comparator. */
+        int result(int cmp) {
+            boolean value = switch (this) {
+                case EQ -> cmp == 0;
+                case NE -> cmp != 0;
+                case LT -> cmp <  0;
+                case LE -> cmp <= 0;
+                case GT -> cmp >  0;
+                case GE -> cmp >= 0;
+            };
+            return value ? TRUE : FALSE;
+        }
+    }
+
+    private static final class Compare extends Condition {
+        private final @NonNull Comparison cmp;
+        private final @NonNull TermOperand left, right;
+        private final @NonNull Fallback fallback;
+
+        Compare(@NonNull Comparison cmp, @NonNull TermOperand left, @NonNull TermOperand right,
+                @NonNull Fallback fallback) {
+            this.cmp = cmp;
+            this.left = left;
+            this.right = right;
+            this.fallback = fallback;
+        }
+
+        @Override int eval(@Nullable Term @NonNull[] row) {
+            Term l = left.get(row), r = right.get(row);
+            if (l == null || r == null)
+                return ERROR;
+            if (!l.isLiteral() || !r.isLiteral()) {
+                if (cmp.isOrder())
+                    return fallback.eval(row);
+                return cmp.result(l.equals(r) ? 0 : 1);
+            }
+            String ldt = l.datatype(), rdt = r.datatype();
+            int lKind = numericKind(ldt), rKind = numericKind(rdt);
+            if (lKind != NOT_NUMERIC && rKind != NOT_NUMERIC) {
+                int result = compareNumbers(l, lKind, r, rKind);
+                return result == INCOMPARABLE ? fallback.eval(row) : cmp.result(result);
+            } else if (lKind == NOT_NUMERIC && rKind == NOT_NUMERIC) {
+                if (XSD.string.equals(ldt) && XSD.string.equals(rdt)) {
+                    if (!cmp.isOrder() && l.equals(r))
+                        return cmp.result(0);
+                    if (!cmp.isOrder() && !hasEscape(l) && !hasEscape(r))
+                        return cmp.result(1);
+                    return cmp.result(CharSequence.compare(lexicalForm(l), lexicalForm(r)));
+                }
+                if (!cmp.isOrder() && RDF.langString.equals(ldt)
+                                   && RDF.langString.equals(rdt)) {
+                    if (l.equals(r))
+                        return cmp.result(0);
+                    if (CharSequence.compare(lexicalForm(l), lexicalForm(r)) != 0)
+                        return cmp.result(1);
+                }
+            }
+            return fallback.eval(row);
+        }
+    }
+
+    private static final class CompareStrings extends Condition {
+        private final @NonNull Comparison cmp;
+        private final @NonNull StringOperand left, right;
+
+        CompareStrings(@NonNull Comparison cmp, @NonNull StringOperand left,
+                       @NonNull StringOperand right) {
+            this.cmp = cmp;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override int eval(@Nullable Term @NonNull[] row) {
+            CharSequence l = left.get(row), r = right.get(row);
+            if (l == null || r == null)
+                return ERROR;
+            return cmp.result(CharSequence.compare(l, r));
+        }
+    }
+
+    private enum StringTest {
+        STARTS, ENDS, CONTAINS;
+
+        static @Nullable StringTest of(@NonNull Expr expr) {
+            if (expr instanceof E_StrStartsWith) return STARTS;
+            if (expr instanceof E_StrEndsWith)   return ENDS;
+            if (expr instanceof E_StrContains)   return CONTAINS;
+            return null;
+        }
+
+        boolean test(@NonNull CharSequence cs, @NonNull String arg) {
+            int length = cs.length(), argLength = arg.length();
+            return switch (this) {
+                case STARTS -> length >= argLength && regionMatches(cs, 0, arg);
+                case ENDS -> length >= argLength && regionMatches(cs, length-argLength, arg);
+                case CONTAINS -> {
+                    for (int i = 0, last = length-argLength; i <= last; i++) {
+                        if (regionMatches(cs, i, arg)) yield true;
+                    }
+                    yield false;
+                }
+            };
+        }
+
+        private static boolean regionMatches(@NonNull CharSequence cs, int offset,
+                                             @NonNull String arg) {
+            for (int i = 0, len = arg.length(); i < len; i++) {
+                if (cs.charAt(offset+i) != arg.charAt(i)) return false;
+            }
+            return true;
+        }
+    }
+
+    private static final class TestString extends Condition {
+        private final @NonNull StringTest test;
+        private final @NonNull StringOperand operand;
+        private final @NonNull String arg;
+
+        TestString(@NonNull StringTest test, @NonNull StringOperand operand,
+                   @NonNull String arg) {
+            this.test = test;
+            this.operand = operand;
+            this.arg = arg;
+        }
+
+        @Override int eval(@Nullable Term @NonNull[] row) {
+            CharSequence cs = operand.get(row);
+            return cs == null ? ERROR : (test.test(cs, arg) ? TRUE : FALSE);
+        }
+    }
+
+    /**
+     * {@code STRSTARTS(STR(?x), "prefix")} evaluated by checking if the
+     * {@link IdSparql#idKey()} of the term is in {@link IdSparql#strPrefixKeyRanges(String)},
+     * which are computed once per {@link IdSparql#idScope()}. Terms without a scope (or
+     * scopes that cannot compute the ranges) are decoded and compared as strings.
+     */
+    private static final class StrPrefix extends Condition {
+        private final int index;
+        private final @NonNull String prefix;
+        private final @NonNull TestString fallback;
+        /** Scopes are dictionaries, thus compared by identity. */
+        private final @NonNull Map<Object, Ranges> rangesByScope = new IdentityHashMap<>();
+
+        /** Key ranges of the prefix and of blank nodes, both {@code null} if unsupported */
+        private record Ranges(long @Nullable[] prefix, long @Nullable[] blank) { }
+
+        StrPrefix(int index, @NonNull String prefix, @NonNull TestString fallback) {
+            this.index = index;
+            this.prefix = prefix;
+            this.fallback = fallback;
+        }
+
+        @Override int eval(@Nullable Term @NonNull[] row) {
+            Term term = index < 0 ? null : row[index];
+            if (term == null)
+                return ERROR;
+            if (term.sparql() instanceof IdSparql id) {
+                Object idScope = id.idScope();
+                if (idScope != null) {
+                    Ranges r = rangesByScope.computeIfAbsent(idScope, k -> {
+                        long[] ranges = id.strPrefixKeyRanges(prefix);
+                        return new Ranges(ranges, ranges == null ? null : id.blankKeyRanges());
+                    });
+                    long[] ranges = r.prefix(), blankRanges = r.blank();
+                    if (ranges != null && blankRanges != null) {
+                        long key = id.idKey();
+                        if (inRanges(ranges, key))      return TRUE;
+                        if (inRanges(blankRanges, key)) return ERROR; // STR(blank)
+                        return FALSE;
+                    }
+                }
+            }
+            return fallback.eval(row);
+        }
+
+        private static boolean inRanges(long @NonNull[] ranges, long key) {
+            int lo = 0, hi = ranges.length/2; // find first range whose last >= key
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (ranges[2*mid+1] < key) lo = mid+1;
+                else                       hi = mid;
+            }
+            return lo < ranges.length/2 && ranges[2*lo] <= key;
+        }
+    }
+
+    /* --- --- --- operands --- --- --- */
+
+    /** A variable (if {@code constant == null}) or a constant term. */
+    private static final class TermOperand {
+        private final int index;
+        private final @Nullable Term value;
+        private final boolean constant;
+
+        TermOperand(int index, @Nullable Term value) {
+            this.index = index;
+            this.value = value;
+            this.constant = value != null;
+        }
+
+        @Nullable Term get(@Nullable Term @NonNull[] row) {
+            return constant ? value : (index < 0 ? null : row[index]);
+        }
+    }
+
+    /** An expression that evaluates to a plain string or to an error ({@code null}). */
+    private static abstract class StringOperand {
+        abstract @Nullable CharSequence get(@Nullable Term @NonNull[] row);
+    }
+
+    private static final class ConstantString extends StringOperand {
+        private final @NonNull String value;
+        ConstantString(@NonNull String value) { this.value = value; }
+        @Override @NonNull CharSequence get(@Nullable Term @NonNull[] row) { return value; }
+    }
+
+    /** {@code STR(?x)} */
+    private static final class Str extends StringOperand {
+        final int index;
+        Str(int index) { this.index = index; }
+
+        @Override @Nullable CharSequence get(@Nullable Term @NonNull[] row) {
+            Term term = index < 0 ? null : row[index];
+            if (term == null || term.isBlank())
+                return null;
+            return term.isLiteral() ? lexicalForm(term) : term.content();
+        }
+    }
+
+    /** {@code LANG(?x)} */
+    private static final class Lang extends StringOperand {
+        private final int index;
+        Lang(int index) { this.index = index; }
+
+        @Override @Nullable CharSequence get(@Nullable Term @NonNull[] row) {
+            Term term = index < 0 ? null : row[index];
+            if (term == null || !term.isLiteral())
+                return null;
+            CharSequence lang = term.lang();
+            return lang == null ? "" : lang;
+        }
+    }
+
+    /** A variable used as first argument of string functions: must be a (lang) string. */
+    private static final class Lexical extends StringOperand {
+        private final int index;
+        Lexical(int index) { this.index = index; }
+
+        @Override @Nullable CharSequence get(@Nullable Term @NonNull[] row) {
+            Term term = index < 0 ? null : row[index];
+            if (term == null || !term.isLiteral())
+                return null;
+            String dt = term.datatype();
+            if (!XSD.string.equals(dt) && !RDF.langString.equals(dt))
+                return null;
+            return lexicalForm(term);
+        }
+    }
+
+    /* --- --- --- helpers --- --- --- */
+
+    private static @NonNull CharSequence lexicalForm(@NonNull Term literal) {
+        return hasEscape(literal) ? literal.unescapedContent() : literal.content();
+    }
+
+    private static boolean hasEscape(@NonNull Term literal) {
+        CharSequence sparql = literal.sparql();
+        for (int i = literal.contentStart(), end = literal.contentEnd(); i < end; i++) {
+            if (sparql.charAt(i) == '\\') return true;
+        }
+        return false;
+    }
+
+    private static int numericKind(@Nullable String datatype) {
+        if (datatype == null)                return NOT_NUMERIC;
+        if (datatype.equals(XSD.integer)
+                || datatype.equals(XSD.xint)
+                || datatype.equals(XSD.xshort))  return INTEGER;
+        if (datatype.equals(XSD.decimal))    return DECIMAL;
+        if (datatype.equals(XSD.xdouble))    return DOUBLE;
+        if (datatype.equals(XSD.xfloat))     return FLOAT;
+        return NOT_NUMERIC;
+    }
+
+    /**
+     * Compare two numeric literals after type promotion (integer, decimal, float, double), as
+     * done by SPARQL operators.
+     *
+     * @return negative, zero or positive as in {@link Comparable#compareTo(Object)} or
+     *         {@link #INCOMPARABLE} if some lexical form is not supported (e.g., {@code INF})
+     *         or is invalid.
+     */
+    private static int compareNumbers(@NonNull Term l, int lKind, @NonNull Term r, int rKind) {
+        try {
+            switch (Math.max(lKind, rKind)) {
+                case INTEGER:
+                    return Long.compare(parseInteger(l), parseInteger(r));
+                case DECIMAL:
+                    return toDecimal(l, lKind).compareTo(toDecimal(r, rKind));
+                case FLOAT:
+                    float lf = toFloat(l, lKind), rf = toFloat(r, rKind);
+                    return lf < rf ? -1 : (lf > rf ? 1 : 0);
+                default:
+                    double ld = toDouble(l, lKind), rd = toDouble(r, rKind);
+                    return ld < rd ? -1 : (ld > rd ? 1 : 0);
+            }
+        } catch (NumberFormatException e) {
+            return INCOMPARABLE;
+        }
+    }
+
+    private static long parseInteger(@NonNull Term literal) {
+        CharSequence cs = literal.sparql();
+        int begin = literal.contentStart(), end = literal.contentEnd();
+        checkLexical(cs, begin, end, false, false);
+        long value = Long.parseLong(cs, begin, end, 10);
+        String dt = literal.datatype();
+        long min = Long.MIN_VALUE, max = Long.MAX_VALUE;
+        if      (XSD.xint.equals(dt))   { min = Integer.MIN_VALUE; max = Integer.MAX_VALUE; }
+        else if (XSD.xshort.equals(dt)) { min = Short.MIN_VALUE;   max = Short.MAX_VALUE;   }
+        if (value < min || value > max)
+            throw new NumberFormatException("out of range for "+dt);
+        return value;
+    }
+
+    private static @NonNull BigDecimal toDecimal(@NonNull Term literal, int kind) {
+        if (kind == INTEGER)
+            return BigDecimal.valueOf(parseInteger(literal));
+        CharSequence cs = literal.sparql();
+        int begin = literal.contentStart(), end = literal.contentEnd();
+        checkLexical(cs, begin, end, true, false);
+        return new BigDecimal(cs.subSequence(begin, end).toString());
+    }
+
+    private static float toFloat(@NonNull Term literal, int kind) {
+        if (kind == INTEGER)
+            return parseInteger(literal);
+        if (kind == DECIMAL)
+            return toDecimal(literal, kind).floatValue();
+        return (float) toDouble(literal, kind);
+    }
+
+    private static double toDouble(@NonNull Term literal, int kind) {
+        if (kind == INTEGER)
+            return parseInteger(literal);
+        if (kind == DECIMAL)
+            return toDecimal(literal, kind).doubleValue();
+        CharSequence cs = literal.sparql();
+        int begin = literal.contentStart(), end = literal.contentEnd();
+        checkLexical(cs, begin, end, true, true);
+        String string = cs.subSequence(begin, end).toString();
+        return kind == FLOAT ? Float.parseFloat(string) : Double.parseDouble(string);
+    }
+
+    /**
+     * Reject anything other than ASCII digits, a leading sign and, if allowed, a
+     * {@code '.'} and an exponent. Java parsers accept more than XSD (e.g., non-ASCII digits,
+     * {@code "1d"}, and {@code "Infinity"}), such lexical forms are left for Jena.
+     */
+    private static void checkLexical(@NonNull CharSequence cs, int begin, int end,
+                                     boolean dot, boolean exponent) {
+        boolean digit = false;
+        for (int i = begin; i < end; i++) {
+            char c = cs.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digit = true;
+            } else if (c == '+' || c == '-') {
+                if (i != begin && !(exponent && (cs.charAt(i-1) | 0x20) == 'e'))
+                    throw new NumberFormatException();
+            } else if (!(dot && c == '.') && !(exponent && (c | 0x20) == 'e')) {
+                throw new NumberFormatException();
+            }
+        }
+        if (!digit)
+            throw new NumberFormatException();
+    }
+}
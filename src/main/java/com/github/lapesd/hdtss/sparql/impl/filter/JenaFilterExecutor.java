@@ -1,29 +1,56 @@
 package com.github.lapesd.hdtss.sparql.impl.filter;
 
+import com.github.lapesd.hdtss.data.query.HdtQueryService;
+import com.github.lapesd.hdtss.data.query.ValueRange;
 import com.github.lapesd.hdtss.model.Term;
 import com.github.lapesd.hdtss.model.nodes.Filter;
+import com.github.lapesd.hdtss.model.nodes.Op;
 import com.github.lapesd.hdtss.model.nodes.Op.Type;
+import com.github.lapesd.hdtss.model.nodes.TriplePattern;
+import com.github.lapesd.hdtss.model.solutions.IteratorQuerySolutions;
+import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
 import com.github.lapesd.hdtss.sparql.OpExecutor;
 import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
 import com.github.lapesd.hdtss.utils.Binding;
+import com.github.lapesd.hdtss.utils.CloseableIterator;
+import com.github.lapesd.hdtss.utils.CloseableUtils;
 import com.github.lapesd.hdtss.utils.ExprUtils;
 import com.github.lapesd.hdtss.utils.JenaExprEvaluator;
 import com.github.lapesd.hdtss.utils.JenaUtils;
-import org.apache.jena.sparql.expr.Expr;
+import org.apache.jena.graph.Node;
+import org.apache.jena.sparql.expr.*;
+import org.checkerframework.checker.nullness.qual.EnsuresNonNullIf;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.function.Predicate;
 
-abstract class JenaFilterExecutor implements OpExecutor {
+public abstract class JenaFilterExecutor implements OpExecutor {
     private static final @NonNull Set<Type> SUPPORTED_TYPES = Set.of(Type.FILTER);
     protected final @NonNull OpExecutorDispatcher dispatcher;
+    private final @NonNull HdtQueryService hdtQueryService;
+    private final boolean compile;
 
-    public JenaFilterExecutor(@NonNull OpExecutorDispatcher dispatcher) {
+    /**
+     * @param dispatcher executes the filter operand
+     * @param hdtQueryService answers filtered triple patterns with range scans
+     *                        (see {@link HdtQueryService#queryRange(TriplePattern, ValueRange)})
+     *                        and text index lookups.
+     * @param compile whether filters are evaluated by a {@link CompiledFilter} (with Jena
+     *                only evaluating unsupported expressions) instead of entirely by Jena.
+     */
+    public JenaFilterExecutor(@NonNull OpExecutorDispatcher dispatcher,
+                              @NonNull HdtQueryService hdtQueryService, boolean compile) {
         this.dispatcher = dispatcher;
+        this.hdtQueryService = hdtQueryService;
+        this.compile = compile;
         JenaUtils.init();
     }
 
@@ -34,7 +61,7 @@ abstract class JenaFilterExecutor implements OpExecutor {
     protected final @NonNull Evaluator
     createEvaluator(@NonNull Filter filterNode, @Nullable Binding binding) {
         if (binding == null)
-            return new Evaluator(filterNode.inner().outputVars(), filterNode.filters());
+            return new Evaluator(filterNode.inner().outputVars(), filterNode.filters(), compile);
         var filterVars = filterNode.filtersVarNames();
         List<String> filters = filterNode.filters();
         List<String> inVars = binding.unbound(filterNode.inner().outputVars());
@@ -47,23 +74,355 @@ abstract class JenaFilterExecutor implements OpExecutor {
                 break;
             }
         }
-        return new Evaluator(inVars, filters);
+        return new Evaluator(inVars, filters, compile);
+    }
+
+    /**
+     * Execute the operand of {@code filter}, which is the same as
+     * {@code dispatcher.execute(filter.inner(), binding, stats)}, unless the operand is a
+     * triple pattern and the filters restrict its object to a range of numeric or temporal values
+     * or to literals containing some strings. In that case, only the triples with such
+     * literals are read, if {@link HdtQueryService#queryRange(TriplePattern, ValueRange)} or
+     * {@link HdtQueryService#queryText(TriplePattern, Collection)} can do so.
+     *
+     * The returned solutions must still be tested with {@code evaluator}.
+     */
+    protected @NonNull QuerySolutions executeInner(@NonNull Filter filter,
+                                                   @Nullable Binding binding,
+                                                   @NonNull Evaluator evaluator,
+                                                   LookupMemo.@Nullable Stats stats) {
+        Op inner = filter.inner();
+        if (inner.type() == Type.TRIPLE) {
+            var tp = (TriplePattern) (binding == null ? inner : inner.bind(binding));
+            Term object = tp.object();
+            if (object.isVar()) {
+                String var = object.content().toString();
+                List<Expr> filters = evaluator.parsedFilters();
+                ValueRange range = valueRange(filters, var);
+                QuerySolutions solutions = range == null ? null
+                                         : hdtQueryService.queryRange(tp, range);
+                if (solutions == null) {
+                    List<String> substrings = textSubstrings(filters, var);
+                    if (!substrings.isEmpty())
+                        solutions = hdtQueryService.queryText(tp, substrings);
+                }
+                if (solutions != null)
+                    return solutions;
+            }
+        }
+        return dispatcher.execute(inner, binding, stats);
+    }
+
+    /**
+     * Solutions with the rows of {@code inner} that satisfy {@code evaluator}. Closing the
+     * iterator of the result closes {@code inner}.
+     */
+    protected static @NonNull QuerySolutions
+    filter(@NonNull Evaluator evaluator, @NonNull Iterator<@Nullable Term @NonNull[]> inner) {
+        return new IteratorQuerySolutions(evaluator.inVars(), new CloseableIterator<>() {
+            private @Nullable Term @Nullable[] next = null;
+
+            @EnsuresNonNullIf(expression = "this.next", result = true)
+            @Override public boolean hasNext() {
+                while (next == null && inner.hasNext()) {
+                    var candidate = inner.next();
+                    if (evaluator.test(candidate))
+                        next = candidate;
+                }
+                return next != null;
+            }
+
+            @Override public @Nullable Term @NonNull[] next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                var row = this.next;
+                this.next = null;
+                assert row != null;
+                return row;
+            }
+
+            @Override public void close() {
+                CloseableUtils.closeIfCloseable(inner);
+            }
+        });
+    }
+
+    /**
+     * Tests whether {@link #executeInner(Filter, Binding, Evaluator, LookupMemo.Stats)} may
+     * answer the operand of {@code filter} with a range scan or a text index lookup. Solutions
+     * of such scans are grouped by object and thus are not sorted as given by
+     * {@link HdtQueryService#sortedBy(TriplePattern)}.
+     *
+     * @param filter a FILTER node, already bound
+     * @param hdtQueryService the service that would answer the operand of {@code filter}
+     * @return true iff the operand of {@code filter} may be answered out of order
+     */
+    public static boolean mayScanIndex(@NonNull Filter filter,
+                                       @NonNull HdtQueryService hdtQueryService) {
+        boolean range = hdtQueryService.hasRangeIndex(), text = hdtQueryService.hasTextIndex();
+        if (!(filter.inner() instanceof TriplePattern tp) || !tp.object().isVar()
+                || (!range && !text)) {
+            return false;
+        }
+        String var = tp.object().content().toString();
+        List<Expr> filters = JenaUtils.parseFilters(filter.filters());
+        return (range && valueRange(filters, var) != null)
+            || (text && !textSubstrings(filters, var).isEmpty());
+    }
+
+    /**
+     * Get the range of numeric or temporal values {@code var} must have for all
+     * {@code filters} to hold, considering only top-level conjuncts that compare
+     * {@code var} with a constant using {@code <}, {@code <=}, {@code >}, {@code >=} or
+     * {@code =}.
+     *
+     * @return a range (already widened with {@link ValueRange#withSlack()}) or {@code null}
+     *         if no such conjunct exists or if conjuncts compare with values of distinct kinds.
+     */
+    static @Nullable ValueRange valueRange(@NonNull List<Expr> filters, @NonNull String var) {
+        List<Expr> conjuncts = new ArrayList<>();
+        for (Expr filter : filters)
+            flattenAnd(filter, conjuncts);
+        ValueRange range = null;
+        for (Expr expr : conjuncts) {
+            ValueRange bound = bound(expr, var);
+            if (bound == null)
+                continue;
+            range = range == null ? bound : range.intersect(bound);
+            if (range == null)
+                return null;
+        }
+        return range == null ? null : range.withSlack();
+    }
+
+    private static void flattenAnd(@NonNull Expr expr, @NonNull List<Expr> out) {
+        if (expr instanceof E_LogicalAnd and) {
+            flattenAnd(and.getArg1(), out);
+            flattenAnd(and.getArg2(), out);
+        } else {
+            out.add(expr);
+        }
+    }
+
+    private static @Nullable ValueRange bound(@NonNull Expr expr, @NonNull String var) {
+        if (!(expr instanceof ExprFunction2 f))
+            return null;
+        boolean lt = f instanceof E_LessThan || f instanceof E_LessThanOrEqual;
+        boolean gt = f instanceof E_GreaterThan || f instanceof E_GreaterThanOrEqual;
+        if (!lt && !gt && !(f instanceof E_Equals))
+            return null;
+        Expr constant;
+        if (f.getArg1() instanceof ExprVar v && v.getVarName().equals(var)) {
+            constant = f.getArg2();
+        } else if (f.getArg2() instanceof ExprVar v && v.getVarName().equals(var)) {
+            constant = f.getArg1();
+            boolean swap = lt;
+            lt = gt;
+            gt = swap;
+        } else {
+            return null;
+        }
+        if (!constant.isConstant())
+            return null;
+        Node node = constant.getConstant().asNode();
+        if (!node.isLiteral())
+            return null;
+        ValueRange.Kind kind = ValueRange.Kind.of(node.getLiteralDatatypeURI());
+        if (kind == null)
+            return null;
+        double value = ValueRange.valueOf(kind, node.getLiteralLexicalForm());
+        if (Double.isNaN(value))
+            return null;
+        double min = gt ? value : (lt ? Double.NEGATIVE_INFINITY : value);
+        double max = lt ? value : (gt ? Double.POSITIVE_INFINITY : value);
+        return new ValueRange(kind, min, max);
+    }
+
+    /**
+     * Get strings that must occur in the lexical form of the literal bound to {@code var}
+     * for all {@code filters} to hold. These come from top-level conjuncts that are
+     * {@code CONTAINS(?var, "s")}, {@code CONTAINS(LCASE(?var), "s")} or
+     * {@code REGEX(?var, "pattern", "flags")} (see {@link #regexLiterals(String)}). Since
+     * {@code UCASE} may turn one character into two and {@code STR} also accepts IRIs, these
+     * functions are not considered.
+     *
+     * @return a possibly empty list of strings
+     */
+    static @NonNull List<String> textSubstrings(@NonNull List<Expr> filters,
+                                                @NonNull String var) {
+        List<Expr> conjuncts = new ArrayList<>();
+        for (Expr filter : filters)
+            flattenAnd(filter, conjuncts);
+        List<String> substrings = new ArrayList<>();
+        for (Expr expr : conjuncts) {
+            if (expr instanceof E_StrContains f && isVarOrLowerCase(f.getArg1(), var)) {
+                String needle = constantString(f.getArg2());
+                if (needle != null)
+                    substrings.add(needle);
+            } else if (expr instanceof E_Regex f && isVarOrLowerCase(f.getArg(1), var)) {
+                String pattern = constantString(f.getArg(2));
+                String flags = f.numArgs() == 2 ? "" : constantString(f.getArg(3));
+                if (pattern == null || flags == null || !flags.matches("[imsq]*"))
+                    continue;
+                if (flags.contains("q")) {
+                    substrings.add(pattern);
+                } else {
+                    List<String> literals = regexLiterals(pattern);
+                    if (literals != null)
+                        substrings.addAll(literals);
+                }
+            }
+        }
+        return substrings;
+    }
+
+    private static boolean isVarOrLowerCase(@NonNull Expr expr, @NonNull String var) {
+        if (expr instanceof E_StrLowerCase f)
+            expr = f.getArg();
+        return expr instanceof ExprVar v && v.getVarName().equals(var);
+    }
+
+    private static @Nullable String constantString(@NonNull Expr expr) {
+        if (!expr.isConstant())
+            return null;
+        Node node = expr.getConstant().asNode();
+        return node.isLiteral() ? node.getLiteralLexicalForm() : null;
+    }
+
+    /**
+     * Get sequences of literal characters that occur in every string matched by
+     * {@code regex}.
+     *
+     * Characters inside groups or followed by {@code ?}, {@code *} or {@code {n,m}} are
+     * ignored, since they may not be matched. Character classes, {@code .} and anchors
+     * separate sequences.
+     *
+     * @return the sequences, or {@code null} if {@code regex} has a top-level alternation,
+     *         comments mode or escapes that are not understood.
+     */
+    static @Nullable List<String> regexLiterals(@NonNull String regex) {
+        List<String> literals = new ArrayList<>();
+        StringBuilder run = new StringBuilder();
+        int length = regex.length();
+        for (int i = 0; i < length; i++) {
+            char c = regex.charAt(i);
+            switch (c) {
+                case '\\' -> {
+                    if (++i == length)
+                        return null;
+                    c = regex.charAt(i);
+                    if (Character.isLetterOrDigit(c)) {
+                        if ("dDwWsSbB".indexOf(c) < 0)
+                            return null; // \x41, \p{...}, \Q...\E, back-references, etc.
+                        flush(run, literals);
+                    } else {
+                        run.append(c);
+                    }
+                }
+                case '[' -> {
+                    flush(run, literals);
+                    if ((i = skipClass(regex, i)) < 0)
+                        return null;
+                }
+                case '(' -> {
+                    flush(run, literals);
+                    if ((i = skipGroup(regex, i)) < 0)
+                        return null;
+                }
+                case '*', '?', '{' -> {
+                    // the previous character is optional
+                    if (run.length() > 0)
+                        run.setLength(run.offsetByCodePoints(run.length(), -1));
+                    flush(run, literals);
+                    if (c == '{' && (i = regex.indexOf('}', i)) < 0)
+                        return null;
+                    i = skipQuantifierModifier(regex, i);
+                }
+                case '+' -> {
+                    flush(run, literals);
+                    i = skipQuantifierModifier(regex, i);
+                }
+                case '|' -> { return null; }
+                case '.', '^', '$' -> flush(run, literals);
+                default -> run.append(c);
+            }
+        }
+        flush(run, literals);
+        return literals;
+    }
+
+    private static void flush(@NonNull StringBuilder run, @NonNull List<String> literals) {
+        if (run.length() > 0)
+            literals.add(run.toString());
+        run.setLength(0);
+    }
+
+    /** Index of the {@code ]} that closes the class opened at {@code i}, or -1 */
+    private static int skipClass(@NonNull String regex, int i) {
+        int depth = 0;
+        for (int length = regex.length(); i < length; i++) {
+            char c = regex.charAt(i);
+            if      (c == '\\') ++i;
+            else if (c == '[') ++depth;
+            else if (c == ']' && --depth == 0) return i;
+        }
+        return -1;
+    }
+
+    /** Index of the {@code )} that closes the group opened at {@code i}, or -1 */
+    private static int skipGroup(@NonNull String regex, int i) {
+        int depth = 0, length = regex.length();
+        if (regex.startsWith("(?", i)) { // inline flags may enable comments mode
+            int end = i+2;
+            while (end < length && (Character.isLetter(regex.charAt(end))
+                                    || regex.charAt(end) == '-')) {
+                ++end;
+            }
+            if (regex.substring(i+2, end).contains("x"))
+                return -1;
+        }
+        for (; i < length; i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                ++i;
+            } else if (c == '[') {
+                if ((i = skipClass(regex, i)) < 0) return -1;
+            } else if (c == '(') {
+                ++depth;
+            } else if (c == ')' && --depth == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int skipQuantifierModifier(@NonNull String regex, int i) {
+        if (i+1 < regex.length() && (regex.charAt(i+1) == '?' || regex.charAt(i+1) == '+'))
+            return i+1;
+        return i;
     }
 
     protected static class Evaluator implements Predicate<@Nullable Term @NonNull[]> {
         private final @NonNull List<@NonNull String> inVars;
-        private final @NonNull JenaExprEvaluator evaluator;
+        private final @Nullable CompiledFilter compiled;
+        private final @Nullable JenaExprEvaluator evaluator;
         private final @NonNull List<Expr> parsedFilters;
 
-        public Evaluator(@NonNull List<String> inVars, @NonNull List<@NonNull String> filters) {
+        public Evaluator(@NonNull List<String> inVars, @NonNull List<@NonNull String> filters,
+                         boolean compile) {
             this.inVars = inVars;
-            this.evaluator = new JenaExprEvaluator(inVars);
             this.parsedFilters = JenaUtils.parseFilters(filters);
+            this.compiled = compile ? new CompiledFilter(inVars, parsedFilters) : null;
+            this.evaluator = compile ? null : new JenaExprEvaluator(inVars);
         }
 
         public @NonNull List<@NonNull String> inVars() { return inVars; }
+        public @NonNull List<Expr> parsedFilters() { return parsedFilters; }
 
         @Override public boolean test(@Nullable Term @NonNull[] row) {
+            if (compiled != null)
+                return compiled.test(row);
+            assert evaluator != null;
             evaluator.setInput(row);
             for (Expr filter : parsedFilters) {
                 if (!evaluator.test(filter))
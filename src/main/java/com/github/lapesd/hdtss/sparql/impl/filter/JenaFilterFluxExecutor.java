@@ -1,12 +1,15 @@
 package com.github.lapesd.hdtss.sparql.impl.filter;
 
+import com.github.lapesd.hdtss.data.query.HdtQueryService;
 import com.github.lapesd.hdtss.model.nodes.Filter;
 import com.github.lapesd.hdtss.model.nodes.Op;
 import com.github.lapesd.hdtss.model.solutions.FluxQuerySolutions;
 import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
 import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
 import com.github.lapesd.hdtss.sparql.impl.conditional.RequiresOperatorFlow;
 import com.github.lapesd.hdtss.utils.Binding;
+import io.micronaut.context.annotation.Property;
 import jakarta.inject.Inject;
 import jakarta.inject.Named;
 import jakarta.inject.Singleton;
@@ -19,14 +22,18 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 public class JenaFilterFluxExecutor extends JenaFilterExecutor {
 
     @Inject
-    public JenaFilterFluxExecutor(@NonNull OpExecutorDispatcher dispatcher) {
-        super(dispatcher);
+    public JenaFilterFluxExecutor(@NonNull OpExecutorDispatcher dispatcher,
+                                  @NonNull HdtQueryService hdtQueryService,
+                                  @Property(name = "sparql.filter.compile", defaultValue = "true")
+                                  boolean compile) {
+        super(dispatcher, hdtQueryService, compile);
     }
 
-    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding) {
+    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding,
+                                                     LookupMemo.@Nullable Stats stats) {
         Filter filterNode = (Filter) node;
         Evaluator evaluator = createEvaluator(filterNode, binding);
-        var flux = dispatcher.execute(node.children().get(0), binding).flux().filter(evaluator);
+        var flux = executeInner(filterNode, binding, evaluator, stats).flux().filter(evaluator);
         return new FluxQuerySolutions(evaluator.inVars(), flux);
     }
 }
@@ -1,57 +1,36 @@
 package com.github.lapesd.hdtss.sparql.impl.filter;
 
-import com.github.lapesd.hdtss.model.Term;
+import com.github.lapesd.hdtss.data.query.HdtQueryService;
 import com.github.lapesd.hdtss.model.nodes.Filter;
 import com.github.lapesd.hdtss.model.nodes.Op;
-import com.github.lapesd.hdtss.model.solutions.IteratorQuerySolutions;
 import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
 import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
 import com.github.lapesd.hdtss.sparql.impl.conditional.RequiresOperatorFlow;
 import com.github.lapesd.hdtss.utils.Binding;
+import io.micronaut.context.annotation.Property;
 import jakarta.inject.Inject;
 import jakarta.inject.Named;
 import jakarta.inject.Singleton;
-import org.checkerframework.checker.nullness.qual.EnsuresNonNullIf;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
-import java.util.Iterator;
-import java.util.NoSuchElementException;
-
 @Singleton
 @Named("filter")
 @RequiresOperatorFlow(values = {"ITERATOR", "HDT_REACTIVE"})
 public class JenaFilterItExecutor extends JenaFilterExecutor {
     @Inject
-    public JenaFilterItExecutor(@NonNull OpExecutorDispatcher dispatcher) {
-        super(dispatcher);
+    public JenaFilterItExecutor(@NonNull OpExecutorDispatcher dispatcher,
+                                @NonNull HdtQueryService hdtQueryService,
+                                @Property(name = "sparql.filter.compile", defaultValue = "true")
+                                boolean compile) {
+        super(dispatcher, hdtQueryService, compile);
     }
 
-    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding) {
+    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding,
+                                                     LookupMemo.@Nullable Stats stats) {
         Filter filter = (Filter) node;
         Evaluator evaluator = createEvaluator(filter, binding);
-        var inner = dispatcher.execute(filter.inner(), binding).iterator();
-        return new IteratorQuerySolutions(evaluator.inVars(), new Iterator<>() {
-            private @Nullable Term @Nullable[] next = null;
-
-            @EnsuresNonNullIf(expression = "this.next", result = true)
-            @Override public boolean hasNext() {
-                while (next == null && inner.hasNext()) {
-                    var candidate = inner.next();
-                    if (evaluator.test(candidate))
-                        next = candidate;
-                }
-                return next != null;
-            }
-
-            @Override public @Nullable Term @NonNull[] next() {
-                if (!hasNext())
-                    throw new NoSuchElementException();
-                var row = this.next;
-                this.next = null;
-                assert row != null;
-                return row;
-            }
-        });
+        return filter(evaluator, executeInner(filter, binding, evaluator, stats).iterator());
     }
 }
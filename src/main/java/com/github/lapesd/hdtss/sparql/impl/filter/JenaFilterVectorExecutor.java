@@ -0,0 +1,95 @@
+package com.github.lapesd.hdtss.sparql.impl.filter;
+
+import com.github.lapesd.hdtss.data.query.HdtQueryService;
+import com.github.lapesd.hdtss.model.Term;
+import com.github.lapesd.hdtss.model.TermPosition;
+import com.github.lapesd.hdtss.model.nodes.Filter;
+import com.github.lapesd.hdtss.model.nodes.Op;
+import com.github.lapesd.hdtss.model.solutions.IdBatch;
+import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
+import com.github.lapesd.hdtss.model.solutions.VectorQuerySolutions;
+import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
+import com.github.lapesd.hdtss.sparql.impl.conditional.RequiresOperatorFlow;
+import com.github.lapesd.hdtss.utils.Binding;
+import io.micronaut.context.annotation.Property;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.List;
+
+/**
+ * Evaluates FILTERs over {@link IdBatch}es, retaining the rows that satisfy them.
+ *
+ * Only the columns of variables used in the filters are decoded. With lazy materialization
+ * (see {@code sparql.hdt.materialization}), decoded terms keep their HDT IDs, thus the
+ * {@link CompiledFilter} compares IRIs and string prefixes by ID.
+ */
+@Singleton
+@Named("filter")
+@RequiresOperatorFlow(values = {"VECTOR"})
+public class JenaFilterVectorExecutor extends JenaFilterExecutor {
+    @Inject
+    public JenaFilterVectorExecutor(@NonNull OpExecutorDispatcher dispatcher,
+                                    @NonNull HdtQueryService hdtQueryService,
+                                    @Property(name = "sparql.filter.compile", defaultValue = "true")
+                                    boolean compile) {
+        super(dispatcher, hdtQueryService, compile);
+    }
+
+    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding,
+                                                     LookupMemo.@Nullable Stats stats) {
+        Filter filter = (Filter) node;
+        Evaluator evaluator = createEvaluator(filter, binding);
+        var solutions = executeInner(filter, binding, evaluator, stats);
+        if (!(solutions instanceof VectorQuerySolutions in))
+            return filter(evaluator, solutions.iterator());
+        List<String> inVars = evaluator.inVars();
+        int[] columns = filter.filtersVarNames().stream().mapToInt(inVars::indexOf)
+                              .filter(i -> i >= 0).sorted().toArray();
+        return new VectorQuerySolutions(inVars, new VectorQuerySolutions.BatchSource() {
+            private boolean @Nullable[] keep;
+            private @Nullable Term @Nullable[] terms;
+
+            private boolean test(@NonNull IdBatch batch, int row) {
+                if (terms == null)
+                    terms = new Term[batch.width()];
+                for (int column : columns) {
+                    long[] ids = batch.column(column);
+                    TermPosition position = batch.position(column);
+                    long id = ids == null ? 0 : ids[row];
+                    terms[column] = id > 0 && position != null
+                                  ? in.decoder().decode(id, position) : null;
+                }
+                return evaluator.test(terms);
+            }
+
+            @Override public @Nullable IdBatch nextBatch() {
+                for (IdBatch batch = in.nextBatch(); batch != null; batch = in.nextBatch()) {
+                    int count = batch.selectedCount(), kept = 0;
+                    if (keep == null || keep.length < count)
+                        keep = new boolean[batch.capacity()];
+                    for (int i = 0; i < count; i++) {
+                        boolean ok = test(batch, batch.selectedRow(i));
+                        keep[i] = ok;
+                        if (ok) ++kept;
+                    }
+                    if (kept == count)
+                        return batch;
+                    if (kept > 0) {
+                        batch.retain(keep);
+                        return batch;
+                    }
+                }
+                return null;
+            }
+
+            @Override public void close() {
+                in.close();
+            }
+        }, in.decoder());
+    }
+}
@@ -0,0 +1,174 @@
+package com.github.lapesd.hdtss.sparql.impl.group;
+
+import com.github.lapesd.hdtss.model.Term;
+import com.github.lapesd.hdtss.model.nodes.Group;
+import com.github.lapesd.hdtss.sparql.impl.order.OrderKeys;
+import com.github.lapesd.hdtss.utils.JenaUtils;
+import com.github.lapesd.hdtss.vocab.XSD;
+import org.apache.jena.sparql.expr.ExprEvalException;
+import org.apache.jena.sparql.expr.NodeValue;
+import org.apache.jena.sparql.expr.nodevalue.XSDFuncOp;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The state of one {@link Group.Aggregate} for one group.
+ *
+ * As in Jena, an unbound value or an expression error makes {@code SUM}, {@code AVG},
+ * {@code MIN} and {@code MAX} unbound, while {@code COUNT} and {@code SAMPLE} skip such values.
+ */
+abstract class Accumulator {
+    /**
+     * Add the value of the aggregate expression for a row of the group.
+     *
+     * @param value the value of the aggregate expression, null if unbound or an error
+     * @param row the input row, only used by {@code COUNT(DISTINCT *)}.
+     */
+    abstract void add(@Nullable Term value, @Nullable Term @NonNull[] row);
+
+    /** The aggregate value, null if unbound. */
+    abstract @Nullable Term result();
+
+    static @NonNull Accumulator create(Group.@NonNull Aggregate aggregate) {
+        Accumulator accumulator = switch (aggregate.function()) {
+            case COUNT  -> aggregate.expr() == null ? new CountAll() : new Count();
+            case SUM    -> new Sum();
+            case AVG    -> new Avg();
+            case MIN    -> new Extreme(false);
+            case MAX    -> new Extreme(true);
+            case SAMPLE -> new Sample();
+        };
+        if (!aggregate.distinct())
+            return accumulator;
+        return switch (aggregate.function()) {
+            case MIN, MAX, SAMPLE -> accumulator; // DISTINCT makes no difference
+            default -> aggregate.expr() == null ? new DistinctRows(accumulator)
+                                                : new DistinctValues(accumulator);
+        };
+    }
+
+    static @NonNull Term integer(long value) {
+        return new Term("\""+value+"\"^^<"+XSD.integer+">");
+    }
+
+    private static final class CountAll extends Accumulator {
+        private long count;
+
+        @Override void add(@Nullable Term value, @Nullable Term @NonNull[] row) { ++count; }
+        @Override @NonNull Term result() { return integer(count); }
+    }
+
+    private static final class Count extends Accumulator {
+        private long count;
+
+        @Override void add(@Nullable Term value, @Nullable Term @NonNull[] row) {
+            if (value != null)
+                ++count;
+        }
+        @Override @NonNull Term result() { return integer(count); }
+    }
+
+    private static class Sum extends Accumulator {
+        /** The sum so far, null after an error. */
+        protected @Nullable NodeValue sum = NodeValue.nvZERO;
+        protected long count;
+
+        @Override void add(@Nullable Term value, @Nullable Term @NonNull[] row) {
+            if (sum == null)
+                return;
+            NodeValue nv = value == null ? null : NodeValue.makeNode(JenaUtils.toNode(value));
+            if (nv == null || !nv.isNumber()) {
+                sum = null;
+                return;
+            }
+            try {
+                sum = XSDFuncOp.numAdd(sum, nv);
+                ++count;
+            } catch (ExprEvalException e) {
+                sum = null;
+            }
+        }
+
+        @Override @Nullable Term result() {
+            return sum == null ? null : JenaUtils.fromNode(sum.asNode());
+        }
+    }
+
+    private static final class Avg extends Sum {
+        @Override @Nullable Term result() {
+            if (sum == null || count == 0)
+                return super.result();
+            NodeValue avg = XSDFuncOp.numDivide(sum, NodeValue.makeInteger(count));
+            return JenaUtils.fromNode(avg.asNode());
+        }
+    }
+
+    private static final class Extreme extends Accumulator {
+        private final boolean max;
+        private @Nullable Term best;
+        private boolean error;
+
+        Extreme(boolean max) { this.max = max; }
+
+        @Override void add(@Nullable Term value, @Nullable Term @NonNull[] row) {
+            if (error)
+                return;
+            if (value == null) {
+                error = true;
+                best = null;
+            } else if (best == null) {
+                best = value;
+            } else {
+                int diff = OrderKeys.compareTerms(value, best);
+                if (max ? diff > 0 : diff < 0)
+                    best = value;
+            }
+        }
+
+        @Override @Nullable Term result() { return best; }
+    }
+
+    private static final class Sample extends Accumulator {
+        private @Nullable Term sample;
+
+        @Override void add(@Nullable Term value, @Nullable Term @NonNull[] row) {
+            if (sample == null)
+                sample = value;
+        }
+
+        @Override @Nullable Term result() { return sample; }
+    }
+
+    private static final class DistinctValues extends Accumulator {
+        private final @NonNull Accumulator delegate;
+        private final @NonNull Set<Term> seen = new HashSet<>();
+
+        DistinctValues(@NonNull Accumulator delegate) { this.delegate = delegate; }
+
+        @Override void add(@Nullable Term value, @Nullable Term @NonNull[] row) {
+            if (value == null || seen.add(value))
+                delegate.add(value, row);
+        }
+
+        @Override @Nullable Term result() { return delegate.result(); }
+    }
+
+    private static final class DistinctRows extends Accumulator {
+        private final @NonNull Accumulator delegate;
+        private final @NonNull Set<List<Term>> seen = new HashSet<>();
+
+        DistinctRows(@NonNull Accumulator delegate) { this.delegate = delegate; }
+
+        @Override void add(@Nullable Term value, @Nullable Term @NonNull[] row) {
+            if (seen.add(Arrays.asList(row.clone())))
+                delegate.add(value, row);
+        }
+
+        @Override @Nullable Term result() { return delegate.result(); }
+    }
+}
@@ -0,0 +1,83 @@
+package com.github.lapesd.hdtss.sparql.impl.group;
+
+import com.github.lapesd.hdtss.model.Term;
+import com.github.lapesd.hdtss.model.nodes.Group;
+import com.github.lapesd.hdtss.utils.JenaExprEvaluator;
+import com.github.lapesd.hdtss.utils.JenaUtils;
+import org.apache.jena.sparql.expr.Expr;
+import org.apache.jena.sparql.expr.ExprEvalException;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Evaluates the expression of each {@link Group.Aggregate} of a {@link Group} against an
+ * input row.
+ *
+ * Aggregates over a single variable read the row column directly. Other expressions are
+ * evaluated by a {@link JenaExprEvaluator}, at most once per row.
+ */
+final class AggregateInputs {
+    private static final Pattern VAR_RX = Pattern.compile("^\\s*[?$](\\w+)\\s*$");
+
+    private final int @NonNull[] columns;
+    private final @Nullable Expr @NonNull[] exprs;
+    private final @Nullable JenaExprEvaluator evaluator;
+
+    AggregateInputs(@NonNull Group group, @NonNull List<@NonNull String> inVars) {
+        int size = group.aggregates().size(), i = 0;
+        this.columns = new int[size];
+        this.exprs = new Expr[size];
+        boolean hasExprs = false;
+        for (Group.Aggregate aggregate : group.aggregates().values()) {
+            String expr = aggregate.expr();
+            Matcher m = expr == null ? null : VAR_RX.matcher(expr);
+            if (expr == null) {
+                columns[i] = -1;
+            } else if (m.matches()) {
+                columns[i] = inVars.indexOf(m.group(1));
+            } else {
+                columns[i] = -1;
+                exprs[i] = JenaUtils.parseFilter(expr);
+                hasExprs = true;
+            }
+            ++i;
+        }
+        this.evaluator = hasExprs ? new JenaExprEvaluator(inVars) : null;
+    }
+
+    /** Number of aggregates, which is the size of the {@code values} array. */
+    int size() {
+        return columns.length;
+    }
+
+    /**
+     * Evaluate all aggregate expressions against {@code row}.
+     *
+     * @param row the input row, with columns in the order of the {@code inVars} list given
+     *            to the constructor
+     * @param values receives the value of each aggregate expression, which is null if the
+     *               expression is unbound, raises an error or if it is {@code COUNT(*)}.
+     */
+    void evaluate(@Nullable Term @NonNull[] row, @Nullable Term @NonNull[] values) {
+        if (evaluator != null)
+            evaluator.setInput(row);
+        for (int i = 0; i < columns.length; i++) {
+            Expr expr = exprs[i];
+            if (expr == null) {
+                int column = columns[i];
+                values[i] = column < 0 ? null : row[column];
+            } else {
+                assert evaluator != null;
+                try {
+                    values[i] = evaluator.apply(expr);
+                } catch (ExprEvalException e) {
+                    values[i] = null;
+                }
+            }
+        }
+    }
+}
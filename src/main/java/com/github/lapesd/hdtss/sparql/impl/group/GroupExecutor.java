@@ -0,0 +1,153 @@
+package com.github.lapesd.hdtss.sparql.impl.group;
+
+import com.github.lapesd.hdtss.data.query.HdtQueryService;
+import com.github.lapesd.hdtss.model.Term;
+import com.github.lapesd.hdtss.model.TermPosition;
+import com.github.lapesd.hdtss.model.nodes.Filter;
+import com.github.lapesd.hdtss.model.nodes.Group;
+import com.github.lapesd.hdtss.model.nodes.Op;
+import com.github.lapesd.hdtss.model.nodes.TriplePattern;
+import com.github.lapesd.hdtss.model.solutions.BatchQuerySolutions;
+import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
+import com.github.lapesd.hdtss.sparql.OpExecutor;
+import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
+import com.github.lapesd.hdtss.sparql.impl.filter.JenaFilterExecutor;
+import com.github.lapesd.hdtss.utils.Binding;
+import com.github.lapesd.hdtss.utils.JenaUtils;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Base for executors of {@link Group} nodes.
+ *
+ * Solutions of the operand are consumed by a hash aggregation that keeps one set of
+ * accumulators per group. If the {@link Group} only counts the solutions of a single
+ * {@link TriplePattern} (e.g., {@code SELECT (COUNT(*) AS ?c) WHERE {?s ?p <o>}}), the count
+ * is obtained from {@link HdtQueryService#count(TriplePattern)} without enumerating solutions.
+ *
+ * Nodes whose {@link Group#strategy()} is {@link Group.Strategy#STREAM} and which still satisfy
+ * {@link GroupExecutor#streamable(Group, Function, Predicate)} once bound are aggregated one
+ * group at a time, as solutions of the operand arrive, without a hash table.
+ */
+public abstract class GroupExecutor implements OpExecutor {
+    private static final Set<Op.Type> SUPPORTED_TYPES = Set.of(Op.Type.GROUP);
+    private static final Pattern VAR_RX = Pattern.compile("^\\s*[?$](\\w+)\\s*$");
+    protected final @NonNull OpExecutorDispatcher dispatcher;
+    protected final @NonNull HdtQueryService hdtQueryService;
+
+    protected GroupExecutor(@NonNull OpExecutorDispatcher dispatcher,
+                            @NonNull HdtQueryService hdtQueryService) {
+        this.dispatcher = dispatcher;
+        this.hdtQueryService = hdtQueryService;
+        JenaUtils.init();
+    }
+
+    @Override public @NonNull Set<Op.Type> supportedTypes() { return SUPPORTED_TYPES; }
+
+    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding,
+                                                     LookupMemo.@Nullable Stats stats) {
+        Op bound = binding == null ? node : node.bind(binding);
+        if (!(bound instanceof Group group))
+            return dispatcher.execute(bound, null, stats); // aggregate vars need a FILTER
+        QuerySolutions counted = tryCount(group);
+        if (counted != null)
+            return counted;
+        if (group.strategy() == Group.Strategy.STREAM
+                && streamable(group, hdtQueryService::sortedBy,
+                              f -> JenaFilterExecutor.mayScanIndex(f, hdtQueryService))) {
+            return stream(group, stats);
+        }
+        return aggregate(group, stats);
+    }
+
+    /**
+     * Tests whether the solutions of the operand of {@code group} arrive sorted by its single
+     * key var, which allows a {@link Group.Strategy#STREAM} aggregation.
+     *
+     * This holds when the operand is a triple pattern (possibly under FILTERs, projections
+     * and assignments, which preserve order) whose scan is sorted by the position where the
+     * key var occurs. A FILTER directly over the triple pattern breaks the order if its
+     * operand is answered by a range scan or text index lookup instead of a regular scan.
+     *
+     * @param group the GROUP node
+     * @param sortedBy the order in which triple patterns are produced, usually
+     *                 {@link HdtQueryService#sortedBy(TriplePattern)}.
+     * @param mayScanIndex tests whether the operand of a FILTER may be answered by an index
+     *                     scan, usually {@link JenaFilterExecutor#mayScanIndex(Filter,
+     *                     HdtQueryService)}.
+     * @return true iff {@code group} can be aggregated in a single streaming pass.
+     */
+    public static boolean
+    streamable(@NonNull Group group,
+               @NonNull Function<@NonNull TriplePattern, @Nullable TermPosition> sortedBy,
+               @NonNull Predicate<@NonNull Filter> mayScanIndex) {
+        if (group.keys().size() != 1)
+            return false;
+        Op op = group.inner();
+        while (op.type() == Op.Type.FILTER || op.type() == Op.Type.PROJECT
+                                           || op.type() == Op.Type.ASSIGN) {
+            if (op instanceof Filter filter && mayScanIndex.test(filter))
+                return false;
+            op = op.children().get(0);
+        }
+        if (!(op instanceof TriplePattern tp))
+            return false;
+        TermPosition position = sortedBy.apply(tp);
+        if (position == null)
+            return false;
+        Term term = tp.get(position);
+        return term.isVar() && term.content().toString().equals(group.keys().get(0));
+    }
+
+    /** Execute the operand of {@code group} and aggregate its solutions. */
+    protected abstract @NonNull QuerySolutions aggregate(@NonNull Group group,
+                                                         LookupMemo.@Nullable Stats stats);
+
+    /**
+     * Execute the operand of {@code group}, whose solutions arrive sorted by the key, and
+     * output each group as soon as the key changes. See
+     * {@link #streamable(Group, Function, Predicate)}.
+     */
+    protected abstract @NonNull QuerySolutions stream(@NonNull Group group,
+                                                      LookupMemo.@Nullable Stats stats);
+
+    /**
+     * If {@code group} has no keys and only has non-distinct {@code COUNT}s of solutions of a
+     * single triple pattern, get its single solution from the HDT triples index.
+     *
+     * @return the solutions of {@code group} or null if the count is not available.
+     */
+    protected @Nullable QuerySolutions tryCount(@NonNull Group group) {
+        if (!group.keys().isEmpty() || !(group.inner() instanceof TriplePattern tp))
+            return null;
+        for (Group.Aggregate aggregate : group.aggregates().values()) {
+            if (aggregate.function() != Group.Function.COUNT || aggregate.distinct())
+                return null;
+            String expr = aggregate.expr();
+            if (expr != null) {
+                var m = VAR_RX.matcher(expr);
+                if (!m.matches() || !tp.outputVars().contains(m.group(1)))
+                    return null; // COUNT(?var) equals COUNT(*) only if ?var is always bound
+            }
+        }
+        long count = hdtQueryService.count(tp);
+        if (count < 0)
+            return null;
+        List<@Nullable Term @NonNull[]> rows = List.of();
+        if (count > 0 || group.implicit()) {
+            Term[] row = new Term[group.aggregates().size()];
+            Arrays.fill(row, Accumulator.integer(count));
+            rows = Collections.singletonList(row);
+        }
+        return new BatchQuerySolutions(group.outputVars(), rows);
+    }
+}
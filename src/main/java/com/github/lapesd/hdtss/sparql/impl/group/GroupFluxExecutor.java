@@ -0,0 +1,54 @@
+package com.github.lapesd.hdtss.sparql.impl.group;
+
+import com.github.lapesd.hdtss.data.query.HdtQueryService;
+import com.github.lapesd.hdtss.model.Term;
+import com.github.lapesd.hdtss.model.nodes.Group;
+import com.github.lapesd.hdtss.model.solutions.FluxQuerySolutions;
+import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
+import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
+import com.github.lapesd.hdtss.sparql.impl.conditional.RequiresOperatorFlow;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Singleton
+@Named("group")
+@RequiresOperatorFlow(values = {"REACTIVE"})
+public class GroupFluxExecutor extends GroupExecutor {
+    @Inject
+    public GroupFluxExecutor(@NonNull OpExecutorDispatcher dispatcher,
+                             @NonNull HdtQueryService hdtQueryService) {
+        super(dispatcher, hdtQueryService);
+    }
+
+    @Override protected @NonNull QuerySolutions aggregate(@NonNull Group group,
+                                                          LookupMemo.@Nullable Stats stats) {
+        QuerySolutions inner = dispatcher.execute(group.inner(), null, stats);
+        var flux = Flux.defer(() -> {
+            HashAggregator aggregator = new HashAggregator(group, inner.varNames());
+            return inner.flux().doOnNext(aggregator::add).thenMany(Flux.defer(() -> {
+                var it = aggregator.results();
+                return Flux.fromIterable(() -> it);
+            }));
+        });
+        return new FluxQuerySolutions(group.outputVars(), flux);
+    }
+
+    @Override protected @NonNull QuerySolutions stream(@NonNull Group group,
+                                                       LookupMemo.@Nullable Stats stats) {
+        QuerySolutions inner = dispatcher.execute(group.inner(), null, stats);
+        var flux = Flux.defer(() -> {
+            StreamAggregator aggregator = new StreamAggregator(group, inner.varNames());
+            return inner.flux().<Term[]>handle((row, sink) -> {
+                Term[] completed = aggregator.add(row);
+                if (completed != null)
+                    sink.next(completed);
+            }).concatWith(Mono.fromSupplier(aggregator::finish));
+        });
+        return new FluxQuerySolutions(group.outputVars(), flux);
+    }
+}
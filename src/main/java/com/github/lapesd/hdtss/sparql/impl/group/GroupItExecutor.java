@@ -0,0 +1,81 @@
+package com.github.lapesd.hdtss.sparql.impl.group;
+
+import com.github.lapesd.hdtss.data.query.HdtQueryService;
+import com.github.lapesd.hdtss.model.Term;
+import com.github.lapesd.hdtss.model.nodes.Group;
+import com.github.lapesd.hdtss.model.solutions.IteratorQuerySolutions;
+import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
+import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
+import com.github.lapesd.hdtss.sparql.impl.conditional.RequiresOperatorFlow;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+@Singleton
+@Named("group")
+@RequiresOperatorFlow(values = {"ITERATOR", "HEAVY_REACTIVE", "HDT_REACTIVE", "VECTOR"})
+public class GroupItExecutor extends GroupExecutor {
+    @Inject
+    public GroupItExecutor(@NonNull OpExecutorDispatcher dispatcher,
+                           @NonNull HdtQueryService hdtQueryService) {
+        super(dispatcher, hdtQueryService);
+    }
+
+    @Override protected @NonNull QuerySolutions aggregate(@NonNull Group group,
+                                                          LookupMemo.@Nullable Stats stats) {
+        QuerySolutions inner = dispatcher.execute(group.inner(), null, stats);
+        return new IteratorQuerySolutions(group.outputVars(), new Iterator<>() {
+            private @Nullable Iterator<@Nullable Term @NonNull[]> results;
+
+            private @NonNull Iterator<@Nullable Term @NonNull[]> results() {
+                if (results == null) {
+                    HashAggregator aggregator = new HashAggregator(group, inner.varNames());
+                    for (var row : inner)
+                        aggregator.add(row);
+                    results = aggregator.results();
+                }
+                return results;
+            }
+
+            @Override public boolean hasNext() { return results().hasNext(); }
+            @Override public @Nullable Term @NonNull[] next() { return results().next(); }
+        });
+    }
+
+    @Override protected @NonNull QuerySolutions stream(@NonNull Group group,
+                                                       LookupMemo.@Nullable Stats stats) {
+        QuerySolutions inner = dispatcher.execute(group.inner(), null, stats);
+        return new IteratorQuerySolutions(group.outputVars(), new Iterator<>() {
+            private @Nullable StreamAggregator aggregator;
+            private @Nullable Iterator<@Nullable Term @NonNull[]> it;
+            private @Nullable Term @Nullable[] next;
+
+            @Override public boolean hasNext() {
+                if (it == null) {
+                    aggregator = new StreamAggregator(group, inner.varNames());
+                    it = inner.iterator();
+                }
+                assert aggregator != null;
+                while (next == null && it.hasNext())
+                    next = aggregator.add(it.next());
+                if (next == null)
+                    next = aggregator.finish();
+                return next != null;
+            }
+
+            @Override public @Nullable Term @NonNull[] next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                Term[] row = next;
+                next = null;
+                return row;
+            }
+        });
+    }
+}
@@ -0,0 +1,150 @@
+package com.github.lapesd.hdtss.sparql.impl.group;
+
+import com.github.lapesd.hdtss.model.IdSparql;
+import com.github.lapesd.hdtss.model.Term;
+import com.github.lapesd.hdtss.model.nodes.Group;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.*;
+
+/**
+ * Hash aggregation: consumes rows and keeps one array of {@link Accumulator}s per group.
+ *
+ * Groups are hashed by the dictionary IDs of key terms (see {@link IdSparql#idScope()}),
+ * which avoids decoding them. If a key column receives a term whose ID is not comparable
+ * to the previous ones, that column switches to hashing by strings and existing groups are
+ * re-hashed. Groups are output in the order they were first seen.
+ */
+final class HashAggregator {
+    /** Marks a key column whose terms are hashed and compared as strings */
+    private static final Object STRINGS = new Object();
+
+    private final @NonNull Group group;
+    private final int @NonNull[] keyColumns;
+    private final @Nullable Object @NonNull[] scopes;
+    private final @NonNull AggregateInputs inputs;
+    private final @Nullable Term @NonNull[] values;
+    private @NonNull LinkedHashMap<Key, Accumulator[]> groups = new LinkedHashMap<>();
+
+    HashAggregator(@NonNull Group group, @NonNull List<@NonNull String> inVars) {
+        this.group = group;
+        List<@NonNull String> keys = group.keys();
+        this.keyColumns = new int[keys.size()];
+        for (int i = 0; i < keyColumns.length; i++)
+            keyColumns[i] = inVars.indexOf(keys.get(i));
+        this.scopes = new Object[keyColumns.length];
+        this.inputs = new AggregateInputs(group, inVars);
+        this.values = new Term[inputs.size()];
+    }
+
+    /** Number of groups seen so far. */
+    int groups() {
+        return groups.size();
+    }
+
+    void add(@Nullable Term @NonNull[] row) {
+        Term[] keyTerms = new Term[keyColumns.length];
+        for (int i = 0; i < keyColumns.length; i++) {
+            int column = keyColumns[i];
+            Term term = keyTerms[i] = column < 0 ? null : row[column];
+            if (term != null && scopes[i] != STRINGS)
+                checkScope(i, term);
+        }
+        Accumulator[] accumulators = groups.computeIfAbsent(new Key(keyTerms),
+                                                            k -> createAccumulators(group));
+        inputs.evaluate(row, values);
+        for (int i = 0; i < accumulators.length; i++)
+            accumulators[i].add(values[i], row);
+    }
+
+    /**
+     * Get an iterator over the solutions for each group, with columns in the order of
+     * {@link Group#outputVars()}.
+     */
+    @NonNull Iterator<@Nullable Term @NonNull[]> results() {
+        if (groups.isEmpty() && group.implicit())
+            groups.put(new Key(new Term[0]), createAccumulators(group));
+        Iterator<Map.Entry<Key, Accumulator[]>> it = groups.entrySet().iterator();
+        return new Iterator<>() {
+            @Override public boolean hasNext() { return it.hasNext(); }
+            @Override public @Nullable Term @NonNull[] next() {
+                var e = it.next();
+                return result(e.getKey().terms, e.getValue());
+            }
+        };
+    }
+
+    static @NonNull Accumulator @NonNull[] createAccumulators(@NonNull Group group) {
+        Accumulator[] accumulators = new Accumulator[group.aggregates().size()];
+        int i = 0;
+        for (Group.Aggregate aggregate : group.aggregates().values())
+            accumulators[i++] = Accumulator.create(aggregate);
+        return accumulators;
+    }
+
+    static @Nullable Term @NonNull[] result(@Nullable Term @NonNull[] keyTerms,
+                                            @NonNull Accumulator @NonNull[] accumulators) {
+        Term[] row = Arrays.copyOf(keyTerms, keyTerms.length + accumulators.length);
+        for (int i = 0; i < accumulators.length; i++)
+            row[keyTerms.length+i] = accumulators[i].result();
+        return row;
+    }
+
+    private void checkScope(int column, @NonNull Term term) {
+        Object scope = term.sparql() instanceof IdSparql id ? id.idScope() : null;
+        if (scopes[column] == null) { // only unbound values so far, which hash to zero
+            scopes[column] = scope == null ? STRINGS : scope;
+        } else if (!scopes[column].equals(scope)) {
+            scopes[column] = STRINGS;
+            rehash();
+        }
+    }
+
+    private void rehash() {
+        LinkedHashMap<Key, Accumulator[]> old = groups;
+        groups = new LinkedHashMap<>((int)Math.max(16, old.size()/0.75f + 1));
+        for (Map.Entry<Key, Accumulator[]> e : old.entrySet())
+            groups.put(new Key(e.getKey().terms), e.getValue());
+    }
+
+    private final class Key {
+        private final @Nullable Term @NonNull[] terms;
+        private final int hash;
+
+        Key(@Nullable Term @NonNull[] terms) {
+            this.terms = terms;
+            int hash = 1;
+            for (int i = 0; i < terms.length; i++) {
+                Term term = terms[i];
+                int termHash;
+                if (term == null)
+                    termHash = 0;
+                else if (scopes[i] == STRINGS)
+                    termHash = term.hashCode();
+                else
+                    termHash = Long.hashCode(((IdSparql) term.sparql()).idKey());
+                hash = 31*hash + termHash;
+            }
+            this.hash = hash;
+        }
+
+        @Override public int hashCode() { return hash; }
+
+        @Override public boolean equals(Object obj) {
+            if (!(obj instanceof Key k) || k.hash != hash)
+                return false;
+            for (int i = 0; i < terms.length; i++) {
+                Term l = terms[i], r = k.terms[i];
+                if (l == null || r == null) {
+                    if (l != r) return false;
+                } else if (scopes[i] == STRINGS) {
+                    if (!l.equals(r)) return false;
+                } else if (((IdSparql) l.sparql()).idKey() != ((IdSparql) r.sparql()).idKey()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
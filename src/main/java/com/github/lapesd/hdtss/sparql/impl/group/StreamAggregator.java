@@ -0,0 +1,80 @@
+package com.github.lapesd.hdtss.sparql.impl.group;
+
+import com.github.lapesd.hdtss.model.IdSparql;
+import com.github.lapesd.hdtss.model.Term;
+import com.github.lapesd.hdtss.model.nodes.Group;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.List;
+
+/**
+ * Sort-based aggregation for a {@link Group} with a single key whose input rows arrive with
+ * all rows of a group contiguous (e.g., a triple pattern scan sorted by the key var).
+ *
+ * Only the accumulators of the current group are kept. A group is output by
+ * {@link #add(Term[])} as soon as a row with a different key arrives and the last group is
+ * output by {@link #finish()}. Keys are compared by dictionary ID when both terms come from
+ * the same ID space (see {@link IdSparql#idScope()}), else as strings.
+ */
+final class StreamAggregator {
+    private final @NonNull Group group;
+    private final int keyColumn;
+    private final @NonNull AggregateInputs inputs;
+    private final @Nullable Term @NonNull[] values;
+    private @Nullable Term key;
+    private @NonNull Accumulator @Nullable[] accumulators;
+
+    StreamAggregator(@NonNull Group group, @NonNull List<@NonNull String> inVars) {
+        if (group.keys().size() != 1)
+            throw new IllegalArgumentException("Streaming aggregation requires a single key");
+        this.group = group;
+        this.keyColumn = inVars.indexOf(group.keys().get(0));
+        this.inputs = new AggregateInputs(group, inVars);
+        this.values = new Term[inputs.size()];
+    }
+
+    /**
+     * Add a row to the current group or start a new group.
+     *
+     * @return the solution of the previous group, if {@code row} starts a new group, else null.
+     */
+    @Nullable Term @Nullable[] add(@Nullable Term @NonNull[] row) {
+        Term rowKey = keyColumn < 0 ? null : row[keyColumn];
+        Term[] completed = null;
+        if (accumulators == null || !sameKey(key, rowKey)) {
+            if (accumulators != null)
+                completed = HashAggregator.result(new Term[]{key}, accumulators);
+            key = rowKey;
+            accumulators = HashAggregator.createAccumulators(group);
+        }
+        inputs.evaluate(row, values);
+        for (int i = 0; i < accumulators.length; i++)
+            accumulators[i].add(values[i], row);
+        return completed;
+    }
+
+    /**
+     * Get the solution for the last group, if any. Calling {@link #add(Term[])} after this
+     * starts a new group.
+     */
+    @Nullable Term @Nullable[] finish() {
+        if (accumulators == null)
+            return null;
+        Term[] completed = HashAggregator.result(new Term[]{key}, accumulators);
+        accumulators = null;
+        key = null;
+        return completed;
+    }
+
+    private static boolean sameKey(@Nullable Term l, @Nullable Term r) {
+        if (l == null || r == null)
+            return l == r;
+        if (l.sparql() instanceof IdSparql lId && r.sparql() instanceof IdSparql rId) {
+            Object scope = lId.idScope();
+            if (scope != null && scope.equals(rId.idScope()))
+                return lId.idKey() == rId.idKey();
+        }
+        return l.equals(r);
+    }
+}
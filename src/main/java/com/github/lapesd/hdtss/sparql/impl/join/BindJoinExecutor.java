@@ -5,6 +5,7 @@ import com.github.lapesd.hdtss.model.nodes.Op.Type;
 import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
 import com.github.lapesd.hdtss.sparql.OpExecutor;
 import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
 import com.github.lapesd.hdtss.utils.Binding;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
@@ -24,7 +25,8 @@ abstract class BindJoinExecutor implements OpExecutor {
         return SUPPORTED_TYPES;
     }
 
-    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding) {
+    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding,
+                                                     LookupMemo.@Nullable Stats stats) {
         Type type = node.type();
         if (type != Type.JOIN && type != Type.LEFT_JOIN)
             throw new IllegalArgumentException("Expected JOIN or LEFT_JOIN op");
@@ -33,10 +35,24 @@ abstract class BindJoinExecutor implements OpExecutor {
             outVars = binding.unbound(outVars);
             node = node.bind(binding);
         }
-        return execute(type == Type.LEFT_JOIN, node.children(), outVars);
+        return execute(node, outVars, stats);
+    }
+
+    /**
+     * Execute a JOIN or LEFT_JOIN node that is already bound.
+     *
+     * @param node the JOIN or LEFT_JOIN node
+     * @param varNames the output variables of the unbound node that remain unbound.
+     * @param stats the {@link LookupMemo.Stats} of the query, passed to memos and dispatches
+     * @return the solutions for {@code node}
+     */
+    protected @NonNull QuerySolutions execute(@NonNull Op node,
+                                              @NonNull List<@NonNull String> varNames,
+                                              LookupMemo.@Nullable Stats stats) {
+        return execute(node.type() == Type.LEFT_JOIN, node.children(), varNames, stats);
     }
 
     protected abstract @NonNull QuerySolutions
     execute(boolean isLeft, @NonNull List<@NonNull Op> operands,
-            @NonNull List<@NonNull String> varNames);
+            @NonNull List<@NonNull String> varNames, LookupMemo.@Nullable Stats stats);
 }
@@ -1,32 +1,98 @@
 package com.github.lapesd.hdtss.sparql.impl.join;
 
+import com.github.lapesd.hdtss.data.query.HdtQueryService;
+import com.github.lapesd.hdtss.model.Term;
 import com.github.lapesd.hdtss.model.nodes.Op;
 import com.github.lapesd.hdtss.model.solutions.FluxQuerySolutions;
 import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
 import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
+import com.github.lapesd.hdtss.sparql.impl.ExecutorUtils;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
 import com.github.lapesd.hdtss.sparql.impl.conditional.RequiresOperatorFlow;
+import com.github.lapesd.hdtss.utils.QueryExecutionScheduler;
+import io.micronaut.context.annotation.Property;
 import io.micronaut.context.annotation.Requires;
 import jakarta.inject.Inject;
 import jakarta.inject.Named;
 import jakarta.inject.Singleton;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
 
 import java.util.List;
+import java.util.function.Function;
 
+import static java.util.Arrays.copyOf;
+
+/**
+ * Reactive bind join.
+ *
+ * If {@code sparql.join.bind.concurrency} is above 1, up to that many executions of each
+ * right operand run concurrently on the {@link QueryExecutionScheduler}, each for a block
+ * of {@code sparql.join.bind.block-size} left solutions. If {@code sparql.join.bind.ordered}
+ * is true, solutions are delivered in the same order as a sequential bind join, else they
+ * are delivered as soon as any execution produces them. In both cases, no more left
+ * solutions are consumed than needed to satisfy the demand of the downstream subscriber.
+ */
 @Singleton
 @Named("join")
 @RequiresOperatorFlow(values = {"REACTIVE", "HEAVY_REACTIVE"})
 @Requires(property = "sparql.join.strategy", value = "BIND", defaultValue = "BIND")
 public class BindJoinFluxExecutor extends BindJoinItExecutor {
+    private final @NonNull Scheduler scheduler;
+    private final int concurrency;
+    private final boolean ordered;
+
     @Inject
-    public BindJoinFluxExecutor(@NonNull OpExecutorDispatcher dispatcher) {
-        super(dispatcher);
+    public BindJoinFluxExecutor(@NonNull OpExecutorDispatcher dispatcher,
+                                @NonNull HdtQueryService hdtQueryService,
+                                @Property(name = "sparql.join.bind.block-size", defaultValue = "1")
+                                int blockSize,
+                                @Property(name = "sparql.memo.max-rows", defaultValue = "65536")
+                                int memoRows,
+                                @Named(QueryExecutionScheduler.NAME) @NonNull Scheduler scheduler,
+                                @Property(name = "sparql.join.bind.concurrency",
+                                          defaultValue = "1") int concurrency,
+                                @Property(name = "sparql.join.bind.ordered",
+                                          defaultValue = "true") boolean ordered) {
+        super(dispatcher, hdtQueryService, blockSize, memoRows);
+        this.scheduler = scheduler;
+        this.concurrency = concurrency;
+        this.ordered = ordered;
     }
 
     @Override
     protected @NonNull QuerySolutions execute(boolean isLeft, @NonNull List<@NonNull Op> operands,
-                                              @NonNull List<@NonNull String> varNames) {
-        QuerySolutions its = super.execute(isLeft, operands, varNames);
-        return new FluxQuerySolutions(its.varNames(), its.flux());
+                                              @NonNull List<@NonNull String> varNames,
+                                              LookupMemo.@Nullable Stats stats) {
+        if (concurrency <= 1) {
+            QuerySolutions its = super.execute(isLeft, operands, varNames, stats);
+            return new FluxQuerySolutions(its.varNames(), its.flux());
+        }
+        QuerySolutions first = dispatcher.execute(operands.get(0), null, stats);
+        Flux<@Nullable Term @NonNull[]> acc = first.flux();
+        List<@NonNull String> accVars = first.varNames();
+        int blockRows = Math.max(1, blockSize);
+        for (int i = 1, size = operands.size(); i < size; i++) {
+            Op right = operands.get(i);
+            List<@NonNull String> leftVars = accVars;
+            var memo = new LookupMemo<Matches>(memoRows, stats); // shared by concurrent blocks
+            Function<List<@Nullable Term @NonNull[]>, Publisher<@Nullable Term @NonNull[]>>
+                    lookup = block -> Flux.fromIterable(
+                            () -> new BlockStep(block.iterator(), leftVars, right, isLeft, memo)
+                    ).subscribeOn(scheduler);
+            // rows are copied, since they are held until their block is executed
+            var blocks = acc.map(r -> copyOf(r, r.length)).buffer(blockRows);
+            acc = ordered ? blocks.flatMapSequential(lookup, concurrency)
+                          : blocks.flatMap(lookup, concurrency);
+            accVars = joinVars(leftVars, right);
+        }
+        if (!accVars.equals(varNames)) {
+            int[] indices = ExecutorUtils.findIndices(varNames, accVars);
+            acc = acc.map(r -> ExecutorUtils.project(indices, r));
+        }
+        return new FluxQuerySolutions(varNames, acc);
     }
 }
@@ -1,14 +1,19 @@
 package com.github.lapesd.hdtss.sparql.impl.join;
 
+import com.github.lapesd.hdtss.data.query.HdtQueryService;
 import com.github.lapesd.hdtss.model.Row;
 import com.github.lapesd.hdtss.model.Term;
 import com.github.lapesd.hdtss.model.nodes.Op;
+import com.github.lapesd.hdtss.model.nodes.TriplePattern;
 import com.github.lapesd.hdtss.model.solutions.IteratorQuerySolutions;
 import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
 import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
+import com.github.lapesd.hdtss.sparql.impl.ExecutorUtils;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
 import com.github.lapesd.hdtss.sparql.impl.conditional.RequiresOperatorFlow;
 import com.github.lapesd.hdtss.utils.Binding;
 import com.github.lapesd.hdtss.utils.BitsetOps;
+import io.micronaut.context.annotation.Property;
 import io.micronaut.context.annotation.Requires;
 import jakarta.inject.Inject;
 import jakarta.inject.Named;
@@ -17,10 +22,7 @@ import org.checkerframework.checker.nullness.qual.EnsuresNonNullIf;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
-import java.util.Arrays;
-import java.util.Iterator;
-import java.util.List;
-import java.util.NoSuchElementException;
+import java.util.*;
 
 import static com.github.lapesd.hdtss.sparql.impl.ExecutorUtils.project;
 import static com.github.lapesd.hdtss.utils.BitsetOps.*;
@@ -28,15 +30,40 @@ import static java.lang.System.arraycopy;
 import static java.util.Arrays.copyOf;
 import static java.util.Collections.emptyIterator;
 
+/**
+ * Bind join where each right operand is executed bound to the solutions of the operands on
+ * its left.
+ *
+ * If {@code sparql.join.bind.block-size} is above 1, left solutions are consumed in blocks
+ * of that size and each right operand is executed once per distinct binding in the block.
+ * If the right operand is a {@link TriplePattern}, the whole block is sent to
+ * {@link HdtQueryService#queryBlock(TriplePattern, List, List)}, which matches all
+ * bindings without creating bound {@link Op}s. Solutions are then routed back to the left
+ * solutions of the block, in their original order.
+ *
+ * Results of each right operand are memoized in a {@link LookupMemo} of at most
+ * {@code sparql.memo.max-rows} rows, keyed by the values of the left variables it uses.
+ */
 @Singleton
 @Named("join")
 @RequiresOperatorFlow(values = {"ITERATOR", "HDT_REACTIVE"})
 @Requires(property = "sparql.join.strategy", value = "BIND", defaultValue = "BIND")
 public class BindJoinItExecutor extends BindJoinExecutor {
+    protected final @NonNull HdtQueryService hdtQueryService;
+    protected final int blockSize;
+    protected final int memoRows;
 
     @Inject
-    public BindJoinItExecutor(@NonNull OpExecutorDispatcher dispatcher) {
+    public BindJoinItExecutor(@NonNull OpExecutorDispatcher dispatcher,
+                              @NonNull HdtQueryService hdtQueryService,
+                              @Property(name = "sparql.join.bind.block-size", defaultValue = "1")
+                              int blockSize,
+                              @Property(name = "sparql.memo.max-rows", defaultValue = "65536")
+                              int memoRows) {
         super(dispatcher);
+        this.hdtQueryService = hdtQueryService;
+        this.blockSize = blockSize;
+        this.memoRows = memoRows;
     }
 
     private class State implements Iterator<@Nullable Term []> {
@@ -45,9 +72,12 @@ public class BindJoinItExecutor extends BindJoinExecutor {
         final int @NonNull[] indices;
         @NonNull Op op;
         @NonNull Iterator<@Nullable Term []> it;
+        final @NonNull LookupMemo<List<@Nullable Term @NonNull[]>> memo;
+        final int @Nullable[] keyIndices;
         boolean isOptional, hasValue, open = true;
 
-        public State(@Nullable State prev, @NonNull Op op, boolean isOptional) {
+        public State(@Nullable State prev, @NonNull Op op, boolean isOptional,
+                     @NonNull LookupMemo<List<@Nullable Term @NonNull[]>> memo) {
             if (prev != null && prev.isOptional)
                 throw new IllegalArgumentException("optional left operand not supported");
             this.prev = prev;
@@ -78,7 +108,27 @@ public class BindJoinItExecutor extends BindJoinExecutor {
             }
             this.op = op;
             this.isOptional = isOptional;
-            this.it = prev == null ? dispatcher.execute(op).iterator() : emptyIterator();
+            this.memo = memo;
+            this.keyIndices = prev == null ? null
+                            : LookupMemo.keyIndices(Arrays.asList(prev.binding.vars()), op);
+            this.it = prev == null ? dispatch(op).iterator() : emptyIterator();
+        }
+
+        /** Dispatch {@code op} with the {@link LookupMemo.Stats} of {@link #memo} */
+        private @NonNull QuerySolutions dispatch(@NonNull Op op) {
+            return dispatcher.execute(op, null, memo.stats());
+        }
+
+        private @NonNull Iterator<@Nullable Term @NonNull[]>
+        lookup(@NonNull Binding leftBinding) {
+            if (keyIndices == null || !memo.isEnabled())
+                return dispatch(op.bind(leftBinding)).iterator();
+            Row key = LookupMemo.key(keyIndices, leftBinding.terms());
+            List<@Nullable Term @NonNull[]> cached = memo.get(key);
+            if (cached != null)
+                return cached.iterator();
+            var it = dispatch(op.bind(leftBinding)).iterator();
+            return LookupMemo.recording(memo, key, it);
         }
 
         private void merge(@Nullable Term @NonNull[] myRow) {
@@ -104,8 +154,7 @@ public class BindJoinItExecutor extends BindJoinExecutor {
                     merge(it.next());
                     hasValue = true;
                 } else if (prev != null && prev.hasNext()) {
-                    Op bound = op.bind(prev.binding.setTerms(prev.next()));
-                    it = dispatcher.execute(bound).iterator();
+                    it = lookup(prev.binding.setTerms(prev.next()));
                     if (!it.hasNext() && isOptional) {
                         it = Row.SINGLE_EMPTY.iterator();
                     }
@@ -125,17 +174,209 @@ public class BindJoinItExecutor extends BindJoinExecutor {
         }
     }
 
+    /** Solutions of the right operand for one distinct binding of a block. */
+    record Matches(int @NonNull[] outIndices,
+                   @NonNull List<@Nullable Term @NonNull[]> rows) { }
+
+    /** Output variables of joining solutions for {@code leftVars} with {@code right}. */
+    static @NonNull List<@NonNull String> joinVars(@NonNull List<@NonNull String> leftVars,
+                                                   @NonNull Op right) {
+        List<@NonNull String> out = new ArrayList<>(leftVars);
+        for (String name : right.outputVars()) {
+            if (!out.contains(name))
+                out.add(name);
+        }
+        return out;
+    }
+
+    /** Joins blocks of left solutions with a single right operand. */
+    final class BlockStep implements Iterator<@Nullable Term @NonNull[]> {
+        final @NonNull List<@NonNull String> outVars;
+        private final @NonNull Iterator<@Nullable Term @NonNull[]> left;
+        private final @NonNull List<@NonNull String> leftVars;
+        private final @NonNull Op right;
+        private final boolean optional;
+        /** Left variables that occur in the right operand and their indices in leftVars */
+        private final @NonNull List<@NonNull String> keyVars;
+        private final int @NonNull[] keyIndices;
+        private final @NonNull List<@Nullable Term @NonNull[]> block = new ArrayList<>();
+        private final @NonNull List<@NonNull Row> blockKeys = new ArrayList<>();
+        private final @NonNull Map<@NonNull Row, @NonNull Matches> matches = new HashMap<>();
+        /** Matches of previous blocks, only safe to share among steps with same leftVars */
+        private final @NonNull LookupMemo<Matches> memo;
+        private int blockNext, matchNext;
+        private @Nullable Term @Nullable[] leftRow;
+        private @Nullable Matches leftMatches;
+        private boolean leftMatched;
+        private @Nullable Term @Nullable[] next;
+
+        BlockStep(@NonNull Iterator<@Nullable Term @NonNull[]> left,
+                  @NonNull List<@NonNull String> leftVars, @NonNull Op right, boolean optional,
+                  @NonNull LookupMemo<Matches> memo) {
+            this.left = left;
+            this.memo = memo;
+            this.leftVars = leftVars;
+            this.right = right;
+            this.optional = optional;
+            Set<@NonNull String> rightVars = new HashSet<>(right.outputVars());
+            rightVars.addAll(right.inputVars());
+            List<@NonNull String> keyVars = new ArrayList<>();
+            for (String name : leftVars) {
+                if (rightVars.contains(name))
+                    keyVars.add(name);
+            }
+            this.outVars = joinVars(leftVars, right);
+            this.keyVars = keyVars;
+            this.keyIndices = ExecutorUtils.findIndices(keyVars, leftVars);
+        }
+
+        private @NonNull Matches matches(@NonNull List<@NonNull String> vars,
+                                         @NonNull List<@Nullable Term @NonNull[]> rows) {
+            return new Matches(ExecutorUtils.findIndices(vars, outVars), rows);
+        }
+
+        /** Read the next block of left solutions and execute the right operand for it. */
+        private boolean fillBlock() {
+            block.clear();
+            blockKeys.clear();
+            matches.clear();
+            blockNext = 0;
+            List<@NonNull Row> batchable = new ArrayList<>();
+            boolean isTriple = right.type() == Op.Type.TRIPLE;
+            while (block.size() < blockSize && left.hasNext()) {
+                Term[] row = left.next();
+                row = copyOf(row, row.length); // iterators may reuse their arrays
+                Term[] keyTerms = ExecutorUtils.project(keyIndices, row);
+                Row key = new Row(keyTerms);
+                block.add(row);
+                blockKeys.add(key);
+                if (matches.containsKey(key))
+                    continue;
+                Matches cached = memo.get(key);
+                if (cached != null) {
+                    matches.put(key, cached);
+                    continue;
+                }
+                if (isTriple && Arrays.stream(keyTerms).allMatch(Objects::nonNull)) {
+                    batchable.add(key);
+                    matches.put(key, matches(List.of(), List.of())); // placeholder
+                } else {
+                    Op bound = right.bind(new Binding(keyVars, keyTerms));
+                    QuerySolutions sols = dispatcher.execute(bound, null, memo.stats());
+                    Matches m = matches(sols.varNames(), sols.list());
+                    matches.put(key, m);
+                    memo.put(key, m, m.rows.size());
+                }
+            }
+            if (!batchable.isEmpty()) {
+                TriplePattern tp = (TriplePattern) right;
+                var vars = new Binding(keyVars).unbound(tp.outputVars());
+                var keyRows = batchable.stream().map(Row::terms).toList();
+                var results = hdtQueryService.queryBlock(tp, keyVars, keyRows);
+                for (int i = 0, size = batchable.size(); i < size; i++) {
+                    Matches m = matches(vars, results.get(i));
+                    matches.put(batchable.get(i), m);
+                    memo.put(batchable.get(i), m, m.rows.size());
+                }
+            }
+            return !block.isEmpty();
+        }
+
+        /** Merge compatible rows into a new output row, or return null if not compatible. */
+        private @Nullable Term @Nullable[]
+        merge(@Nullable Term @NonNull[] leftRow, @NonNull Matches m,
+              @Nullable Term @NonNull[] rightRow) {
+            Term[] out = copyOf(leftRow, outVars.size());
+            for (int i = 0; i < rightRow.length; i++) {
+                Term term = rightRow[i];
+                if (term == null)
+                    continue;
+                int idx = m.outIndices[i];
+                Term old = out[idx];
+                if (old == null)
+                    out[idx] = term;
+                else if (!old.equals(term))
+                    return null;
+            }
+            return out;
+        }
+
+        @EnsuresNonNullIf(expression = "this.next", result = true)
+        @Override public boolean hasNext() {
+            while (next == null) {
+                Term[] leftRow = this.leftRow;
+                Matches m = this.leftMatches;
+                if (leftRow != null && m != null && matchNext < m.rows.size()) {
+                    next = merge(leftRow, m, m.rows.get(matchNext++));
+                    leftMatched |= next != null;
+                } else {
+                    if (leftRow != null && optional && !leftMatched)
+                        next = copyOf(leftRow, outVars.size());
+                    if (blockNext == block.size() && !fillBlock()) {
+                        this.leftRow = null;
+                        break;
+                    }
+                    this.leftRow = block.get(blockNext);
+                    this.leftMatches = matches.get(blockKeys.get(blockNext++));
+                    matchNext = 0;
+                    leftMatched = false;
+                }
+            }
+            return next != null;
+        }
+
+        @Override public @Nullable Term @NonNull[] next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            Term[] next = this.next;
+            this.next = null;
+            assert next != null;
+            return next;
+        }
+    }
+
+    private @NonNull QuerySolutions executeBlocks(boolean isLeft,
+                                                  @NonNull List<@NonNull Op> operands,
+                                                  @NonNull List<String> varNames,
+                                                  LookupMemo.@Nullable Stats stats) {
+        QuerySolutions first = dispatcher.execute(operands.get(0), null, stats);
+        Iterator<@Nullable Term @NonNull[]> acc = first.iterator();
+        List<@NonNull String> accVars = first.varNames();
+        for (int i = 1, size = operands.size(); i < size; i++) {
+            var memo = new LookupMemo<Matches>(memoRows, stats);
+            var step = new BlockStep(acc, accVars, operands.get(i), isLeft, memo);
+            acc = step;
+            accVars = step.outVars;
+        }
+        if (accVars.equals(varNames))
+            return new IteratorQuerySolutions(varNames, acc);
+        int[] indices = ExecutorUtils.findIndices(varNames, accVars);
+        Iterator<@Nullable Term @NonNull[]> joined = acc;
+        return new IteratorQuerySolutions(varNames, new Iterator<>() {
+            @Override public boolean hasNext() { return joined.hasNext(); }
+            @Override public @Nullable Term @NonNull[] next() {
+                return project(indices, joined.next());
+            }
+        });
+    }
+
     @Override
     protected @NonNull QuerySolutions execute(boolean isLeft, @NonNull List<@NonNull Op> operands,
-                                              @NonNull List<String> varNames) {
+                                              @NonNull List<String> varNames,
+                                              LookupMemo.@Nullable Stats stats) {
+        if (blockSize > 1)
+            return executeBlocks(isLeft, operands, varNames, stats);
+        List<LookupMemo<List<@Nullable Term @NonNull[]>>> memos = new ArrayList<>();
+        for (int i = 0, size = operands.size(); i < size; i++)
+            memos.add(new LookupMemo<>(i == 0 ? 0 : memoRows, stats));
         return new IteratorQuerySolutions(varNames, new Iterator<>() {
             private State last;
             private int[] projection;
 
             private void init() {
                 if (last == null) {
-                    for (Op op : operands)
-                        last = new State(last, op, last != null && isLeft);
+                    for (int i = 0, size = operands.size(); i < size; i++)
+                        last = new State(last, operands.get(i), i > 0 && isLeft, memos.get(i));
                 }
                 assert last != null;
                 Binding lastBinding = last.binding;
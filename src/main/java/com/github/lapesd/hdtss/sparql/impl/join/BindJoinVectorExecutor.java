@@ -0,0 +1,258 @@
+package com.github.lapesd.hdtss.sparql.impl.join;
+
+import com.github.lapesd.hdtss.data.query.HdtQueryService;
+import com.github.lapesd.hdtss.model.Term;
+import com.github.lapesd.hdtss.model.TermPosition;
+import com.github.lapesd.hdtss.model.nodes.Op;
+import com.github.lapesd.hdtss.model.nodes.TriplePattern;
+import com.github.lapesd.hdtss.model.solutions.IdBatch;
+import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
+import com.github.lapesd.hdtss.model.solutions.VectorQuerySolutions;
+import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
+import com.github.lapesd.hdtss.sparql.impl.ExecutorUtils;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
+import com.github.lapesd.hdtss.sparql.impl.conditional.RequiresOperatorFlow;
+import io.micronaut.context.annotation.Property;
+import io.micronaut.context.annotation.Requires;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.rdfhdt.hdt.triples.IteratorTripleID;
+import org.rdfhdt.hdt.triples.TripleID;
+import org.rdfhdt.hdt.triples.Triples;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.github.lapesd.hdtss.model.TermPosition.PRE;
+
+/**
+ * Bind join where the left operand is consumed one {@link IdBatch} at a time and each right
+ * operand that is a {@link TriplePattern} is matched directly against the HDT triples using
+ * the IDs in the left batch columns, without creating {@link Term}s nor bound {@link Op}s.
+ *
+ * OPTIONALs and joins with operands that are not triple patterns are executed row-by-row
+ * as in {@link BindJoinItExecutor}.
+ */
+@Singleton
+@Named("join")
+@RequiresOperatorFlow(values = {"VECTOR"})
+@Requires(property = "sparql.join.strategy", value = "BIND", defaultValue = "BIND")
+public class BindJoinVectorExecutor extends BindJoinItExecutor {
+    private static final @NonNull TermPosition @NonNull[] POSITIONS = TermPosition.values();
+
+    @Inject
+    public BindJoinVectorExecutor(@NonNull OpExecutorDispatcher dispatcher,
+                                  @NonNull HdtQueryService hdtQueryService,
+                                  @Property(name = "sparql.join.bind.block-size",
+                                            defaultValue = "1") int blockSize,
+                                  @Property(name = "sparql.memo.max-rows",
+                                            defaultValue = "65536") int memoRows) {
+        super(dispatcher, hdtQueryService, blockSize, memoRows);
+    }
+
+    @Override
+    protected @NonNull QuerySolutions execute(boolean isLeft, @NonNull List<@NonNull Op> operands,
+                                              @NonNull List<String> varNames,
+                                              LookupMemo.@Nullable Stats stats) {
+        boolean allTriples = !isLeft;
+        for (int i = 0, size = operands.size(); allTriples && i < size; i++)
+            allTriples = operands.get(i).type() == Op.Type.TRIPLE;
+        if (!allTriples)
+            return super.execute(isLeft, operands, varNames, stats);
+        QuerySolutions first = dispatcher.execute(operands.get(0), null, stats);
+        if (!(first instanceof VectorQuerySolutions acc))
+            return super.execute(false, operands, varNames, stats);
+        List<String> accVars = new ArrayList<>(acc.varNames());
+        for (int i = 1, size = operands.size(); i < size; i++) {
+            var source = new BindScan(acc, accVars, (TriplePattern) operands.get(i));
+            acc = new VectorQuerySolutions(List.copyOf(accVars), source, acc.decoder());
+        }
+        if (accVars.equals(varNames))
+            return acc;
+        return acc.project(varNames, ExecutorUtils.findIndices(varNames, accVars));
+    }
+
+    /**
+     * Appends to each row of the left batches the matches of the right triple pattern,
+     * bound with the values of that row.
+     */
+    private final class BindScan implements VectorQuerySolutions.BatchSource {
+        private final @NonNull VectorQuerySolutions left;
+        private final @NonNull Triples triples;
+        private final long nShared;
+        /** ID of right pattern constants for each position, 0 for variables */
+        private final long @NonNull[] template = new long[3];
+        /** For each position, index of the left column bound to it, or -1 */
+        private final int @NonNull[] leftColumn = {-1, -1, -1};
+        /** For each position p, a previous position whose variable is the same, or -1 */
+        private final int @NonNull[] sameAs = {-1, -1, -1};
+        /**
+         * For each left column, the first position of the right pattern with its variable,
+         * or -1. Such columns are output with IDs of that position, taken from the matched
+         * triple, so that rows where the column is unbound get the value from the triple.
+         */
+        private final int @NonNull[] rightPosition;
+        private final int leftWidth;
+        private final @NonNull TermPosition @NonNull[] newVarPositions;
+        private final boolean empty;
+        private @Nullable IdBatch out;
+        private @Nullable IdBatch leftBatch;
+        private int leftIndex, leftRow;
+        private @Nullable IteratorTripleID it;
+        private boolean exhausted;
+
+        BindScan(@NonNull VectorQuerySolutions left, @NonNull List<String> accVars,
+                 @NonNull TriplePattern right) {
+            this.left = left;
+            this.triples = hdtQueryService.hdt().getTriples();
+            this.nShared = hdtQueryService.hdt().getDictionary().getNshared();
+            this.leftWidth = accVars.size();
+            this.rightPosition = new int[leftWidth];
+            Arrays.fill(rightPosition, -1);
+            List<TermPosition> newPositions = new ArrayList<>();
+            List<String> rightVars = new ArrayList<>(3);
+            boolean empty = false;
+            for (TermPosition pos : POSITIONS) {
+                int p = pos.ordinal();
+                Term term = right.get(pos);
+                if (!term.isVar()) {
+                    empty |= (template[p] = hdtQueryService.toHDTId(term, pos)) == -1;
+                    rightVars.add(null);
+                    continue;
+                }
+                String name = term.content().toString();
+                int previous = rightVars.indexOf(name);
+                rightVars.add(name);
+                int leftIdx = accVars.indexOf(name);
+                if (leftIdx >= 0 && leftIdx < leftWidth) {
+                    leftColumn[p] = leftIdx;
+                    sameAs[p] = previous; // matters for rows where the left column is unbound
+                    if (rightPosition[leftIdx] < 0)
+                        rightPosition[leftIdx] = p;
+                } else if (previous >= 0) {
+                    sameAs[p] = previous;
+                } else {
+                    accVars.add(name);
+                    newPositions.add(pos);
+                }
+            }
+            this.empty = empty;
+            this.newVarPositions = newPositions.toArray(TermPosition[]::new);
+        }
+
+        /** Convert a left ID into the ID space of {@code to}, yielding -1 if impossible */
+        private long convert(long id, @NonNull TermPosition from, @NonNull TermPosition to) {
+            if (from == to)
+                return id;
+            if (from != PRE && to != PRE)
+                return id <= nShared ? id : -1; // only shared IDs are both subject and object
+            return hdtQueryService.toHDTId(hdtQueryService.decode(id, from), to);
+        }
+
+        private @Nullable IteratorTripleID search(@NonNull IdBatch batch, int row) {
+            long s = template[0], p = template[1], o = template[2];
+            for (int i = 0; i < 3; i++) {
+                int col = leftColumn[i];
+                long[] column = col < 0 ? null : batch.column(col);
+                if (column == null || column[row] == 0)
+                    continue; // unbound in this row: append() takes the value from the match
+                TermPosition from = batch.position(col);
+                assert from != null;
+                long id = convert(column[row], from, POSITIONS[i]);
+                if (id <= 0)
+                    return null;
+                switch (i) {
+                    case 0 -> s = id;
+                    case 1 -> p = id;
+                    default -> o = id;
+                }
+            }
+            return triples.search(new TripleID(s, p, o));
+        }
+
+        private boolean sharedVarsMatch(@NonNull TripleID t) {
+            for (int i = 0; i < 3; i++) {
+                int j = sameAs[i];
+                // IDs of different positions are only comparable after conversion
+                if (j >= 0 && convert(get(t, j), POSITIONS[j], POSITIONS[i]) != get(t, i))
+                    return false;
+            }
+            return true;
+        }
+
+        private long get(@NonNull TripleID t, int position) {
+            return switch (position) {
+                case 0 -> t.getSubject();
+                case 1 -> t.getPredicate();
+                default -> t.getObject();
+            };
+        }
+
+        private @NonNull IdBatch outBatch(@NonNull IdBatch leftBatch) {
+            if (out == null) {
+                TermPosition[] positions = new TermPosition[leftWidth + newVarPositions.length];
+                for (int i = 0; i < leftWidth; i++) {
+                    TermPosition position = leftBatch.position(i);
+                    if (rightPosition[i] >= 0)
+                        positions[i] = POSITIONS[rightPosition[i]];
+                    else
+                        positions[i] = position == null ? PRE : position; // null columns stay 0
+                }
+                System.arraycopy(newVarPositions, 0, positions, leftWidth,
+                                 newVarPositions.length);
+                out = new IdBatch(positions, IdBatch.DEFAULT_CAPACITY);
+            }
+            return out;
+        }
+
+        @Override public @Nullable IdBatch nextBatch() {
+            if (empty || exhausted)
+                return null;
+            if (out != null)
+                out.clear();
+            while (out == null || !out.isFull()) {
+                IteratorTripleID it = this.it;
+                IdBatch leftBatch = this.leftBatch;
+                if (it != null && leftBatch != null && it.hasNext()) {
+                    TripleID t = it.next();
+                    if (sharedVarsMatch(t))
+                        append(leftBatch, t);
+                } else if (leftBatch != null && leftIndex < leftBatch.selectedCount()) {
+                    leftRow = leftBatch.selectedRow(leftIndex++);
+                    this.it = search(leftBatch, leftRow);
+                } else if ((this.leftBatch = left.nextBatch()) != null) {
+                    leftIndex = 0;
+                    this.it = null;
+                } else {
+                    exhausted = true;
+                    break;
+                }
+            }
+            return out == null || out.size() == 0 ? null : out;
+        }
+
+        @Override public void close() {
+            exhausted = true;
+            left.close();
+        }
+
+        private void append(@NonNull IdBatch leftBatch, @NonNull TripleID t) {
+            IdBatch out = outBatch(leftBatch);
+            int row = out.nextRow();
+            for (int i = 0; i < leftWidth; i++) {
+                long[] column = leftBatch.column(i);
+                if (rightPosition[i] >= 0) // equal to the left value, if bound, after convert()
+                    out.column(i)[row] = get(t, rightPosition[i]);
+                else
+                    out.column(i)[row] = column == null ? 0 : column[leftRow];
+            }
+            for (int i = 0; i < newVarPositions.length; i++)
+                out.column(leftWidth + i)[row] = get(t, newVarPositions[i].ordinal());
+            out.commitRow();
+        }
+    }
+}
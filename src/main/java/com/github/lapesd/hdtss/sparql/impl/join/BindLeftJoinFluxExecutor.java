@@ -1,12 +1,16 @@
 package com.github.lapesd.hdtss.sparql.impl.join;
 
+import com.github.lapesd.hdtss.data.query.HdtQueryService;
 import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
 import com.github.lapesd.hdtss.sparql.impl.conditional.RequiresOperatorFlow;
+import com.github.lapesd.hdtss.utils.QueryExecutionScheduler;
+import io.micronaut.context.annotation.Property;
 import io.micronaut.context.annotation.Requires;
 import jakarta.inject.Inject;
 import jakarta.inject.Named;
 import jakarta.inject.Singleton;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import reactor.core.scheduler.Scheduler;
 
 @Singleton
 @Named("leftJoin")
@@ -14,7 +18,18 @@ import org.checkerframework.checker.nullness.qual.NonNull;
 @Requires(property = "sparql.join.strategy", value = "BIND", defaultValue = "BIND")
 public class BindLeftJoinFluxExecutor extends BindJoinFluxExecutor {
     @Inject
-    public BindLeftJoinFluxExecutor(@NonNull OpExecutorDispatcher dispatcher) {
-        super(dispatcher);
+    public BindLeftJoinFluxExecutor(@NonNull OpExecutorDispatcher dispatcher,
+                                    @NonNull HdtQueryService hdtQueryService,
+                                    @Property(name = "sparql.join.bind.block-size",
+                                              defaultValue = "1") int blockSize,
+                                    @Property(name = "sparql.memo.max-rows",
+                                              defaultValue = "65536") int memoRows,
+                                    @Named(QueryExecutionScheduler.NAME)
+                                    @NonNull Scheduler scheduler,
+                                    @Property(name = "sparql.join.bind.concurrency",
+                                              defaultValue = "1") int concurrency,
+                                    @Property(name = "sparql.join.bind.ordered",
+                                              defaultValue = "true") boolean ordered) {
+        super(dispatcher, hdtQueryService, blockSize, memoRows, scheduler, concurrency, ordered);
     }
 }
@@ -1,7 +1,9 @@
 package com.github.lapesd.hdtss.sparql.impl.join;
 
+import com.github.lapesd.hdtss.data.query.HdtQueryService;
 import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
 import com.github.lapesd.hdtss.sparql.impl.conditional.RequiresOperatorFlow;
+import io.micronaut.context.annotation.Property;
 import io.micronaut.context.annotation.Requires;
 import jakarta.inject.Inject;
 import jakarta.inject.Named;
@@ -10,11 +12,16 @@ import org.checkerframework.checker.nullness.qual.NonNull;
 
 @Singleton
 @Named("leftJoin")
-@RequiresOperatorFlow(operator = "join", values = {"ITERATOR", "HDT_REACTIVE"})
+@RequiresOperatorFlow(operator = "join", values = {"ITERATOR", "HDT_REACTIVE", "VECTOR"})
 @Requires(property = "sparql.join.strategy", value = "BIND", defaultValue = "BIND")
 public class BindLeftJoinItExecutor extends BindJoinItExecutor {
     @Inject
-    public BindLeftJoinItExecutor(@NonNull OpExecutorDispatcher dispatcher) {
-        super(dispatcher);
+    public BindLeftJoinItExecutor(@NonNull OpExecutorDispatcher dispatcher,
+                                  @NonNull HdtQueryService hdtQueryService,
+                                  @Property(name = "sparql.join.bind.block-size",
+                                            defaultValue = "1") int blockSize,
+                                  @Property(name = "sparql.memo.max-rows",
+                                            defaultValue = "65536") int memoRows) {
+        super(dispatcher, hdtQueryService, blockSize, memoRows);
     }
 }
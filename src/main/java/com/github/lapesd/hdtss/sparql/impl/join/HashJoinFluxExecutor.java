@@ -0,0 +1,44 @@
+package com.github.lapesd.hdtss.sparql.impl.join;
+
+import com.github.lapesd.hdtss.data.query.CardinalityEstimator;
+import com.github.lapesd.hdtss.data.query.HdtQueryService;
+import com.github.lapesd.hdtss.model.nodes.Op;
+import com.github.lapesd.hdtss.model.solutions.FluxQuerySolutions;
+import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
+import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
+import com.github.lapesd.hdtss.sparql.impl.conditional.RequiresOperatorFlow;
+import io.micronaut.context.annotation.Property;
+import io.micronaut.context.annotation.Requires;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.List;
+
+@Singleton
+@Named("join")
+@RequiresOperatorFlow(values = {"REACTIVE", "HEAVY_REACTIVE"})
+@Requires(property = "sparql.join.strategy", value = "HASH")
+public class HashJoinFluxExecutor extends HashJoinItExecutor {
+    @Inject
+    public HashJoinFluxExecutor(@NonNull OpExecutorDispatcher dispatcher,
+                                @NonNull HdtQueryService hdtQueryService,
+                                @NonNull CardinalityEstimator estimator,
+                                @Property(name = "sparql.join.bind.block-size", defaultValue = "1")
+                                int blockSize,
+                                @Property(name = "sparql.memo.max-rows", defaultValue = "65536")
+                                int memoRows,
+                                @Property(name = "sparql.join.hash.max-rows",
+                                          defaultValue = "1000000") long maxRows) {
+        super(dispatcher, hdtQueryService, estimator, blockSize, memoRows, maxRows);
+    }
+
+    @Override protected @NonNull QuerySolutions execute(@NonNull Op node,
+                                                        @NonNull List<@NonNull String> varNames,
+                                                        LookupMemo.@Nullable Stats stats) {
+        QuerySolutions its = super.execute(node, varNames, stats);
+        return new FluxQuerySolutions(its.varNames(), its.flux());
+    }
+}
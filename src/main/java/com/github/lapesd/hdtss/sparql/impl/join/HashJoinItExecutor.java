@@ -0,0 +1,419 @@
+package com.github.lapesd.hdtss.sparql.impl.join;
+
+import com.github.lapesd.hdtss.data.query.CardinalityEstimator;
+import com.github.lapesd.hdtss.data.query.HdtQueryService;
+import com.github.lapesd.hdtss.model.Row;
+import com.github.lapesd.hdtss.model.Term;
+import com.github.lapesd.hdtss.model.nodes.Join;
+import com.github.lapesd.hdtss.model.nodes.Op;
+import com.github.lapesd.hdtss.model.solutions.IteratorQuerySolutions;
+import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
+import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
+import com.github.lapesd.hdtss.sparql.impl.ExecutorUtils;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
+import com.github.lapesd.hdtss.sparql.impl.conditional.RequiresOperatorFlow;
+import com.github.lapesd.hdtss.utils.Binding;
+import com.github.lapesd.hdtss.utils.CloseableIterator;
+import com.github.lapesd.hdtss.utils.CloseableUtils;
+import io.micronaut.context.annotation.Property;
+import io.micronaut.context.annotation.Requires;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.*;
+
+import static java.util.Collections.emptyIterator;
+
+/**
+ * Executes each operand of a JOIN or LEFT_JOIN independently and joins their solutions
+ * using a hash table built from the operand estimated to be smaller.
+ *
+ * Operands are joined left-to-right, one pair at a time. If the build side of a pair
+ * yields more than {@code sparql.join.hash.max-rows} solutions, that pair is evaluated as a
+ * bind join, re-using the left solutions already fetched. Operands that require bindings
+ * from the left side (see {@link Op#inputVars()}) and nodes whose {@link Join#strategy()}
+ * is {@link Join.Strategy#BIND} are always evaluated as in {@link BindJoinItExecutor}.
+ */
+@Slf4j
+@Singleton
+@Named("join")
+@RequiresOperatorFlow(values = {"ITERATOR", "HDT_REACTIVE", "VECTOR"})
+@Requires(property = "sparql.join.strategy", value = "HASH")
+public class HashJoinItExecutor extends BindJoinItExecutor {
+    private final @NonNull CardinalityEstimator estimator;
+    private final long maxRows;
+
+    @Inject
+    public HashJoinItExecutor(@NonNull OpExecutorDispatcher dispatcher,
+                              @NonNull HdtQueryService hdtQueryService,
+                              @NonNull CardinalityEstimator estimator,
+                              @Property(name = "sparql.join.bind.block-size", defaultValue = "1")
+                              int blockSize,
+                              @Property(name = "sparql.memo.max-rows", defaultValue = "65536")
+                              int memoRows,
+                              @Property(name = "sparql.join.hash.max-rows", defaultValue = "1000000")
+                              long maxRows) {
+        super(dispatcher, hdtQueryService, blockSize, memoRows);
+        this.estimator = estimator;
+        this.maxRows = maxRows;
+    }
+
+    @Override protected @NonNull QuerySolutions execute(@NonNull Op node,
+                                                        @NonNull List<@NonNull String> varNames,
+                                                        LookupMemo.@Nullable Stats stats) {
+        if (node instanceof Join j && j.strategy() == Join.Strategy.BIND)
+            return super.execute(node, varNames, stats);
+        boolean isLeft = node.type() == Op.Type.LEFT_JOIN;
+        List<@NonNull Op> operands = node.children();
+        QuerySolutions first = dispatcher.execute(operands.get(0), null, stats);
+        Iterator<@Nullable Term @NonNull[]> acc = first.iterator();
+        List<@NonNull String> accVars = first.varNames();
+        long accEstimate = estimator.estimate(operands.get(0));
+        for (int i = 1, size = operands.size(); i < size; i++) {
+            Op right = operands.get(i);
+            long rightEstimate = estimator.estimate(right);
+            var step = new Step(acc, accVars, accEstimate, right, rightEstimate, isLeft, stats);
+            acc = step;
+            accVars = step.outVars;
+            accEstimate = Math.max(accEstimate, rightEstimate);
+        }
+        if (accVars.equals(varNames))
+            return new IteratorQuerySolutions(varNames, acc);
+        int[] indices = ExecutorUtils.findIndices(varNames, accVars);
+        Iterator<@Nullable Term @NonNull[]> joined = acc;
+        return new IteratorQuerySolutions(varNames, new CloseableIterator<>() {
+            @Override public boolean hasNext() { return joined.hasNext(); }
+            @Override public @Nullable Term @NonNull[] next() {
+                return ExecutorUtils.project(indices, joined.next());
+            }
+            @Override public void close() { CloseableUtils.closeIfCloseable(joined); }
+        });
+    }
+
+    private static final class BuildRow {
+        final @Nullable Term @NonNull[] terms;
+        boolean matched;
+
+        BuildRow(@Nullable Term @NonNull[] terms) { this.terms = terms; }
+    }
+
+    /** Hash table of solutions indexed by the values of the join variables. */
+    private static final class Table {
+        private final int @NonNull[] key;
+        private final @NonNull Map<Row, List<BuildRow>> map = new HashMap<>();
+        /** Rows where some join variable is unbound: compatible with any value */
+        private final @NonNull List<BuildRow> partial = new ArrayList<>();
+        private final @NonNull List<BuildRow> all = new ArrayList<>();
+
+        Table(int @NonNull[] key) { this.key = key; }
+
+        int size() { return all.size(); }
+
+        static @Nullable Row key(int @NonNull[] key, @Nullable Term @NonNull[] row) {
+            Term[] terms = new Term[key.length];
+            for (int i = 0; i < key.length; i++) {
+                if ((terms[i] = row[key[i]]) == null)
+                    return null;
+            }
+            return new Row(terms);
+        }
+
+        void add(@Nullable Term @NonNull[] terms) {
+            var row = new BuildRow(terms);
+            all.add(row);
+            Row k = key(key, terms);
+            if (k == null)
+                partial.add(row);
+            else
+                map.computeIfAbsent(k, x -> new ArrayList<>()).add(row);
+        }
+
+        /** Rows that may be compatible with a probe row, given the key of the probe row */
+        @NonNull Iterator<BuildRow> candidates(@Nullable Row probeKey) {
+            if (probeKey == null)
+                return all.iterator();
+            List<BuildRow> exact = map.getOrDefault(probeKey, List.of());
+            if (partial.isEmpty())
+                return exact.iterator();
+            List<BuildRow> list = new ArrayList<>(exact.size() + partial.size());
+            list.addAll(exact);
+            list.addAll(partial);
+            return list.iterator();
+        }
+    }
+
+    private enum Mode {
+        INIT,
+        BUILD_RIGHT,
+        BUILD_LEFT,
+        BIND
+    }
+
+    /** Joins solutions of the left operands with solutions of a single right operand. */
+    private final class Step implements CloseableIterator<@Nullable Term @NonNull[]> {
+        final @NonNull List<@NonNull String> outVars;
+        private final @NonNull Iterator<@Nullable Term @NonNull[]> left;
+        private final @NonNull List<@NonNull String> leftVars;
+        private final @NonNull Op right;
+        private final boolean optional, buildLeft;
+        private final int @NonNull[] leftKey;
+        private final LookupMemo.@Nullable Stats stats;
+        private @NonNull Mode mode = Mode.INIT;
+        private @Nullable List<@NonNull String> rightVars;
+        private int @Nullable[] rightKey, rightOut;
+        private @Nullable Table table;
+        private @NonNull Iterator<@Nullable Term @NonNull[]> bindLeft = emptyIterator();
+        private @NonNull Iterator<@Nullable Term @NonNull[]> rightIt = emptyIterator();
+        private @NonNull Iterator<BuildRow> candidates = emptyIterator();
+        private @Nullable Term @Nullable[] probe;
+        private @Nullable Iterator<BuildRow> unmatched;
+        private @Nullable Term @Nullable[] next;
+        private boolean probeMatched, exhausted;
+
+        Step(@NonNull Iterator<@Nullable Term @NonNull[]> left,
+             @NonNull List<@NonNull String> leftVars, long leftEstimate,
+             @NonNull Op right, long rightEstimate, boolean optional,
+             LookupMemo.@Nullable Stats stats) {
+            this.left = left;
+            this.stats = stats;
+            this.leftVars = leftVars;
+            this.right = right;
+            this.optional = optional;
+            List<@NonNull String> out = new ArrayList<>(leftVars);
+            List<@NonNull String> shared = new ArrayList<>();
+            for (String name : right.outputVars()) {
+                if (leftVars.contains(name)) shared.add(name);
+                else                         out.add(name);
+            }
+            this.outVars = out;
+            this.leftKey = ExecutorUtils.findIndices(shared, leftVars);
+            this.buildLeft = leftEstimate < rightEstimate;
+            if (!right.inputVars().isEmpty()) {
+                bindLeft = left;
+                mode = Mode.BIND;
+            }
+        }
+
+        private void setRightVars(@NonNull List<@NonNull String> vars) {
+            if (vars.equals(rightVars))
+                return;
+            rightVars = vars;
+            rightOut = ExecutorUtils.findIndices(vars, outVars);
+            List<@NonNull String> shared = new ArrayList<>();
+            for (int i : leftKey)
+                shared.add(leftVars.get(i));
+            rightKey = ExecutorUtils.findIndices(shared, vars);
+        }
+
+        /** Dispatch {@code op} with the {@link LookupMemo.Stats} of the query */
+        private @NonNull QuerySolutions dispatch(@NonNull Op op) {
+            return dispatcher.execute(op, null, stats);
+        }
+
+        private void init() {
+            if (buildLeft) {
+                var table = new Table(leftKey);
+                while (left.hasNext()) {
+                    if (table.size() >= maxRows) {
+                        fallback(table);
+                        return;
+                    }
+                    table.add(left.next());
+                }
+                // only dispatch the right side once it is known to be streamed
+                QuerySolutions rightSols = dispatch(right);
+                setRightVars(rightSols.varNames());
+                this.table = table;
+                this.rightIt = rightSols.iterator();
+                this.mode = Mode.BUILD_LEFT;
+            } else {
+                QuerySolutions rightSols = dispatch(right);
+                setRightVars(rightSols.varNames());
+                assert rightKey != null;
+                var table = new Table(rightKey);
+                for (var it = rightSols.iterator(); it.hasNext(); ) {
+                    if (table.size() >= maxRows) {
+                        CloseableUtils.closeIfCloseable(it); // release the partial scan
+                        fallback(null);
+                        return;
+                    }
+                    table.add(it.next());
+                }
+                this.table = table;
+                this.mode = Mode.BUILD_RIGHT;
+            }
+        }
+
+        private void fallback(@Nullable Table leftTable) {
+            log.debug("Hash join build side exceeded {} rows, using bind join for {}",
+                      maxRows, right);
+            table = null;
+            if (leftTable != null) {
+                Iterator<BuildRow> buffered = leftTable.all.iterator();
+                bindLeft = new Iterator<>() {
+                    @Override public boolean hasNext() {
+                        return buffered.hasNext() || left.hasNext();
+                    }
+                    @Override public @Nullable Term @NonNull[] next() {
+                        return buffered.hasNext() ? buffered.next().terms : left.next();
+                    }
+                };
+            } else {
+                bindLeft = left;
+            }
+            mode = Mode.BIND;
+        }
+
+        /** Merge compatible rows into a new output row, or return null if not compatible. */
+        private @Nullable Term @Nullable[]
+        merge(@Nullable Term @NonNull[] leftRow, @Nullable Term @NonNull[] rightRow) {
+            assert rightOut != null;
+            Term[] out = Arrays.copyOf(leftRow, outVars.size());
+            for (int i = 0; i < rightRow.length; i++) {
+                Term term = rightRow[i];
+                if (term == null)
+                    continue;
+                int idx = rightOut[i];
+                Term old = out[idx];
+                if (old == null)
+                    out[idx] = term;
+                else if (!old.equals(term))
+                    return null;
+            }
+            return out;
+        }
+
+        private @Nullable Term @NonNull[] padded(@Nullable Term @NonNull[] leftRow) {
+            return Arrays.copyOf(leftRow, outVars.size());
+        }
+
+        private boolean advanceBuildRight() {
+            while (true) {
+                Term[] probe = this.probe;
+                if (probe != null && candidates.hasNext()) {
+                    Term[] merged = merge(probe, candidates.next().terms);
+                    if (merged != null) {
+                        probeMatched = true;
+                        next = merged;
+                        return true;
+                    }
+                } else {
+                    if (probe != null && optional && !probeMatched) {
+                        this.probe = null;
+                        next = padded(probe);
+                        return true;
+                    }
+                    if (!left.hasNext())
+                        return false;
+                    this.probe = probe = left.next();
+                    probeMatched = false;
+                    assert table != null;
+                    candidates = table.candidates(Table.key(leftKey, probe));
+                }
+            }
+        }
+
+        private boolean advanceBuildLeft() {
+            assert table != null && rightKey != null;
+            while (true) {
+                Term[] probe = this.probe;
+                if (probe != null && candidates.hasNext()) {
+                    BuildRow row = candidates.next();
+                    Term[] merged = merge(row.terms, probe);
+                    if (merged != null) {
+                        row.matched = true;
+                        next = merged;
+                        return true;
+                    }
+                } else if (rightIt.hasNext()) {
+                    this.probe = probe = rightIt.next();
+                    candidates = table.candidates(Table.key(rightKey, probe));
+                } else if (optional) {
+                    if (unmatched == null)
+                        unmatched = table.all.iterator();
+                    while (unmatched.hasNext()) {
+                        BuildRow row = unmatched.next();
+                        if (!row.matched) {
+                            next = padded(row.terms);
+                            return true;
+                        }
+                    }
+                    return false;
+                } else {
+                    return false;
+                }
+            }
+        }
+
+        private boolean advanceBind() {
+            while (true) {
+                Term[] probe = this.probe;
+                if (probe != null && rightIt.hasNext()) {
+                    Term[] merged = merge(probe, rightIt.next());
+                    if (merged != null) {
+                        probeMatched = true;
+                        next = merged;
+                        return true;
+                    }
+                } else {
+                    if (probe != null && optional && !probeMatched) {
+                        this.probe = null;
+                        next = padded(probe);
+                        return true;
+                    }
+                    if (!bindLeft.hasNext())
+                        return false;
+                    this.probe = probe = bindLeft.next();
+                    probeMatched = false;
+                    Op bound = right.bind(new Binding(leftVars, probe));
+                    CloseableUtils.closeIfCloseable(rightIt);
+                    QuerySolutions solutions = dispatch(bound);
+                    setRightVars(solutions.varNames());
+                    rightIt = solutions.iterator();
+                }
+            }
+        }
+
+        @Override public boolean hasNext() {
+            if (next != null)
+                return true;
+            if (exhausted)
+                return false;
+            if (mode == Mode.INIT)
+                init();
+            boolean has = switch (mode) {
+                case BUILD_RIGHT -> advanceBuildRight();
+                case BUILD_LEFT -> advanceBuildLeft();
+                case BIND -> advanceBind();
+                case INIT -> throw new IllegalStateException();
+            };
+            if (!has) {
+                exhausted = true;
+                table = null; // release memory as soon as possible
+            }
+            return has;
+        }
+
+        @Override public @Nullable Term @NonNull[] next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            Term[] next = this.next;
+            this.next = null;
+            assert next != null;
+            return next;
+        }
+
+        @Override public void close() {
+            exhausted = true;
+            next = null;
+            table = null;
+            CloseableUtils.closeIfCloseable(rightIt);
+            rightIt = emptyIterator();
+            CloseableUtils.closeIfCloseable(left);
+        }
+    }
+}
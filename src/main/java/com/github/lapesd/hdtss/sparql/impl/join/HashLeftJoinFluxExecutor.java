@@ -0,0 +1,31 @@
+package com.github.lapesd.hdtss.sparql.impl.join;
+
+import com.github.lapesd.hdtss.data.query.CardinalityEstimator;
+import com.github.lapesd.hdtss.data.query.HdtQueryService;
+import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
+import com.github.lapesd.hdtss.sparql.impl.conditional.RequiresOperatorFlow;
+import io.micronaut.context.annotation.Property;
+import io.micronaut.context.annotation.Requires;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+@Singleton
+@Named("leftJoin")
+@RequiresOperatorFlow(operator = "join", values = {"REACTIVE", "HEAVY_REACTIVE"})
+@Requires(property = "sparql.join.strategy", value = "HASH")
+public class HashLeftJoinFluxExecutor extends HashJoinFluxExecutor {
+    @Inject
+    public HashLeftJoinFluxExecutor(@NonNull OpExecutorDispatcher dispatcher,
+                                    @NonNull HdtQueryService hdtQueryService,
+                                    @NonNull CardinalityEstimator estimator,
+                                    @Property(name = "sparql.join.bind.block-size",
+                                              defaultValue = "1") int blockSize,
+                                    @Property(name = "sparql.memo.max-rows",
+                                              defaultValue = "65536") int memoRows,
+                                    @Property(name = "sparql.join.hash.max-rows",
+                                              defaultValue = "1000000") long maxRows) {
+        super(dispatcher, hdtQueryService, estimator, blockSize, memoRows, maxRows);
+    }
+}
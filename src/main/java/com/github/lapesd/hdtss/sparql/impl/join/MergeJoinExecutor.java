@@ -0,0 +1,310 @@
+package com.github.lapesd.hdtss.sparql.impl.join;
+
+import com.github.lapesd.hdtss.data.query.HdtQueryService;
+import com.github.lapesd.hdtss.model.Term;
+import com.github.lapesd.hdtss.model.TermPosition;
+import com.github.lapesd.hdtss.model.nodes.Join;
+import com.github.lapesd.hdtss.model.nodes.Op;
+import com.github.lapesd.hdtss.model.nodes.TriplePattern;
+import com.github.lapesd.hdtss.model.solutions.IdBatch;
+import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
+import com.github.lapesd.hdtss.model.solutions.VectorQuerySolutions;
+import com.github.lapesd.hdtss.sparql.OpExecutor;
+import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
+import com.github.lapesd.hdtss.sparql.impl.ExecutorUtils;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
+import com.github.lapesd.hdtss.sparql.impl.triple.TriplePatternExecutor;
+import com.github.lapesd.hdtss.utils.Binding;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import static com.github.lapesd.hdtss.model.TermPosition.PRE;
+
+/**
+ * Executes JOIN nodes whose {@link Join#strategy()} is {@link Join.Strategy#MERGE}.
+ *
+ * All operands must be triple patterns whose solutions are sorted by the HDT ID of the same
+ * variable, at the same position (see {@link MergeJoinExecutor#mergeVar(List, Function)}).
+ * Each operand is scanned once, as {@link IdBatch}es, and solutions are the cartesian
+ * products of the groups of rows from each operand that share the ID of the join variable.
+ * Other variables shared by operands are compared for each combination of rows.
+ *
+ * Nodes that do not satisfy these requirements once bound (e.g., the join variable became
+ * bound) are executed by the {@code join} executor without a strategy hint.
+ */
+@Singleton
+@Named("mergeJoin")
+public class MergeJoinExecutor implements OpExecutor {
+    private static final @NonNull Set<Op.Type> SUPPORTED_TYPES = Set.of(Op.Type.JOIN);
+    private final @NonNull OpExecutorDispatcher dispatcher;
+    private final @NonNull HdtQueryService hdtQueryService;
+
+    @Inject
+    public MergeJoinExecutor(@NonNull OpExecutorDispatcher dispatcher,
+                             @NonNull HdtQueryService hdtQueryService) {
+        this.dispatcher = dispatcher;
+        this.hdtQueryService = hdtQueryService;
+    }
+
+    /**
+     * Get the variable on which a merge join of {@code operands} can be done.
+     *
+     * @param operands the operands of a JOIN node
+     * @param sortedBy the order in which triple patterns are produced, usually
+     *                 {@link TriplePatternExecutor#sortedBy(TriplePattern)}.
+     * @return name of the variable that occurs at the same position of all operands,
+     *         which are all triple patterns sorted by that position, or null if there are
+     *         less than two operands or no such variable.
+     */
+    public static @Nullable String
+    mergeVar(@NonNull List<@NonNull Op> operands,
+             @NonNull Function<@NonNull TriplePattern, @Nullable TermPosition> sortedBy) {
+        if (operands.size() < 2)
+            return null;
+        TermPosition position = null;
+        String var = null;
+        for (Op op : operands) {
+            if (op.type() != Op.Type.TRIPLE)
+                return null;
+            TriplePattern tp = (TriplePattern) op;
+            TermPosition sorted = sortedBy.apply(tp);
+            if (sorted == null || (position != null && sorted != position))
+                return null;
+            Term term = tp.get(sorted);
+            if (!term.isVar())
+                return null;
+            String name = term.content().toString();
+            if (var != null && !var.equals(name))
+                return null;
+            position = sorted;
+            var = name;
+        }
+        return var;
+    }
+
+    @Override public @NonNull Set<Op.Type> supportedTypes() {
+        return SUPPORTED_TYPES;
+    }
+
+    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding,
+                                                     LookupMemo.@Nullable Stats stats) {
+        if (node.type() != Op.Type.JOIN)
+            throw new IllegalArgumentException("Expected JOIN op");
+        List<@NonNull String> varNames = node.outputVars();
+        if (binding != null) {
+            varNames = binding.unbound(varNames);
+            node = node.bind(binding);
+        }
+        List<@NonNull Op> operands = node.children();
+        String var = mergeVar(operands, hdtQueryService::sortedBy);
+        if (var == null)
+            return dispatcher.execute(((Join) node).withStrategy(null), null, stats);
+        var merge = new Merge(operands, var);
+        VectorQuerySolutions joined = new VectorQuerySolutions(merge.outVars, merge,
+                                                               merge.decoder());
+        if (merge.outVars.equals(varNames))
+            return joined;
+        return joined.project(varNames, ExecutorUtils.findIndices(varNames, merge.outVars));
+    }
+
+    /** Position in the batches of one operand, keeping a copy of the current group rows. */
+    private static final class Cursor {
+        private final @NonNull VectorQuerySolutions solutions;
+        private final int keyColumn;
+        private final @NonNull List<long @NonNull[]> group = new ArrayList<>();
+        private @Nullable IdBatch batch;
+        private int index;
+        private boolean exhausted;
+
+        Cursor(@NonNull VectorQuerySolutions solutions, int keyColumn) {
+            this.solutions = solutions;
+            this.keyColumn = keyColumn;
+        }
+
+        boolean valid() {
+            while (batch == null || index == batch.selectedCount()) {
+                if (exhausted)
+                    return false;
+                batch = solutions.nextBatch();
+                index = 0;
+                exhausted = batch == null;
+            }
+            return true;
+        }
+
+        long key() {
+            assert batch != null;
+            long[] column = batch.column(keyColumn);
+            assert column != null;
+            return column[batch.selectedRow(index)];
+        }
+
+        /** Skip rows with key below {@code min}, returning false if there are no more rows. */
+        boolean seek(long min) {
+            while (valid() && key() < min)
+                ++index;
+            return valid();
+        }
+
+        /** Copy all rows with the given key into {@code group}. */
+        void collect(long key) {
+            group.clear();
+            while (valid() && key() == key) {
+                assert batch != null;
+                int row = batch.selectedRow(index++), width = batch.width();
+                long[] copy = new long[width];
+                for (int i = 0; i < width; i++) {
+                    long[] column = batch.column(i);
+                    copy[i] = column == null ? 0 : column[row];
+                }
+                group.add(copy);
+            }
+        }
+    }
+
+    /** Merges the sorted operands, producing the rows of the join in {@link IdBatch}es. */
+    private final class Merge implements VectorQuerySolutions.BatchSource {
+        final @NonNull List<@NonNull String> outVars = new ArrayList<>();
+        private final @NonNull List<@NonNull VectorQuerySolutions> inputs = new ArrayList<>();
+        private final @NonNull Cursor @NonNull[] cursors;
+        /** For each operand column, the output column it is written to or compared with */
+        private final int @NonNull[] @NonNull[] outColumn;
+        /** For each operand column, whether an earlier operand already wrote outColumn */
+        private final boolean @NonNull[] @NonNull[] compare;
+        private final @NonNull TermPosition @NonNull[] @NonNull[] positions;
+        private final @NonNull IdBatch out;
+        private final int @NonNull[] combination;
+        private final long nShared;
+        private boolean pending, done;
+
+        Merge(@NonNull List<@NonNull Op> operands, @NonNull String var) {
+            int size = operands.size();
+            this.cursors = new Cursor[size];
+            this.outColumn = new int[size][];
+            this.compare = new boolean[size][];
+            this.positions = new TermPosition[size][];
+            this.combination = new int[size];
+            List<TermPosition> outPositions = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                TriplePattern tp = (TriplePattern) operands.get(i);
+                VectorQuerySolutions solutions = hdtQueryService.queryVector(tp);
+                List<@NonNull String> vars = solutions.varNames();
+                inputs.add(solutions);
+                cursors[i] = new Cursor(solutions, vars.indexOf(var));
+                positions[i] = tp.collectVarsInfo().positions();
+                outColumn[i] = new int[vars.size()];
+                compare[i] = new boolean[vars.size()];
+                for (int j = 0; j < vars.size(); j++) {
+                    String name = vars.get(j);
+                    int idx = outVars.indexOf(name);
+                    if (idx < 0) {
+                        idx = outVars.size();
+                        outVars.add(name);
+                        outPositions.add(positions[i][j]);
+                    } else {
+                        compare[i][j] = !name.equals(var);
+                    }
+                    outColumn[i][j] = idx;
+                }
+            }
+            this.out = new IdBatch(outPositions.toArray(TermPosition[]::new),
+                                   IdBatch.DEFAULT_CAPACITY);
+            this.nShared = hdtQueryService.hdt().getDictionary().getNshared();
+        }
+
+        @NonNull VectorQuerySolutions.Decoder decoder() {
+            return inputs.get(0).decoder();
+        }
+
+        /** Position all cursors at the next key present in all operands and copy groups. */
+        private boolean nextGroup() {
+            if (done)
+                return false;
+            long key = 0;
+            for (boolean aligned = false; !aligned; ) {
+                aligned = true;
+                for (Cursor cursor : cursors) {
+                    if (!cursor.seek(key)) {
+                        close(); // remaining operands cannot produce joined rows
+                        return false;
+                    }
+                    long current = cursor.key(); // >= key, due to seek()
+                    if (current != key) {
+                        aligned = false;
+                        key = current;
+                    }
+                }
+            }
+            for (Cursor cursor : cursors)
+                cursor.collect(key);
+            Arrays.fill(combination, 0);
+            return true;
+        }
+
+        /** Convert an ID between ID spaces, yielding -1 if impossible */
+        private long convert(long id, @NonNull TermPosition from, @NonNull TermPosition to) {
+            if (from == to)
+                return id;
+            if (from != PRE && to != PRE)
+                return id <= nShared ? id : -1; // only shared IDs are both subject and object
+            return hdtQueryService.toHDTId(hdtQueryService.decode(id, from), to);
+        }
+
+        /** Write the current combination at {@code out.nextRow()}, returning false on conflicts */
+        private boolean write() {
+            int row = out.nextRow();
+            for (int i = 0; i < cursors.length; i++) {
+                long[] values = cursors[i].group.get(combination[i]);
+                for (int j = 0; j < values.length; j++) {
+                    int idx = outColumn[i][j];
+                    long[] column = out.column(idx);
+                    assert column != null;
+                    if (!compare[i][j]) {
+                        column[row] = values[j];
+                    } else {
+                        TermPosition from = out.position(idx);
+                        assert from != null;
+                        if (convert(column[row], from, positions[i][j]) != values[j])
+                            return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        /** Advance to the next combination of rows in the current groups */
+        private boolean increment() {
+            for (int i = combination.length-1; i >= 0; i--) {
+                if (++combination[i] < cursors[i].group.size())
+                    return true;
+                combination[i] = 0;
+            }
+            return false;
+        }
+
+        @Override public @Nullable IdBatch nextBatch() {
+            out.clear();
+            while (!out.isFull() && (pending || nextGroup())) {
+                if (write())
+                    out.commitRow();
+                pending = increment();
+            }
+            return out.size() > 0 ? out : null;
+        }
+
+        @Override public void close() {
+            done = true;
+            for (VectorQuerySolutions input : inputs)
+                input.close();
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package com.github.lapesd.hdtss.sparql.impl.minus;
 
+import com.github.lapesd.hdtss.model.Row;
 import com.github.lapesd.hdtss.model.Term;
 import com.github.lapesd.hdtss.model.nodes.Minus;
 import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
 import com.github.lapesd.hdtss.sparql.impl.MinusBinder;
+import io.micronaut.context.annotation.Property;
 import io.micronaut.context.annotation.Requires;
 import jakarta.inject.Inject;
 import org.checkerframework.checker.nullness.qual.NonNull;
@@ -14,15 +17,30 @@ import java.util.function.Predicate;
 @Requires(property = "sparql.minus.strategy", value = "BIND", defaultValue = "BIND")
 public class BindMinusStrategy implements MinusStrategy {
     protected final @NonNull OpExecutorDispatcher dispatcher;
+    protected final int memoRows;
 
     @Inject
-    public BindMinusStrategy(@NonNull OpExecutorDispatcher dispatcher) {
+    public BindMinusStrategy(@NonNull OpExecutorDispatcher dispatcher,
+                             @Property(name = "sparql.memo.max-rows", defaultValue = "65536")
+                             int memoRows) {
         this.dispatcher = dispatcher;
+        this.memoRows = memoRows;
     }
 
     @Override public @NonNull Predicate<@Nullable Term @NonNull[]>
-    createFilter(@NonNull Minus minus) {
+    createFilter(@NonNull Minus minus, LookupMemo.@Nullable Stats stats) {
         var binder = new MinusBinder(minus);
-        return r -> !dispatcher.execute(binder.bind(r)).askResult();
+        var memo = new LookupMemo<Boolean>(memoRows, stats);
+        Predicate<@Nullable Term @NonNull[]> ask
+                = r -> dispatcher.execute(binder.bind(r), null, stats).askResult();
+        if (!memo.isEnabled())
+            return ask.negate();
+        return r -> {
+            Row key = LookupMemo.key(binder.leftIndices(), r);
+            Boolean cached = memo.get(key);
+            if (cached == null)
+                memo.put(key, cached = ask.test(r), 1);
+            return !cached;
+        };
     }
 }
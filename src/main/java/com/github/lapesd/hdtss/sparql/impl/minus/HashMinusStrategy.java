@@ -0,0 +1,63 @@
+package com.github.lapesd.hdtss.sparql.impl.minus;
+
+import com.github.lapesd.hdtss.data.query.CardinalityEstimator;
+import com.github.lapesd.hdtss.model.Term;
+import com.github.lapesd.hdtss.model.nodes.Minus;
+import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
+import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
+import com.github.lapesd.hdtss.sparql.impl.HashSemiJoin;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
+import io.micronaut.context.annotation.Requires;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.Iterator;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Evaluates MINUS as a hash anti-join (see {@link HashSemiJoin}), storing the keys of the
+ * side estimated to be smaller.
+ *
+ * {@link #createFilter(Minus, LookupMemo.Stats)} always stores the right side. The MINUS
+ * executors instead use {@link #filter(Minus, LookupMemo.Stats)}, which may store the left
+ * side.
+ */
+@Singleton
+@Requires(property = "sparql.minus.strategy", value = "HASH")
+public class HashMinusStrategy implements MinusStrategy {
+    private final @NonNull OpExecutorDispatcher dispatcher;
+    private final @NonNull CardinalityEstimator estimator;
+
+    @Inject
+    public HashMinusStrategy(@NonNull OpExecutorDispatcher dispatcher,
+                             @NonNull CardinalityEstimator estimator) {
+        this.dispatcher = dispatcher;
+        this.estimator = estimator;
+    }
+
+    @Override public @NonNull Predicate<@Nullable Term @NonNull[]>
+    createFilter(@NonNull Minus minus, LookupMemo.@Nullable Stats stats) {
+        return new HashSemiJoin(minus.main().outputVars(), right(minus, stats),
+                                HashSemiJoin.Kind.MINUS);
+    }
+
+    /** Get the solutions of {@code minus}. */
+    public @NonNull Iterator<@Nullable Term @NonNull[]>
+    filter(@NonNull Minus minus, LookupMemo.@Nullable Stats stats) {
+        var main = dispatcher.execute(minus.main(), null, stats);
+        var join = new HashSemiJoin(main.varNames(), right(minus, stats),
+                                    HashSemiJoin.Kind.MINUS);
+        boolean buildOuter = estimator.estimate(minus.main())
+                           < estimator.estimate(minus.filter());
+        return join.filter(main.iterator(), buildOuter);
+    }
+
+    /** Lazily dispatch the right side with the {@link LookupMemo.Stats} of this dispatch */
+    private @NonNull Supplier<@NonNull QuerySolutions>
+    right(@NonNull Minus minus, LookupMemo.@Nullable Stats stats) {
+        return () -> dispatcher.execute(minus.filter(), null, stats);
+    }
+}
@@ -1,9 +1,11 @@
 package com.github.lapesd.hdtss.sparql.impl.minus;
 
+import com.github.lapesd.hdtss.model.nodes.Minus;
 import com.github.lapesd.hdtss.model.nodes.Op;
 import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
 import com.github.lapesd.hdtss.sparql.OpExecutor;
 import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
 import com.github.lapesd.hdtss.utils.Binding;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
@@ -25,7 +27,12 @@ abstract class MinusExecutor implements OpExecutor {
         return SUPPORTED_TYPES;
     }
 
-    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding) {
-        return binding == null ? execute(node) : execute(node.bind(binding));
+    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding,
+                                                     LookupMemo.@Nullable Stats stats) {
+        return execute((Minus) (binding == null ? node : node.bind(binding)), stats);
     }
+
+    /** Execute {@code minus}, which has no variables bound by a {@link Binding}. */
+    protected abstract @NonNull QuerySolutions execute(@NonNull Minus minus,
+                                                       LookupMemo.@Nullable Stats stats);
 }
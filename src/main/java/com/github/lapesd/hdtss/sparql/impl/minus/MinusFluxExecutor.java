@@ -2,10 +2,11 @@ package com.github.lapesd.hdtss.sparql.impl.minus;
 
 import com.github.lapesd.hdtss.model.Term;
 import com.github.lapesd.hdtss.model.nodes.Minus;
-import com.github.lapesd.hdtss.model.nodes.Op;
 import com.github.lapesd.hdtss.model.solutions.FluxQuerySolutions;
+import com.github.lapesd.hdtss.model.solutions.IteratorQuerySolutions;
 import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
 import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
 import com.github.lapesd.hdtss.sparql.impl.conditional.RequiresOperatorFlow;
 import jakarta.inject.Inject;
 import jakarta.inject.Named;
@@ -24,9 +25,14 @@ public class MinusFluxExecutor extends MinusExecutor {
         super(dispatcher, strategy);
     }
 
-    @Override public @NonNull QuerySolutions execute(@NonNull Op node) {
-        Predicate<@Nullable Term @NonNull[]> filter = strategy.createFilter((Minus) node);
-        return new FluxQuerySolutions(node.outputVars(),
-                dispatcher.execute(node.children().get(0)).flux().filter(filter));
+    @Override protected @NonNull QuerySolutions execute(@NonNull Minus minus,
+                                                        LookupMemo.@Nullable Stats stats) {
+        if (strategy instanceof HashMinusStrategy hash) {
+            var its = new IteratorQuerySolutions(minus.outputVars(), hash.filter(minus, stats));
+            return new FluxQuerySolutions(its.varNames(), its.flux());
+        }
+        Predicate<@Nullable Term @NonNull[]> filter = strategy.createFilter(minus, stats);
+        return new FluxQuerySolutions(minus.outputVars(),
+                dispatcher.execute(minus.main(), null, stats).flux().filter(filter));
     }
 }
@@ -2,10 +2,10 @@ package com.github.lapesd.hdtss.sparql.impl.minus;
 
 import com.github.lapesd.hdtss.model.Term;
 import com.github.lapesd.hdtss.model.nodes.Minus;
-import com.github.lapesd.hdtss.model.nodes.Op;
 import com.github.lapesd.hdtss.model.solutions.IteratorQuerySolutions;
 import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
 import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
 import com.github.lapesd.hdtss.sparql.impl.conditional.RequiresOperatorFlow;
 import jakarta.inject.Inject;
 import jakarta.inject.Named;
@@ -20,7 +20,7 @@ import java.util.function.Predicate;
 
 @Singleton
 @Named("minus")
-@RequiresOperatorFlow(values = {"ITERATOR", "HDT_REACTIVE"})
+@RequiresOperatorFlow(values = {"ITERATOR", "HDT_REACTIVE", "VECTOR"})
 public class MinusItExecutor extends MinusExecutor {
 
     @Inject public MinusItExecutor(@NonNull OpExecutorDispatcher dispatcher,
@@ -28,10 +28,13 @@ public class MinusItExecutor extends MinusExecutor {
         super(dispatcher, strategy);
     }
 
-    @Override public @NonNull QuerySolutions execute(@NonNull Op node) {
-        Predicate<@Nullable Term @NonNull[]> filter = strategy.createFilter((Minus) node);
-        var it = dispatcher.execute(node.children().get(0)).iterator();
-        return new IteratorQuerySolutions(node.outputVars(), new Iterator<>() {
+    @Override protected @NonNull QuerySolutions execute(@NonNull Minus minus,
+                                                        LookupMemo.@Nullable Stats stats) {
+        if (strategy instanceof HashMinusStrategy hash)
+            return new IteratorQuerySolutions(minus.outputVars(), hash.filter(minus, stats));
+        Predicate<@Nullable Term @NonNull[]> filter = strategy.createFilter(minus, stats);
+        var it = dispatcher.execute(minus.main(), null, stats).iterator();
+        return new IteratorQuerySolutions(minus.outputVars(), new Iterator<>() {
             private @Nullable Term @Nullable[] next = null;
 
             @Override public boolean hasNext() {
@@ -2,6 +2,7 @@ package com.github.lapesd.hdtss.sparql.impl.minus;
 
 import com.github.lapesd.hdtss.model.Term;
 import com.github.lapesd.hdtss.model.nodes.Minus;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
@@ -14,8 +15,10 @@ public interface MinusStrategy {
      * to the {@link Minus} operator.
      *
      * @param minus the {@link Minus} operator being evalauted
+     * @param stats where hits and misses of {@link LookupMemo}s are accounted, if non-null
      * @return A {@link Predicate} that accepts only {@link Minus#main()} solutions that
      *        are not eliminated by {@link Minus#filter()}.
      */
-    @NonNull Predicate<@Nullable Term @NonNull[]> createFilter(@NonNull Minus minus);
+    @NonNull Predicate<@Nullable Term @NonNull[]>
+    createFilter(@NonNull Minus minus, LookupMemo.@Nullable Stats stats);
 }
@@ -6,6 +6,7 @@ import com.github.lapesd.hdtss.model.nodes.Minus;
 import com.github.lapesd.hdtss.model.nodes.Op;
 import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
 import com.github.lapesd.hdtss.sparql.impl.ExecutorUtils;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
 import com.github.lapesd.hdtss.sparql.impl.MinusBinder;
 import com.github.lapesd.hdtss.utils.QueryExecutionScheduler;
 import io.micronaut.context.annotation.Requires;
@@ -41,14 +42,15 @@ public class SetMinusStrategy implements MinusStrategy {
     }
 
     @Override
-    public @NonNull Predicate<@Nullable Term @NonNull[]> createFilter(@NonNull Minus minus) {
+    public @NonNull Predicate<@Nullable Term @NonNull[]>
+    createFilter(@NonNull Minus minus, LookupMemo.@Nullable Stats stats) {
         Op inner = minus.filter();
         var binder = new MinusBinder(minus);
         int[] outerIndices = binder.leftIndices();
         int[] innerIndices = ExecutorUtils.findIndices(binder.sharedVars(), inner.outputVars());
         CompletableFuture<Set<Row>> future = new CompletableFuture<>();
         Set<Row> set = setSupplier.get();
-        dispatcher.execute(inner).flux()
+        dispatcher.execute(inner, null, stats).flux()
                 .subscribeOn(scheduler).subscribe(new Subscriber<>() {
                     @Override public void onNext(@Nullable Term @NonNull[] row) {
                         set.add(new Row(ExecutorUtils.project(innerIndices, row)));
@@ -0,0 +1,41 @@
+package com.github.lapesd.hdtss.sparql.impl.order;
+
+import com.github.lapesd.hdtss.model.nodes.Op;
+import com.github.lapesd.hdtss.model.nodes.Order;
+import com.github.lapesd.hdtss.sparql.OpExecutor;
+import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
+import com.github.lapesd.hdtss.utils.JenaUtils;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Base for executors of {@link Order} nodes.
+ *
+ * If the parent consumes at most {@code sparql.order.max-rows} solutions
+ * (see {@link Order#limit()}), the top solutions are kept in a bounded heap. Else, an external
+ * merge sort spills sorted runs to temporary files once they reach
+ * {@code sparql.order.max-rows} solutions or an estimated {@code sparql.order.max-bytes}.
+ */
+public abstract class OrderExecutor implements OpExecutor {
+    private static final Set<Op.Type> SUPPORTED_TYPES = Set.of(Op.Type.ORDER);
+    protected final @NonNull OpExecutorDispatcher dispatcher;
+    protected final int maxRows;
+    protected final long maxBytes;
+
+    protected OrderExecutor(@NonNull OpExecutorDispatcher dispatcher, int maxRows,
+                            long maxBytes) {
+        this.dispatcher = dispatcher;
+        this.maxRows = maxRows;
+        this.maxBytes = maxBytes;
+        JenaUtils.init();
+    }
+
+    @Override public @NonNull Set<Op.Type> supportedTypes() { return SUPPORTED_TYPES; }
+
+    protected @NonNull RowSorter createSorter(@NonNull Order order,
+                                              @NonNull List<@NonNull String> inVars) {
+        return new RowSorter(order, inVars, maxRows, maxBytes, RowSorter.MAX_FAN_IN);
+    }
+}
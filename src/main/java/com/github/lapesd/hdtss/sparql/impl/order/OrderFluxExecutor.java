@@ -0,0 +1,45 @@
+package com.github.lapesd.hdtss.sparql.impl.order;
+
+import com.github.lapesd.hdtss.model.nodes.Op;
+import com.github.lapesd.hdtss.model.nodes.Order;
+import com.github.lapesd.hdtss.model.solutions.FluxQuerySolutions;
+import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
+import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
+import com.github.lapesd.hdtss.sparql.impl.conditional.RequiresOperatorFlow;
+import com.github.lapesd.hdtss.utils.Binding;
+import io.micronaut.context.annotation.Property;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import reactor.core.publisher.Flux;
+
+@Singleton
+@Named("order")
+@RequiresOperatorFlow(values = {"REACTIVE"})
+public class OrderFluxExecutor extends OrderExecutor {
+    @Inject
+    public OrderFluxExecutor(@NonNull OpExecutorDispatcher dispatcher,
+                             @Property(name = "sparql.order.max-rows", defaultValue = "65536")
+                             int maxRows,
+                             @Property(name = "sparql.order.max-bytes", defaultValue = "67108864")
+                             long maxBytes) {
+        super(dispatcher, maxRows, maxBytes);
+    }
+
+    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding,
+                                                     LookupMemo.@Nullable Stats stats) {
+        Order order = (Order) (binding == null ? node : node.bind(binding));
+        QuerySolutions inner = dispatcher.execute(order.inner(), null, stats);
+        var outVars = binding == null ? node.outputVars() : binding.unbound(node.outputVars());
+        var flux = Flux.using(() -> createSorter(order, inner.varNames()),
+                sorter -> inner.flux().doOnNext(sorter::add).thenMany(Flux.defer(() -> {
+                    var it = sorter.iterator();
+                    return Flux.fromIterable(() -> it);
+                })),
+                RowSorter::close);
+        return new FluxQuerySolutions(outVars, flux);
+    }
+}
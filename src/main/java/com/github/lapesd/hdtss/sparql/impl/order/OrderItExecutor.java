@@ -0,0 +1,77 @@
+package com.github.lapesd.hdtss.sparql.impl.order;
+
+import com.github.lapesd.hdtss.model.Term;
+import com.github.lapesd.hdtss.model.nodes.Op;
+import com.github.lapesd.hdtss.model.nodes.Order;
+import com.github.lapesd.hdtss.model.solutions.IteratorQuerySolutions;
+import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
+import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
+import com.github.lapesd.hdtss.sparql.impl.conditional.RequiresOperatorFlow;
+import com.github.lapesd.hdtss.utils.Binding;
+import com.github.lapesd.hdtss.utils.CloseableIterator;
+import io.micronaut.context.annotation.Property;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+@Singleton
+@Named("order")
+@RequiresOperatorFlow(values = {"ITERATOR", "HEAVY_REACTIVE", "HDT_REACTIVE", "VECTOR"})
+public class OrderItExecutor extends OrderExecutor {
+    @Inject
+    public OrderItExecutor(@NonNull OpExecutorDispatcher dispatcher,
+                           @Property(name = "sparql.order.max-rows", defaultValue = "65536")
+                           int maxRows,
+                           @Property(name = "sparql.order.max-bytes", defaultValue = "67108864")
+                           long maxBytes) {
+        super(dispatcher, maxRows, maxBytes);
+    }
+
+    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding,
+                                                     LookupMemo.@Nullable Stats stats) {
+        Order order = (Order) (binding == null ? node : node.bind(binding));
+        QuerySolutions inner = dispatcher.execute(order.inner(), null, stats);
+        var outVars = binding == null ? node.outputVars() : binding.unbound(node.outputVars());
+        return new IteratorQuerySolutions(outVars, new CloseableIterator<>() {
+            private @Nullable CloseableIterator<@Nullable Term @NonNull[]> sorted;
+            private boolean closed;
+
+            private @NonNull Iterator<@Nullable Term @NonNull[]> sorted() {
+                if (sorted == null) {
+                    RowSorter sorter = createSorter(order, inner.varNames());
+                    try {
+                        for (var row : inner)
+                            sorter.add(row);
+                        sorted = sorter.iterator();
+                    } catch (Throwable t) {
+                        sorter.close();
+                        throw t;
+                    }
+                }
+                return sorted;
+            }
+
+            @Override public boolean hasNext() { return !closed && sorted().hasNext(); }
+
+            @Override public @Nullable Term @NonNull[] next() {
+                if (closed)
+                    throw new NoSuchElementException();
+                return sorted().next();
+            }
+
+            @Override public void close() {
+                if (closed)
+                    return;
+                closed = true;
+                if (sorted != null)
+                    sorted.close(); // closes the sorter, its open runs and spill files
+            }
+        });
+    }
+}
@@ -0,0 +1,121 @@
+package com.github.lapesd.hdtss.sparql.impl.order;
+
+import com.github.lapesd.hdtss.model.Term;
+import com.github.lapesd.hdtss.model.nodes.Order;
+import com.github.lapesd.hdtss.utils.JenaExprEvaluator;
+import com.github.lapesd.hdtss.utils.JenaUtils;
+import org.apache.jena.sparql.expr.Expr;
+import org.apache.jena.sparql.expr.ExprEvalException;
+import org.apache.jena.sparql.expr.ExprNotComparableException;
+import org.apache.jena.sparql.expr.NodeValue;
+import org.apache.jena.sparql.util.NodeUtils;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares rows according to the {@link Order.Condition}s of an {@link Order} node.
+ *
+ * Conditions that are a single variable compare the row column directly. Other conditions
+ * are evaluated once per row by {@link #extend(Term[])}, which appends the resulting
+ * {@link Term}s as extra columns. This comparator must only be applied to extended rows,
+ * and {@link #strip(Term[])} removes the extra columns.
+ *
+ * Terms are ordered as in SPARQL ORDER BY: unbound values (or expression errors) first,
+ * then blank nodes, IRIs and literals. Literals are compared by value when possible.
+ */
+public final class OrderKeys implements Comparator<@Nullable Term @NonNull[]> {
+    private static final Pattern VAR_RX = Pattern.compile("^\\s*[?$](\\w+)\\s*$");
+
+    private final int width;
+    private final int @NonNull[] columns;
+    private final boolean @NonNull[] descending;
+    private final @NonNull Expr @NonNull[] exprs;
+    private final @Nullable JenaExprEvaluator evaluator;
+
+    OrderKeys(@NonNull Order order, @NonNull List<@NonNull String> inVars) {
+        List<Order.Condition> conditions = order.conditions();
+        int size = conditions.size();
+        this.width = inVars.size();
+        this.columns = new int[size];
+        this.descending = new boolean[size];
+        List<Expr> exprs = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Order.Condition c = conditions.get(i);
+            descending[i] = c.descending();
+            Matcher m = VAR_RX.matcher(c.expr());
+            int idx = m.matches() ? inVars.indexOf(m.group(1)) : -1;
+            if (idx >= 0) {
+                columns[i] = idx;
+            } else {
+                columns[i] = width + exprs.size();
+                exprs.add(JenaUtils.parseFilter(c.expr()));
+            }
+        }
+        this.exprs = exprs.toArray(Expr[]::new);
+        this.evaluator = exprs.isEmpty() ? null : new JenaExprEvaluator(inVars);
+    }
+
+    /** Get {@code row} with one extra column for each condition that is not a single var. */
+    @Nullable Term @NonNull[] extend(@Nullable Term @NonNull[] row) {
+        if (evaluator == null)
+            return row;
+        Term[] extended = Arrays.copyOf(row, width + exprs.length);
+        evaluator.setInput(row);
+        for (int i = 0; i < exprs.length; i++) {
+            try {
+                extended[width+i] = evaluator.apply(exprs[i]);
+            } catch (ExprEvalException e) {
+                extended[width+i] = null;
+            }
+        }
+        return extended;
+    }
+
+    /** Reverts {@link #extend(Term[])}. */
+    @Nullable Term @NonNull[] strip(@Nullable Term @NonNull[] extended) {
+        return extended.length == width ? extended : Arrays.copyOf(extended, width);
+    }
+
+    @Override public int compare(@Nullable Term @NonNull[] l, @Nullable Term @NonNull[] r) {
+        for (int i = 0; i < columns.length; i++) {
+            int diff = compareTerms(l[columns[i]], r[columns[i]]);
+            if (diff != 0)
+                return descending[i] ? -diff : diff;
+        }
+        return 0;
+    }
+
+    private static int rank(@NonNull Term term) {
+        return switch (term.type()) {
+            case VAR, BLANK -> 1;
+            case URI        -> 2;
+            case LITERAL    -> 3;
+        };
+    }
+
+    public static int compareTerms(@Nullable Term l, @Nullable Term r) {
+        if (l == null || r == null)
+            return l == null ? (r == null ? 0 : -1) : 1;
+        int lRank = rank(l), diff = lRank - rank(r);
+        if (diff != 0)
+            return diff;
+        if (lRank != 3)
+            return CharSequence.compare(l.sparql(), r.sparql());
+        if (l.isStringLiteral() && r.isStringLiteral())
+            return CharSequence.compare(l.unescapedContent(), r.unescapedContent());
+        NodeValue lValue = NodeValue.makeNode(JenaUtils.toNode(l));
+        NodeValue rValue = NodeValue.makeNode(JenaUtils.toNode(r));
+        try {
+            return NodeValue.compareAlways(lValue, rValue);
+        } catch (ExprNotComparableException e) {
+            return NodeUtils.compareRDFTerms(lValue.asNode(), rValue.asNode());
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.github.lapesd.hdtss.sparql.impl.order;
+
+import com.github.lapesd.hdtss.model.IdSparql;
+import com.github.lapesd.hdtss.model.Term;
+import com.github.lapesd.hdtss.model.nodes.Order;
+import com.github.lapesd.hdtss.utils.CloseableIterator;
+import lombok.extern.slf4j.Slf4j;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Collects rows and yields them sorted by the conditions of an {@link Order}.
+ *
+ * If {@link Order#limit()} is at most {@code maxRows}, only the first {@code limit} rows are
+ * kept, in a bounded heap. Otherwise, rows are accumulated into runs of up to
+ * {@code maxRows} rows or an estimated {@code maxBytes} (see {@link #estimateBytes(Term[])}).
+ * Once a run is full it is sorted and spilled to a temporary file.
+ * The {@link #iterator()} merges the spilled runs with the last in-memory run. If there are
+ * more than {@link #MAX_FAN_IN} runs, groups of runs are first merged into longer spilled
+ * runs, so that no more than {@link #MAX_FAN_IN} files are open at once.
+ *
+ * Spilled files are deleted once opened for merging or by {@link #close()}. Open runs are
+ * closed when the iterator is exhausted, fails or is closed, or by {@link #close()}.
+ */
+@Slf4j
+class RowSorter implements AutoCloseable {
+    /** Maximum number of runs merged at once */
+    static final int MAX_FAN_IN = 64;
+    /** Estimated bytes used by a row array, beyond its references */
+    private static final int ROW_BYTES = 16;
+    /** Estimated bytes used by a term, beyond the chars of its string */
+    private static final int TERM_BYTES = 80;
+
+    private final @NonNull OrderKeys keys;
+    private final long limit;
+    private final int maxRows, maxFanIn;
+    private final long maxBytes;
+    private long runBytes;
+    private final @Nullable PriorityQueue<@Nullable Term @NonNull[]> heap;
+    private @NonNull ArrayList<@Nullable Term @NonNull[]> run = new ArrayList<>();
+    private final @NonNull List<@NonNull Path> spilled = new ArrayList<>();
+    private final @NonNull List<@NonNull Closeable> open = new ArrayList<>();
+
+    RowSorter(@NonNull Order order, @NonNull List<@NonNull String> inVars, int maxRows,
+              int maxFanIn) {
+        this(order, inVars, maxRows, Long.MAX_VALUE, maxFanIn);
+    }
+
+    RowSorter(@NonNull Order order, @NonNull List<@NonNull String> inVars, int maxRows,
+              long maxBytes, int maxFanIn) {
+        this.keys = new OrderKeys(order, inVars);
+        this.limit = order.limit();
+        this.maxRows = Math.max(1, maxRows);
+        this.maxBytes = Math.max(1, maxBytes);
+        this.maxFanIn = Math.max(2, maxFanIn);
+        this.heap = limit <= this.maxRows ? new PriorityQueue<>((int)limit+1, keys.reversed())
+                                          : null;
+    }
+
+    /**
+     * Estimated number of bytes used by {@code row} while held in memory. Terms whose
+     * {@link IdSparql} was not decoded yet are counted without chars, as decoding them just
+     * to estimate their size would defeat lazy materialization.
+     */
+    static long estimateBytes(@Nullable Term @NonNull[] row) {
+        long bytes = ROW_BYTES + 8L*row.length;
+        for (Term term : row) {
+            if (term == null)
+                continue;
+            bytes += TERM_BYTES;
+            CharSequence sparql = term.sparql();
+            if (!(sparql instanceof IdSparql id) || id.isDecoded())
+                bytes += 2L*sparql.length();
+        }
+        return bytes;
+    }
+
+    /** Number of runs spilled to disk so far. */
+    int spilledRuns() { return spilled.size(); }
+
+    /** Add a row to be sorted. The array must not be modified afterwards. */
+    void add(@Nullable Term @NonNull[] row) {
+        var extended = keys.extend(row);
+        if (heap != null) {
+            if (heap.size() < limit) {
+                heap.add(extended);
+            } else if (keys.compare(extended, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(extended);
+            }
+        } else {
+            run.add(extended);
+            runBytes += estimateBytes(extended);
+            if (run.size() >= maxRows || runBytes >= maxBytes)
+                spill();
+        }
+    }
+
+    /**
+     * Iterate over all added rows in sorted order. Must be called once, after all adds.
+     *
+     * The iterator closes this {@link RowSorter} once exhausted and when closed.
+     */
+    @NonNull CloseableIterator<@Nullable Term @NonNull[]> iterator() {
+        if (heap != null) {
+            List<Term[]> sorted = new ArrayList<>(heap);
+            heap.clear();
+            sorted.sort(keys);
+            return new Sorted(sorted.iterator());
+        }
+        run.sort(keys);
+        if (spilled.isEmpty())
+            return new Sorted(limit(run.iterator()));
+        try {
+            while (spilled.size() + 1 > maxFanIn)
+                mergePass();
+            List<Iterator<Term[]>> runs = new ArrayList<>(spilled.size()+1);
+            for (Path path : spilled)
+                runs.add(read(path));
+            spilled.clear();
+            runs.add(run.iterator());
+            run = new ArrayList<>();
+            return new Sorted(limit(new MergeIterator(runs)));
+        } catch (Throwable t) {
+            close();
+            throw t;
+        }
+    }
+
+    /** Replace the first {@link #maxFanIn} spilled runs with a single merged run. */
+    private void mergePass() {
+        List<Iterator<Term[]>> runs = new ArrayList<>(maxFanIn);
+        for (int i = 0; i < maxFanIn; i++)
+            runs.add(read(spilled.remove(0))); // read() deletes the file
+        spilled.add(write(limit(new MergeIterator(runs))));
+        closeOpen(); // all runs of the group were consumed (or truncated by the limit)
+    }
+
+    /** Yields the sorted rows without sort keys and closes the sorter once exhausted */
+    private final class Sorted implements CloseableIterator<@Nullable Term @NonNull[]> {
+        private final @NonNull Iterator<@Nullable Term @NonNull[]> it;
+        private boolean closed;
+
+        Sorted(@NonNull Iterator<@Nullable Term @NonNull[]> it) { this.it = it; }
+
+        @Override public boolean hasNext() {
+            if (closed)
+                return false;
+            try {
+                if (it.hasNext())
+                    return true;
+            } catch (Throwable t) {
+                close();
+                throw t;
+            }
+            close();
+            return false;
+        }
+
+        @Override public @Nullable Term @NonNull[] next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            try {
+                return keys.strip(it.next());
+            } catch (Throwable t) {
+                close();
+                throw t;
+            }
+        }
+
+        @Override public void close() {
+            if (!closed) {
+                closed = true;
+                RowSorter.this.close();
+            }
+        }
+    }
+
+    private void closeOpen() {
+        for (Closeable closeable : open) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                log.warn("Ignoring failure to close sorted run: {}", e.toString());
+            }
+        }
+        open.clear();
+    }
+
+    @Override public void close() {
+        closeOpen();
+        for (Path path : spilled)
+            delete(path);
+        spilled.clear();
+        run = new ArrayList<>();
+        runBytes = 0;
+    }
+
+    private @NonNull Iterator<@Nullable Term @NonNull[]>
+    limit(@NonNull Iterator<@Nullable Term @NonNull[]> it) {
+        if (limit == Long.MAX_VALUE)
+            return it;
+        return new Iterator<>() {
+            private long remaining = limit;
+            @Override public boolean hasNext() { return remaining > 0 && it.hasNext(); }
+            @Override public @Nullable Term @NonNull[] next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                --remaining;
+                return it.next();
+            }
+        };
+    }
+
+    private void spill() {
+        run.sort(keys);
+        Path path = write(run.iterator());
+        spilled.add(path);
+        log.debug("Spilled sorted run of {} rows (~{} bytes) to {}", run.size(), runBytes, path);
+        run = new ArrayList<>(run.size());
+        runBytes = 0;
+    }
+
+    /** Write sorted rows into a new temporary file */
+    private @NonNull Path write(@NonNull Iterator<@Nullable Term @NonNull[]> rows) {
+        Path path = null;
+        try {
+            path = Files.createTempFile("hdtss-order-", ".run");
+            try (var out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(path)))) {
+                while (rows.hasNext()) {
+                    Term[] row = rows.next();
+                    out.writeInt(row.length);
+                    for (Term term : row) {
+                        if (term == null) {
+                            out.writeInt(-1);
+                        } else {
+                            byte[] utf8 = term.sparql().toString().getBytes(UTF_8);
+                            out.writeInt(utf8.length);
+                            out.write(utf8);
+                        }
+                    }
+                }
+                out.writeInt(-1);
+            }
+            return path;
+        } catch (IOException e) {
+            if (path != null)
+                delete(path);
+            throw new UncheckedIOException("Could not spill sorted run to disk", e);
+        }
+    }
+
+    private @NonNull Iterator<@Nullable Term @NonNull[]> read(@NonNull Path path) {
+        DataInputStream in;
+        try {
+            in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read sorted run at "+path, e);
+        }
+        open.add(in);
+        delete(path); // on POSIX systems the open stream remains readable
+        return new Iterator<>() {
+            private @Nullable Term @Nullable[] next = readRow();
+
+            private @Nullable Term @Nullable[] readRow() {
+                try {
+                    int columns = in.readInt();
+                    if (columns < 0)
+                        return null;
+                    Term[] row = new Term[columns];
+                    for (int i = 0; i < columns; i++) {
+                        int length = in.readInt();
+                        if (length >= 0) {
+                            byte[] utf8 = in.readNBytes(length);
+                            row[i] = new Term(new String(utf8, UTF_8));
+                        }
+                    }
+                    return row;
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not read sorted run at "+path, e);
+                }
+            }
+
+            @Override public boolean hasNext() { return next != null; }
+
+            @Override public @Nullable Term @NonNull[] next() {
+                Term[] row = next;
+                if (row == null)
+                    throw new NoSuchElementException();
+                next = readRow();
+                return row;
+            }
+        };
+    }
+
+    private static void delete(@NonNull Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            path.toFile().deleteOnExit();
+        }
+    }
+
+    /** k-way merge of sorted iterators */
+    private final class MergeIterator implements Iterator<@Nullable Term @NonNull[]> {
+        private record Head(@Nullable Term @NonNull[] row,
+                            @NonNull Iterator<@Nullable Term @NonNull[]> it) { }
+        private final @NonNull PriorityQueue<Head> queue;
+
+        MergeIterator(@NonNull List<Iterator<@Nullable Term @NonNull[]>> runs) {
+            queue = new PriorityQueue<>(runs.size(), (l, r) -> keys.compare(l.row, r.row));
+            for (var it : runs) {
+                if (it.hasNext())
+                    queue.add(new Head(it.next(), it));
+            }
+        }
+
+        @Override public boolean hasNext() {
+            return !queue.isEmpty();
+        }
+
+        @Override public @Nullable Term @NonNull[] next() {
+            Head head = queue.poll();
+            if (head == null)
+                throw new NoSuchElementException();
+            if (head.it.hasNext())
+                queue.add(new Head(head.it.next(), head.it));
+            return head.row;
+        }
+    }
+}
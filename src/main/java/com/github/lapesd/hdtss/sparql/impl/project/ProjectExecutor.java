@@ -1,10 +1,20 @@
 package com.github.lapesd.hdtss.sparql.impl.project;
 
+import com.github.lapesd.hdtss.model.Term;
 import com.github.lapesd.hdtss.model.nodes.Op.Type;
+import com.github.lapesd.hdtss.model.solutions.IteratorQuerySolutions;
+import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
 import com.github.lapesd.hdtss.sparql.OpExecutor;
 import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
+import com.github.lapesd.hdtss.sparql.impl.ExecutorUtils;
+import com.github.lapesd.hdtss.utils.CloseableIterator;
+import com.github.lapesd.hdtss.utils.CloseableUtils;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 abstract class ProjectExecutor implements OpExecutor {
@@ -18,4 +28,24 @@ abstract class ProjectExecutor implements OpExecutor {
     @Override public @NonNull Set<Type> supportedTypes() {
         return SUPPORTED_TYPES;
     }
+
+    /**
+     * Solutions with the {@link ExecutorUtils#project(int[], Term[])} of each row in
+     * {@code it}. Closing the iterator of the result closes {@code it}.
+     */
+    protected static @NonNull QuerySolutions
+    project(@NonNull List<@NonNull String> outVars, int @NonNull[] indices,
+            @NonNull Iterator<@Nullable Term @NonNull[]> it) {
+        return new IteratorQuerySolutions(outVars, new CloseableIterator<>() {
+            @Override public boolean hasNext() {return it.hasNext();}
+            @Override public @Nullable Term @NonNull[] next() {
+                if (!it.hasNext())
+                    throw new NoSuchElementException();
+                return ExecutorUtils.project(indices, it.next());
+            }
+            @Override public void close() {
+                CloseableUtils.closeIfCloseable(it);
+            }
+        });
+    }
 }
@@ -5,6 +5,7 @@ import com.github.lapesd.hdtss.model.solutions.FluxQuerySolutions;
 import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
 import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
 import com.github.lapesd.hdtss.sparql.impl.ExecutorUtils;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
 import com.github.lapesd.hdtss.sparql.impl.conditional.RequiresOperatorFlow;
 import com.github.lapesd.hdtss.utils.Binding;
 import jakarta.inject.Inject;
@@ -24,7 +25,8 @@ public class ProjectFluxExecutor extends ProjectExecutor {
     @Inject
     public ProjectFluxExecutor(@NonNull OpExecutorDispatcher dispatcher) { super(dispatcher); }
 
-    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding) {
+    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding,
+                                                     LookupMemo.@Nullable Stats stats) {
         Op inner = node.children().get(0);
         List<@NonNull String> outVars = node.outputVars(), innerVars = inner.outputVars();
         if (binding != null) {
@@ -32,7 +34,7 @@ public class ProjectFluxExecutor extends ProjectExecutor {
             innerVars = binding.unbound(innerVars);
         }
         int[] indices = ExecutorUtils.findIndices(outVars, innerVars);
-        var flux = dispatcher.execute(inner, binding).flux().map(r -> project(indices, r));
+        var flux = dispatcher.execute(inner, binding, stats).flux().map(r -> project(indices, r));
         return new FluxQuerySolutions(outVars, flux);
     }
 }
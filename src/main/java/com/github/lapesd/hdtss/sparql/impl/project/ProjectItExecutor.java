@@ -1,11 +1,10 @@
 package com.github.lapesd.hdtss.sparql.impl.project;
 
-import com.github.lapesd.hdtss.model.Term;
 import com.github.lapesd.hdtss.model.nodes.Op;
-import com.github.lapesd.hdtss.model.solutions.IteratorQuerySolutions;
 import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
 import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
 import com.github.lapesd.hdtss.sparql.impl.ExecutorUtils;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
 import com.github.lapesd.hdtss.sparql.impl.conditional.RequiresOperatorFlow;
 import com.github.lapesd.hdtss.utils.Binding;
 import jakarta.inject.Inject;
@@ -14,9 +13,7 @@ import jakarta.inject.Singleton;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
-import java.util.Iterator;
 import java.util.List;
-import java.util.NoSuchElementException;
 
 @Singleton
 @Named("project")
@@ -28,7 +25,8 @@ public class ProjectItExecutor extends ProjectExecutor {
         super(dispatcher);
     }
 
-    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding) {
+    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding,
+                                                     LookupMemo.@Nullable Stats stats) {
         Op inner = node.children().get(0);
         List<@NonNull String> outVars = node.outputVars(), innerVars = inner.outputVars();
         if (binding != null) {
@@ -36,15 +34,7 @@ public class ProjectItExecutor extends ProjectExecutor {
             innerVars = binding.unbound(innerVars);
         }
         int[] indices = ExecutorUtils.findIndices(outVars, innerVars);
-        var it = dispatcher.execute(inner, binding).iterator();
-        return new IteratorQuerySolutions(outVars, new Iterator<>() {
-            @Override public boolean hasNext() {return it.hasNext();}
-            @Override public @Nullable Term @NonNull[] next() {
-                if (!it.hasNext())
-                    throw new NoSuchElementException();
-                return ExecutorUtils.project(indices, it.next());
-            }
-        });
+        return project(outVars, indices, dispatcher.execute(inner, binding, stats).iterator());
     }
 
 }
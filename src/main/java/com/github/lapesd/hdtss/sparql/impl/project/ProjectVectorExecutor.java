@@ -0,0 +1,42 @@
+package com.github.lapesd.hdtss.sparql.impl.project;
+
+import com.github.lapesd.hdtss.model.nodes.Op;
+import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
+import com.github.lapesd.hdtss.model.solutions.VectorQuerySolutions;
+import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
+import com.github.lapesd.hdtss.sparql.impl.ExecutorUtils;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
+import com.github.lapesd.hdtss.sparql.impl.conditional.RequiresOperatorFlow;
+import com.github.lapesd.hdtss.utils.Binding;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.List;
+
+@Singleton
+@Named("project")
+@RequiresOperatorFlow(values = {"VECTOR"})
+public class ProjectVectorExecutor extends ProjectExecutor {
+    @Inject
+    public ProjectVectorExecutor(@NonNull OpExecutorDispatcher dispatcher) {
+        super(dispatcher);
+    }
+
+    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding,
+                                                     LookupMemo.@Nullable Stats stats) {
+        Op inner = node.children().get(0);
+        List<@NonNull String> outVars = node.outputVars(), innerVars = inner.outputVars();
+        if (binding != null) {
+            outVars = binding.unbound(outVars);
+            innerVars = binding.unbound(innerVars);
+        }
+        int[] indices = ExecutorUtils.findIndices(outVars, innerVars);
+        QuerySolutions solutions = dispatcher.execute(inner, binding, stats);
+        if (solutions instanceof VectorQuerySolutions in)
+            return in.project(outVars, indices);
+        return project(outVars, indices, solutions.iterator());
+    }
+}
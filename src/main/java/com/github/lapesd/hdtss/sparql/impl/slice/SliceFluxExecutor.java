@@ -5,6 +5,7 @@ import com.github.lapesd.hdtss.model.nodes.Slice;
 import com.github.lapesd.hdtss.model.solutions.FluxQuerySolutions;
 import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
 import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
 import com.github.lapesd.hdtss.sparql.impl.conditional.RequiresOperatorFlow;
 import com.github.lapesd.hdtss.utils.Binding;
 import jakarta.inject.Inject;
@@ -21,9 +22,10 @@ public class SliceFluxExecutor extends SliceExecutor{
         super(dispatcher);
     }
 
-    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding) {
+    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding,
+                                                     LookupMemo.@Nullable Stats stats) {
         Slice slice = (Slice) node;
-        var flux = dispatcher.execute(slice.inner(), binding).flux();
+        var flux = dispatcher.execute(slice.inner(), binding, stats).flux();
         var outVars = binding == null ? slice.outputVars() : binding.unbound(slice.outputVars());
         return new FluxQuerySolutions(outVars,
                                       flux.skip(slice.offset()).take(slice.limit()));
@@ -6,15 +6,17 @@ import com.github.lapesd.hdtss.model.nodes.Slice;
 import com.github.lapesd.hdtss.model.solutions.IteratorQuerySolutions;
 import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
 import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
 import com.github.lapesd.hdtss.sparql.impl.conditional.RequiresOperatorFlow;
 import com.github.lapesd.hdtss.utils.Binding;
+import com.github.lapesd.hdtss.utils.CloseableIterator;
+import com.github.lapesd.hdtss.utils.CloseableUtils;
 import jakarta.inject.Inject;
 import jakarta.inject.Named;
 import jakarta.inject.Singleton;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
-import java.util.Iterator;
 import java.util.NoSuchElementException;
 
 @Singleton
@@ -27,12 +29,13 @@ public class SliceItExecutor extends SliceExecutor {
         super(dispatcher);
     }
 
-    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding) {
+    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding,
+                                                     LookupMemo.@Nullable Stats stats) {
         Slice slice = (Slice) node;
         long offset = slice.offset(), end = offset + slice.limit();
-        var it = dispatcher.execute(slice.inner(), binding).iterator();
+        var it = dispatcher.execute(slice.inner(), binding, stats).iterator();
         var outVars = binding == null ? slice.outputVars() : binding.unbound(slice.outputVars());
-        return new IteratorQuerySolutions(outVars, new Iterator<>() {
+        return new IteratorQuerySolutions(outVars, new CloseableIterator<>() {
             private long cursor = 0;
 
             @Override public boolean hasNext() {
@@ -40,7 +43,15 @@ public class SliceItExecutor extends SliceExecutor {
                     it.next();
                     ++cursor;
                 }
-                return cursor != end && it.hasNext();
+                if (cursor == end) {
+                    close(); // release resources held by the unconsumed solutions
+                    return false;
+                }
+                return it.hasNext();
+            }
+
+            @Override public void close() {
+                CloseableUtils.closeIfCloseable(it);
             }
 
             @Override public @Nullable Term @NonNull[] next() {
@@ -0,0 +1,66 @@
+package com.github.lapesd.hdtss.sparql.impl.slice;
+
+import com.github.lapesd.hdtss.model.nodes.Op;
+import com.github.lapesd.hdtss.model.nodes.Slice;
+import com.github.lapesd.hdtss.model.solutions.IdBatch;
+import com.github.lapesd.hdtss.model.solutions.IteratorQuerySolutions;
+import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
+import com.github.lapesd.hdtss.model.solutions.VectorQuerySolutions;
+import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
+import com.github.lapesd.hdtss.sparql.impl.conditional.RequiresOperatorFlow;
+import com.github.lapesd.hdtss.utils.Binding;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+@Singleton
+@Named("slice")
+@RequiresOperatorFlow(values = {"VECTOR"})
+public class SliceVectorExecutor extends SliceExecutor {
+    @Inject
+    public SliceVectorExecutor(@NonNull OpExecutorDispatcher dispatcher) {
+        super(dispatcher);
+    }
+
+    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding,
+                                                     LookupMemo.@Nullable Stats stats) {
+        Slice slice = (Slice) node;
+        long offset = slice.offset(), limit = slice.limit();
+        long end = limit > Long.MAX_VALUE - offset ? Long.MAX_VALUE : offset + limit;
+        var solutions = dispatcher.execute(slice.inner(), binding, stats);
+        var outVars = binding == null ? slice.outputVars() : binding.unbound(slice.outputVars());
+        if (!(solutions instanceof VectorQuerySolutions in)) {
+            var it = solutions.stream().skip(offset).limit(limit).iterator();
+            return new IteratorQuerySolutions(outVars, it);
+        }
+        return new VectorQuerySolutions(outVars, new VectorQuerySolutions.BatchSource() {
+            private long cursor = 0;
+
+            @Override public @Nullable IdBatch nextBatch() {
+                while (cursor < end) {
+                    IdBatch batch = in.nextBatch();
+                    if (batch == null)
+                        return null;
+                    int count = batch.selectedCount();
+                    int from = (int) Math.min(count, Math.max(0, offset - cursor));
+                    int to = (int) Math.min(count, end - cursor);
+                    cursor += count;
+                    if (from < to) {
+                        if (from > 0 || to < count)
+                            batch.retainRange(from, to);
+                        return batch;
+                    }
+                }
+                close(); // release resources held by the unconsumed solutions
+                return null; // do not pull more batches once the limit is reached
+            }
+
+            @Override public void close() {
+                in.close();
+            }
+        }, in.decoder());
+    }
+}
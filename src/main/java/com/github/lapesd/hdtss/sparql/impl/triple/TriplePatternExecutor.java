@@ -1,9 +1,14 @@
 package com.github.lapesd.hdtss.sparql.impl.triple;
 
 import com.github.lapesd.hdtss.data.query.HdtQueryService;
+import com.github.lapesd.hdtss.model.TermPosition;
+import com.github.lapesd.hdtss.model.nodes.Filter;
 import com.github.lapesd.hdtss.model.nodes.Op;
+import com.github.lapesd.hdtss.model.nodes.TriplePattern;
 import com.github.lapesd.hdtss.sparql.OpExecutor;
+import com.github.lapesd.hdtss.sparql.impl.filter.JenaFilterExecutor;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.Set;
 
@@ -18,4 +23,27 @@ public abstract class TriplePatternExecutor implements OpExecutor {
     @Override public @NonNull Set<Op.Type> supportedTypes() {
         return SUPPORTED_TYPES;
     }
+
+    /**
+     * The position by whose HDT IDs solutions produced by {@code execute(tp)} are sorted.
+     *
+     * @param tp the triple pattern to be executed
+     * @return the position of {@code tp} that defines the order of solutions, or null if
+     *         their order is not known. See {@link HdtQueryService#sortedBy(TriplePattern)}.
+     */
+    public @Nullable TermPosition sortedBy(@NonNull TriplePattern tp) {
+        return hdtQueryService.sortedBy(tp);
+    }
+
+    /**
+     * Whether the operand of {@code filter}, if a triple pattern, may be answered by an index
+     * scan, which does not follow {@link #sortedBy(TriplePattern)}.
+     *
+     * @param filter a FILTER node
+     * @return true iff solutions of the operand of {@code filter} may arrive out of order.
+     *         See {@link JenaFilterExecutor#mayScanIndex(Filter, HdtQueryService)}.
+     */
+    public boolean mayScanIndex(@NonNull Filter filter) {
+        return JenaFilterExecutor.mayScanIndex(filter, hdtQueryService);
+    }
 }
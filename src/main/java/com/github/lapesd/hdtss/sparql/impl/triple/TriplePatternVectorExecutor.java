@@ -0,0 +1,35 @@
+package com.github.lapesd.hdtss.sparql.impl.triple;
+
+import com.github.lapesd.hdtss.data.query.HdtQueryService;
+import com.github.lapesd.hdtss.model.nodes.Op;
+import com.github.lapesd.hdtss.model.nodes.TriplePattern;
+import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
+import com.github.lapesd.hdtss.sparql.impl.conditional.RequiresOperatorFlow;
+import com.github.lapesd.hdtss.utils.Binding;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+@Singleton
+@Named("triple")
+@RequiresOperatorFlow(operator = "hdt", values = {"VECTOR"})
+public class TriplePatternVectorExecutor extends TriplePatternExecutor {
+    @Inject
+    public TriplePatternVectorExecutor(@NonNull HdtQueryService hdtQueryService) {
+        super(hdtQueryService);
+    }
+
+    @Override public @NonNull QuerySolutions execute(@NonNull Op node) {
+        return hdtQueryService.queryVector((TriplePattern) node);
+    }
+
+    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding,
+                                                     LookupMemo.@Nullable Stats stats) {
+        if (binding != null)
+            node = node.bind(binding);
+        return hdtQueryService.queryVector((TriplePattern) node);
+    }
+}
@@ -5,6 +5,7 @@ import com.github.lapesd.hdtss.model.nodes.Op.Type;
 import com.github.lapesd.hdtss.model.solutions.FluxQuerySolutions;
 import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
 import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
 import com.github.lapesd.hdtss.sparql.impl.conditional.RequiresOperatorFlow;
 import com.github.lapesd.hdtss.utils.Binding;
 import jakarta.inject.Inject;
@@ -21,13 +22,14 @@ public class UnionFluxExecutor extends UnionExecutor {
     @Inject
     public UnionFluxExecutor(@NonNull OpExecutorDispatcher dispatcher) {super(dispatcher);}
 
-    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding) {
+    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding,
+                                                     LookupMemo.@Nullable Stats stats) {
         if (node.type() != Type.UNION)
             throw new IllegalArgumentException("node is not Union");
         var exposedVars = binding == null ? node.outputVars() : binding.unbound(node.outputVars());
         var merge = Flux.merge(Flux.fromIterable(node.children())
                 .map(n -> {
-                    var sols = dispatcher.execute(n, binding);
+                    var sols = dispatcher.execute(n, binding, stats);
                     return sols.flux().map(new TermsOrder(exposedVars).reset(sols.varNames()));
                 }));
         return new FluxQuerySolutions(exposedVars, merge);
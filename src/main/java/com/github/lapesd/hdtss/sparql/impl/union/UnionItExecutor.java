@@ -5,6 +5,7 @@ import com.github.lapesd.hdtss.model.nodes.Op;
 import com.github.lapesd.hdtss.model.solutions.IteratorQuerySolutions;
 import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
 import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
 import com.github.lapesd.hdtss.sparql.impl.conditional.RequiresOperatorFlow;
 import com.github.lapesd.hdtss.utils.Binding;
 import jakarta.inject.Inject;
@@ -19,12 +20,13 @@ import java.util.NoSuchElementException;
 
 @Singleton
 @Named("union")
-@RequiresOperatorFlow(values = {"ITERATOR", "HEAVY_REACTIVE", "HDT_REACTIVE"})
+@RequiresOperatorFlow(values = {"ITERATOR", "HEAVY_REACTIVE", "HDT_REACTIVE", "VECTOR"})
 public class UnionItExecutor extends UnionExecutor {
     @Inject
     public UnionItExecutor(@NonNull OpExecutorDispatcher dispatcher) {super(dispatcher);}
 
-    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding) {
+    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding,
+                                                     LookupMemo.@Nullable Stats stats) {
         if (node.type() != Op.Type.UNION)
             throw new IllegalArgumentException("node is not a Union");
         var exposedVars = binding == null ? node.outputVars() : binding.unbound(node.outputVars());
@@ -41,7 +43,7 @@ public class UnionItExecutor extends UnionExecutor {
                         if (!nodeIt.hasNext())
                             return false;
                         Op nextNode = nodeIt.next();
-                        QuerySolutions solutions = dispatcher.execute(nextNode, binding);
+                        QuerySolutions solutions = dispatcher.execute(nextNode, binding, stats);
                         order.reset(solutions.varNames());
                         solutionIt = solutions.iterator();
                     }
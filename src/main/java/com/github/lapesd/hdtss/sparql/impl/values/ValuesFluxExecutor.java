@@ -6,6 +6,7 @@ import com.github.lapesd.hdtss.model.solutions.BatchQuerySolutions;
 import com.github.lapesd.hdtss.model.solutions.FluxQuerySolutions;
 import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
 import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
 import com.github.lapesd.hdtss.sparql.impl.conditional.RequiresOperatorFlow;
 import com.github.lapesd.hdtss.utils.Binding;
 import jakarta.inject.Inject;
@@ -23,18 +24,20 @@ public class ValuesFluxExecutor extends ValuesExecutor {
         super(dispatcher);
     }
 
-    @Override public @NonNull QuerySolutions execute(@NonNull Op node) {
+    private @NonNull QuerySolutions executeUnbound(@NonNull Op node,
+                                                   LookupMemo.@Nullable Stats stats) {
         Op inner = node.children().get(0);
         BatchQuerySolutions values = ((Values) node).values();
         @NonNull String @NonNull[] valuesVars = values.varNames().toArray(String[]::new);
         var flux = values.flux().map(t -> new Binding(valuesVars, t))
-                .flatMap(b -> dispatcher.execute(inner.bind(b)).flux());
+                .flatMap(b -> dispatcher.execute(inner.bind(b), null, stats).flux());
         return new FluxQuerySolutions(node.outputVars(), flux);
     }
 
-    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding) {
+    @Override public @NonNull QuerySolutions execute(@NonNull Op node, @Nullable Binding binding,
+                                                     LookupMemo.@Nullable Stats stats) {
         if (binding == null || binding.isEmpty())
-            return execute(node);
+            return executeUnbound(node, stats);
         Op inner = node.children().get(0);
         BatchQuerySolutions values = ((Values) node).values();
         Binding augmented = augment(values.varNames(), binding);
@@ -42,7 +45,7 @@ public class ValuesFluxExecutor extends ValuesExecutor {
             Binding copy = new Binding(augmented);
             System.arraycopy(row, 0, copy.terms(), 0, row.length);
             return copy;
-        }).flatMap(b -> dispatcher.execute(inner, b).flux());
+        }).flatMap(b -> dispatcher.execute(inner, b, stats).flux());
         return new FluxQuerySolutions(node.outputVars(), flux);
     }
 }
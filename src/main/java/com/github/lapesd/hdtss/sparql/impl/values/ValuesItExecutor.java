@@ -6,6 +6,7 @@ import com.github.lapesd.hdtss.model.nodes.Values;
 import com.github.lapesd.hdtss.model.solutions.IteratorQuerySolutions;
 import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
 import com.github.lapesd.hdtss.sparql.OpExecutorDispatcher;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
 import com.github.lapesd.hdtss.sparql.impl.conditional.RequiresOperatorFlow;
 import com.github.lapesd.hdtss.utils.Binding;
 import jakarta.inject.Inject;
@@ -20,7 +21,7 @@ import java.util.NoSuchElementException;
 
 @Singleton
 @Named("values")
-@RequiresOperatorFlow(values = {"ITERATOR", "HEAVY_REACTIVE", "HDT_REACTIVE"})
+@RequiresOperatorFlow(values = {"ITERATOR", "HEAVY_REACTIVE", "HDT_REACTIVE", "VECTOR"})
 public class ValuesItExecutor extends ValuesExecutor {
     @Inject
     public ValuesItExecutor(@NonNull OpExecutorDispatcher dispatcher) {
@@ -28,7 +29,8 @@ public class ValuesItExecutor extends ValuesExecutor {
     }
 
     @Override public @NonNull QuerySolutions execute(@NonNull Op node,
-                                                     @Nullable Binding outerBinding) {
+                                                     @Nullable Binding outerBinding,
+                                                     LookupMemo.@Nullable Stats stats) {
         Values valuesNode = (Values) node;
         var values = valuesNode.values();
         var inner = valuesNode.inner();
@@ -45,7 +47,7 @@ public class ValuesItExecutor extends ValuesExecutor {
                     } else {
                         System.arraycopy(row, 0, binding.terms(), 0, row.length);
                     }
-                    it = dispatcher.execute(inner, binding).iterator();
+                    it = dispatcher.execute(inner, binding, stats).iterator();
                 }
                 return it.hasNext();
             }
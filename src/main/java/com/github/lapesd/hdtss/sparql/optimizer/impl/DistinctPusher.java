@@ -27,6 +27,8 @@ public class DistinctPusher implements Optimizer {
                 for (int i = 0, size = replacements.size(); i < size; i++)
                     replacements.set(i, new WeakDistinct(replacements.get(i)));
                 return op.withChildren(replacements);
+            } else if (op.type() == Op.Type.GROUP) {
+                return op; // aggregates observe duplicates
             } else {
                 return OptimizerUtils.optimizeChildren(op, this);
             }
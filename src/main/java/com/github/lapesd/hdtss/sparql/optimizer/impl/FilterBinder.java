@@ -0,0 +1,205 @@
+package com.github.lapesd.hdtss.sparql.optimizer.impl;
+
+import com.github.lapesd.hdtss.model.Term;
+import com.github.lapesd.hdtss.model.nodes.*;
+import com.github.lapesd.hdtss.sparql.optimizer.Optimizer;
+import com.github.lapesd.hdtss.utils.Binding;
+import com.github.lapesd.hdtss.utils.JenaUtils;
+import io.micronaut.context.annotation.Property;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.Order;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.apache.jena.sparql.expr.*;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.*;
+
+import static com.github.lapesd.hdtss.sparql.optimizer.impl.OptimizerUtils.optimizeChildren;
+
+/**
+ * Rewrites {@code FILTER(?x = <a>)}, {@code FILTER(sameTerm(?x, <a>))},
+ * {@code FILTER(?x IN (<a>, <b>))} and {@code FILTER(?x = <a> || ?x = <b>)} by substituting
+ * the IRIs into the filtered operand, so that triple patterns are answered with index
+ * lookups instead of scans whose solutions are mostly discarded.
+ *
+ * With a single IRI, the operand is bound and {@code ?x} is re-introduced with an
+ * {@link Assign}. With several IRIs (up to {@code sparql.optimizer.filter-bind.max-values}),
+ * the result is a {@link Union} with one such bound operand per IRI. The original
+ * comparison is kept as a filter above the {@link Assign}, which costs little, but keeps
+ * the plan correct if a bind join later assigns another value to {@code ?x}.
+ *
+ * This only applies if all solutions of the filtered operand bind {@code ?x} and if
+ * substituting {@code ?x} is equivalent to filtering: the operand may only contain triple
+ * patterns, joins, unions, distinct modifiers, projections that keep {@code ?x} and filters
+ * whose own operand binds {@code ?x} if they mention it. Other equality filters remain
+ * filters, which compare terms by ID when possible.
+ */
+@Singleton
+@Order(50)
+@Requires(property = "sparql.optimizer.filter-bind", pattern = "(?i)t(rue)?|1|on",
+          defaultValue = "true")
+public class FilterBinder implements Optimizer {
+    private final int maxValues;
+
+    @Inject
+    public FilterBinder(@Property(name = "sparql.optimizer.filter-bind.max-values",
+                                  defaultValue = "16") int maxValues) {
+        this.maxValues = maxValues;
+    }
+
+    @Override public @NonNull Op optimize(@NonNull Op op) {
+        op = optimizeChildren(op, this);
+        return op instanceof Filter filter ? rewrite(filter) : op;
+    }
+
+    @Override public @NonNull Op optimize(@NonNull Op op, @NonNull Binding ignored) {
+        return optimize(op);
+    }
+
+    /** A variable and the IRIs it may be equal to */
+    private record IriValues(@NonNull String var, @NonNull Set<@NonNull Term> iris) { }
+
+    private @NonNull Op rewrite(@NonNull Filter filter) {
+        Op inner = filter.inner();
+        Map<String, Term> single = new LinkedHashMap<>();
+        IriValues multi = null;
+        List<String> residual = new ArrayList<>();
+        for (String string : filter.filters()) {
+            List<Expr> conjuncts = new ArrayList<>(), kept = new ArrayList<>();
+            flattenAnd(JenaUtils.parseFilter(string), conjuncts);
+            for (Expr expr : conjuncts) {
+                IriValues values = values(expr);
+                if (values == null || !binds(inner, values.var)
+                        || !isSubstitutable(inner, values.var) || single.containsKey(values.var)
+                        || (multi != null && multi.var.equals(values.var))) {
+                    kept.add(expr);
+                } else if (values.iris.size() == 1) {
+                    single.put(values.var, values.iris.iterator().next());
+                } else if (multi == null && values.iris.size() <= maxValues) {
+                    multi = values;
+                } else {
+                    kept.add(expr);
+                }
+            }
+            if (kept.size() == conjuncts.size()) {
+                residual.add(string);
+            } else {
+                for (Expr expr : kept)
+                    residual.add(JenaUtils.toSPARQL(expr));
+            }
+        }
+        if (single.isEmpty() && multi == null)
+            return filter;
+        Op rewritten;
+        if (multi == null) {
+            rewritten = bound(inner, single);
+        } else {
+            List<Op> branches = new ArrayList<>(multi.iris.size());
+            for (Term iri : multi.iris) {
+                Map<String, Term> var2term = new LinkedHashMap<>(single);
+                var2term.put(multi.var, iri);
+                branches.add(bound(inner, var2term));
+            }
+            rewritten = Union.of(branches);
+        }
+        if (!residual.isEmpty())
+            rewritten = Filter.withFilters(rewritten, residual);
+        if (!rewritten.outputVars().equals(filter.outputVars()))
+            rewritten = new Project(filter.outputVars(), rewritten);
+        return rewritten;
+    }
+
+    private static @NonNull Op bound(@NonNull Op inner, @NonNull Map<String, Term> var2term) {
+        String[] assignments = new String[2*var2term.size()];
+        List<String> guards = new ArrayList<>(var2term.size());
+        int i = 0;
+        for (Map.Entry<String, Term> e : var2term.entrySet()) {
+            String iri = e.getValue().toString();
+            assignments[i++] = e.getKey();
+            assignments[i++] = iri;
+            guards.add("?"+e.getKey()+" = "+iri);
+        }
+        Op bound = inner.bind(new Binding(var2term));
+        return new Filter(new Assign(bound, assignments), guards);
+    }
+
+    private static void flattenAnd(@NonNull Expr expr, @NonNull List<Expr> out) {
+        if (expr instanceof E_LogicalAnd and) {
+            flattenAnd(and.getArg1(), out);
+            flattenAnd(and.getArg2(), out);
+        } else {
+            out.add(expr);
+        }
+    }
+
+    /**
+     * Get the variable and IRIs if {@code expr} is true only when the variable is bound to one
+     * of the IRIs.
+     */
+    private static @Nullable IriValues values(@NonNull Expr expr) {
+        if (expr instanceof E_Equals || expr instanceof E_SameTerm) {
+            var f = (ExprFunction2) expr;
+            Expr l = f.getArg1(), r = f.getArg2();
+            Term iri = constantIRI(r);
+            if (l instanceof ExprVar v && iri != null)
+                return new IriValues(v.getVarName(), Set.of(iri));
+            iri = constantIRI(l);
+            if (r instanceof ExprVar v && iri != null)
+                return new IriValues(v.getVarName(), Set.of(iri));
+        } else if (expr instanceof E_OneOf f && f.getLHS() instanceof ExprVar v) {
+            Set<Term> iris = new LinkedHashSet<>();
+            for (Expr value : f.getRHS()) {
+                Term iri = constantIRI(value);
+                if (iri == null) return null;
+                iris.add(iri);
+            }
+            return iris.isEmpty() ? null : new IriValues(v.getVarName(), iris);
+        } else if (expr instanceof E_LogicalOr or) {
+            IriValues l = values(or.getArg1()), r = values(or.getArg2());
+            if (l != null && r != null && l.var.equals(r.var)) {
+                Set<Term> iris = new LinkedHashSet<>(l.iris);
+                iris.addAll(r.iris);
+                return new IriValues(l.var, iris);
+            }
+        }
+        return null;
+    }
+
+    private static @Nullable Term constantIRI(@NonNull Expr expr) {
+        if (!expr.isConstant() || !expr.getConstant().isIRI())
+            return null;
+        return JenaUtils.fromNode(expr.getConstant().asNode());
+    }
+
+    /** Whether {@code op.bind()} with a value for {@code var} is equivalent to filtering. */
+    private static boolean isSubstitutable(@NonNull Op op, @NonNull String var) {
+        boolean ok = switch (op.type()) {
+            case TRIPLE, IDENTITY, JOIN, UNION, DISTINCT, WEAK_DISTINCT -> true;
+            case PROJECT -> op.outputVars().contains(var);
+            case FILTER -> !((Filter) op).filtersVarNames().contains(var)
+                        || binds(op.children().get(0), var);
+            default -> false;
+        };
+        if (!ok)
+            return false;
+        for (Op child : op.children()) {
+            if (!isSubstitutable(child, var)) return false;
+        }
+        return true;
+    }
+
+    /** Whether {@code var} is bound in all solutions of {@code op}. */
+    private static boolean binds(@NonNull Op op, @NonNull String var) {
+        List<@NonNull Op> children = op.children();
+        return switch (op.type()) {
+            case TRIPLE -> op.outputVars().contains(var);
+            case JOIN -> children.stream().anyMatch(c -> binds(c, var));
+            case UNION -> children.stream().allMatch(c -> binds(c, var));
+            case FILTER, DISTINCT, WEAK_DISTINCT -> binds(children.get(0), var);
+            case PROJECT -> op.outputVars().contains(var) && binds(children.get(0), var);
+            default -> false;
+        };
+    }
+}
@@ -51,8 +51,8 @@ public class FilterPusher implements Optimizer {
                 return op; // cannot push
             ++depth;
             Op replacement = switch (op.type()) {
-                case ASK,TRIPLE,IDENTITY -> op;
-                case MINUS, EXISTS, FILTER, SLICE, DISTINCT, PROJECT, ASSIGN, WEAK_DISTINCT, VALUES -> optimize(op.children().get(0));
+                case ASK,TRIPLE,IDENTITY,GROUP -> op;
+                case MINUS, EXISTS, FILTER, SLICE, DISTINCT, PROJECT, ASSIGN, WEAK_DISTINCT, VALUES, ORDER -> optimize(op.children().get(0));
                 case UNION -> optimizeChildren(op, this);
                 case JOIN, LEFT_JOIN -> {
                     var children = op.children();
@@ -0,0 +1,60 @@
+package com.github.lapesd.hdtss.sparql.optimizer.impl;
+
+import com.github.lapesd.hdtss.model.nodes.Group;
+import com.github.lapesd.hdtss.model.nodes.Op;
+import com.github.lapesd.hdtss.sparql.impl.group.GroupExecutor;
+import com.github.lapesd.hdtss.sparql.impl.triple.TriplePatternExecutor;
+import com.github.lapesd.hdtss.sparql.optimizer.Optimizer;
+import com.github.lapesd.hdtss.utils.Binding;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.Order;
+import jakarta.inject.Inject;
+import jakarta.inject.Provider;
+import jakarta.inject.Singleton;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * Chooses between {@link Group.Strategy#HASH} and {@link Group.Strategy#STREAM} for every
+ * GROUP node.
+ *
+ * Streaming is chosen when the GROUP has a single key and its operand is a triple pattern
+ * that the {@link TriplePatternExecutor} produces sorted by that key (e.g.,
+ * {@code SELECT ?s (COUNT(?o) AS ?n) WHERE {?s <p> ?o} GROUP BY ?s}).
+ * FILTERs whose operand may be answered by an index scan break that order. See
+ * {@link GroupExecutor#streamable(Group, java.util.function.Function,
+ * java.util.function.Predicate)}.
+ *
+ * This runs after all other optimizers, since those may change the operand of the GROUP.
+ */
+@Singleton
+@Order(500)
+@Requires(property = "sparql.group.stream", pattern = "(?i)t(rue)?|1|on", defaultValue = "true")
+public class GroupStrategyOptimizer implements Optimizer {
+    private final @NonNull Provider<TriplePatternExecutor> tripleExecutor;
+
+    @Inject
+    public GroupStrategyOptimizer(@NonNull Provider<TriplePatternExecutor> tripleExecutor) {
+        this.tripleExecutor = tripleExecutor;
+    }
+
+    @Override public @NonNull Op optimize(@NonNull Op op) {
+        return optimize(op, Binding.EMPTY);
+    }
+
+    @Override public @NonNull Op optimize(@NonNull Op op, @NonNull Binding binding) {
+        Op optimized = OptimizerUtils.optimizeChildren(op, this);
+        if (optimized instanceof Group group && group.strategy() == null)
+            return group.withStrategy(choose(group, binding));
+        return optimized;
+    }
+
+    private @NonNull Group.Strategy choose(@NonNull Group group, @NonNull Binding binding) {
+        Group bound = group;
+        if (!binding.isEmpty() && group.bind(binding) instanceof Group g)
+            bound = g;
+        TriplePatternExecutor executor = tripleExecutor.get();
+        if (GroupExecutor.streamable(bound, executor::sortedBy, executor::mayScanIndex))
+            return Group.Strategy.STREAM;
+        return Group.Strategy.HASH;
+    }
+}
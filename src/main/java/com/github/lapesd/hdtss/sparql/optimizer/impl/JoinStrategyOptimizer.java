@@ -0,0 +1,82 @@
+package com.github.lapesd.hdtss.sparql.optimizer.impl;
+
+import com.github.lapesd.hdtss.data.query.CardinalityEstimator;
+import com.github.lapesd.hdtss.model.nodes.Join;
+import com.github.lapesd.hdtss.model.nodes.Op;
+import com.github.lapesd.hdtss.sparql.impl.join.MergeJoinExecutor;
+import com.github.lapesd.hdtss.sparql.impl.triple.TriplePatternExecutor;
+import com.github.lapesd.hdtss.sparql.optimizer.Optimizer;
+import com.github.lapesd.hdtss.utils.Binding;
+import io.micronaut.context.annotation.Property;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.Order;
+import jakarta.inject.Inject;
+import jakarta.inject.Provider;
+import jakarta.inject.Singleton;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.List;
+
+/**
+ * Chooses between {@link Join.Strategy#BIND}, {@link Join.Strategy#HASH} and
+ * {@link Join.Strategy#MERGE} for every JOIN and LEFT_JOIN node.
+ *
+ * A bind join performs one lookup for each solution of the left operand, whereas a hash join
+ * enumerates all solutions of every operand. Thus, bind is chosen when the estimated number
+ * of left solutions, multiplied by {@code sparql.join.hash.lookup-cost}, is below the sum of
+ * the estimates for the remaining operands. Operands that need bindings from the left
+ * operand (see {@link Op#inputVars()}) always cause the node to use bind.
+ *
+ * If bind is not chosen for a JOIN whose operands are triple patterns that the
+ * {@link TriplePatternExecutor} produces sorted by the same variable (e.g., a star of
+ * {@code ?s <p> ?o} patterns), merge is chosen instead of hash.
+ *
+ * This runs after all other optimizers, since those may replace join nodes.
+ */
+@Singleton
+@Order(500)
+@Requires(property = "sparql.join.strategy", value = "HASH")
+public class JoinStrategyOptimizer implements Optimizer {
+    private final @NonNull JoinOrderHelper helper;
+    private final double lookupCost;
+    private final @NonNull Provider<TriplePatternExecutor> tripleExecutor;
+
+    @Inject public
+    JoinStrategyOptimizer(@NonNull CardinalityEstimator estimator,
+                          @Property(name = "sparql.join.hash.lookup-cost", defaultValue = "4")
+                          double lookupCost,
+                          @NonNull Provider<TriplePatternExecutor> tripleExecutor) {
+        this.helper = new JoinOrderHelper(estimator);
+        this.lookupCost = lookupCost;
+        this.tripleExecutor = tripleExecutor;
+    }
+
+    @Override public @NonNull Op optimize(@NonNull Op op) {
+        return optimize(op, Binding.EMPTY);
+    }
+
+    @Override public @NonNull Op optimize(@NonNull Op op, @NonNull Binding binding) {
+        Op optimized = OptimizerUtils.optimizeChildren(op, this);
+        if (optimized instanceof Join join && join.strategy() == null)
+            return join.withStrategy(choose(join, binding));
+        return optimized;
+    }
+
+    private @NonNull Join.Strategy choose(@NonNull Join join, @NonNull Binding binding) {
+        List<@NonNull Op> operands = join.children();
+        double left = helper.estimate(operands.get(0), binding), right = 0;
+        for (int i = 1, size = operands.size(); i < size; i++) {
+            Op operand = operands.get(i);
+            if (!operand.inputVars().isEmpty())
+                return Join.Strategy.BIND;
+            right += helper.estimate(operand, binding);
+        }
+        if (left * lookupCost < right)
+            return Join.Strategy.BIND;
+        if (join.type() == Op.Type.JOIN
+                && MergeJoinExecutor.mergeVar(operands, tripleExecutor.get()::sortedBy) != null) {
+            return Join.Strategy.MERGE;
+        }
+        return Join.Strategy.HASH;
+    }
+}
@@ -2,6 +2,7 @@ package com.github.lapesd.hdtss.sparql.optimizer.impl;
 
 import com.github.lapesd.hdtss.model.nodes.Assign;
 import com.github.lapesd.hdtss.model.nodes.Filter;
+import com.github.lapesd.hdtss.model.nodes.Group;
 import com.github.lapesd.hdtss.model.nodes.Op;
 import com.github.lapesd.hdtss.model.nodes.Project;
 import com.github.lapesd.hdtss.sparql.optimizer.Optimizer;
@@ -14,6 +15,7 @@ import org.checkerframework.checker.nullness.qual.NonNull;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 
 import static com.github.lapesd.hdtss.sparql.optimizer.impl.OptimizerUtils.optimizeChildren;
@@ -40,11 +42,22 @@ public class ProjectionPusher implements Optimizer {
                     opt = opt.children().get(0);
                 yield opt == right ? op : op.withChildren(List.of(children.get(0), opt));
             }
-            case DISTINCT,WEAK_DISTINCT,FILTER,SLICE,VALUES -> optimizeChildren(op, this);
+            case GROUP -> optimizeGroup((Group) op);
+            case DISTINCT,WEAK_DISTINCT,FILTER,SLICE,VALUES,ORDER -> optimizeChildren(op, this);
             default -> op;
         };
     }
 
+    /** Only the keys and the vars used by aggregates are useful below a {@link Group}. */
+    private static @NonNull Op optimizeGroup(@NonNull Group group) {
+        var useful = new LinkedHashSet<>(group.keys());
+        useful.addAll(group.aggregatesVarNames());
+        Op child = group.inner(), opt = new Active(useful).optimize(child);
+        if (opt.type() == Op.Type.PROJECT)
+            opt = opt.children().get(0);
+        return opt == child ? group : group.withChildren(List.of(opt));
+    }
+
     @Override public @NonNull Op optimize(@NonNull Op op, @NonNull Binding binding) {
         return optimize(op);
     }
@@ -76,6 +89,14 @@ public class ProjectionPusher implements Optimizer {
                     useful.removeAll(filterVars);
                     yield result;
                 }
+                case ORDER -> {
+                    var orderVars = ((com.github.lapesd.hdtss.model.nodes.Order) op)
+                            .conditionsVarNames();
+                    useful.addAll(orderVars);
+                    Op result = optimizeChildren(op, this);
+                    useful.removeAll(orderVars);
+                    yield result;
+                }
                 case JOIN,LEFT_JOIN,EXISTS,MINUS -> {
                     Op[] children = op.children().toArray(Op[]::new);
                     for (Op child : children) {
@@ -96,6 +117,7 @@ public class ProjectionPusher implements Optimizer {
                     yield change ? op.withChildren(Arrays.asList(children)) : op;
                 }
                 case ASK -> new Active(new SmallRecursiveSet<>()).optimize(op);
+                case GROUP -> optimizeGroup((Group) op);
                 case TRIPLE -> op;
                 case IDENTITY,DISTINCT,WEAK_DISTINCT,UNION,VALUES,SLICE,PROJECT
                         -> optimizeChildren(op, this);
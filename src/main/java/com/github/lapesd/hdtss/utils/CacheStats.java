@@ -0,0 +1,22 @@
+package com.github.lapesd.hdtss.utils;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * Counters of a process-wide cache.
+ *
+ * Beans implementing this interface are periodically reported by the heartbeat log.
+ */
+public interface CacheStats {
+    /** A short human-readable name for the cache. */
+    @NonNull String cacheName();
+
+    /** Number of lookups that were served from the cache since its creation. */
+    long hits();
+
+    /** Number of lookups that could not be served from the cache since its creation. */
+    long misses();
+
+    /** Estimated number of bytes currently held by the cache. */
+    long bytes();
+}
@@ -0,0 +1,12 @@
+package com.github.lapesd.hdtss.utils;
+
+import java.util.Iterator;
+
+/**
+ * An {@link Iterator} that holds resources until exhausted, which can be released earlier
+ * by {@link #close()}. See {@link CloseableUtils}.
+ */
+public interface CloseableIterator<T> extends Iterator<T>, AutoCloseable {
+    /** Release resources. Later {@link #hasNext()} calls may return false. Idempotent. */
+    @Override void close();
+}
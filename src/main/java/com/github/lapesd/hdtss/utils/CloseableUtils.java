@@ -0,0 +1,27 @@
+package com.github.lapesd.hdtss.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Iterators that hold resources (threads, files) until exhausted may also implement
+ * {@link AutoCloseable}, so that consumers that stop early can release them. Wrapping
+ * iterators forward {@link AutoCloseable#close()} to their sources with
+ * {@link CloseableUtils#closeIfCloseable(Object)}.
+ */
+@Slf4j
+public class CloseableUtils {
+    /**
+     * Call {@link AutoCloseable#close()} on {@code object} if it is {@link AutoCloseable}.
+     * Failures are logged, since callers are releasing resources of abandoned results.
+     */
+    public static void closeIfCloseable(@Nullable Object object) {
+        if (object instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                log.warn("Ignoring failure to close {}", object, e);
+            }
+        }
+    }
+}
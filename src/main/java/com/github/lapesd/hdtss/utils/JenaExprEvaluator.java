@@ -5,6 +5,8 @@ import org.apache.jena.query.ARQ;
 import org.apache.jena.query.DatasetFactory;
 import org.apache.jena.sparql.core.DatasetGraph;
 import org.apache.jena.sparql.expr.Expr;
+import org.apache.jena.sparql.expr.ExprEvalException;
+import org.apache.jena.sparql.expr.nodevalue.XSDFuncOp;
 import org.apache.jena.sparql.function.FunctionEnvBase;
 import org.apache.jena.sparql.util.Context;
 import org.checkerframework.checker.nullness.qual.NonNull;
@@ -46,4 +48,17 @@ public class JenaExprEvaluator implements
     @Override public boolean test(@NonNull Expr expr) {
         return expr.isSatisfied(tmpBinding, fnEnv);
     }
+
+    /**
+     * Get the effective boolean value of {@code expr} or null if its evaluation raises an
+     * error. Unlike {@link #test(Expr)}, this distinguishes false from errors, which matters
+     * when {@code expr} is an operand of {@code ||}, {@code &&} or {@code !}.
+     */
+    public @Nullable Boolean ebv(@NonNull Expr expr) {
+        try {
+            return XSDFuncOp.booleanEffectiveValue(expr.eval(tmpBinding, fnEnv));
+        } catch (ExprEvalException e) {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,155 @@
+package com.github.lapesd.hdtss.controller.execution;
+
+import com.github.lapesd.hdtss.model.Term;
+import com.github.lapesd.hdtss.model.nodes.Op;
+import com.github.lapesd.hdtss.sparql.impl.JenaSparqlParser;
+import com.github.lapesd.hdtss.vocab.FOAF;
+import com.github.lapesd.hdtss.vocab.RDF;
+import com.github.lapesd.hdtss.vocab.XSD;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static com.github.lapesd.hdtss.TestVocab.*;
+import static com.github.lapesd.hdtss.vocab.FOAF.knowsTerm;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+@Tag("fast")
+class PlanCacheTest {
+    private static final String PROLOG = "PREFIX : <"+EX+">\nPREFIX foaf: <"+FOAF.NS+">\n";
+    private static final JenaSparqlParser parser = new JenaSparqlParser();
+
+    private static PlanCache.@NonNull Shape shape(@NonNull PlanCache cache,
+                                                  @NonNull String sparql) {
+        PlanCache.Shape shape = cache.shape(sparql);
+        assertNotNull(shape);
+        return shape;
+    }
+
+    @Test
+    void testShape() {
+        var cache = new PlanCache(true, 8);
+        var alice = shape(cache, PROLOG+"SELECT ?x WHERE { ?x foaf:knows :Alice }");
+        var bob = shape(cache, PROLOG+"SELECT ?x WHERE {\n  ?x foaf:knows <"+EX+"Bob>\n}");
+        assertEquals(alice.key(), bob.key());
+        assertEquals(List.of(knowsTerm, Alice), alice.terms());
+        assertEquals(List.of(knowsTerm, Bob), bob.terms());
+
+        var type = shape(cache, PROLOG+"SELECT ?x WHERE { ?x a foaf:Person; rdf:type ?t }");
+        assertEquals(List.of(RDF.typeTerm, FOAF.PersonTerm), type.terms());
+
+        var twice = shape(cache, PROLOG+"SELECT ?x WHERE { ?x foaf:knows :Alice, :Alice }");
+        assertNotEquals(alice.key(), twice.key());
+        assertEquals(List.of(knowsTerm, Alice), twice.terms());
+    }
+
+    static Stream<Arguments> testVerbatim() {
+        return Stream.of(
+                arguments("SELECT ?x WHERE { ?x foaf:age ?a } LIMIT 10", "LIMIT 10"),
+                arguments("SELECT ?x WHERE { ?x foaf:age ?a } OFFSET 2", "OFFSET 2"),
+                arguments("SELECT ?x WHERE { ?x foaf:age ?a FILTER(<"+XSD.integer+">(?a) > 2) }",
+                          "#integer>("),
+                arguments("SELECT ?x WHERE { ?x foaf:name 'Alice' }", "'Alice'"),
+                arguments("SELECT ?x WHERE { ?x foaf:name ?n FILTER(?n = \"a\\\"b\") }",
+                          "\"a\\\"b\""),
+                arguments("SELECT ?x WHERE { ?x foaf:knows _:b }", "_:b")
+        );
+    }
+
+    @ParameterizedTest @MethodSource
+    void testVerbatim(@NonNull String body, @NonNull String expected) {
+        var cache = new PlanCache(true, 8);
+        String key = shape(cache, PROLOG + body).key();
+        assertTrue(key.contains(expected), "key="+key);
+    }
+
+    @Test
+    void testNotCacheable() {
+        assertNull(new PlanCache(false, 8).shape(PROLOG+"ASK { ?s ?p ?o }"));
+        assertNull(new PlanCache(true, 0).shape(PROLOG+"ASK { ?s ?p ?o }"));
+        var cache = new PlanCache(true, 8);
+        assertNull(cache.shape("BASE <"+EX+"> ASK { ?s ?p <Alice> }"));
+        assertNull(cache.shape("ASK { ?hdtssSlot0 ?p ?o }"));
+    }
+
+    @Test
+    void testReuseWithParameters() {
+        var cache = new PlanCache(true, 8);
+        String fmt = PROLOG+"SELECT ?x WHERE { ?x foaf:knows %s; foaf:age ?age } LIMIT 3";
+        String alice = String.format(fmt, ":Alice"), bob = String.format(fmt, ":Bob");
+        var aliceShape = shape(cache, alice);
+        assertNull(cache.get(aliceShape));
+        cache.put(aliceShape, parser.parse(alice));
+
+        Op plan = cache.get(shape(cache, bob));
+        assertNotNull(plan);
+        assertTrue(plan.deepEquals(parser.parse(bob)), "plan="+plan);
+        Op same = cache.get(aliceShape);
+        assertNotNull(same);
+        assertTrue(same.deepEquals(parser.parse(alice)), "plan="+same);
+        assertEquals(2, cache.hits());
+        assertEquals(1, cache.misses());
+    }
+
+    @Test
+    void testTermsOutsideTriplesAreNotParameters() {
+        var cache = new PlanCache(true, 8);
+        String fmt = PROLOG+"SELECT ?x WHERE { ?x foaf:knows %1$s FILTER(?x != %1$s) }";
+        String alice = String.format(fmt, ":Alice"), bob = String.format(fmt, ":Bob");
+        cache.put(shape(cache, alice), parser.parse(alice));
+        assertNull(cache.get(shape(cache, bob)));
+        Op plan = cache.get(shape(cache, alice));
+        assertNotNull(plan);
+        assertTrue(plan.deepEquals(parser.parse(alice)));
+
+        fmt = PROLOG+"SELECT ?x WHERE { VALUES ?y { %1$s } ?x foaf:knows %1$s, ?y }";
+        alice = String.format(fmt, ":Alice");
+        bob = String.format(fmt, ":Bob");
+        cache.put(shape(cache, alice), parser.parse(alice));
+        assertNull(cache.get(shape(cache, bob)));
+    }
+
+    @Test
+    void testSignedNumbers() {
+        var cache = new PlanCache(true, 8);
+        String fmt = PROLOG+"SELECT ?x WHERE { ?x :p -%1$d . ?x :q %1$d }";
+        String five = String.format(fmt, 5), seven = String.format(fmt, 7);
+        var fiveShape = shape(cache, five);
+        assertEquals(List.of(new Term("<"+EX+"p>"),
+                             new Term("\"-5\"^^<"+XSD.integer+">"),
+                             new Term("<"+EX+"q>"),
+                             new Term("\"5\"^^<"+XSD.integer+">")), fiveShape.terms());
+        cache.put(fiveShape, parser.parse(five));
+
+        Op plan = cache.get(shape(cache, seven));
+        assertNotNull(plan);
+        assertTrue(plan.deepEquals(parser.parse(seven)), "plan="+plan);
+
+        String mixed = PROLOG+"SELECT ?x WHERE { ?x :p -7 . ?x :q 5 }";
+        plan = cache.get(shape(cache, mixed));
+        assertNotNull(plan);
+        assertTrue(plan.deepEquals(parser.parse(mixed)), "plan="+plan);
+    }
+
+    @Test
+    void testEvictLeastRecentlyUsed() {
+        var cache = new PlanCache(true, 2);
+        List<String> queries = List.of(PROLOG+"ASK { ?x foaf:knows :Alice }",
+                                       PROLOG+"ASK { ?x foaf:knows :Alice; foaf:age ?a }",
+                                       PROLOG+"ASK { ?x foaf:knows ?y }");
+        for (String q : queries.subList(0, 2))
+            cache.put(shape(cache, q), parser.parse(q));
+        assertNotNull(cache.get(shape(cache, queries.get(0))));
+        cache.put(shape(cache, queries.get(2)), parser.parse(queries.get(2)));
+        assertNull(cache.get(shape(cache, queries.get(1))));
+        assertNotNull(cache.get(shape(cache, queries.get(0))));
+        assertNotNull(cache.get(shape(cache, queries.get(2))));
+    }
+}
@@ -0,0 +1,182 @@
+package com.github.lapesd.hdtss.controller.execution;
+
+import com.github.lapesd.hdtss.sparql.results.chunked.ChunkedPublisher;
+import io.micronaut.http.MediaType;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.reactivestreams.Subscriber;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import static com.github.lapesd.hdtss.sparql.results.SparqlMediaTypes.RESULTS_JSON_TYPE;
+import static com.github.lapesd.hdtss.sparql.results.SparqlMediaTypes.RESULTS_TSV_TYPE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+@Tag("fast")
+class ResponseCacheTest {
+    private static final String ASK = "ASK { ?s ?p ?o }";
+
+    /** Emits the given chunks, reporting one row per chunk. */
+    private static final class Chunks implements ChunkedPublisher {
+        private final @NonNull List<String> chunks;
+        private TerminationListener listener = (e, c, r, i, n) -> {};
+
+        Chunks(String... chunks) { this.chunks = List.of(chunks); }
+
+        @Override public @NonNull ChunkedPublisher onTermination(TerminationListener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        @Override public void subscribe(Subscriber<? super byte[]> s) {
+            long[] items = {0};
+            Flux.fromIterable(chunks).map(c -> c.getBytes(UTF_8)).doOnNext(c -> ++items[0])
+                .doOnComplete(() -> listener.onTerminate(null, false, items[0], items[0], 0))
+                .doOnCancel(() -> listener.onTerminate(null, true, items[0], items[0], 0))
+                .subscribe(s);
+        }
+    }
+
+    private static @NonNull String consume(@NonNull ChunkedPublisher publisher) {
+        List<byte[]> list = Flux.from(publisher).collectList().block();
+        assertNotNull(list);
+        StringBuilder b = new StringBuilder();
+        for (byte[] chunk : list)
+            b.append(new String(chunk, UTF_8));
+        return b.toString();
+    }
+
+    static Stream<Arguments> testNormalize() {
+        return Stream.of(
+                arguments("ASK {?s ?p ?o}", "ASK {?s ?p ?o}"),
+                arguments(" ASK\n{\t?s  ?p ?o }\n", "ASK { ?s ?p ?o }"),
+                arguments("ASK { ?s ?p ?o } # comment\n", ASK),
+                arguments("SELECT * { ?s ?p \"a  b # c\" }", "SELECT * { ?s ?p \"a  b # c\" }"),
+                arguments("SELECT * { ?s ?p \"\"\"a \"  b\"\"\" }",
+                          "SELECT * { ?s ?p \"\"\"a \"  b\"\"\" }"),
+                arguments("SELECT * { ?s <http://example.org/#p> ?o }",
+                          "SELECT * { ?s <http://example.org/#p> ?o }"),
+                arguments("SELECT * { ?s ex:a\\#b  ?o } # c\n",
+                          "SELECT * { ?s ex:a\\#b ?o }"),
+                arguments("SELECT * { ?s ?p ?o FILTER(?o < 3) }",
+                          "SELECT * { ?s ?p ?o FILTER(?o < 3) }"),
+                arguments("PREFIX b: <http://b/>\nprefix a:<http://a/>\nASK {?s ?p ?o}",
+                          "PREFIX a: <http://a/> PREFIX b: <http://b/> ASK {?s ?p ?o}"),
+                arguments("PREFIX a: <http://x/> PREFIX a: <http://a/> ASK {?s ?p ?o}",
+                          "PREFIX a: <http://a/> ASK {?s ?p ?o}"),
+                arguments("BASE <http://x/> PREFIX b: <b/> PREFIX a: <a/> ASK {?s ?p ?o}",
+                          "BASE <http://x/> PREFIX b: <b/> PREFIX a: <a/> ASK {?s ?p ?o}")
+        );
+    }
+
+    @ParameterizedTest @MethodSource
+    void testNormalize(@NonNull String sparql, @NonNull String expected) {
+        assertEquals(expected, ResponseCache.normalize(sparql));
+    }
+
+    @ParameterizedTest @ValueSource(strings = {
+            "SELECT (RAND() AS ?r) { }",
+            "SELECT * { ?s ?p ?o BIND(now () AS ?t) }",
+            "SELECT (STRUUID() AS ?u) { }",
+            "SELECT (uuid() AS ?u) { }",
+            "SELECT * { ?s ?p ?o BIND(BNODE(?o) AS ?b) }",
+    })
+    void testNoKeyForVolatileQuery(@NonNull String sparql) {
+        var cache = new ResponseCache(true, 1024*1024, 1024);
+        assertNull(cache.key(sparql, RESULTS_JSON_TYPE));
+    }
+
+    @ParameterizedTest @ValueSource(strings = {
+            "SELECT * { ?s ?p \"RAND()\" }",
+            "SELECT * { ?s <http://example.org/NOW(> ?o }",
+            "PREFIX ex: <http://example.org/> SELECT * { ?s ?p ?o FILTER(ex:now(?o)) }",
+            "SELECT ?rand { ?s ?p ?rand }",
+    })
+    void testKeyForNonVolatileQuery(@NonNull String sparql) {
+        var cache = new ResponseCache(true, 1024*1024, 1024);
+        assertNotNull(cache.key(sparql, RESULTS_JSON_TYPE));
+    }
+
+    @Test
+    void testDisabled() {
+        for (var cache : List.of(new ResponseCache(false, 1024*1024, 1024),
+                                 new ResponseCache(true, 64, 1024))) {
+            assertFalse(cache.isEnabled());
+            assertNull(cache.key(ASK, RESULTS_JSON_TYPE));
+        }
+    }
+
+    @Test
+    void testRecordAndReplay() {
+        var cache = new ResponseCache(true, 1024*1024, 1024);
+        var key = cache.key(ASK, RESULTS_JSON_TYPE);
+        assertNotNull(key);
+        assertNull(cache.get(key));
+        assertEquals("ab", consume(cache.recording(key, new Chunks("a", "b"))));
+
+        var otherSpelling = cache.key("ASK {\n  ?s ?p ?o\n}", RESULTS_JSON_TYPE);
+        assertEquals(key, otherSpelling);
+        ChunkedPublisher replay = cache.get(otherSpelling);
+        assertNotNull(replay);
+        AtomicReference<Long> rows = new AtomicReference<>();
+        replay.onTermination((err, cancelled, r, items, nanos) -> rows.set(r));
+        assertEquals("ab", consume(replay));
+        assertEquals(2, rows.get());
+
+        var tsvKey = cache.key(ASK, RESULTS_TSV_TYPE);
+        assertNotNull(tsvKey);
+        assertNull(cache.get(tsvKey));
+        assertEquals(1, cache.hits());
+        assertEquals(2, cache.misses());
+        assertTrue(cache.bytes() > 0);
+    }
+
+    @Test
+    void testNotRecordedIfCancelled() {
+        var cache = new ResponseCache(true, 1024*1024, 1024);
+        var key = cache.key(ASK, RESULTS_JSON_TYPE);
+        assertNotNull(key);
+        List<byte[]> first = Flux.from(cache.recording(key, new Chunks("a", "b")))
+                                 .take(1).collectList().block();
+        assertNotNull(first);
+        assertEquals(1, first.size());
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    void testNotRecordedIfTooLarge() {
+        var cache = new ResponseCache(true, 1024*1024, 4);
+        var key = cache.key(ASK, RESULTS_JSON_TYPE);
+        assertNotNull(key);
+        assertEquals("abcdef", consume(cache.recording(key, new Chunks("abc", "def"))));
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    void testEvictLeastRecentlyUsed() {
+        var cache = new ResponseCache(true, 2*(128 + 2*16 + 24 + 8), 1024);
+        var k1 = cache.key("ASK {?s ?p 1}", RESULTS_JSON_TYPE);
+        var k2 = cache.key("ASK {?s ?p 2}", RESULTS_JSON_TYPE);
+        var k3 = cache.key("ASK {?s ?p 3}", RESULTS_JSON_TYPE);
+        assertNotNull(k1);
+        assertNotNull(k2);
+        assertNotNull(k3);
+        consume(cache.recording(k1, new Chunks("12345678")));
+        consume(cache.recording(k2, new Chunks("12345678")));
+        assertNotNull(cache.get(k1));
+        consume(cache.recording(k3, new Chunks("12345678"))); // evicts k2
+        assertNull(cache.get(k2));
+        assertNotNull(cache.get(k1));
+        assertNotNull(cache.get(k3));
+    }
+}
@@ -220,7 +220,28 @@ class MessageParserTest {
                           List.of(List.of("x")),
                           List.of(List.of(new Term("<a>")),
                                   END_ROW_LIST),
-                          0)
+                          0),
+        /* 25 */arguments(List.of("!prepare "+sparql),
+                          List.of(new Action.Prepare(List.of(), sparql)),
+                          List.of(), List.of(), 0),
+        /* 26 */arguments(List.of("!prepare ?x\t?y\n"+sparql),
+                          List.of(new Action.Prepare(List.of("x", "y"), sparql)),
+                          List.of(), List.of(), 0),
+        /* 27 */arguments(List.of("!prepare ?x\t?y"), List.of(), List.of(), List.of(), 1),
+        /* 28 */arguments(List.of("!execute 1", "!execute 2\n"),
+                          List.of(new Action.Execute("1", List.of()),
+                                  new Action.Execute("2", List.of())),
+                          List.of(), List.of(), 0),
+        /* 29 */arguments(List.of("!execute 1\n<a>\t\"b\"\n", "!execute 1\n\n"),
+                          List.of(new Action.Execute("1", List.of(new Term("<a>"),
+                                                                  new Term("\"b\""))),
+                                  new Action.Execute("1", singletonList(null))),
+                          List.of(), List.of(), 0),
+        /* 30 */arguments(List.of("!execute"), List.of(), List.of(), List.of(), 1),
+        /* 31 */arguments(List.of("!execute 1\n<a>"), List.of(), List.of(), List.of(), 1),
+        /* 32 */arguments(List.of("!execute 1\n<a>\n<b>\n"),
+                          List.of(), List.of(), List.of(), 1),
+        /* 33 */arguments(List.of("!execute 1\n<a>\t<b>"), List.of(), List.of(), List.of(), 1)
         );
     }
 
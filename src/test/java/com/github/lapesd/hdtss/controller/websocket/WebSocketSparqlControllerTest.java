@@ -390,6 +390,82 @@ public class WebSocketSparqlControllerTest {
         }
     }
 
+    static List<QueryData> preparedData() {
+        List<QueryData> singleQuery = queryData().stream()
+                .filter(d -> !d.burst() && d.clientMessages().size() == 1).toList();
+        List<QueryData> list = new ArrayList<>();
+
+        // !execute a !prepare without parameters
+        for (QueryData base : singleQuery) {
+            String sparql = base.clientMessages().get(0).substring("!query ".length());
+            List<List<String>> response = new ArrayList<>();
+            response.add(List.of("!prepared 1"));
+            response.addAll(base.response());
+            list.add(new QueryData(List.of("!prepare "+sparql, "!execute 1\n"), response, false));
+        }
+
+        // !execute a !prepare with a parameter
+        QueryData first = singleQuery.get(0); // SELECT ?x WHERE { ?x foaf:age 23. }
+        List<List<String>> response = new ArrayList<>();
+        response.add(List.of("!prepared 1"));
+        response.addAll(first.response());
+        list.add(new QueryData(List.of("!prepare ?y\nSELECT ?x WHERE { ?x <"+FOAF.age+"> ?y }",
+                                       "!execute 1\n"+i23.sparql()+"\n"),
+                               response, false));
+
+        // errors in !execute are answered with !error and the session remains open
+        String firstQuery = first.clientMessages().get(0);
+        String firstSparql = firstQuery.substring("!query ".length());
+        response = new ArrayList<>();
+        response.add(List.of("!error No prepared query with handle 7"));
+        response.addAll(first.response());
+        list.add(new QueryData(List.of("!execute 7\n", firstQuery), response, false));
+
+        response = new ArrayList<>();
+        response.add(List.of("!prepared 1"));
+        response.add(List.of("!error Expected 0 values for !execute 1, got 1"));
+        response.addAll(first.response());
+        list.add(new QueryData(List.of("!prepare "+firstSparql, "!execute 1\n<a>\n",
+                                       "!execute 1\n"),
+                               response, false));
+
+        // the least recently used prepared query is evicted (sparql.ws.prepared=64)
+        List<String> messages = new ArrayList<>();
+        List<String> prepared = new ArrayList<>();
+        for (int i = 1; i <= 65; i++) {
+            messages.add("!prepare "+firstSparql);
+            prepared.add("!prepared "+i);
+        }
+        messages.add("!execute 1\n");
+        messages.add("!execute 65\n");
+        response = new ArrayList<>();
+        response.add(prepared);
+        response.add(List.of("!error No prepared query with handle 1"));
+        response.addAll(first.response());
+        list.add(new QueryData(messages, response, false));
+        return list;
+    }
+
+    @Test
+    void testPrepareExecute() {
+        for (ApplicationContext appCtx : generator) {
+            try (TestContext ctx = new TestContext(appCtx)) {
+                List<QueryData> queryData = preparedData();
+                for (int i = 0; i < queryData.size(); i++) {
+                    int idx = i;
+                    QueryData d = queryData.get(i);
+                    ctx.async(() -> {
+                        try (QueryClient client = ctx.queryClient(d, idx)) {
+                            client.sendAll();
+                            client.awaitTestResult();
+                        }
+                        return null;
+                    });
+                }
+            }
+        }
+    }
+
     record BoundResults(@NonNull List<@NonNull @MinLen(1) String> vars,
                         @NonNull List<@NonNull BoundResultsEntry> entries) {}
 
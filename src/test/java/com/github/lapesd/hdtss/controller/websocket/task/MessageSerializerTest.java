@@ -109,7 +109,7 @@ class MessageSerializerTest {
             public SparqlSessionHelper(long windowTimeoutMs, int maxMessagesInWindow) {
                 this(new SparqlSessionContext(sparqlExecutor, 8, 64,
                                               maxMessagesInWindow,
-                                             windowTimeoutMs*1_000L, 120));
+                                             windowTimeoutMs*1_000L, 120, 64));
             }
             public SparqlSessionHelper(@NonNull SparqlSessionContext ctx) {
                 this(ctx, new SessionMock());
@@ -10,11 +10,13 @@ import com.github.lapesd.hdtss.vocab.FOAF;
 import com.github.lapesd.hdtss.vocab.XSD;
 import io.micronaut.context.ApplicationContext;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import reactor.core.scheduler.Schedulers;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -146,4 +148,28 @@ public abstract class BaseHdtQueryServiceTest {
             }
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void testQueryBlock() {
+        TriplePattern query = TestUtils.parseTriplePattern("?x <"+FOAF.knows+"> ?y");
+        Term alice = new Term("<"+EX+"Alice>"), bob = new Term("<"+EX+"Bob>");
+        Term charlie = new Term("<"+EX+"Charlie>"), dave = new Term("<"+EX+"Dave>");
+        List<Term[]> rows = List.of(new Term[]{alice}, new Term[]{dave}, new Term[]{bob},
+                                    new Term[]{alice}, new Term[]{charlie});
+        List<Set<Row>> expected = List.of(Set.of(new Row(new Term[]{bob})),
+                                          Set.of(),
+                                          Set.of(new Row(new Term[]{alice}),
+                                                 new Row(new Term[]{bob})),
+                                          Set.of(new Row(new Term[]{bob})),
+                                          Set.of(new Row(new Term[]{alice})));
+        for (Implementation impl : createImplementations()) {
+            try (impl) {
+                var results = impl.service.queryBlock(query, List.of("x"), rows);
+                List<Set<Row>> actual = new ArrayList<>();
+                for (List<Term[]> list : results)
+                    actual.add(list.stream().map(Row::new).collect(toSet()));
+                assertEquals(expected, fixEquals(actual), "impl="+impl.name);
+            }
+        }
+    }
+}
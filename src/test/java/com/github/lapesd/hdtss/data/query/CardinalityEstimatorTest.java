@@ -0,0 +1,32 @@
+package com.github.lapesd.hdtss.data.query;
+
+import com.github.lapesd.hdtss.model.Term;
+import com.github.lapesd.hdtss.model.nodes.*;
+import com.github.lapesd.hdtss.model.solutions.BatchQuerySolutions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.github.lapesd.hdtss.TestVocab.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@Tag("fast")
+class CardinalityEstimatorTest {
+    @Test
+    void testEstimateOp() {
+        CardinalityEstimator estimator = tp -> 100;
+        var tp = new TriplePattern(x, knowsTerm, y);
+        var twoRows = new BatchQuerySolutions(List.of("x"),
+                                              List.of(new Term[]{Alice}, new Term[]{Bob}));
+        assertEquals(100, estimator.estimate((Op) tp));
+        assertEquals(1, estimator.estimate(IdentityNode.INSTANCE));
+        assertEquals(2, estimator.estimate(new Values(twoRows, IdentityNode.INSTANCE)));
+        assertEquals(200, estimator.estimate(new Values(twoRows, tp)));
+        assertEquals(10, estimator.estimate(new Slice(tp, 10, 0)));
+        assertEquals(102, estimator.estimate(new Join(tp, new Values(twoRows,
+                                                                     IdentityNode.INSTANCE))));
+        CardinalityEstimator huge = t -> Long.MAX_VALUE/2 + 1;
+        assertEquals(Long.MAX_VALUE, huge.estimate(new Join(tp, tp)));
+    }
+}
@@ -22,7 +22,10 @@ import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.rdfhdt.hdt.enums.TripleComponentRole;
+import org.rdfhdt.hdt.exceptions.ParserException;
 import org.rdfhdt.hdt.hdt.HDT;
+import org.rdfhdt.hdt.hdt.HDTManager;
+import org.rdfhdt.hdt.options.HDTSpecification;
 import org.rdfhdt.hdt.triples.IteratorTripleID;
 import org.rdfhdt.hdt.triples.IteratorTripleString;
 import org.rdfhdt.hdt.triples.TripleID;
@@ -157,6 +160,70 @@ class HDTUtilsTest {
         assertEquals(id, fromTerm);
     }
 
+    @ParameterizedTest
+    @MethodSource("testIdBijection")
+    public void testLazyIdBijection(@NonNull Term term, long id, @NonNull TermPosition position) {
+        var dict = foaf.getDictionary();
+        Term lazy = HDTUtils.fromHDTIdLazy(dict, id, position);
+        var idSparql = (HdtIdSparql) lazy.sparql();
+        assertFalse(lazy.isVar());
+        assertEquals(id, HDTUtils.toHDTId(dict, lazy, HDTUtils.pos2role(position)));
+        assertEquals(lazy, HDTUtils.fromHDTIdLazy(dict, id, position));
+        assertFalse(idSparql.isDecoded());
+
+        assertEquals(term, lazy);
+        assertEquals(lazy, term);
+        assertEquals(term.hashCode(), lazy.hashCode());
+        assertTrue(idSparql.isDecoded());
+    }
+
+    @Test
+    void testLazyIdAcrossRoles() {
+        var dict = foaf.getDictionary();
+        Term bob = new Term("<"+EX+"Bob>");
+        long sId = HDTUtils.toHDTId(dict, bob, TripleComponentRole.SUBJECT);
+        long oId = HDTUtils.toHDTId(dict, bob, OBJECT);
+        assertTrue(sId > 0);
+        assertTrue(oId > 0);
+        Term lazyS = HDTUtils.fromHDTIdLazy(dict, sId, TermPosition.SUB);
+        Term lazyO = HDTUtils.fromHDTIdLazy(dict, oId, OBJ);
+        assertEquals(lazyS, lazyO);
+        assertEquals(oId, HDTUtils.toHDTId(dict, lazyS, OBJECT));
+        assertEquals(sId, HDTUtils.toHDTId(dict, lazyO, TripleComponentRole.SUBJECT));
+        assertFalse(((HdtIdSparql) lazyS.sparql()).isDecoded());
+        assertFalse(((HdtIdSparql) lazyO.sparql()).isDecoded());
+    }
+
+    @Test
+    void testLazyIdStringForms() throws IOException, ParserException {
+        String typed = "\"a\"^^<"+XSD.string+">";
+        var triples = List.of(new TripleString(EX+"s", FOAF.name, "\"a\""),
+                              new TripleString(EX+"s", FOAF.name, typed),
+                              new TripleString(EX+"s", FOAF.name, "\"b\""));
+        try (HDT hdt = HDTManager.generateHDT(triples.iterator(), EX, new HDTSpecification(),
+                                              null)) {
+            var dict = hdt.getDictionary();
+            long plainId = dict.stringToId("\"a\"", OBJECT);
+            long typedId = dict.stringToId(typed, OBJECT);
+            long bId = dict.stringToId("\"b\"", OBJECT);
+            assertTrue(plainId > 0);
+            assertTrue(typedId > 0);
+            assertNotEquals(plainId, typedId);
+            Term plain = HDTUtils.fromHDTIdLazy(dict, plainId, OBJ);
+            Term typedTerm = HDTUtils.fromHDTIdLazy(dict, typedId, OBJ);
+            Term b = HDTUtils.fromHDTIdLazy(dict, bId, OBJ);
+            assertEquals(new Term("\"a\""), new Term(typed));
+            assertEquals(plain, typedTerm);
+            assertEquals(typedTerm, plain);
+            assertNotEquals(plain, b);
+            assertNotEquals(typedTerm, b);
+
+            Term subject = HDTUtils.fromHDTIdLazy(dict, 1, TermPosition.SUB);
+            assertNotEquals(subject, plain);
+            assertFalse(((HdtIdSparql) subject.sparql()).isDecoded());
+        }
+    }
+
     private static @NonNull Stream<Arguments> querySolutionCountArguments() {
         return Stream.of(
                 "1:<"+EX+"Alice> <"+FOAF.knows+"> <"+EX+"Bob>",
@@ -177,7 +244,9 @@ class HDTUtilsTest {
                 "0:<"+EX+"Alice> <"+FOAF.knows+"> <"+EX+"Charlie>",
                 "0:?x <"+FOAF.knows+"> <"+EX+"Charlie>",
                 "1:<"+EX+"Charlie> <"+FOAF.knows+"> <"+EX+"Alice>",
-                "2:?x <"+FOAF.knows+"> <"+EX+"Alice>"
+                "2:?x <"+FOAF.knows+"> <"+EX+"Alice>",
+                "6:<"+EX+"Bob> ?p ?o",
+                "14:?s ?p ?o"
         ).map(s -> {
             String[] pieces = s.split(":", 2);
             var terms = Arrays.stream(pieces[1].split(" ", 3)).map(Term::new).toList();
@@ -201,6 +270,20 @@ class HDTUtilsTest {
         assertEquals(expected, count);
     }
 
+    @ParameterizedTest
+    @MethodSource("querySolutionCountArguments")
+    public void testScanOrder(int expected, @NonNull TriplePattern query) {
+        TermPosition position = HDTUtils.scanOrder(query);
+        if (position == null)
+            return; // no promise
+        long last = 0;
+        for (var it = HDTUtils.queryIds(foaf, query); it.hasNext(); ) {
+            long id = HDTUtils.get(it.next(), position);
+            assertTrue(id >= last, "ID of "+position+" decreased in scan of "+query);
+            last = id;
+        }
+    }
+
     @ParameterizedTest
     @MethodSource("querySolutionCountArguments")
     public void testQueryStrings(int expected, @NonNull TriplePattern query) {
@@ -300,4 +383,38 @@ class HDTUtilsTest {
     public void testFromHDT(@NonNull String hdtString, @NonNull String expected) {
         assertEquals(expected, HDTUtils.fromHDT(hdtString).toString());
     }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"http://example.org/", "http://example.org/B", "http://xmlns",
+                            "\"", "\"Al", "\"b", "\"z", "_:", "z", "http://example.org/Z"})
+    void testPrefixKeyRanges(@NonNull String prefix) {
+        var dict = foaf.getDictionary();
+        long nShared = dict.getNshared();
+        for (boolean predicates : List.of(false, true)) {
+            long[] ranges = HDTUtils.prefixKeyRanges(dict, predicates, prefix);
+            for (int i = 2; i < ranges.length; i += 2)
+                assertTrue(ranges[i-1] < ranges[i], "ranges not sorted or overlapping");
+            // {id, key, role} of every term in the scope
+            List<long[]> terms = new ArrayList<>();
+            if (predicates) {
+                for (long id = 1; id <= dict.getNpredicates(); id++)
+                    terms.add(new long[]{id, id, TripleComponentRole.PREDICATE.ordinal()});
+            } else {
+                for (long id = 1; id <= dict.getNsubjects(); id++)
+                    terms.add(new long[]{id, id, TripleComponentRole.SUBJECT.ordinal()});
+                for (long id = nShared+1; id <= dict.getNobjects(); id++)
+                    terms.add(new long[]{id, -id, OBJECT.ordinal()});
+            }
+            List<Long> expected = new ArrayList<>(), actual = new ArrayList<>();
+            for (long[] term : terms) {
+                var role = TripleComponentRole.values()[(int)term[2]];
+                if (dict.idToString(term[0], role).toString().startsWith(prefix))
+                    expected.add(term[1]);
+                for (int i = 0; i < ranges.length; i += 2) {
+                    if (ranges[i] <= term[1] && term[1] <= ranges[i+1]) actual.add(term[1]);
+                }
+            }
+            assertEquals(expected, actual, "predicates="+predicates);
+        }
+    }
 }
\ No newline at end of file
@@ -24,7 +24,8 @@ class HdtQueryServiceImplTest extends BaseHdtQueryServiceTest {
             "hdt.load.mmap", List.of("true", "false"),
             "hdt.load.can-create-index", List.of("true", "false"),
             "hdt.load.progress.impl", List.of("log", "none"),
-            "hdt.load.progress.log.level", List.of("DEBUG")
+            "hdt.load.progress.log.level", List.of("DEBUG"),
+            "sparql.hdt.materialization", List.of("LAZY", "EAGER")
     );
     private static List<Map<String, Object>> configurations;
 
@@ -0,0 +1,105 @@
+package com.github.lapesd.hdtss.data.query.impl;
+
+import com.github.lapesd.hdtss.TempFile;
+import com.github.lapesd.hdtss.TestUtils;
+import com.github.lapesd.hdtss.data.query.ValueRange;
+import com.github.lapesd.hdtss.model.Term;
+import com.github.lapesd.hdtss.model.TermPosition;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.rdfhdt.hdt.hdt.HDT;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static com.github.lapesd.hdtss.TestVocab.i23;
+import static com.github.lapesd.hdtss.TestVocab.i25;
+import static com.github.lapesd.hdtss.data.query.ValueRange.Kind.NUMERIC;
+import static com.github.lapesd.hdtss.data.query.ValueRange.Kind.TEMPORAL;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+@Tag("fast")
+class LiteralRangeIndexTest {
+    private static final double INF = Double.POSITIVE_INFINITY;
+    private static HDT foaf;
+
+    @BeforeAll
+    static void beforeAll() throws IOException {
+        foaf = TestUtils.openHDTResource(LiteralRangeIndexTest.class, "../foaf-graph.hdt");
+    }
+
+    @AfterAll
+    static void afterAll() throws IOException {
+        foaf.close();
+    }
+
+    @SuppressWarnings("unused") static Stream<Arguments> test() {
+        return Stream.of(
+                arguments(ValueRange.all(NUMERIC), List.of(i23, i25)),
+                arguments(ValueRange.all(TEMPORAL), List.of()),
+                arguments(new ValueRange(NUMERIC, 23, 23), List.of(i23)),
+                arguments(new ValueRange(NUMERIC, 23.5, INF), List.of(i25)),
+                arguments(new ValueRange(NUMERIC, -INF, 22.9), List.of()),
+                arguments(new ValueRange(NUMERIC, 24, 23), List.of()),
+                arguments(new ValueRange(NUMERIC, 25, 25).withSlack(), List.of(i25))
+        );
+    }
+
+    @ParameterizedTest @MethodSource
+    void test(@NonNull ValueRange range, @NonNull List<Term> expected) {
+        var index = LiteralRangeIndex.build(foaf.getDictionary());
+        assertEquals(2, index.size(NUMERIC));
+        assertEquals(0, index.size(TEMPORAL));
+        assertEquals(expected.size(), index.count(range));
+        long[] ids = index.ids(range);
+        List<Term> actual = Arrays.stream(ids)
+                .mapToObj(id -> HDTUtils.fromHDTId(foaf.getDictionary(), id, TermPosition.OBJ))
+                .toList();
+        assertEquals(expected, TestUtils.fixEquals(actual));
+    }
+
+    @Test
+    void testWriteRead() throws IOException {
+        var index = LiteralRangeIndex.build(foaf.getDictionary());
+        var identity = HdtIdentity.of(null, foaf.getDictionary());
+        try (var file = new TempFile(LiteralRangeIndex.SUFFIX)) {
+            index.write(file.toPath(), identity);
+            var read = LiteralRangeIndex.read(file.toPath(), identity);
+            assertNotNull(read);
+            for (ValueRange.Kind kind : ValueRange.Kind.values()) {
+                assertEquals(index.size(kind), read.size(kind));
+                assertArrayEquals(index.ids(ValueRange.all(kind)),
+                                  read.ids(ValueRange.all(kind)));
+            }
+            assertTrue(file.delete());
+            assertNull(LiteralRangeIndex.read(file.toPath(), identity));
+        }
+    }
+
+    @Test
+    void testReadStale() throws IOException {
+        var index = LiteralRangeIndex.build(foaf.getDictionary());
+        try (var hdtFile = new TempFile(".hdt");
+             var file = new TempFile(LiteralRangeIndex.SUFFIX)) {
+            Files.writeString(hdtFile.toPath(), "v1");
+            var identity = HdtIdentity.of(hdtFile.toPath(), foaf.getDictionary());
+            index.write(file.toPath(), identity);
+            assertNotNull(LiteralRangeIndex.read(file.toPath(), identity));
+            // same dictionary sizes, but the HDT file was replaced
+            Files.writeString(hdtFile.toPath(), "v2.0");
+            var replaced = HdtIdentity.of(hdtFile.toPath(), foaf.getDictionary());
+            assertNotEquals(identity, replaced);
+            assertNull(LiteralRangeIndex.read(file.toPath(), replaced));
+        }
+    }
+}
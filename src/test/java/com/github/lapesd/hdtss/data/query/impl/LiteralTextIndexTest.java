@@ -0,0 +1,132 @@
+package com.github.lapesd.hdtss.data.query.impl;
+
+import com.github.lapesd.hdtss.TempFile;
+import com.github.lapesd.hdtss.TestUtils;
+import com.github.lapesd.hdtss.model.Term;
+import com.github.lapesd.hdtss.model.TermPosition;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.rdfhdt.hdt.hdt.HDT;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static com.github.lapesd.hdtss.TestVocab.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+@Tag("fast")
+class LiteralTextIndexTest {
+    private static HDT foaf;
+    private static HdtIdentity identity;
+    private static TempFile file;
+    private static LiteralTextIndex index;
+
+    @BeforeAll
+    static void beforeAll() throws IOException {
+        foaf = TestUtils.openHDTResource(LiteralTextIndexTest.class, "../foaf-graph.hdt");
+        identity = HdtIdentity.of(null, foaf.getDictionary());
+        file = new TempFile(LiteralTextIndex.SUFFIX);
+        LiteralTextIndex.build(foaf.getDictionary(), identity, file.toPath());
+        index = LiteralTextIndex.open(file.toPath(), identity);
+    }
+
+    @AfterAll
+    static void afterAll() throws IOException {
+        foaf.close();
+        file.close();
+    }
+
+    @Test
+    void testTrigrams() {
+        assertEquals(0, LiteralTextIndex.trigrams("ab").length);
+        assertEquals(1, LiteralTextIndex.trigrams("abc").length);
+        assertEquals(1, LiteralTextIndex.trigrams("aaaa").length);
+        assertArrayEquals(LiteralTextIndex.trigrams("ALI"), LiteralTextIndex.trigrams("ali"));
+        assertEquals(2, LiteralTextIndex.trigrams("abcd").length);
+    }
+
+    @SuppressWarnings("unused") static Stream<Arguments> testCandidates() {
+        return Stream.of(
+                arguments(List.of("ali"), List.of(AliceEN)),
+                arguments(List.of("ALI"), List.of(AliceEN)),
+                arguments(List.of("ícia"), List.of(Alicia)),
+                arguments(List.of("Alí"), List.of(Alicia)),
+                arguments(List.of("bob"), List.of(bob)),
+                arguments(List.of("ober"), List.of(roberto)),
+                arguments(List.of("rob", "ert"), List.of(roberto)),
+                arguments(List.of("har", "lie"), List.of(charlie)),
+                arguments(List.of("bob", "lie"), List.of()),
+                arguments(List.of("xyz"), List.of()),
+                arguments(List.of("23"), List.of()) // no trigrams: everything is a candidate
+        );
+    }
+
+    @ParameterizedTest @MethodSource
+    void testCandidates(@NonNull List<String> substrings, @NonNull List<Term> expected) {
+        assertNotNull(index);
+        long[] ids = index.candidates(substrings);
+        if (substrings.stream().allMatch(s -> s.length() < 3)) {
+            assertNull(ids);
+            assertEquals(-1, index.maxCandidates(substrings));
+            return;
+        }
+        assertNotNull(ids);
+        List<Term> actual = Arrays.stream(ids)
+                .mapToObj(id -> HDTUtils.fromHDTId(foaf.getDictionary(), id, TermPosition.OBJ))
+                .toList();
+        assertEquals(expected, TestUtils.fixEquals(actual));
+        assertTrue(index.maxCandidates(substrings) >= expected.size());
+    }
+
+    @ParameterizedTest @ValueSource(ints = {1, 2, 7})
+    void testBuildInChunks(int chunkPostings) throws IOException {
+        try (var tmp = new TempFile(LiteralTextIndex.SUFFIX)) {
+            LiteralTextIndex.build(foaf.getDictionary(), identity, tmp.toPath(), chunkPostings,
+                                   LiteralTextIndex.MAX_FAN_IN);
+            assertArrayEquals(Files.readAllBytes(file.toPath()), Files.readAllBytes(tmp.toPath()));
+        }
+    }
+
+    @ParameterizedTest @ValueSource(ints = {2, 3})
+    void testBuildWithBoundedFanIn(int fanIn) throws IOException {
+        try (var tmp = new TempFile(LiteralTextIndex.SUFFIX)) {
+            LiteralTextIndex.build(foaf.getDictionary(), identity, tmp.toPath(), 1, fanIn);
+            assertArrayEquals(Files.readAllBytes(file.toPath()), Files.readAllBytes(tmp.toPath()));
+            // temporary files are created next to the sidecar and removed
+            String prefix = tmp.toPath().getFileName()+".";
+            try (var siblings = Files.list(tmp.toPath().toAbsolutePath().getParent())) {
+                assertEquals(List.of(), siblings.map(p -> p.getFileName().toString())
+                                                .filter(n -> n.startsWith(prefix)).toList());
+            }
+        }
+    }
+
+    @Test
+    void testOpenStaleOrMissing() throws IOException {
+        HDT other = TestUtils.openHDTResource(LiteralTextIndexTest.class, "../peek.hdt");
+        try (var tmp = new TempFile(LiteralTextIndex.SUFFIX)) {
+            Files.copy(file.toPath(), tmp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            assertNull(LiteralTextIndex.open(tmp.toPath(),
+                                             HdtIdentity.of(null, other.getDictionary())));
+            // same dictionary, but the HDT file was replaced
+            var replaced = new HdtIdentity(1024, 1, identity.nShared(), identity.nObjects());
+            assertNull(LiteralTextIndex.open(tmp.toPath(), replaced));
+            assertTrue(tmp.delete());
+            assertNull(LiteralTextIndex.open(tmp.toPath(), identity));
+        } finally {
+            other.close();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.github.lapesd.hdtss.data.query.impl;
+
+import com.github.lapesd.hdtss.TestUtils;
+import com.github.lapesd.hdtss.model.nodes.TriplePattern;
+import com.github.lapesd.hdtss.vocab.FOAF;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.rdfhdt.hdt.hdt.HDT;
+import org.rdfhdt.hdt.hdt.HDTManager;
+import org.rdfhdt.hdt.options.HDTSpecification;
+import org.rdfhdt.hdt.triples.TripleString;
+import org.rdfhdt.hdt.triples.TripleID;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("fast")
+class ParallelScannerTest {
+    private static HDT foaf;
+
+    @BeforeAll
+    static void beforeAll() throws IOException {
+        foaf = TestUtils.openHDTResource(ParallelScannerTest.class, "../foaf-graph.hdt");
+    }
+
+    @AfterAll
+    static void afterAll() throws IOException {
+        foaf.close();
+    }
+
+    private static @NonNull ParallelScanner createScanner(boolean enabled, int threads,
+                                                          long minTriples, boolean ordered) {
+        long triples = foaf.getTriples().size();
+        return new ParallelScanner(enabled, threads, minTriples, ordered, () -> tp -> triples);
+    }
+
+    private static @NonNull List<String> toList(@NonNull Iterator<TripleID> it) {
+        List<String> list = new ArrayList<>();
+        while (it.hasNext()) {
+            TripleID t = it.next();
+            list.add(t.getSubject() + " " + t.getPredicate() + " " + t.getObject());
+        }
+        return list;
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "?s ?p ?o",
+            "?s <"+FOAF.knows+"> ?o",
+            "?s <"+FOAF.name+"> ?o",
+            "?s ?p ?s",
+    })
+    void testSameAsSequential(@NonNull String tpString) {
+        TriplePattern tp = TestUtils.parseTriplePattern(tpString);
+        List<String> expected = toList(HDTUtils.queryIds(foaf, tp));
+        for (boolean ordered : List.of(false, true)) {
+            for (int threads : List.of(2, 3, 64)) {
+                ParallelScanner scanner = createScanner(true, threads, 1, ordered);
+                try {
+                    for (int round = 0; round < 2; round++) {
+                        var msg = "ordered=" + ordered + ", threads=" + threads + ", round=" + round;
+                        Iterator<TripleID> it = scanner.scan(foaf, tp, null);
+                        assertNotNull(it, msg);
+                        List<String> actual = toList(it);
+                        if (ordered) {
+                            assertEquals(expected, actual, msg);
+                        } else {
+                            assertEquals(expected.size(), actual.size(), msg);
+                            assertEquals(expected.stream().sorted().toList(),
+                                         actual.stream().sorted().toList(), msg);
+                        }
+                    }
+                } finally {
+                    scanner.shutdown();
+                }
+            }
+        }
+    }
+
+    @Test
+    void testClose() throws Exception {
+        TriplePattern tp = TestUtils.parseTriplePattern("?s ?p ?o");
+        List<String> expected = toList(HDTUtils.queryIds(foaf, tp));
+        for (boolean ordered : List.of(false, true)) {
+            ParallelScanner scanner = createScanner(true, 2, 1, ordered);
+            try {
+                Iterator<TripleID> it = scanner.scan(foaf, tp, null);
+                assertNotNull(it);
+                assertTrue(it.hasNext());
+                it.next();
+                ((AutoCloseable) it).close();
+                assertFalse(it.hasNext());
+                assertThrows(NoSuchElementException.class, it::next);
+                ((AutoCloseable) it).close(); // no-op
+
+                Iterator<TripleID> again = scanner.scan(foaf, tp, null);
+                assertNotNull(again);
+                assertEquals(expected.size(), toList(again).size());
+            } finally {
+                scanner.shutdown();
+            }
+        }
+    }
+
+    private static long countPoolThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                     .filter(t -> t.getName().startsWith("ParallelScanner-")).count();
+    }
+
+    @Test
+    void testAbandonedScansDoNotGrowPool() throws Exception {
+        // enough triples per subject range to fill the queues and make producers park
+        String ex = "http://example.org/";
+        List<TripleString> triples = new ArrayList<>();
+        for (int s = 0; s < 1000; s++) {
+            for (int o = 0; o < 40; o++)
+                triples.add(new TripleString(ex+"s"+s, ex+"p", ex+"o"+o));
+        }
+        TriplePattern tp = TestUtils.parseTriplePattern("?s <"+ex+"p> ?o");
+        try (HDT hdt = HDTManager.generateHDT(triples.iterator(), ex, new HDTSpecification(),
+                                              null)) {
+            List<String> expected = toList(HDTUtils.queryIds(hdt, tp));
+            assertEquals(triples.size(), expected.size());
+            for (boolean ordered : List.of(false, true)) {
+                long threadsBefore = countPoolThreads(); // may include dying threads
+                var scanner = new ParallelScanner(true, 2, 1, ordered, () -> p -> triples.size());
+                try {
+                    List<Iterator<TripleID>> abandoned = new ArrayList<>();
+                    for (int i = 0; i < 32; i++) {
+                        Iterator<TripleID> it = scanner.scan(hdt, tp, null);
+                        assertNotNull(it);
+                        assertTrue(it.hasNext());
+                        it.next();
+                        abandoned.add(it); // neither exhausted nor closed
+                    }
+                    Iterator<TripleID> it = scanner.scan(hdt, tp, null);
+                    assertNotNull(it);
+                    List<String> actual = toList(it);
+                    if (ordered)
+                        assertEquals(expected, actual);
+                    else
+                        assertEquals(expected.stream().sorted().toList(),
+                                     actual.stream().sorted().toList());
+                    assertTrue(countPoolThreads() - threadsBefore <= 2, "ordered="+ordered);
+
+                    for (Iterator<TripleID> i : abandoned) {
+                        ((AutoCloseable) i).close();
+                        assertFalse(i.hasNext());
+                    }
+                } finally {
+                    scanner.shutdown();
+                }
+            }
+        }
+    }
+
+    @Test
+    void testSequentialFallback() {
+        TriplePattern all = TestUtils.parseTriplePattern("?s ?p ?o");
+        assertNull(createScanner(false, 4, 1, false).scan(foaf, all, null));
+        assertNull(createScanner(true, 1, 1, false).scan(foaf, all, null));
+        assertNull(createScanner(true, 4, Long.MAX_VALUE, false).scan(foaf, all, null));
+
+        ParallelScanner scanner = createScanner(true, 4, 1, false);
+        try {
+            var boundObject = TestUtils.parseTriplePattern("?s ?p \"Alice\"@en");
+            assertNull(scanner.scan(foaf, boundObject, null));
+            var missing = TestUtils.parseTriplePattern("?s <http://example.org/missing> ?o");
+            assertNull(scanner.scan(foaf, missing, null));
+        } finally {
+            scanner.shutdown();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.github.lapesd.hdtss.data.query.impl;
+
+import com.github.lapesd.hdtss.TestUtils;
+import com.github.lapesd.hdtss.model.Term;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.rdfhdt.hdt.dictionary.Dictionary;
+import org.rdfhdt.hdt.enums.TripleComponentRole;
+import org.rdfhdt.hdt.hdt.HDT;
+
+import java.io.IOException;
+
+import static com.github.lapesd.hdtss.model.TermPosition.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.rdfhdt.hdt.enums.TripleComponentRole.*;
+
+@Tag("fast")
+class TermDecodeCacheTest {
+    private static HDT foaf;
+
+    @BeforeAll
+    static void beforeAll() throws IOException {
+        foaf = TestUtils.openHDTResource(TermDecodeCacheTest.class, "../foaf-graph.hdt");
+    }
+
+    @AfterAll
+    static void afterAll() throws IOException {
+        foaf.close();
+    }
+
+    private void checkAllIds(TermDecodeCache cache) {
+        Dictionary d = foaf.getDictionary();
+        for (long id = 1; id <= d.getNsubjects(); id++)
+            assertEquals(HDTUtils.fromHDTId(d, id, SUB), cache.decode(d, id, SUBJECT));
+        for (long id = 1; id <= d.getNpredicates(); id++)
+            assertEquals(HDTUtils.fromHDTId(d, id, PRE), cache.decode(d, id, PREDICATE));
+        for (long id = 1; id <= d.getNobjects(); id++)
+            assertEquals(HDTUtils.fromHDTId(d, id, OBJ), cache.decode(d, id, OBJECT));
+    }
+
+    @Test
+    void testDecodeTwice() {
+        TermDecodeCache cache = new TermDecodeCache(true, 1024 * 1024);
+        assertTrue(cache.isEnabled());
+        checkAllIds(cache);
+        long misses = cache.misses();
+        assertTrue(misses > 0);
+        assertEquals(0, cache.hits());
+        assertTrue(cache.bytes() > 0);
+
+        checkAllIds(cache);
+        assertEquals(misses, cache.hits() + cache.misses() - misses);
+        assertTrue(cache.hits() > 0);
+    }
+
+    @Test
+    void testDisabled() {
+        for (TermDecodeCache cache : new TermDecodeCache[] {new TermDecodeCache(false, 1024*1024),
+                                                            new TermDecodeCache(true, 0)}) {
+            assertFalse(cache.isEnabled());
+            checkAllIds(cache);
+            checkAllIds(cache);
+            assertEquals(0, cache.hits());
+            assertEquals(0, cache.bytes());
+        }
+    }
+
+    @Test
+    void testRespectBudget() {
+        long budget = 16 * 160;
+        TermDecodeCache cache = new TermDecodeCache(true, budget);
+        assertTrue(cache.isEnabled());
+        checkAllIds(cache);
+        assertTrue(cache.bytes() <= budget);
+    }
+
+    @Test
+    void testEvictWhenFull() {
+        long budget = 16 * 160;
+        TermDecodeCache cache = new TermDecodeCache(true, budget);
+        Dictionary d = foaf.getDictionary();
+        checkAllIds(cache);
+        assertTrue(cache.evictions() > 0);
+        assertTrue(cache.bytes() <= budget);
+
+        // a full cache still admits new terms, so the second lookup is a hit
+        long hits = cache.hits();
+        long id = d.getNobjects();
+        assertEquals(HDTUtils.fromHDTId(d, id, OBJ), cache.decode(d, id, OBJECT));
+        assertEquals(HDTUtils.fromHDTId(d, 1, SUB), cache.decode(d, 1, SUBJECT));
+        assertEquals(HDTUtils.fromHDTId(d, 1, SUB), cache.decode(d, 1, SUBJECT));
+        assertTrue(cache.hits() > hits);
+        assertTrue(cache.bytes() <= budget);
+    }
+
+    @Test
+    void testLazyTermUsesCache() {
+        TermDecodeCache cache = new TermDecodeCache(true, 1024 * 1024);
+        Dictionary d = foaf.getDictionary();
+        Term lazy = HDTUtils.fromHDTIdLazy(d, 1, SUB, cache);
+        assertEquals(HDTUtils.fromHDTId(d, 1, SUB), lazy);
+        assertEquals(1, cache.misses());
+        Term other = HDTUtils.fromHDTIdLazy(d, 1, SUB, cache);
+        assertEquals(lazy.toString(), other.toString());
+        assertEquals(1, cache.hits());
+        assertSame(cache.decode(d, 1, TripleComponentRole.SUBJECT).sparql(), other.sparql().toString());
+    }
+}
@@ -0,0 +1,105 @@
+package com.github.lapesd.hdtss.data.query.impl;
+
+import com.github.lapesd.hdtss.TestUtils;
+import com.github.lapesd.hdtss.model.Term;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.rdfhdt.hdt.dictionary.Dictionary;
+import org.rdfhdt.hdt.hdt.HDT;
+
+import java.io.IOException;
+
+import static com.github.lapesd.hdtss.model.TermPosition.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.rdfhdt.hdt.enums.TripleComponentRole.*;
+
+@Tag("fast")
+class TermIdCacheTest {
+    private static HDT foaf;
+
+    @BeforeAll
+    static void beforeAll() throws IOException {
+        foaf = TestUtils.openHDTResource(TermIdCacheTest.class, "../foaf-graph.hdt");
+    }
+
+    @AfterAll
+    static void afterAll() throws IOException {
+        foaf.close();
+    }
+
+    private void checkAllTerms(TermIdCache cache) {
+        Dictionary d = foaf.getDictionary();
+        for (long id = 1; id <= d.getNsubjects(); id++) {
+            Term term = HDTUtils.fromHDTId(d, id, SUB);
+            assertEquals(id, cache.toId(d, term, SUBJECT));
+            assertEquals(HDTUtils.toHDTId(d, term, OBJECT), cache.toId(d, term, OBJECT));
+        }
+        for (long id = 1; id <= d.getNpredicates(); id++)
+            assertEquals(id, cache.toId(d, HDTUtils.fromHDTId(d, id, PRE), PREDICATE));
+        for (long id = 1; id <= d.getNobjects(); id++)
+            assertEquals(id, cache.toId(d, HDTUtils.fromHDTId(d, id, OBJ), OBJECT));
+        Term missing = new Term("<http://example.org/not-in-foaf>");
+        assertEquals(-1, cache.toId(d, missing, SUBJECT));
+        assertEquals(0, cache.toId(d, new Term("?x"), SUBJECT));
+    }
+
+    @Test
+    void testLookupTwice() {
+        TermIdCache cache = new TermIdCache(true, 1024 * 1024);
+        assertTrue(cache.isEnabled());
+        checkAllTerms(cache);
+        long hits = cache.hits(), lookups = hits + cache.misses();
+        assertTrue(cache.misses() > 0);
+        assertTrue(cache.bytes() > 0);
+
+        checkAllTerms(cache);
+        assertEquals(2*lookups, cache.hits() + cache.misses());
+        assertTrue(cache.hits() > hits);
+    }
+
+    @Test
+    void testDisabled() {
+        for (TermIdCache cache : new TermIdCache[] {new TermIdCache(false, 1024*1024),
+                                                    new TermIdCache(true, 0)}) {
+            assertFalse(cache.isEnabled());
+            checkAllTerms(cache);
+            checkAllTerms(cache);
+            assertEquals(0, cache.hits());
+            assertEquals(0, cache.bytes());
+        }
+    }
+
+    @Test
+    void testRespectBudget() {
+        long budget = 16 * 128;
+        TermIdCache cache = new TermIdCache(true, budget);
+        assertTrue(cache.isEnabled());
+        checkAllTerms(cache);
+        assertTrue(cache.bytes() <= budget);
+    }
+
+    @Test
+    void testResolve() {
+        TermIdCache cache = new TermIdCache(true, 1024 * 1024);
+        Dictionary d = foaf.getDictionary();
+        for (long id = 1; id <= d.getNobjects(); id++) {
+            Term term = HDTUtils.fromHDTId(d, id, OBJ).withString();
+            Term resolved = cache.resolve(d, term);
+            assertEquals(term, resolved);
+            assertEquals(term.hashCode(), resolved.hashCode());
+            if (!term.isGround()) {
+                assertSame(term, resolved);
+                continue;
+            }
+            assertTrue(resolved.sparql() instanceof HdtIdSparql);
+            assertTrue(((HdtIdSparql) resolved.sparql()).isDecoded());
+            long hits = cache.hits();
+            assertEquals(id, HDTUtils.toHDTId(d, resolved, OBJECT, cache));
+            assertEquals(hits, cache.hits(), "resolved term should not need a lookup");
+        }
+        Term missing = new Term("<http://example.org/not-in-foaf>");
+        assertSame(missing, cache.resolve(d, missing));
+    }
+}
@@ -0,0 +1,169 @@
+package com.github.lapesd.hdtss.data.query.impl;
+
+import com.github.lapesd.hdtss.model.nodes.TriplePattern.SharedVars;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.rdfhdt.hdt.triples.TripleID;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("fast")
+class TriplePatternCacheTest {
+    private static final TriplePatternCache.Key S1 = new TriplePatternCache.Key(1, 0, 0,
+                                                                                SharedVars.NONE);
+    private static final List<TripleID> S1_TRIPLES = List.of(new TripleID(1, 2, 3),
+                                                             new TripleID(1, 2, 4),
+                                                             new TripleID(1, 5, 1));
+
+    private static List<TripleID> drain(Iterator<TripleID> it) {
+        List<TripleID> list = new ArrayList<>();
+        it.forEachRemaining(t -> list.add(new TripleID(t)));
+        return list;
+    }
+
+    private static void record(TriplePatternCache cache, TriplePatternCache.Key key,
+                               List<TripleID> triples) {
+        assertNull(cache.get(key));
+        drain(cache.recording(key, triples.iterator(), t -> true));
+    }
+
+    @Test
+    void testRecordAndReplay() {
+        var cache = new TriplePatternCache(true, 1024*1024, 1024);
+        assertTrue(cache.isEnabled());
+        assertEquals(S1_TRIPLES, drain(cache.recording(S1, S1_TRIPLES.iterator(), t -> true)));
+        Iterator<TripleID> replay = cache.get(S1);
+        assertNotNull(replay);
+        assertEquals(S1_TRIPLES, drain(replay));
+        assertEquals(1, cache.hits());
+        assertTrue(cache.bytes() > 0);
+    }
+
+    @Test
+    void testRecordFiltered() {
+        var key = new TriplePatternCache.Key(0, 5, 0, SharedVars.SO);
+        var cache = cache();
+        List<TripleID> all = List.of(new TripleID(1, 5, 1), new TripleID(1, 5, 2),
+                                     new TripleID(3, 5, 3));
+        var filter = HDTUtils.sharedVarIDFilter(SharedVars.SO);
+        drain(cache.recording(key, all.iterator(), filter));
+        Iterator<TripleID> replay = cache.get(key);
+        assertNotNull(replay);
+        assertEquals(List.of(new TripleID(1, 5, 1), new TripleID(3, 5, 3)), drain(replay));
+    }
+
+    @Test
+    void testFullyBound() {
+        var cache = cache();
+        var yes = new TriplePatternCache.Key(1, 2, 3, SharedVars.NONE);
+        var no = new TriplePatternCache.Key(1, 2, 9, SharedVars.NONE);
+        record(cache, yes, List.of(new TripleID(1, 2, 3)));
+        record(cache, no, List.of());
+        assertEquals(List.of(new TripleID(1, 2, 3)), drain(requireNonNull(cache.get(yes))));
+        assertEquals(List.of(), drain(requireNonNull(cache.get(no))));
+    }
+
+    @Test
+    void testNotRecordedIfIncomplete() {
+        var cache = cache();
+        Iterator<TripleID> it = cache.recording(S1, S1_TRIPLES.iterator(), t -> true);
+        it.next();
+        assertNull(cache.get(S1));
+    }
+
+    @Test
+    void testNotRecordedIfTooLarge() {
+        var cache = new TriplePatternCache(true, 1024*1024, 2);
+        record(cache, S1, S1_TRIPLES);
+        assertNull(cache.get(S1));
+    }
+
+    @Test
+    void testDisabled() {
+        for (var cache : List.of(new TriplePatternCache(false, 1024*1024, 1024),
+                                 new TriplePatternCache(true, 0, 1024))) {
+            assertFalse(cache.isEnabled());
+            record(cache, S1, S1_TRIPLES);
+            assertNull(cache.get(S1));
+            assertEquals(0, cache.hits() + cache.misses());
+        }
+    }
+
+    @Test
+    void testFrequentEntriesAreNotEvictedByOneOffs() {
+        // room for a single entry with 3 rows of 2 IDs
+        var cache = new TriplePatternCache(true, 128 + 8*6, 1024);
+        var other = new TriplePatternCache.Key(4, 0, 0, SharedVars.NONE);
+        var otherTriples = List.of(new TripleID(4, 2, 3), new TripleID(4, 2, 5),
+                                   new TripleID(4, 6, 7));
+        record(cache, S1, S1_TRIPLES);
+        for (int i = 0; i < 3; i++)
+            assertNotNull(cache.get(S1));
+
+        record(cache, other, otherTriples); // looked up once, not admitted
+        assertNull(cache.get(other));
+        assertNotNull(cache.get(S1));
+
+        for (int i = 0; i < 8; i++)
+            assertNull(cache.get(other));
+        record(cache, other, otherTriples); // now more popular than S1
+        assertEquals(otherTriples, drain(requireNonNull(cache.get(other))));
+        assertNull(cache.get(S1));
+    }
+
+    @Test
+    void testNoEvictionIfAnyVictimIsMorePopular() {
+        // room for two entries with 1 row of 2 IDs each
+        var cache = new TriplePatternCache(true, 2*(128 + 8*2), 1024);
+        var rare = new TriplePatternCache.Key(7, 0, 0, SharedVars.NONE);
+        var popular = new TriplePatternCache.Key(8, 0, 0, SharedVars.NONE);
+        var rareTriples = List.of(new TripleID(7, 1, 1));
+        var popularTriples = List.of(new TripleID(8, 1, 1));
+        record(cache, rare, rareTriples);
+        record(cache, popular, popularTriples);
+        for (int i = 0; i < 5; i++)
+            assertNotNull(cache.get(popular));
+        long bytes = cache.bytes();
+
+        // more popular than rare, but admitting it would also evict popular
+        for (int i = 0; i < 2; i++)
+            assertNull(cache.get(S1));
+        record(cache, S1, S1_TRIPLES);
+        assertEquals(bytes, cache.bytes());
+        assertNull(cache.get(S1));
+        assertEquals(rareTriples, drain(requireNonNull(cache.get(rare))));
+        assertEquals(popularTriples, drain(requireNonNull(cache.get(popular))));
+    }
+
+    @Test
+    void testConcurrentLookupsOnSegments() {
+        var cache = new TriplePatternCache(true, 64*1024*1024, 1024);
+        List<TriplePatternCache.Key> keys = new ArrayList<>();
+        for (int s = 1; s <= 256; s++) {
+            var key = new TriplePatternCache.Key(s, 0, 0, SharedVars.NONE);
+            keys.add(key);
+            record(cache, key, List.of(new TripleID(s, 2, 3), new TripleID(s, 4, 5)));
+        }
+        keys.parallelStream().forEach(key -> {
+            for (int i = 0; i < 100; i++) {
+                var expected = List.of(new TripleID(key.s(), 2, 3), new TripleID(key.s(), 4, 5));
+                assertEquals(expected, drain(requireNonNull(cache.get(key))));
+            }
+        });
+        assertEquals(256*100, cache.hits());
+        assertEquals(256*(128 + 8*4), cache.bytes());
+    }
+
+    private static TriplePatternCache cache() {
+        return new TriplePatternCache(true, 1024*1024, 1024);
+    }
+
+    private static <T> T requireNonNull(T value) {
+        assertNotNull(value);
+        return value;
+    }
+}
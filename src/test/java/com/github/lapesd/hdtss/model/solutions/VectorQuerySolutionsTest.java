@@ -0,0 +1,116 @@
+package com.github.lapesd.hdtss.model.solutions;
+
+import com.github.lapesd.hdtss.model.Term;
+import com.github.lapesd.hdtss.model.TermPosition;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import static com.github.lapesd.hdtss.model.TermPosition.SUB;
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("fast")
+class VectorQuerySolutionsTest extends BaseQuerySolutionsTest {
+    /** Use a tiny capacity so that rows span multiple batches */
+    private static final int CAPACITY = 2;
+
+    private static @NonNull VectorQuerySolutions
+    createVector(@NonNull List<@NonNull String> names, @NonNull List<Term[]> rows) {
+        List<Term> dictionary = new ArrayList<>();
+        int width = rows.isEmpty() ? names.size() : rows.get(0).length;
+        TermPosition[] positions = new TermPosition[width];
+        Arrays.fill(positions, SUB);
+        IdBatch batch = new IdBatch(positions, CAPACITY);
+        Iterator<Term[]> it = rows.iterator();
+        return new VectorQuerySolutions(names, () -> {
+            batch.clear();
+            while (!batch.isFull() && it.hasNext()) {
+                Term[] row = it.next();
+                int idx = batch.nextRow();
+                for (int i = 0; i < width; i++) {
+                    if (row[i] != null) {
+                        dictionary.add(row[i]);
+                        batch.column(i)[idx] = dictionary.size();
+                    }
+                }
+                batch.commitRow();
+            }
+            return batch.size() > 0 ? batch : null;
+        }, (id, position) -> dictionary.get((int) id - 1));
+    }
+
+    @Override
+    protected @NonNull QuerySolutions createFor(@NonNull List<@NonNull String> names,
+                                                @NonNull List<Term[]> rows) {
+        return createVector(names, rows);
+    }
+
+    @Test
+    void testSelectionAndProjection() {
+        List<Term[]> rows = asList(new Term[]{Alice, alice}, new Term[]{Bob, roberto},
+                                   new Term[]{Bob, i23});
+        var solutions = createVector(asList("x", "y"), rows);
+        IdBatch batch = solutions.nextBatch();
+        assertNotNull(batch);
+        assertEquals(2, batch.selectedCount());
+        batch.retain(new boolean[]{false, true});
+        assertEquals(1, batch.selectedCount());
+        IdBatch projected = batch.project(new int[]{1, -1});
+        assertEquals(1, projected.selectedCount());
+        assertNull(projected.column(1));
+        assertEquals(asList(roberto, null),
+                     asList(solutions.row(projected, projected.selectedRow(0))));
+
+        batch = solutions.nextBatch();
+        assertNotNull(batch);
+        assertEquals(1, batch.selectedCount());
+        assertEquals(asList(Bob, i23), asList(solutions.row(batch, batch.selectedRow(0))));
+        assertNull(solutions.nextBatch());
+    }
+
+    @Test
+    void testRetainRange() {
+        List<Term[]> rows = asList(new Term[]{Alice}, new Term[]{Bob});
+        var solutions = createVector(List.of("x"), rows);
+        IdBatch batch = solutions.nextBatch();
+        assertNotNull(batch);
+        batch.retainRange(1, 2);
+        assertEquals(1, batch.selectedCount());
+        assertEquals(List.of(Bob), asList(solutions.row(batch, batch.selectedRow(0))));
+    }
+
+    @Test
+    void testCloseReachesSource() throws Exception {
+        List<Term[]> rows = asList(new Term[]{Alice, alice}, new Term[]{Bob, roberto},
+                                   new Term[]{Bob, i23});
+        for (boolean asRows : List.of(false, true)) {
+            var in = createVector(asList("x", "y"), rows);
+            int[] closed = {0};
+            var source = new VectorQuerySolutions(in.varNames(),
+                    new VectorQuerySolutions.BatchSource() {
+                        @Override public IdBatch nextBatch() { return in.nextBatch(); }
+                        @Override public void close() { ++closed[0]; }
+                    }, in.decoder());
+            var projected = source.project(List.of("y"), new int[]{1});
+            if (asRows) {
+                Iterator<Term[]> it = projected.iterator();
+                assertEquals(List.of(alice), asList(it.next()));
+                ((AutoCloseable) it).close();
+                assertFalse(it.hasNext());
+            } else {
+                IdBatch batch = projected.nextBatch();
+                assertNotNull(batch);
+                assertEquals(List.of(alice),
+                             asList(projected.row(batch, batch.selectedRow(0))));
+                projected.close();
+            }
+            assertEquals(1, closed[0], "asRows="+asRows);
+        }
+    }
+}
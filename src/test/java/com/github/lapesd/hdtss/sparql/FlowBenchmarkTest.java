@@ -0,0 +1,119 @@
+package com.github.lapesd.hdtss.sparql;
+
+import com.github.lapesd.hdtss.TempFile;
+import com.github.lapesd.hdtss.TestUtils;
+import com.github.lapesd.hdtss.model.Term;
+import com.github.lapesd.hdtss.model.nodes.*;
+import com.github.lapesd.hdtss.model.solutions.QuerySolutions;
+import com.github.lapesd.hdtss.vocab.XSD;
+import io.micronaut.context.ApplicationContext;
+import lombok.extern.slf4j.Slf4j;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.rdfhdt.hdt.exceptions.ParserException;
+import org.rdfhdt.hdt.hdt.HDT;
+import org.rdfhdt.hdt.hdt.HDTManager;
+import org.rdfhdt.hdt.options.HDTSpecification;
+import org.rdfhdt.hdt.triples.TripleString;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.*;
+
+import static com.github.lapesd.hdtss.TestVocab.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the wall-clock time of the same plans under each operator flow.
+ *
+ * This is not part of the regular test run. Enable it with {@code -Dhdtss.benchmark=true}.
+ */
+@Slf4j
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "hdtss.benchmark", matches = "true")
+class FlowBenchmarkTest {
+    private static final int SUBJECTS = 100_000;
+    private static final int WARMUP = 3, RUNS = 5;
+    private static final List<String> FLOWS = List.of("ITERATOR", "REACTIVE", "VECTOR");
+    private static TempFile hdtFile;
+
+    @BeforeAll
+    static void beforeAll() throws IOException, ParserException {
+        List<TripleString> triples = new ArrayList<>(2*SUBJECTS);
+        for (int i = 0; i < SUBJECTS; i++) {
+            String subject = EX+"s"+i;
+            triples.add(new TripleString(subject, EX+"p", EX+"o"+(i % 100)));
+            triples.add(new TripleString(subject, EX+"age",
+                                         "\""+(i % 50)+"\"^^<"+XSD.integer+">"));
+        }
+        hdtFile = new TempFile(".hdt");
+        try (HDT hdt = HDTManager.generateHDT(triples.iterator(), EX, new HDTSpecification(),
+                                              null)) {
+            hdt.saveToHDT(hdtFile.getAbsolutePath(), null);
+        }
+    }
+
+    @AfterAll
+    static void afterAll() throws IOException {
+        if (hdtFile == null)
+            return;
+        File[] sidecars = hdtFile.getParentFile().listFiles(
+                (dir, n) -> n.startsWith(hdtFile.getName()) && !n.equals(hdtFile.getName()));
+        for (File sidecar : sidecars == null ? new File[0] : sidecars)
+            Files.deleteIfExists(sidecar.toPath());
+        hdtFile.close();
+    }
+
+    private static long consume(@NonNull QuerySolutions solutions, @NonNull String flow) {
+        if (flow.equals("REACTIVE")) {
+            Long count = solutions.flux().count().block();
+            return count == null ? 0 : count;
+        }
+        long count = 0;
+        for (var it = solutions.iterator(); it.hasNext(); it.next())
+            ++count;
+        return count;
+    }
+
+    @Test
+    void benchmarkFlows() {
+        Term p = new Term("<"+EX+"p>"), age = new Term("<"+EX+"age>");
+        var scan = new TriplePattern(x, p, y);
+        var ages = new TriplePattern(x, age, z);
+        Map<String, Op> plans = new LinkedHashMap<>();
+        plans.put("scan", scan);
+        plans.put("filter", new Filter(ages, "?z < 10"));
+        plans.put("join", new Join(scan, ages));
+        plans.put("slice", new Slice(scan, 1000, 0));
+
+        Map<String, Long> rows = new HashMap<>();
+        for (String flow : FLOWS) {
+            var choices = Map.of("sparql.flow", List.<Object>of(flow),
+                                 "hdt.location", List.<Object>of(hdtFile.getAbsolutePath()));
+            for (ApplicationContext ctx : TestUtils.listApplicationContext(choices)) {
+                try (ctx) {
+                    var dispatcher = ctx.getBean(OpExecutorDispatcher.class);
+                    for (var e : plans.entrySet()) {
+                        long count = 0;
+                        for (int i = 0; i < WARMUP; i++)
+                            count = consume(dispatcher.execute(e.getValue()), flow);
+                        long start = System.nanoTime();
+                        for (int i = 0; i < RUNS; i++)
+                            consume(dispatcher.execute(e.getValue()), flow);
+                        double ms = (System.nanoTime() - start) / 1e6 / RUNS;
+                        log.info("{} {}: {} rows, {} ms/run", flow, e.getKey(), count,
+                                 String.format("%.3f", ms));
+                        Long old = rows.putIfAbsent(e.getKey(), count);
+                        if (old != null)
+                            assertEquals(old, count, "flow="+flow+", plan="+e.getKey());
+                    }
+                }
+            }
+        }
+    }
+}
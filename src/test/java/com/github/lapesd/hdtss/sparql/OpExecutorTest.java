@@ -9,6 +9,7 @@ import com.github.lapesd.hdtss.model.nodes.Project;
 import com.github.lapesd.hdtss.model.nodes.*;
 import com.github.lapesd.hdtss.model.solutions.BatchQuerySolutions;
 import com.github.lapesd.hdtss.sparql.impl.IdentityExecutor;
+import com.github.lapesd.hdtss.sparql.impl.LookupMemo;
 import com.github.lapesd.hdtss.sparql.impl.ask.AskFluxExecutor;
 import com.github.lapesd.hdtss.sparql.impl.ask.AskItExecutor;
 import com.github.lapesd.hdtss.sparql.impl.assign.JenaAssignFluxExecutor;
@@ -21,6 +22,8 @@ import com.github.lapesd.hdtss.sparql.impl.exists.ExistsFluxExecutor;
 import com.github.lapesd.hdtss.sparql.impl.exists.ExistsItExecutor;
 import com.github.lapesd.hdtss.sparql.impl.filter.JenaFilterFluxExecutor;
 import com.github.lapesd.hdtss.sparql.impl.filter.JenaFilterItExecutor;
+import com.github.lapesd.hdtss.sparql.impl.group.GroupFluxExecutor;
+import com.github.lapesd.hdtss.sparql.impl.group.GroupItExecutor;
 import com.github.lapesd.hdtss.sparql.impl.join.BindJoinFluxExecutor;
 import com.github.lapesd.hdtss.sparql.impl.join.BindJoinItExecutor;
 import com.github.lapesd.hdtss.sparql.impl.join.BindLeftJoinFluxExecutor;
@@ -29,6 +32,8 @@ import com.github.lapesd.hdtss.sparql.impl.minus.MinusFluxExecutor;
 import com.github.lapesd.hdtss.sparql.impl.minus.MinusItExecutor;
 import com.github.lapesd.hdtss.sparql.impl.project.ProjectFluxExecutor;
 import com.github.lapesd.hdtss.sparql.impl.project.ProjectItExecutor;
+import com.github.lapesd.hdtss.sparql.impl.order.OrderFluxExecutor;
+import com.github.lapesd.hdtss.sparql.impl.order.OrderItExecutor;
 import com.github.lapesd.hdtss.sparql.impl.slice.SliceFluxExecutor;
 import com.github.lapesd.hdtss.sparql.impl.slice.SliceItExecutor;
 import com.github.lapesd.hdtss.sparql.impl.union.UnionFluxExecutor;
@@ -36,6 +41,7 @@ import com.github.lapesd.hdtss.sparql.impl.union.UnionItExecutor;
 import com.github.lapesd.hdtss.sparql.impl.values.ValuesFluxExecutor;
 import com.github.lapesd.hdtss.sparql.impl.values.ValuesItExecutor;
 import com.github.lapesd.hdtss.utils.Binding;
+import com.github.lapesd.hdtss.vocab.FOAF;
 import com.github.lapesd.hdtss.vocab.RDF;
 import com.github.lapesd.hdtss.vocab.XSD;
 import io.micronaut.context.ApplicationContext;
@@ -48,13 +54,21 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.rdfhdt.hdt.exceptions.ParserException;
+import org.rdfhdt.hdt.hdt.HDT;
+import org.rdfhdt.hdt.hdt.HDTManager;
+import org.rdfhdt.hdt.options.HDTSpecification;
+import org.rdfhdt.hdt.triples.TripleString;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.*;
 import java.util.stream.Stream;
 
 import static com.github.lapesd.hdtss.TestUtils.fixEquals;
 import static com.github.lapesd.hdtss.TestVocab.*;
+import static com.github.lapesd.hdtss.model.nodes.Group.Function.*;
 import static com.github.lapesd.hdtss.vocab.FOAF.*;
 import static com.github.lapesd.hdtss.vocab.RDF.PropertyTerm;
 import static com.github.lapesd.hdtss.vocab.RDF.typeTerm;
@@ -64,7 +78,7 @@ import static org.junit.jupiter.params.provider.Arguments.arguments;
 
 @Tag("fast")
 class OpExecutorTest {
-    private static final List<Object> flowChoices = asList("REACTIVE", "ITERATOR");
+    private static final List<Object> flowChoices = asList("REACTIVE", "ITERATOR", "VECTOR");
     private static TempFile hdtFile;
     private static Map<String, List<Object>> sharedPropertyChoices;
 
@@ -73,7 +87,7 @@ class OpExecutorTest {
         String path = "data/query/foaf-graph.hdt";
         hdtFile = new TempFile(".hdt").initFromResource(TempFile.class, path);
         sharedPropertyChoices = Map.of(
-                "sparql.hdt.flow", asList("REACTIVE", "ITERATOR"),
+                "sparql.hdt.flow", asList("REACTIVE", "ITERATOR", "VECTOR"),
                 "hdt.location", List.of(hdtFile.getAbsolutePath()),
                 "hdt.estimator", asList("PATTERN", "PEEK")
         );
@@ -132,6 +146,23 @@ class OpExecutorTest {
         }
     }
 
+    private void testOrderedInContexts(@NonNull Op op, @NonNull List<@NonNull List<Term>> expected,
+                                       @NonNull Map<String, List<Object>> propertyChoices) {
+        for (ApplicationContext ctx : applicationContexts(opConfigName(op), propertyChoices)) {
+            try (ctx) {
+                var dispatcher = ctx.getBean(OpExecutorDispatcher.class);
+                var actual = dispatcher.execute(op).stream().map(Arrays::asList).toList();
+                assertEquals(expected, fixEquals(actual));
+                var dummy = new Binding(Map.of("OpExecutorTestDummy",
+                                               new Term("<OpExecutorTestDummy>")));
+                for (Binding b : Arrays.asList(null, Binding.EMPTY, dummy)) {
+                    actual = dispatcher.execute(op, b).stream().map(Arrays::asList).toList();
+                    assertEquals(expected, fixEquals(actual));
+                }
+            }
+        }
+    }
+
     private ApplicationContext createFlowSelectionContext(Op.Type type, String flow) {
         return ApplicationContext.builder().args(
                 "-hdt.location=" + hdtFile.getAbsolutePath(),
@@ -177,6 +208,8 @@ class OpExecutorTest {
                 new Params(Op.Type.JOIN,          BindJoinItExecutor.class,      BindJoinFluxExecutor.class),
                 new Params(Op.Type.LEFT_JOIN,     BindLeftJoinItExecutor.class,  BindLeftJoinFluxExecutor.class),
                 new Params(Op.Type.SLICE,         SliceItExecutor.class,         SliceFluxExecutor.class),
+                new Params(Op.Type.ORDER,         OrderItExecutor.class,         OrderFluxExecutor.class),
+                new Params(Op.Type.GROUP,         GroupItExecutor.class,         GroupFluxExecutor.class),
                 new Params(Op.Type.MINUS,         MinusItExecutor.class,         MinusFluxExecutor.class),
                 new Params(Op.Type.PROJECT,       ProjectItExecutor.class,       ProjectFluxExecutor.class),
                 new Params(Op.Type.UNION,         UnionItExecutor.class,         UnionFluxExecutor.class),
@@ -233,18 +266,37 @@ class OpExecutorTest {
                 arguments(new Project(List.of("x"), new TriplePattern(x, knowsTerm, y)),
                           asList(List.of(Alice), List.of(Bob), List.of(Charlie))),
                 arguments(new Project(List.of("y"), new TriplePattern(x, knowsTerm, y)),
-                          asList(List.of(Alice), List.of(Bob)))
+                          asList(List.of(Alice), List.of(Bob))),
+                // terms with and without dictionary IDs in the same column
+                arguments(new Union(new Project(List.of("x"), new TriplePattern(x, knowsTerm, y)),
+                                    new Values(new BatchQuerySolutions(List.of("x"),
+                                                       List.of(new Term[][]{{Bob}, {Alice}})),
+                                               IdentityNode.INSTANCE)),
+                          asList(List.of(Alice), List.of(Bob), List.of(Charlie))),
+                arguments(new Union(new Values(new BatchQuerySolutions(List.of("x"),
+                                                       List.of(new Term[][]{{Bob}, {Alice}})),
+                                               IdentityNode.INSTANCE),
+                                    new Project(List.of("x"), new TriplePattern(x, knowsTerm, y))),
+                          asList(List.of(Alice), List.of(Bob), List.of(Charlie))),
+                // predicate and subject IDs in the same column
+                arguments(new Union(new Project(List.of("x"), new TriplePattern(Bob, x, y)),
+                                    new TriplePattern(x, typeTerm, PropertyTerm)),
+                          asList(List.of(typeTerm), List.of(nameTerm), List.of(ageTerm),
+                                 List.of(knowsTerm)))
         ).map(a -> arguments(new Distinct((Op)a.get()[0]), a.get()[1]));
     }
     @ParameterizedTest @MethodSource
     void testDistinct(@NonNull Distinct in, @NonNull Collection<List<Term>> expected) {
         testInContexts(in, expected,
-                       Map.of("sparql.distinct.strategy", List.of("HASH", "WINDOW")));
+                       Map.of("sparql.distinct.strategy", List.of("HASH", "WINDOW", "ID"),
+                              "sparql.distinct.max-bytes", List.of("0", "67108864")));
     }
 
     @ParameterizedTest @MethodSource("testDistinct")
     void testWeakDistinct(@NonNull Distinct in, @NonNull Collection<List<Term>> expected) {
         testInContexts(in, expected);
+        testInContexts(new WeakDistinct(in.children().get(0)), expected,
+                       Map.of("sparql.weakDistinct.strategy", List.of("WINDOW", "BLOOM")));
     }
 
     @SuppressWarnings("unused") static @NonNull Stream<@NonNull Arguments> testTriplePattern() {
@@ -311,13 +363,67 @@ class OpExecutorTest {
                 arguments(new Filter(new TriplePattern(x, ageTerm, y), List.of("?y < 23")),
                           List.of()),
                 arguments(new Filter(new TriplePattern(x, ageTerm, y), List.of("regex(str(abs(?y)), \".*3$\")")),
-                          List.of(asList(Alice, i23)))
+                          List.of(asList(Alice, i23))),
+                arguments(new Filter(new TriplePattern(x, knowsTerm, y), List.of("?y = "+Bob)),
+                          List.of(asList(Alice, Bob), asList(Bob, Bob))),
+                arguments(new Filter(new TriplePattern(x, knowsTerm, y),
+                                     List.of("?x != ?y && isIRI(?y)")),
+                          List.of(asList(Alice, Bob), asList(Bob, Alice), asList(Charlie, Alice))),
+                arguments(new Filter(new TriplePattern(x, nameTerm, y),
+                                     List.of("lang(?y) = \"\" || lang(?y) = \"en\"")),
+                          List.of(asList(Alice, AliceEN), asList(Bob, bob),
+                                  asList(Charlie, charlie))),
+                arguments(new Filter(new TriplePattern(x, nameTerm, y),
+                                     List.of("STRSTARTS(STR(?x), \""+EX+"B\")",
+                                             "STRSTARTS(?y, \"rob\")")),
+                          List.of(asList(Bob, roberto))),
+                arguments(new Filter(new TriplePattern(x, nameTerm, y),
+                                     List.of("(?y < \"c\" && lang(?y) = \"\") || !bound(?y)")),
+                          List.of(asList(Bob, bob))),
+                arguments(new Filter(new TriplePattern(x, ageTerm, y),
+                                     List.of("?y > 23.5e0 || ?y < 24.0")),
+                          List.of(asList(Alice, i23), asList(Bob, i25))),
+                arguments(new Filter(new TriplePattern(x, nameTerm, y),
+                                     List.of("STRSTARTS(STR(?y), \"rob\")")),
+                          List.of(asList(Bob, roberto))),
+                arguments(new Filter(new TriplePattern(x, nameTerm, y),
+                                     List.of("regex(?y, \"^Al\")")),
+                          List.of(asList(Alice, AliceEN), asList(Alice, Alicia))),
+                arguments(new Filter(new TriplePattern(x, knowsTerm, y),
+                                     List.of("!STRSTARTS(STR(?y), \""+EX+"A\")")),
+                          List.of(asList(Alice, Bob), asList(Bob, Bob))),
+                arguments(new Filter(new TriplePattern(x, ageTerm, y),
+                                     List.of("?y > 24 && ?y <= 25.0")),
+                          List.of(asList(Bob, i25))),
+                arguments(new Filter(new TriplePattern(x, ageTerm, y),
+                                     List.of("23 = ?y", "isLiteral(?y)")),
+                          List.of(asList(Alice, i23))),
+                arguments(new Filter(new TriplePattern(x, ageTerm, y),
+                                     List.of("?y < \"2021-01-01\"^^<"+XSD.date+">")),
+                          List.of()),
+                arguments(new Filter(new TriplePattern(x, nameTerm, y),
+                                     List.of("CONTAINS(?y, \"ober\")")),
+                          List.of(asList(Bob, roberto))),
+                arguments(new Filter(new TriplePattern(x, nameTerm, y),
+                                     List.of("CONTAINS(LCASE(?y), \"lic\") && isLiteral(?y)")),
+                          List.of(asList(Alice, AliceEN))),
+                arguments(new Filter(new TriplePattern(x, nameTerm, y),
+                                     List.of("CONTAINS(STR(?y), \"bob\")")),
+                          List.of(asList(Bob, bob))),
+                arguments(new Filter(new TriplePattern(x, nameTerm, y),
+                                     List.of("regex(?y, \"har.ie$\")")),
+                          List.of(asList(Charlie, charlie))),
+                arguments(new Filter(new TriplePattern(x, nameTerm, y),
+                                     List.of("regex(?y, \"^ALI\", \"i\")")),
+                          List.of(asList(Alice, AliceEN)))
         );
     }
 
     @ParameterizedTest @MethodSource
     void testFilter(@NonNull Filter in, @NonNull Collection<List<Term>> expected) {
-        testInContexts(in, expected);
+        testInContexts(in, expected, Map.of("sparql.filter.compile", List.of("true", "false"),
+                                            "hdt.load.range-index", List.of("true", "false"),
+                                            "hdt.load.text-index", List.of("true", "false")));
     }
 
     @SuppressWarnings("unused") static @NonNull Stream<@NonNull Arguments> testJoin() {
@@ -396,7 +502,46 @@ class OpExecutorTest {
                         asList(asList(Alice, knowsTerm, Bob),
                                asList(Alice, knowsTerm, Charlie),
                                asList(Bob, knowsTerm, Alice),
-                               asList(Bob, knowsTerm, Bob)))
+                               asList(Bob, knowsTerm, Bob))),
+                // star on subject, with groups of more than one row
+    /* 12 */    arguments(new Join(new TriplePattern(x, nameTerm, y),
+                                   new TriplePattern(x, ageTerm, z)),
+                          asList(asList(Alice, AliceEN, i23),
+                                 asList(Alice, Alicia, i23),
+                                 asList(Bob, bob, i25),
+                                 asList(Bob, roberto, i25))),
+                // star on subject with a bound object
+    /* 13 */    arguments(new Join(new TriplePattern(x, RDF.typeTerm, PersonTerm),
+                                   new TriplePattern(x, knowsTerm, y),
+                                   new TriplePattern(x, ageTerm, z)),
+                          asList(asList(Alice, Bob, i23),
+                                 asList(Bob, Alice, i25),
+                                 asList(Bob, Bob, i25))),
+                // star on object
+    /* 14 */    arguments(new Join(new TriplePattern(Bob, knowsTerm, x),
+                                   new TriplePattern(Alice, knowsTerm, x)),
+                          List.of(List.of(Bob))),
+                // star on a variable that occurs twice in a triple pattern
+    /* 15 */    arguments(new Join(new TriplePattern(x, knowsTerm, x),
+                                   new TriplePattern(x, ageTerm, y)),
+                          List.of(asList(Bob, i25))),
+                // star on predicate, with another shared variable
+    /* 16 */    arguments(new Join(new TriplePattern(Bob, y, x),
+                                   new TriplePattern(Alice, y, x)),
+                          asList(asList(RDF.typeTerm, PersonTerm),
+                                 asList(knowsTerm, Bob))),
+                // star on subject with another shared variable in different positions
+    /* 17 */    arguments(new Join(new TriplePattern(x, knowsTerm, y),
+                                   new TriplePattern(x, y, z)),
+                          List.of()),
+                // OPTIONAL leaves ?x unbound for Charlie, which joins with any ?x
+    /* 18 */    arguments(new Join(new LeftJoin(new TriplePattern(y, knowsTerm, Alice),
+                                                new TriplePattern(x, knowsTerm, y)),
+                                   new TriplePattern(x, ageTerm, w)),
+                          asList(asList(Bob, Alice, i23),
+                                 asList(Bob, Bob, i25),
+                                 asList(Charlie, Alice, i23),
+                                 asList(Charlie, Bob, i25)))
         );
     }
 
@@ -404,7 +549,41 @@ class OpExecutorTest {
     void testJoin(@NonNull Join in, @NonNull Collection<List<Term>> expected) {
         testInContexts(in, expected, Map.of(
                 "hdt.estimator", List.of("NONE"),
-                "sparql.join.strategy", List.of("BIND")));
+                "sparql.join.strategy", List.of("BIND", "HASH"),
+                "sparql.join.bind.block-size", List.of("1", "3"),
+                "sparql.join.hash.max-rows", List.of("1", "1000000")));
+    }
+
+    @ParameterizedTest @MethodSource("testJoin")
+    void testConcurrentBindJoin(@NonNull Join in, @NonNull Collection<List<Term>> expected) {
+        testInContexts(in, expected, Map.of(
+                "sparql.join.strategy", List.of("BIND"),
+                "sparql.join.bind.concurrency", List.of("4"),
+                "sparql.join.bind.ordered", List.of("true", "false"),
+                "sparql.join.bind.block-size", List.of("1", "3")));
+    }
+
+    @ParameterizedTest @MethodSource("testJoin")
+    void testJoinWithStrategy(@NonNull Join in, @NonNull Collection<List<Term>> expected) {
+        for (Join.Strategy strategy : Join.Strategy.values()) {
+            testInContexts(in.withStrategy(strategy), expected, Map.of(
+                    "hdt.estimator", List.of("PATTERN"),
+                    "sparql.join.strategy", List.of("HASH")));
+        }
+    }
+
+    @Test
+    void testVectorFlowOverUnboundOptional() {
+        var optional = new LeftJoin(new TriplePattern(y, knowsTerm, Alice),
+                                    new TriplePattern(x, knowsTerm, y));
+        var vector = Map.of("sparql.flow", List.<Object>of("VECTOR"),
+                            "sparql.join.strategy", List.<Object>of("BIND", "HASH"));
+        testInContexts(new Join(optional, new TriplePattern(x, ageTerm, w)),
+                       asList(asList(Bob, Alice, i23), asList(Bob, Bob, i25),
+                              asList(Charlie, Alice, i23), asList(Charlie, Bob, i25)),
+                       vector);
+        testInContexts(new Filter(optional, List.of("!bound(?x)")),
+                       List.of(asList(Charlie, null)), vector);
     }
 
     @SuppressWarnings("unused") static @NonNull Stream<@NonNull Arguments> testLeftJoin() {
@@ -449,7 +628,20 @@ class OpExecutorTest {
 
     @ParameterizedTest @MethodSource
     void testLeftJoin(@NonNull LeftJoin in, @NonNull Collection<List<Term>> expected) {
-        testInContexts(in, expected);
+        testInContexts(in, expected, Map.of(
+                "sparql.join.strategy", List.of("BIND", "HASH"),
+                "sparql.memo.max-rows", List.of("0", "1", "65536"),
+                "sparql.join.bind.block-size", List.of("1", "3"),
+                "sparql.join.hash.max-rows", List.of("1", "1000000")));
+    }
+
+    @ParameterizedTest @MethodSource("testLeftJoin")
+    void testConcurrentBindLeftJoin(@NonNull LeftJoin in,
+                                    @NonNull Collection<List<Term>> expected) {
+        testInContexts(in, expected, Map.of(
+                "sparql.join.strategy", List.of("BIND"),
+                "sparql.join.bind.concurrency", List.of("4"),
+                "sparql.join.bind.ordered", List.of("true", "false")));
     }
 
     @SuppressWarnings("unused") static Stream<Arguments> testLimit() {
@@ -481,6 +673,160 @@ class OpExecutorTest {
         testInContexts(in, expected);
     }
 
+    @SuppressWarnings("unused") static Stream<Arguments> testOrder() {
+        var ages = new TriplePattern(x, ageTerm, y);
+        var knows = new TriplePattern(x, knowsTerm, y);
+        return Stream.of(
+                arguments(new Order(ages, Order.Condition.asc("?y")),
+                          asList(asList(Alice, i23), asList(Bob, i25))),
+                arguments(new Order(ages, Order.Condition.desc("?y")),
+                          asList(asList(Bob, i25), asList(Alice, i23))),
+                arguments(new Order(ages, Order.Condition.asc("0 - ?y")),
+                          asList(asList(Bob, i25), asList(Alice, i23))),
+                arguments(new Order(knows, Order.Condition.asc("?x"),
+                                    Order.Condition.desc("?y")),
+                          asList(asList(Alice, Bob), asList(Bob, Bob),
+                                 asList(Bob, Alice), asList(Charlie, Alice))),
+                arguments(new Order(knows, List.of(Order.Condition.desc("?x"),
+                                                   Order.Condition.asc("?y")), 2),
+                          asList(asList(Charlie, Alice), asList(Bob, Alice))),
+                arguments(new Order(new Project(List.of("x"), knows), Order.Condition.desc("?x")),
+                          asList(List.of(Charlie), List.of(Bob), List.of(Bob), List.of(Alice)))
+        );
+    }
+
+    @ParameterizedTest @MethodSource
+    void testOrder(@NonNull Order in, @NonNull List<List<Term>> expected) {
+        testOrderedInContexts(in, expected,
+                              Map.of("sparql.order.max-rows", List.of("1", "2", "65536")));
+    }
+
+    private static @NonNull Term integer(long value) {
+        return new Term("\""+value+"\"^^<"+XSD.integer+">");
+    }
+
+    @SuppressWarnings("unused") static Stream<Arguments> testGroup() {
+        var ages = new TriplePattern(x, ageTerm, y);
+        var knows = new TriplePattern(x, knowsTerm, y);
+        var count = Group.Aggregate.countAll();
+        return Stream.of(
+                // answered from the HDT index
+                arguments(new Group(knows, Map.of("c", count)), List.of(List.of(integer(4)))),
+                arguments(new Group(new TriplePattern(x, knowsTerm, Alice), Map.of("c", count)),
+                          List.of(List.of(integer(2)))),
+                arguments(new Group(new TriplePattern(x, knowsTerm, Charlie), Map.of("c", count)),
+                          List.of(List.of(integer(0)))),
+                arguments(new Group(knows, Map.of("c", Group.Aggregate.of(COUNT, "?y"))),
+                          List.of(List.of(integer(4)))),
+                // hash aggregation
+                arguments(new Group(new TriplePattern(x, knowsTerm, x), Map.of("c", count)),
+                          List.of(List.of(integer(1)))),
+                arguments(new Group(knows, List.of("x"), Map.of("c", count)),
+                          asList(asList(Alice, integer(1)), asList(Bob, integer(2)),
+                                 asList(Charlie, integer(1)))),
+                arguments(new Group(new TriplePattern(x, knowsTerm, Charlie), List.of("x"),
+                                    Map.of("c", count)),
+                          List.of()),
+                arguments(new Group(knows, Map.of("c", Group.Aggregate.distinct(COUNT, "?y"))),
+                          List.of(List.of(integer(2)))),
+                arguments(new Group(new Project(List.of("y"), knows), List.of("y"),
+                                    Map.of("c", Group.Aggregate.distinct(COUNT, null))),
+                          asList(asList(Bob, integer(1)), asList(Alice, integer(1)))),
+                arguments(new Group(ages, Map.of("s", Group.Aggregate.of(SUM, "?y"))),
+                          List.of(List.of(integer(48)))),
+                arguments(new Group(ages, Map.of("s", Group.Aggregate.of(SUM, "?y + 1"))),
+                          List.of(List.of(integer(50)))),
+                arguments(new Group(knows, Map.of("s", Group.Aggregate.of(SUM, "?y"))),
+                          Collections.singletonList(Collections.singletonList(null))),
+                arguments(new Group(ages, Map.of("m", Group.Aggregate.of(MIN, "?y"))),
+                          List.of(List.of(i23))),
+                arguments(new Group(ages, Map.of("m", Group.Aggregate.of(MAX, "?y"))),
+                          List.of(List.of(i25))),
+                arguments(new Group(ages, List.of("x"),
+                                    Map.of("m", Group.Aggregate.of(MAX, "?y"))),
+                          asList(asList(Alice, i23), asList(Bob, i25))),
+                arguments(new Group(new TriplePattern(Alice, ageTerm, y),
+                                    Map.of("m", Group.Aggregate.of(SAMPLE, "?y"))),
+                          List.of(List.of(i23))),
+                // streaming aggregation over scans sorted by the key
+                arguments(new Group(knows, List.of("x"), Map.of("c", count))
+                                  .withStrategy(Group.Strategy.STREAM),
+                          asList(asList(Alice, integer(1)), asList(Bob, integer(2)),
+                                 asList(Charlie, integer(1)))),
+                arguments(new Group(new Filter(ages, "?y > 23"), List.of("x"),
+                                    Map.of("m", Group.Aggregate.of(MAX, "?y")))
+                                  .withStrategy(Group.Strategy.STREAM),
+                          List.of(asList(Bob, i25))),
+                arguments(new Group(new TriplePattern(x, knowsTerm, Charlie), List.of("x"),
+                                    Map.of("c", count)).withStrategy(Group.Strategy.STREAM),
+                          List.of()),
+                // not sorted by ?y, falls back to hash aggregation
+                arguments(new Group(knows, List.of("y"), Map.of("c", count))
+                                  .withStrategy(Group.Strategy.STREAM),
+                          asList(asList(Alice, integer(2)), asList(Bob, integer(2))))
+        );
+    }
+
+    @ParameterizedTest @MethodSource
+    void testGroup(@NonNull Group in, @NonNull Collection<List<Term>> expected) {
+        testInContexts(in, expected);
+    }
+
+    @Test
+    void testStreamGroupOverIndexScans() throws IOException, ParserException {
+        // object IDs follow the lexical order of literals, thus scans of the matching
+        // literals visit the subjects as a, b, a, b (range) and as b, a, a, b (text)
+        String a = EX+"a", b = EX+"b", c = EX+"c", v = EX+"v";
+        List<TripleString> triples = new ArrayList<>();
+        for (int i = 1; i <= 4; i++)
+            triples.add(new TripleString(i % 2 == 1 ? a : b, v, "\""+i+"\"^^<"+XSD.integer+">"));
+        for (String name : List.of("one", "three"))
+            triples.add(new TripleString(a, FOAF.name, "\"alpha "+name+"\""));
+        for (String name : List.of("two", "four"))
+            triples.add(new TripleString(b, FOAF.name, "\"alpha "+name+"\""));
+        for (int i = 1; i <= 3; i++) { // make index scans cheaper than full scans
+            triples.add(new TripleString(c, v, "\""+(i*100)+"\"^^<"+XSD.integer+">"));
+            triples.add(new TripleString(c, FOAF.name, "\"omega "+i+"\""));
+        }
+        var count = Map.of("c", Group.Aggregate.countAll());
+        var vTerm = new Term("<"+v+">");
+        var ins = List.of(new Filter(new TriplePattern(x, vTerm, y), "?y < 10"),
+                          new Filter(new TriplePattern(x, nameTerm, y), "CONTAINS(?y, \"alpha\")"));
+        var expected = List.of(asList(new Term("<"+a+">"), integer(2)),
+                               asList(new Term("<"+b+">"), integer(2)));
+        try (var file = new TempFile(".hdt");
+             HDT hdt = HDTManager.generateHDT(triples.iterator(), EX, new HDTSpecification(),
+                                              null)) {
+            hdt.saveToHDT(file.getAbsolutePath(), null);
+            var choices = Map.of("sparql.hdt.flow", flowChoices,
+                                 "sparql.group.flow", flowChoices,
+                                 "hdt.location", List.<Object>of(file.getAbsolutePath()),
+                                 "hdt.load.range-index", List.<Object>of("true", "false"),
+                                 "hdt.load.text-index", List.<Object>of("true", "false"));
+            try {
+                for (ApplicationContext ctx : TestUtils.listApplicationContext(choices)) {
+                    try (ctx) {
+                        var dispatcher = ctx.getBean(OpExecutorDispatcher.class);
+                        for (Filter filter : ins) {
+                            var in = new Group(filter, List.of("x"), count)
+                                    .withStrategy(Group.Strategy.STREAM);
+                            var actual = dispatcher.execute(in).stream().map(Arrays::asList)
+                                                   .toList();
+                            assertEquals(new HashSet<>(expected),
+                                         new HashSet<>(fixEquals(actual)), "in="+in);
+                            assertEquals(expected.size(), actual.size(), "in="+in);
+                        }
+                    }
+                }
+            } finally {
+                File[] sidecars = file.getParentFile().listFiles(
+                        (dir, n) -> n.startsWith(file.getName()) && !n.equals(file.getName()));
+                for (File sidecar : sidecars == null ? new File[0] : sidecars)
+                    Files.deleteIfExists(sidecar.toPath());
+            }
+        }
+    }
+
     @SuppressWarnings("unused") static Stream<Arguments> testValues() {
         return Stream.of(
                 arguments(new Values(
@@ -556,13 +902,37 @@ class OpExecutorTest {
                                  asList(Charlie, Alice))),
         /* 5 */ arguments(Exists.create(new TriplePattern(x, knowsTerm, y),
                                         new TriplePattern(x, ageTerm, z)),
-                          asList(asList(Alice, Bob), asList(Bob, Alice), asList(Bob, Bob)))
+                          asList(asList(Alice, Bob), asList(Bob, Alice), asList(Bob, Bob))),
+                // ?y is only used by the FILTER: cannot be evaluated as a hash semi-join
+        /* 6 */ arguments(Exists.create(new TriplePattern(x, knowsTerm, y),
+                                        new Filter(new TriplePattern(x, ageTerm, z), "?y = ?x")),
+                          List.of(asList(Bob, Bob)))
         );
     }
 
     @ParameterizedTest @MethodSource
     void testExists(@NonNull Exists in, @NonNull Collection<List<Term>> expected) {
-        testInContexts(in, expected);
+        testInContexts(in, expected, Map.of("sparql.memo.max-rows", List.of("0", "1", "65536"),
+                                            "sparql.exists.strategy", List.of("ASK", "HASH")));
+    }
+
+    @Test
+    void testMemoStatsReachNestedExecutors() {
+        var exists = Exists.create(new TriplePattern(x, knowsTerm, y),
+                                   new TriplePattern(y, ageTerm, z));
+        var project = new Project(List.of("x"), exists);
+        var choices = Map.<String, List<Object>>of("sparql.exists.strategy", List.of("ASK"));
+        for (ApplicationContext ctx : applicationContexts("exists", choices)) {
+            try (ctx) {
+                var dispatcher = ctx.getBean(OpExecutorDispatcher.class);
+                var stats = new LookupMemo.Stats();
+                var actual = dispatcher.execute(project, null, stats).list();
+                assertEquals(4, actual.size());
+                // ?y is Bob, Alice, Bob and Alice in the outer rows
+                assertEquals(2, stats.hits());
+                assertEquals(2, stats.misses());
+            }
+        }
     }
 
     @SuppressWarnings("unused") static Stream<Arguments> testNotExists() {
@@ -591,7 +961,7 @@ class OpExecutorTest {
 
     @ParameterizedTest @MethodSource
     void testNotExists(@NonNull Exists in, @NonNull Collection<List<Term>> expected) {
-        testInContexts(in, expected);
+        testInContexts(in, expected, Map.of("sparql.exists.strategy", List.of("ASK", "HASH")));
     }
 
     @SuppressWarnings("unused") static Stream<Arguments> testMinus() {
@@ -622,7 +992,8 @@ class OpExecutorTest {
     @ParameterizedTest @MethodSource
     void testMinus(@NonNull Minus in, @NonNull Collection<List<Term>> expected) {
         testInContexts(in, expected,
-                       Map.of("sparql.minus.strategy", List.of("BIND", "SET")));
+                       Map.of("sparql.minus.strategy", List.of("BIND", "SET", "HASH"),
+                              "sparql.memo.max-rows", List.of("0", "1", "65536")));
     }
 
     @SuppressWarnings("unused") static Stream<Arguments> testAsk() {
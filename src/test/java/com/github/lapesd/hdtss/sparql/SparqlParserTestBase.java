@@ -13,6 +13,7 @@ import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Stream;
 
 import static com.github.lapesd.hdtss.TestVocab.*;
@@ -68,7 +69,33 @@ public abstract class SparqlParserTestBase {
                                   new Filter(new TriplePattern(x, ageTerm, y),
                                              "?y > 23")))),
     /* 11 */    arguments(prolog+"SELECT ?x ?y ?z WHERE {?x foaf:age ?y}",
-                          new Project(asList("x", "y", "z"), new TriplePattern(x, ageTerm, y)))
+                          new Project(asList("x", "y", "z"), new TriplePattern(x, ageTerm, y))),
+    /* 12 */    arguments(prolog+"SELECT ?x WHERE {?x foaf:age ?y} ORDER BY DESC(?y) ?x " +
+                          "LIMIT 2 OFFSET 1",
+                          new Slice(new Project(List.of("x"),
+                                  new Order(new TriplePattern(x, ageTerm, y),
+                                            List.of(Order.Condition.desc("?y"),
+                                                    Order.Condition.asc("?x")), 3)), 2, 1)),
+    /* 13 */    arguments(prolog+"SELECT DISTINCT ?x WHERE {?x foaf:age ?y} ORDER BY ?y LIMIT 5",
+                          new Slice(new Distinct(new Project(List.of("x"),
+                                  new Order(new TriplePattern(x, ageTerm, y),
+                                            Order.Condition.asc("?y")))), 5, 0)),
+    /* 14 */    arguments(prolog+"SELECT ?x (COUNT(?y) AS ?c) WHERE {?x foaf:knows ?y} GROUP BY ?x",
+                          new Group(new TriplePattern(x, knowsTerm, y), List.of("x"),
+                                    Map.of("c", Group.Aggregate.of(Group.Function.COUNT, "?y")))),
+    /* 15 */    arguments(prolog+"SELECT (COUNT(*) AS ?c) WHERE {?x foaf:knows ?y}",
+                          new Group(new TriplePattern(x, knowsTerm, y),
+                                    Map.of("c", Group.Aggregate.countAll()))),
+    /* 16 */    arguments(prolog+"SELECT ?x (COUNT(*) AS ?c) WHERE {?x foaf:knows ?y} " +
+                          "GROUP BY ?x HAVING (COUNT(*) > 1)",
+                          new Filter(new Group(new TriplePattern(x, knowsTerm, y), List.of("x"),
+                                               Map.of("c", Group.Aggregate.countAll())),
+                                     "?c > 1")),
+    /* 17 */    arguments(prolog+"SELECT (MAX(?y) + 1 AS ?m) WHERE {?x foaf:age ?y}",
+                          new Project(List.of("m"), new Assign(Map.of("m", "?hdtssAgg0 + 1"),
+                                  new Group(new TriplePattern(x, ageTerm, y),
+                                            Map.of("hdtssAgg0",
+                                                   Group.Aggregate.of(Group.Function.MAX, "?y"))))))
         );
     }
 
@@ -0,0 +1,116 @@
+package com.github.lapesd.hdtss.sparql.impl;
+
+import com.github.lapesd.hdtss.model.Term;
+import com.github.lapesd.hdtss.model.solutions.BatchQuerySolutions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+import static com.github.lapesd.hdtss.TestVocab.*;
+import static com.github.lapesd.hdtss.sparql.impl.HashSemiJoin.Kind.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+@Tag("fast")
+class HashSemiJoinTest {
+    private static final List<String> OUTER_VARS = List.of("x", "y", "w");
+    private static final List<String> INNER_VARS = List.of("y", "z", "x");
+    private static final Term[] VALUES = {Alice, Bob, Charlie, null};
+
+    private static List<Term[]> randomRows(Random random, int count, double nullRate) {
+        List<Term[]> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Term[] row = new Term[3];
+            for (int j = 0; j < row.length; j++)
+                row[j] = random.nextDouble() < nullRate ? null : VALUES[random.nextInt(3)];
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /** Reference: compare each outer row with every inner row by compatibility */
+    private static List<List<Term>> expected(List<Term[]> outer, List<Term[]> inner,
+                                             HashSemiJoin.Kind kind) {
+        List<List<Term>> result = new ArrayList<>();
+        for (Term[] o : outer) {
+            boolean matched = false;
+            for (Term[] i : inner) {
+                Term ox = o[0], oy = o[1], ix = i[2], iy = i[0];
+                boolean compatible = (ox == null || ix == null || ox.equals(ix))
+                                  && (oy == null || iy == null || oy.equals(iy));
+                boolean shared = (ox != null && ix != null) || (oy != null && iy != null);
+                matched |= compatible && (shared || kind != MINUS);
+            }
+            if (matched != kind.isAnti())
+                result.add(Arrays.asList(o));
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unused") static Stream<Arguments> testRandom() {
+        List<Arguments> list = new ArrayList<>();
+        for (HashSemiJoin.Kind kind : HashSemiJoin.Kind.values()) {
+            for (double nullRate : new double[]{0, 0.1, 0.4})
+                list.add(arguments(kind, nullRate));
+        }
+        return list.stream();
+    }
+
+    @ParameterizedTest @MethodSource
+    void testRandom(HashSemiJoin.Kind kind, double nullRate) {
+        Random random = new Random(2112);
+        for (int round = 0; round < 20; round++) {
+            var outer = randomRows(random, 40, nullRate);
+            var inner = randomRows(random, 10, nullRate);
+            var expected = expected(outer, inner, kind);
+            for (boolean buildOuter : List.of(false, true)) {
+                var join = new HashSemiJoin(OUTER_VARS,
+                        () -> new BatchQuerySolutions(INNER_VARS, inner), kind);
+                List<List<Term>> actual = new ArrayList<>();
+                join.filter(outer.iterator(), buildOuter)
+                        .forEachRemaining(r -> actual.add(Arrays.asList(r)));
+                assertEquals(expected, actual, "round="+round+", buildOuter="+buildOuter);
+
+                var predicate = new HashSemiJoin(OUTER_VARS,
+                        () -> new BatchQuerySolutions(INNER_VARS, inner), kind);
+                assertEquals(expected, outer.stream().filter(predicate)
+                                            .map(Arrays::asList).toList());
+            }
+        }
+    }
+
+    @Test
+    void testPartialOuterKeys() {
+        Random random = new Random(2112);
+        for (HashSemiJoin.Kind kind : HashSemiJoin.Kind.values()) {
+            for (int round = 0; round < 20; round++) {
+                var outer = randomRows(random, 40, 0.5);
+                var inner = randomRows(random, 10, 0);
+                var predicate = new HashSemiJoin(OUTER_VARS,
+                        () -> new BatchQuerySolutions(INNER_VARS, inner), kind);
+                assertEquals(expected(outer, inner, kind), outer.stream().filter(predicate)
+                                 .map(Arrays::asList).toList(), "kind="+kind+", round="+round);
+            }
+        }
+    }
+
+    @Test
+    void testMinusWithoutSharedVars() {
+        var outer = List.<Term[]>of(new Term[]{Alice}, new Term[]{Bob});
+        for (boolean buildOuter : List.of(false, true)) {
+            for (HashSemiJoin.Kind kind : HashSemiJoin.Kind.values()) {
+                var join = new HashSemiJoin(List.of("x"), () -> new BatchQuerySolutions(
+                        List.of("y"), List.<Term[]>of(new Term[]{Charlie})), kind);
+                List<Term[]> actual = new ArrayList<>();
+                join.filter(outer.iterator(), buildOuter).forEachRemaining(actual::add);
+                // MINUS removes nothing, EXISTS keeps all and NOT EXISTS removes all
+                assertEquals(kind == NOT_EXISTS ? 0 : 2, actual.size());
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.github.lapesd.hdtss.sparql.impl;
+
+import com.github.lapesd.hdtss.model.Row;
+import com.github.lapesd.hdtss.model.Term;
+import com.github.lapesd.hdtss.model.nodes.TriplePattern;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static com.github.lapesd.hdtss.TestVocab.*;
+import static com.github.lapesd.hdtss.vocab.FOAF.knowsTerm;
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("fast")
+class LookupMemoTest {
+    private static Row key(Term... terms) { return new Row(terms); }
+
+    @Test
+    void testDisabled() {
+        var stats = new LookupMemo.Stats();
+        var memo = new LookupMemo<Boolean>(0, stats);
+        assertFalse(memo.isEnabled());
+        memo.put(key(Alice), true, 1);
+        assertNull(memo.get(key(Alice)));
+        assertEquals(0, stats.hits() + stats.misses());
+    }
+
+    @Test
+    void testHitsAndMisses() {
+        var stats = new LookupMemo.Stats();
+        var memo = new LookupMemo<Boolean>(8, stats);
+        assertNull(memo.get(key(Alice)));
+        memo.put(key(Alice), true, 1);
+        assertEquals(Boolean.TRUE, memo.get(key(Alice)));
+        assertEquals(Boolean.TRUE, memo.get(key(Alice)));
+        assertNull(memo.get(key(Bob)));
+        assertEquals(2, stats.hits());
+        assertEquals(2, stats.misses());
+
+        // memos without stats do not count
+        var other = new LookupMemo<Boolean>(8, null);
+        assertNull(other.get(key(Alice)));
+        assertEquals(2, stats.misses());
+    }
+
+    @Test
+    void testStatsSharedAcrossThreads() throws InterruptedException {
+        var stats = new LookupMemo.Stats();
+        // memos created and used by other threads count into the same stats
+        List<LookupMemo.Stats> nested = new ArrayList<>();
+        Thread thread = new Thread(() -> {
+            var memo = new LookupMemo<Boolean>(8, stats);
+            assertNull(memo.get(key(Alice)));
+            nested.add(memo.stats());
+        });
+        thread.start();
+        thread.join();
+        assertEquals(1, stats.misses());
+        assertEquals(List.of(stats), nested);
+    }
+
+    @Test
+    void testEvictLeastRecentlyUsed() {
+        var memo = new LookupMemo<String>(3, null);
+        memo.put(key(Alice), "a", 1);
+        memo.put(key(Bob), "b", 2);
+        assertEquals("a", memo.get(key(Alice)));
+        memo.put(key(Charlie), "c", 1); // evicts Bob, which was used less recently
+        assertNull(memo.get(key(Bob)));
+        assertEquals("a", memo.get(key(Alice)));
+        assertEquals("c", memo.get(key(Charlie)));
+
+        memo.put(key(Bob), "too big", 4);
+        assertNull(memo.get(key(Bob)));
+        assertEquals("a", memo.get(key(Alice)));
+    }
+
+    @Test
+    void testRecording() {
+        var memo = new LookupMemo<List<Term[]>>(2, null);
+        List<Term[]> rows = List.of(new Term[]{Alice}, new Term[]{Bob});
+        List<Term[]> actual = new ArrayList<>();
+        LookupMemo.recording(memo, key(Alice), rows.iterator()).forEachRemaining(actual::add);
+        assertEquals(rows, actual);
+        List<Term[]> cached = memo.get(key(Alice));
+        assertNotNull(cached);
+        assertEquals(2, cached.size());
+        assertArrayEquals(rows.get(1), cached.get(1));
+
+        // too many rows are not recorded, but still delivered
+        List<Term[]> many = List.of(new Term[]{Alice}, new Term[]{Bob}, new Term[]{Charlie});
+        Iterator<Term[]> it = LookupMemo.recording(memo, key(Bob), many.iterator());
+        int count = 0;
+        for (; it.hasNext(); ++count) it.next();
+        assertEquals(3, count);
+        assertNull(memo.get(key(Bob)));
+    }
+
+    @Test
+    void testKeyIndices() {
+        var tp = new TriplePattern(x, knowsTerm, y);
+        assertArrayEquals(new int[]{0, 2}, LookupMemo.keyIndices(List.of("x", "z", "y"), tp));
+        assertArrayEquals(new int[0], LookupMemo.keyIndices(List.of("z"), tp));
+        Row key = LookupMemo.key(new int[]{0, 2}, new Term[]{Alice, Bob, Charlie});
+        assertEquals(key(Alice, Charlie), key);
+    }
+}
@@ -0,0 +1,79 @@
+package com.github.lapesd.hdtss.sparql.impl.distinct;
+
+import com.github.lapesd.hdtss.model.Row;
+import com.github.lapesd.hdtss.model.Term;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("fast")
+class BloomDistinctSetTest {
+    private static Row row(int i) {
+        return new Row(new Term[]{new Term("<http://example.org/"+i+">"),
+                                  i % 7 == 0 ? null : new Term("\""+i%100+"\"")});
+    }
+
+    @ParameterizedTest @ValueSource(doubles = {0.1, 0.01, 0.001})
+    void testFalsePositiveRate(double fpp) {
+        int capacity = 20000;
+        var set = new BloomDistinctSet(capacity, fpp);
+        for (int i = 0; i < capacity; i++)
+            set.add(row(i));
+        assertTrue(set.falsePositiveRate() <= fpp * 1.05, "rate="+set.falsePositiveRate());
+        for (int i = 0; i < capacity; i++)
+            assertFalse(set.add(row(i)), "i="+i);
+        int falsePositives = 0;
+        for (int i = capacity; i < 2*capacity; i++) {
+            if (set.contains(row(i)))
+                ++falsePositives;
+        }
+        assertTrue(falsePositives < 2 * fpp * capacity + 10, "falsePositives="+falsePositives);
+    }
+
+    @Test
+    void testDuplicatesBeyondCapacityPass() {
+        var set = new BloomDistinctSet(1000, 0.01);
+        for (int i = 0; i < 5000; i++)
+            assertTrue(set.add(row(i)), "i="+i);
+        assertEquals(1000, set.confirmable());
+        assertTrue(set.falsePositiveRate() > 0.01);
+        for (int k = 0; k < 2; k++) { // only the first capacity rows are confirmed
+            for (int i = 0; i < 5000; i++)
+                assertEquals(i >= 1000, set.add(row(i)), "i="+i);
+        }
+        assertEquals(5000 + 2*4000, set.size());
+        assertTrue(set.unconfirmed() >= 2*4000);
+    }
+
+    @Test
+    void testNeverDropsNewRows() {
+        var set = new BloomDistinctSet(100, 0.1);
+        for (int i = 0; i < 10000; i++)
+            assertTrue(set.add(row(i)), "i="+i);
+        assertTrue(set.unconfirmed() > 0); // saturated filter: hits not in the exact set
+        assertEquals(10000, set.size());
+        for (int i = 0; i < 100; i++)
+            assertFalse(set.add(row(i)), "i="+i);
+    }
+
+    @Test
+    void testDuplicatesFarApartAreRemoved() {
+        var set = new BloomDistinctSet(1000, 0.01);
+        for (int i = 0; i < 1000; i++)
+            assertTrue(set.add(row(i)), "i="+i);
+        for (int i = 0; i < 1000; i++)
+            assertFalse(set.add(row(i)), "i="+i);
+        assertEquals(1000, set.size());
+    }
+
+    @Test
+    void testNoColumns() {
+        var set = new BloomDistinctSet(16, 0.01);
+        assertTrue(set.add(new Row(Row.EMPTY)));
+        assertFalse(set.add(new Row(Row.EMPTY)));
+        assertEquals(1, set.size());
+    }
+}
@@ -0,0 +1,48 @@
+package com.github.lapesd.hdtss.sparql.impl.distinct;
+
+import com.github.lapesd.hdtss.model.Row;
+import com.github.lapesd.hdtss.model.Term;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("fast")
+class IdDistinctSetTest {
+    private static Term[] row(int i, int j) {
+        Term object = j % 3 == 0 ? null : new Term("\""+j+"\"");
+        return new Term[]{new Term("<http://example.org/"+i+">"), object};
+    }
+
+    @ParameterizedTest @ValueSource(longs = {0, 1024, 64*1024, Long.MAX_VALUE})
+    void testDeduplicate(long maxBytes) {
+        Set<List<Term>> expected = new HashSet<>();
+        List<List<Term>> actual = new ArrayList<>();
+        try (var set = new IdDistinctSet(maxBytes)) {
+            Random random = new Random(79);
+            for (int k = 0; k < 20000; k++) {
+                Term[] row = row(random.nextInt(100), random.nextInt(30));
+                expected.add(Arrays.asList(row));
+                if (set.add(new Row(row)))
+                    actual.add(Arrays.asList(row));
+            }
+            assertEquals(maxBytes == Long.MAX_VALUE, !set.hasSpilled());
+            for (var it = set.deferred(); it.hasNext(); )
+                actual.add(Arrays.asList(it.next()));
+        }
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected, new HashSet<>(actual));
+    }
+
+    @ParameterizedTest @ValueSource(longs = {0, Long.MAX_VALUE})
+    void testNoColumns(long maxBytes) {
+        try (var set = new IdDistinctSet(maxBytes)) {
+            assertTrue(set.add(new Row(Row.EMPTY)));
+            assertFalse(set.add(new Row(Row.EMPTY)));
+            assertFalse(set.deferred().hasNext());
+        }
+    }
+}
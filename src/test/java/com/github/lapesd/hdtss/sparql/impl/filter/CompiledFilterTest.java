@@ -0,0 +1,160 @@
+package com.github.lapesd.hdtss.sparql.impl.filter;
+
+import com.github.lapesd.hdtss.model.IdSparql;
+import com.github.lapesd.hdtss.model.Term;
+import com.github.lapesd.hdtss.utils.JenaExprEvaluator;
+import com.github.lapesd.hdtss.utils.JenaUtils;
+import com.github.lapesd.hdtss.vocab.XSD;
+import org.apache.jena.sparql.expr.Expr;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static com.github.lapesd.hdtss.TestVocab.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+@Tag("fast")
+class CompiledFilterTest {
+    private static final List<String> VARS = List.of("x", "y");
+    private static final List<@Nullable Term> VALUES = List.of(
+            Alice, Bob, blank1, AliceEN, Alicia, bob, bobString, roberto, charlie, i23, i25,
+            new Term("\"23.0\"^^<"+XSD.decimal+">"),
+            new Term("\"2.5E1\"^^<"+XSD.xdouble+">"),
+            new Term("\"23\"^^<"+XSD.xfloat+">"),
+            new Term("\"-7\"^^<"+XSD.xint+">"),
+            new Term("\"INF\"^^<"+XSD.xdouble+">"),
+            new Term("\"x\"^^<"+XSD.integer+">"),
+            new Term("\"2021-01-01\"^^<"+XSD.date+">"),
+            new Term("\"a\\\"b\""),
+            new Term("\"true\"^^<"+XSD.xboolean+">"));
+
+    @SuppressWarnings("unused") static Stream<Arguments> test() {
+        return Stream.of(
+                arguments("?x = "+Bob, 0),
+                arguments("?x != ?y", 0),
+                arguments("?x = ?y", 0),
+                arguments("?x > 23", 0),
+                arguments("?x <= ?y", 0),
+                arguments("?x >= \"23.5\"^^<"+XSD.decimal+">", 0),
+                arguments("?x < \"bob\"", 0),
+                arguments("?x = \"a\\\"b\"", 0),
+                arguments("sameTerm(?x, ?y)", 0),
+                arguments("isIRI(?x) || isBlank(?y)", 0),
+                arguments("!isLiteral(?x) && bound(?y)", 0),
+                arguments("bound(?z) || ?x = ?y", 0),
+                arguments("lang(?x) = \"en\"", 0),
+                arguments("str(?x) < str(?y)", 0),
+                arguments("STRSTARTS(STR(?x), \""+EX+"\")", 0),
+                arguments("STRENDS(?x, \"o\")", 0),
+                arguments("CONTAINS(?x, \"ob\") || CONTAINS(LANG(?y), \"pt\")", 0),
+                arguments("regex(str(?x), \"^http://example\\\\.org/A\")", 0),
+                arguments("regex(?x, \"^rob\") || regex(?y, \"^\\\\.\", \"\")", 0),
+                arguments("regex(?x, \"^b\", \"i\")", 1),
+                arguments("?x = ?y || regex(str(?x), \"^A.\")", 1),
+                arguments("!(?x + 1 > 24)", 1)
+        );
+    }
+
+    @ParameterizedTest @MethodSource
+    void test(@NonNull String filter, int fallbacks) {
+        JenaUtils.init();
+        Expr expr = JenaUtils.parseFilter(filter);
+        var compiled = new CompiledFilter(VARS, List.of(expr));
+        var jena = new JenaExprEvaluator(VARS);
+        assertEquals(fallbacks, compiled.fallbacks());
+
+        List<@Nullable Term> values = new ArrayList<>(VALUES);
+        values.add(null);
+        for (Term l : values) {
+            for (Term r : values) {
+                Term[] row = {l, r};
+                assertEquals(jena.test(expr, row), compiled.test(row),
+                             "filter="+filter+", x="+l+", y="+r);
+            }
+        }
+    }
+
+    /** A dictionary of IRIs that counts how often its keys are resolved. */
+    private static final class Scope {
+        final @NonNull List<@NonNull Term> terms;
+        int keyLookups, rangeLookups;
+
+        Scope(@NonNull List<@NonNull Term> terms) { this.terms = terms; }
+
+        @NonNull Term term(@NonNull Term term) {
+            return new Term(new ScopedSparql(this, terms.indexOf(term)+1));
+        }
+    }
+
+    private static final class ScopedSparql extends IdSparql {
+        private final @NonNull Scope scope;
+        private final long id;
+
+        ScopedSparql(@NonNull Scope scope, long id) {
+            super(null);
+            this.scope = scope;
+            this.id = id;
+        }
+
+        @Override public long id() { return id; }
+        @Override public @NonNull Object idScope() { return scope; }
+        @Override protected @NonNull String decode() {
+            return scope.terms.get((int)id-1).sparql().toString();
+        }
+
+        @Override public @Nullable Boolean sameTerm(@NonNull IdSparql other) {
+            return other.idScope() == scope ? other.id() == id : null;
+        }
+
+        @Override public long idKeyOf(@NonNull Term term) {
+            ++scope.keyLookups;
+            return scope.terms.indexOf(term)+1;
+        }
+
+        @Override public long @Nullable[] strPrefixKeyRanges(@NonNull String prefix) {
+            ++scope.rangeLookups;
+            List<Long> keys = new ArrayList<>();
+            for (int i = 0; i < scope.terms.size(); i++) {
+                String iri = scope.terms.get(i).sparql().toString();
+                if (iri.substring(1, iri.length()-1).startsWith(prefix)) {
+                    keys.add(i+1L);
+                    keys.add(i+1L);
+                }
+            }
+            return keys.stream().mapToLong(Long::longValue).toArray();
+        }
+
+        @Override public long @Nullable[] blankKeyRanges() { return new long[0]; }
+    }
+
+    @Test
+    void testIdKeysCachedPerScope() {
+        JenaUtils.init();
+        Expr expr = JenaUtils.parseFilter("?x = "+Bob+" || STRSTARTS(STR(?x), \""+EX+"A\")");
+        var compiled = new CompiledFilter(VARS, List.of(expr));
+        assertEquals(0, compiled.fallbacks());
+        Scope a = new Scope(List.of(Alice, Bob, Charlie)), b = new Scope(List.of(Charlie, Bob));
+        for (int round = 0; round < 10; round++) {
+            for (Scope scope : List.of(a, b)) {
+                for (Term term : scope.terms) {
+                    Term[] row = {scope.term(term), null};
+                    assertEquals(!term.equals(Charlie), compiled.test(row),
+                                 "round="+round+", term="+term);
+                }
+            }
+        }
+        for (Scope scope : List.of(a, b)) {
+            assertEquals(1, scope.keyLookups);
+            assertEquals(1, scope.rangeLookups);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.github.lapesd.hdtss.sparql.impl.filter;
+
+import com.github.lapesd.hdtss.utils.JenaUtils;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+@Tag("fast")
+class JenaFilterExecutorTest {
+    @SuppressWarnings("unused") static Stream<Arguments> testRegexLiterals() {
+        return Stream.of(
+                arguments("abc", List.of("abc")),
+                arguments("^Al", List.of("Al")),
+                arguments("har.ie$", List.of("har", "ie")),
+                arguments("ab?c", List.of("a", "c")),
+                arguments("ab*?cd", List.of("a", "cd")),
+                arguments("abc{2,3}de", List.of("ab", "de")),
+                arguments("ab+c", List.of("ab", "c")),
+                arguments("a(bc)de", List.of("a", "de")),
+                arguments("ab[cd]ef", List.of("ab", "ef")),
+                arguments("foo\\.bar", List.of("foo.bar")),
+                arguments("\\d+abc", List.of("abc")),
+                arguments("(?i)abc", List.of("abc")),
+                arguments("x|y", null),
+                arguments("(?x)a b", null),
+                arguments("\\p{L}ab", null),
+                arguments("ab[c", null)
+        );
+    }
+
+    @ParameterizedTest @MethodSource
+    void testRegexLiterals(@NonNull String regex, @Nullable List<String> expected) {
+        assertEquals(expected, JenaFilterExecutor.regexLiterals(regex));
+    }
+
+    @SuppressWarnings("unused") static Stream<Arguments> testTextSubstrings() {
+        return Stream.of(
+                arguments(List.of("CONTAINS(?y, \"ober\")"), List.of("ober")),
+                arguments(List.of("CONTAINS(LCASE(?y), \"ober\")"), List.of("ober")),
+                arguments(List.of("CONTAINS(?y, \"ab\") && regex(?y, \"c.d\", \"i\")"),
+                          List.of("ab", "c", "d")),
+                arguments(List.of("CONTAINS(?y, \"a\")", "regex(?y, \"a.b\", \"q\")"),
+                          List.of("a", "a.b")),
+                arguments(List.of("CONTAINS(?x, \"ober\")"), List.of()),
+                arguments(List.of("CONTAINS(STR(?y), \"ober\")"), List.of()),
+                arguments(List.of("CONTAINS(UCASE(?y), \"OBER\")"), List.of()),
+                arguments(List.of("CONTAINS(?y, \"a\") || CONTAINS(?y, \"b\")"), List.of()),
+                arguments(List.of("regex(?y, \"abc\", \"x\")"), List.of()),
+                arguments(List.of("regex(?y, \"a|b\")"), List.of())
+        );
+    }
+
+    @ParameterizedTest @MethodSource
+    void testTextSubstrings(@NonNull List<String> filters, @NonNull List<String> expected) {
+        JenaUtils.init();
+        var exprs = filters.stream().map(JenaUtils::parseFilter).toList();
+        assertEquals(expected, JenaFilterExecutor.textSubstrings(exprs, "y"));
+    }
+}
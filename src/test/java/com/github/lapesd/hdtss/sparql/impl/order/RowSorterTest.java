@@ -0,0 +1,85 @@
+package com.github.lapesd.hdtss.sparql.impl.order;
+
+import com.github.lapesd.hdtss.model.Term;
+import com.github.lapesd.hdtss.model.nodes.IdentityNode;
+import com.github.lapesd.hdtss.model.nodes.Order;
+import com.github.lapesd.hdtss.utils.JenaUtils;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("fast")
+class RowSorterTest {
+    private static final String XSD_INTEGER = "http://www.w3.org/2001/XMLSchema#integer";
+
+    @BeforeAll
+    static void beforeAll() {
+        JenaUtils.init();
+    }
+
+    private static Term integer(int value) {
+        return new Term("\""+value+"\"^^<"+XSD_INTEGER+">");
+    }
+
+    @ParameterizedTest @ValueSource(longs = {7, Long.MAX_VALUE})
+    void testMultiPassMerge(long limit) {
+        var order = new Order(IdentityNode.INSTANCE, List.of(Order.Condition.asc("?x")), limit);
+        List<Integer> values = new ArrayList<>();
+        Random random = new Random(79);
+        for (int i = 0; i < 300; i++)
+            values.add(random.nextInt(1000));
+        List<Term> actual = new ArrayList<>();
+        try (var sorter = new RowSorter(order, List.of("x"), 3, 2)) {
+            for (Integer value : values)
+                sorter.add(new Term[]{integer(value)});
+            assertEquals(100, sorter.spilledRuns());
+            for (var it = sorter.iterator(); it.hasNext(); )
+                actual.add(it.next()[0]);
+            assertEquals(0, sorter.spilledRuns());
+        }
+        List<Term> expected = values.stream().sorted().limit(limit).map(RowSorterTest::integer)
+                                    .toList();
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void testSpillOnMaxBytes() {
+        var order = new Order(IdentityNode.INSTANCE, Order.Condition.asc("?x"));
+        long rowBytes = RowSorter.estimateBytes(new Term[]{integer(10)});
+        try (var sorter = new RowSorter(order, List.of("x"), Integer.MAX_VALUE, 2*rowBytes,
+                                        RowSorter.MAX_FAN_IN)) {
+            for (int i = 19; i >= 10; i--)
+                sorter.add(new Term[]{integer(i)});
+            assertEquals(5, sorter.spilledRuns());
+            List<Term> actual = new ArrayList<>();
+            for (var it = sorter.iterator(); it.hasNext(); )
+                actual.add(it.next()[0]);
+            assertEquals(IntStream.range(10, 20).mapToObj(RowSorterTest::integer).toList(),
+                         actual);
+        }
+    }
+
+    @Test
+    void testCloseEarly() {
+        var order = new Order(IdentityNode.INSTANCE, Order.Condition.asc("?x"));
+        var sorter = new RowSorter(order, List.of("x"), 2, 2);
+        for (int i = 10; i > 0; i--)
+            sorter.add(new Term[]{integer(i)});
+        assertEquals(5, sorter.spilledRuns());
+        var it = sorter.iterator();
+        assertTrue(it.hasNext());
+        assertEquals(integer(1), it.next()[0]);
+        it.close();
+        assertFalse(it.hasNext());
+        assertEquals(0, sorter.spilledRuns());
+    }
+}
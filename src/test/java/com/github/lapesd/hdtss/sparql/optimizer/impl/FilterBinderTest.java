@@ -0,0 +1,127 @@
+package com.github.lapesd.hdtss.sparql.optimizer.impl;
+
+import com.github.lapesd.hdtss.model.nodes.*;
+import com.github.lapesd.hdtss.sparql.optimizer.Optimizer;
+import com.github.lapesd.hdtss.utils.JenaUtils;
+import io.micronaut.context.ApplicationContext;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static com.github.lapesd.hdtss.TestVocab.*;
+import static com.github.lapesd.hdtss.vocab.FOAF.ageTerm;
+import static com.github.lapesd.hdtss.vocab.FOAF.knowsTerm;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+@Tag("fast")
+class FilterBinderTest {
+    @SuppressWarnings("unused") static Stream<Arguments> test() {
+        TriplePattern knows = new TriplePattern(x, knowsTerm, y);
+        String residual = JenaUtils.toSPARQL(JenaUtils.parseFilter("?x != ?y"));
+        return Stream.of(
+                // bind object
+        /*  1 */arguments(new Filter(knows, "?y = "+Bob),
+                          new Filter(new Assign(new TriplePattern(x, knowsTerm, Bob),
+                                                "y", Bob.toString()),
+                                     "?y = "+Bob)),
+                // sameTerm and IRI on the left side
+        /*  2 */arguments(new Filter(knows, "sameTerm("+Bob+", ?y)"),
+                          new Filter(new Assign(new TriplePattern(x, knowsTerm, Bob),
+                                                "y", Bob.toString()),
+                                     "?y = "+Bob)),
+                // bind subject, projecting to restore the variable order
+        /*  3 */arguments(new Filter(knows, "?x = "+Alice),
+                          new Project(List.of("x", "y"),
+                                  new Filter(new Assign(new TriplePattern(Alice, knowsTerm, y),
+                                                        "x", Alice.toString()),
+                                             "?x = "+Alice))),
+                // IN becomes a union of bound patterns
+        /*  4 */arguments(new Filter(knows, "?y IN ("+Alice+", "+Bob+")"),
+                          new Union(
+                                  new Filter(new Assign(new TriplePattern(x, knowsTerm, Alice),
+                                                        "y", Alice.toString()),
+                                             "?y = "+Alice),
+                                  new Filter(new Assign(new TriplePattern(x, knowsTerm, Bob),
+                                                        "y", Bob.toString()),
+                                             "?y = "+Bob))),
+                // disjunction of equalities becomes a union of bound patterns
+        /*  5 */arguments(new Filter(knows, "?y = "+Alice+" || "+Bob+" = ?y"),
+                          new Union(
+                                  new Filter(new Assign(new TriplePattern(x, knowsTerm, Alice),
+                                                        "y", Alice.toString()),
+                                             "?y = "+Alice),
+                                  new Filter(new Assign(new TriplePattern(x, knowsTerm, Bob),
+                                                        "y", Bob.toString()),
+                                             "?y = "+Bob))),
+                // other conjuncts remain filters
+        /*  6 */arguments(new Filter(knows, "?y = "+Bob+" && ?x != ?y"),
+                          new Filter(new Assign(new TriplePattern(x, knowsTerm, Bob),
+                                                "y", Bob.toString()),
+                                     "?y = "+Bob, residual)),
+                // bind into all join operands
+        /*  7 */arguments(new Filter(new Join(knows, new TriplePattern(y, ageTerm, z)),
+                                     "?y = "+Bob),
+                          new Filter(new Assign(new Join(new TriplePattern(x, knowsTerm, Bob),
+                                                         new TriplePattern(Bob, ageTerm, z)),
+                                                "y", Bob.toString()),
+                                     "?y = "+Bob)),
+                // too many values
+        /*  8 */arguments(new Filter(knows, "?y IN ("+Alice+", "+Bob+", "+Charlie+")"), null),
+                // not an IRI
+        /*  9 */arguments(new Filter(knows, "?y = \"bob\""), null),
+                // IN with a non-IRI value
+        /* 10 */arguments(new Filter(knows, "?y IN ("+Alice+", \"bob\")"), null),
+                // variable not bound by the operand
+        /* 11 */arguments(new Filter(knows, "?z = "+Bob), null),
+                // variable may be unbound under OPTIONAL
+        /* 12 */arguments(new Filter(new LeftJoin(new TriplePattern(x, ageTerm, z), knows),
+                                     "?y = "+Bob), null),
+                // binding into the left side of OPTIONAL changes which solutions are extended
+        /* 13 */arguments(new Filter(new Join(new TriplePattern(Alice, knowsTerm, y),
+                                              new LeftJoin(new TriplePattern(x, ageTerm, z),
+                                                           knows)),
+                                     "?y = "+Bob), null),
+                // slices are not substitutable
+        /* 14 */arguments(new Filter(new Slice(knows, 1, 0), "?y = "+Bob), null),
+                // nested under other operators
+        /* 15 */arguments(new Slice(new Filter(knows, "?y = "+Bob), 1, 0),
+                          new Slice(new Filter(new Assign(new TriplePattern(x, knowsTerm, Bob),
+                                                          "y", Bob.toString()),
+                                               "?y = "+Bob), 1, 0))
+        );
+    }
+
+    @ParameterizedTest @MethodSource
+    void test(@NonNull Op in, @Nullable Op expected) {
+        if (expected == null)
+            expected = in;
+        var optimizer = new FilterBinder(2);
+        Op actual = optimizer.optimize(in);
+        assertEquals(expected.toString(), actual.toString());
+        assertTrue(expected.deepEquals(actual));
+        assertTrue(actual.deepEquals(expected));
+        assertEquals(actual.outputVars(), in.outputVars());
+        assertSame(actual, optimizer.optimize(actual));
+    }
+
+    @Test
+    void testDisable() {
+        for (String value : List.of("true", "false")) {
+            try (var ctx = ApplicationContext.builder()
+                    .args("-hdt.estimator=PATTERN", "-sparql.optimizer.filter-bind="+value)
+                    .start()) {
+                long count = ctx.getBeansOfType(Optimizer.class).stream()
+                        .filter(FilterBinder.class::isInstance).count();
+                assertEquals(value.equals("true") ? 1 : 0, count);
+            }
+        }
+    }
+}
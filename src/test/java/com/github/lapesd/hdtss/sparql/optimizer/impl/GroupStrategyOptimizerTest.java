@@ -0,0 +1,111 @@
+package com.github.lapesd.hdtss.sparql.optimizer.impl;
+
+import com.github.lapesd.hdtss.data.query.impl.HDTUtils;
+import com.github.lapesd.hdtss.model.TermPosition;
+import com.github.lapesd.hdtss.model.nodes.*;
+import com.github.lapesd.hdtss.sparql.impl.triple.TriplePatternExecutor;
+import com.github.lapesd.hdtss.sparql.impl.triple.TriplePatternItExecutor;
+import com.github.lapesd.hdtss.sparql.optimizer.Optimizer;
+import com.github.lapesd.hdtss.utils.Binding;
+import io.micronaut.context.ApplicationContext;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static com.github.lapesd.hdtss.TestVocab.*;
+import static com.github.lapesd.hdtss.model.nodes.Group.Strategy.HASH;
+import static com.github.lapesd.hdtss.model.nodes.Group.Strategy.STREAM;
+import static com.github.lapesd.hdtss.vocab.FOAF.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+@Tag("fast")
+class GroupStrategyOptimizerTest {
+    /** Advertises the order of HDT scans, without an actual HDT */
+    private static final TriplePatternExecutor TRIPLE_EXECUTOR = new TriplePatternItExecutor(null) {
+        @Override public TermPosition sortedBy(@NonNull TriplePattern tp) {
+            return HDTUtils.scanOrder(tp);
+        }
+        @Override public boolean mayScanIndex(@NonNull Filter filter) {
+            return false;
+        }
+    };
+
+    @SuppressWarnings("unused") static Stream<Arguments> test() {
+        TriplePattern knows = new TriplePattern(x, knowsTerm, y);
+        var count = Map.of("c", Group.Aggregate.countAll());
+        return Stream.of(
+                // scan of ?x knows ?y is sorted by ?x
+        /* 1 */ arguments(new Group(knows, List.of("x"), count),
+                          new Group(knows, List.of("x"), count).withStrategy(STREAM)),
+                // ... but not by ?y
+        /* 2 */ arguments(new Group(knows, List.of("y"), count),
+                          new Group(knows, List.of("y"), count).withStrategy(HASH)),
+                // FILTER preserves order
+        /* 3 */ arguments(new Group(new Filter(knows, "?y != ?x"), List.of("x"), count),
+                          new Group(new Filter(knows, "?y != ?x"), List.of("x"), count)
+                                  .withStrategy(STREAM)),
+                // more than one key
+        /* 4 */ arguments(new Group(knows, List.of("x", "y"), count),
+                          new Group(knows, List.of("x", "y"), count).withStrategy(HASH)),
+                // no keys
+        /* 5 */ arguments(new Group(knows, count),
+                          new Group(knows, count).withStrategy(HASH)),
+                // operand is a join
+        /* 6 */ arguments(new Group(new Join(knows, new TriplePattern(y, ageTerm, z)),
+                                    List.of("x"), count),
+                          new Group(new Join(knows, new TriplePattern(y, ageTerm, z)),
+                                    List.of("x"), count).withStrategy(HASH)),
+                // scan of Alice knows ?y is sorted by ?y
+        /* 7 */ arguments(new Group(new TriplePattern(Alice, knowsTerm, y), List.of("y"), count),
+                          new Group(new TriplePattern(Alice, knowsTerm, y), List.of("y"), count)
+                                  .withStrategy(STREAM)),
+                // strategy already chosen
+        /* 8 */ arguments(new Group(knows, List.of("x"), count).withStrategy(HASH),
+                          new Group(knows, List.of("x"), count).withStrategy(HASH)),
+                // nested under other operators
+        /* 9 */ arguments(new Slice(new Group(knows, List.of("x"), count), 1, 0),
+                          new Slice(new Group(knows, List.of("x"), count).withStrategy(STREAM),
+                                    1, 0))
+        );
+    }
+
+    @ParameterizedTest @MethodSource
+    void test(@NonNull Op in, @NonNull Op expected) {
+        var optimizer = new GroupStrategyOptimizer(() -> TRIPLE_EXECUTOR);
+        Op actual = optimizer.optimize(in);
+        assertEquals(expected.toString(), actual.toString());
+        assertTrue(expected.deepEquals(actual));
+        assertTrue(actual.deepEquals(expected));
+        assertSame(actual, optimizer.optimize(actual));
+    }
+
+    @Test
+    void testChooseWithBinding() {
+        var optimizer = new GroupStrategyOptimizer(() -> TRIPLE_EXECUTOR);
+        var count = Map.of("c", Group.Aggregate.countAll());
+        var in = new Group(new TriplePattern(x, z, y), List.of("y"), count);
+        var binding = new Binding(Map.of("x", Alice, "z", knowsTerm));
+        assertEquals(HASH, ((Group) optimizer.optimize(in)).strategy());
+        assertEquals(STREAM, ((Group) optimizer.optimize(in, binding)).strategy());
+    }
+
+    @Test
+    void testDisable() {
+        for (String value : List.of("true", "false")) {
+            try (var ctx = ApplicationContext.builder()
+                    .args("-hdt.estimator=PATTERN", "-sparql.group.stream="+value).start()) {
+                long count = ctx.getBeansOfType(Optimizer.class).stream()
+                        .filter(GroupStrategyOptimizer.class::isInstance).count();
+                assertEquals(value.equals("true") ? 1 : 0, count);
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.github.lapesd.hdtss.sparql.optimizer.impl;
+
+import com.github.lapesd.hdtss.data.query.impl.HDTUtils;
+import com.github.lapesd.hdtss.data.query.impl.PatternCardinalityEstimator;
+import com.github.lapesd.hdtss.model.TermPosition;
+import com.github.lapesd.hdtss.model.nodes.*;
+import com.github.lapesd.hdtss.sparql.impl.triple.TriplePatternExecutor;
+import com.github.lapesd.hdtss.sparql.impl.triple.TriplePatternItExecutor;
+import com.github.lapesd.hdtss.sparql.optimizer.Optimizer;
+import io.micronaut.context.ApplicationContext;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static com.github.lapesd.hdtss.TestVocab.*;
+import static com.github.lapesd.hdtss.model.nodes.Join.Strategy.BIND;
+import static com.github.lapesd.hdtss.model.nodes.Join.Strategy.HASH;
+import static com.github.lapesd.hdtss.model.nodes.Join.Strategy.MERGE;
+import static com.github.lapesd.hdtss.vocab.FOAF.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+@Tag("fast")
+class JoinStrategyOptimizerTest {
+    /** Advertises the order of HDT scans, without an actual HDT */
+    private static final TriplePatternExecutor TRIPLE_EXECUTOR = new TriplePatternItExecutor(null) {
+        @Override public TermPosition sortedBy(@NonNull TriplePattern tp) {
+            return HDTUtils.scanOrder(tp);
+        }
+    };
+
+    @SuppressWarnings("unused") static Stream<Arguments> test() {
+        TriplePattern knowsAlice = new TriplePattern(x, knowsTerm, Alice);
+        TriplePattern names = new TriplePattern(x, nameTerm, y);
+        TriplePattern all = new TriplePattern(x, z, w);
+        return Stream.of(
+                // selective left operand (1000) vs. right operand (10000)
+        /* 1 */ arguments(new Join(knowsAlice, names),
+                          new Join(List.of(knowsAlice, names), BIND)),
+                // large left operand (100000) vs. right operand (10000), both sorted by ?x
+        /* 2 */ arguments(new Join(all, names),
+                          new Join(List.of(all, names), MERGE)),
+        /* 3 */ arguments(new LeftJoin(all, names),
+                          new LeftJoin(List.of(all, names), HASH)),
+                // right operand needs bindings from the left
+        /* 4 */ arguments(new Join(all, new Filter(names, "?w > ?y")),
+                          new Join(List.of(all, new Filter(names, "?w > ?y")), BIND)),
+                // strategy already chosen
+        /* 5 */ arguments(new Join(List.of(all, names), BIND),
+                          new Join(List.of(all, names), BIND)),
+                // nested joins
+        /* 6 */ arguments(new Project(List.of("x"),
+                                      new LeftJoin(new Join(knowsAlice, names), all)),
+                          new Project(List.of("x"),
+                                      new LeftJoin(List.of(new Join(List.of(knowsAlice, names),
+                                                                    BIND), all), BIND))),
+                // large operands sorted by different variables
+        /* 7 */ arguments(new Join(all, new TriplePattern(w, nameTerm, y)),
+                          new Join(List.of(all, new TriplePattern(w, nameTerm, y)), HASH)),
+                // operands sorted by the predicate, which is not the shared variable
+        /* 8 */ arguments(new Join(new TriplePattern(Alice, z, y), new TriplePattern(Bob, w, y)),
+                          new Join(List.of(new TriplePattern(Alice, z, y),
+                                           new TriplePattern(Bob, w, y)), HASH)),
+                // operands sorted by the shared object variable
+        /* 9 */ arguments(new Join(new TriplePattern(Alice, knowsTerm, y),
+                                   new TriplePattern(Bob, knowsTerm, y)),
+                          new Join(List.of(new TriplePattern(Alice, knowsTerm, y),
+                                           new TriplePattern(Bob, knowsTerm, y)), MERGE))
+        );
+    }
+
+    @ParameterizedTest @MethodSource
+    void test(@NonNull Op in, @NonNull Op expected) {
+        var optimizer = new JoinStrategyOptimizer(new PatternCardinalityEstimator(), 4,
+                                                  () -> TRIPLE_EXECUTOR);
+        Op actual = optimizer.optimize(in);
+        assertEquals(expected.toString(), actual.toString());
+        assertTrue(expected.deepEquals(actual));
+        assertTrue(actual.deepEquals(expected));
+        assertSame(actual, optimizer.optimize(actual));
+    }
+
+    @Test
+    void testEnabledOnlyForHashStrategy() {
+        for (String strategy : List.of("BIND", "HASH")) {
+            try (var ctx = ApplicationContext.builder()
+                    .args("-hdt.estimator=PATTERN", "-sparql.join.strategy="+strategy).start()) {
+                long count = ctx.getBeansOfType(Optimizer.class).stream()
+                        .filter(JoinStrategyOptimizer.class::isInstance).count();
+                assertEquals(strategy.equals("HASH") ? 1 : 0, count);
+            }
+        }
+    }
+}